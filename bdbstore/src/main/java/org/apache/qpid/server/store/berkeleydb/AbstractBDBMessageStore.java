@@ -20,7 +20,9 @@ package org.apache.qpid.server.store.berkeleydb;
 
 import static org.apache.qpid.server.store.berkeleydb.BDBUtils.DEFAULT_DATABASE_CONFIG;
 import static org.apache.qpid.server.store.berkeleydb.BDBUtils.abortTransactionSafely;
+import static org.apache.qpid.server.store.berkeleydb.BDBUtils.closeCursorSafely;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,10 +32,12 @@ import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sleepycat.bind.tuple.LongBinding;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
@@ -50,7 +54,9 @@ import org.slf4j.Logger;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.Event;
 import org.apache.qpid.server.store.EventListener;
 import org.apache.qpid.server.store.EventManager;
@@ -74,6 +80,7 @@ import org.apache.qpid.server.store.handler.MessageInstanceHandler;
 import org.apache.qpid.server.txn.Xid;
 import org.apache.qpid.server.util.CachingUUIDFactory;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
+import org.apache.qpid.server.virtualhost.berkeleydb.BDBVirtualHost;
 
 
 public abstract class AbstractBDBMessageStore implements MessageStore
@@ -111,8 +118,12 @@ public abstract class AbstractBDBMessageStore implements MessageStore
     private final Random _lockConflictRandom = new Random();
     private final AtomicLong _inMemorySize = new AtomicLong();
     private final AtomicLong _bytesEvacuatedFromMemory = new AtomicLong();
+    private final LatencyHistogram _commitLatency =
+            new LatencyHistogram("storeCommitLatency", "Latency of message store transaction commits");
     private final Set<StoredBDBMessage<?>> _messages = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<MessageDeleteListener> _messageDeleteListeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final EntryWriteBuffers _entryWriteBuffers = EntryWriteBuffers.getSharedInstance();
+    private final EntryWriteBuffers.Statistics _entryWriteBufferStatistics = new EntryWriteBuffers.Statistics();
 
     @Override
     public void openMessageStore(final ConfiguredObject<?> parent)
@@ -130,6 +141,11 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                 _persistentSizeLowThreshold = _persistentSizeHighThreshold;
             }
 
+            _entryWriteBuffers.open(BDBUtils.getContextValue(parent,
+                                                             Long.class,
+                                                             BDBVirtualHost.QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE,
+                                                             BDBVirtualHost.DEFAULT_QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE));
+
             doOpen(parent);
         }
     }
@@ -148,6 +164,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             _messages.clear();
             _inMemorySize.set(0);
             _bytesEvacuatedFromMemory.set(0);
+            _entryWriteBuffers.close();
             doClose();
         }
     }
@@ -262,10 +279,34 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         return true;
     }
 
+    @Override
+    public LatencyHistogram getCommitLatency()
+    {
+        return _commitLatency;
+    }
+
     @Override
     public void resetStatistics()
     {
         _bytesEvacuatedFromMemory.set(0L);
+        _commitLatency.reset();
+        _entryWriteBufferStatistics.reset();
+    }
+
+    /**
+     * Returns the number of bytes of heap arrays allocated to write message metadata and content to the database.
+     */
+    public long getWriteBufferAllocatedBytes()
+    {
+        return _entryWriteBufferStatistics.getAllocatedBytes();
+    }
+
+    /**
+     * Returns the number of bytes of message metadata and content written from previously allocated heap arrays.
+     */
+    public long getWriteBufferReusedBytes()
+    {
+        return _entryWriteBufferStatistics.getReusedBytes();
     }
 
     @Override
@@ -430,11 +471,29 @@ public abstract class AbstractBDBMessageStore implements MessageStore
 
     QpidByteBuffer getAllContent(long messageId) throws StoreException
     {
-        DatabaseEntry contentKeyEntry = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, contentKeyEntry);
+        getLogger().debug("Message Id: {} Getting content body", messageId);
+
+        return getContent(messageId, new DatabaseEntry());
+    }
+
+    /**
+     * Reads the given range of the content of a message, without copying the rest of the content out of the store.
+     * The record is still fetched in full, so the content of a message should not be read piecewise with this method.
+     */
+    QpidByteBuffer getContent(long messageId, int offset, int length) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Getting {} byte(s) of content body from offset {}",
+                          messageId, length, offset);
+
         DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(offset, length, true);
+        return getContent(messageId, value);
+    }
 
-        getLogger().debug("Message Id: {} Getting content body", messageId);
+    private QpidByteBuffer getContent(long messageId, DatabaseEntry value) throws StoreException
+    {
+        DatabaseEntry contentKeyEntry = new DatabaseEntry();
+        LongBinding.longToEntry(messageId, contentKeyEntry);
 
         try
         {
@@ -442,13 +501,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
 
             if (status == OperationStatus.SUCCESS)
             {
-                byte[] data = value.getData();
-                int offset = value.getOffset();
-                int length = value.getSize();
-                QpidByteBuffer buf = QpidByteBuffer.allocateDirect(length);
-                buf.put(data, offset, length);
-                buf.flip();
-                return buf;
+                return toQpidByteBuffer(value);
             }
             else
             {
@@ -465,6 +518,109 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         }
     }
 
+    /**
+     * Opens a reader of the content of a message which reads the content piecewise through a single cursor
+     * positioned on the content record, rather than looking the record up again for each piece.
+     * <p>
+     * This bounds the memory the broker uses to send the content, but not the memory used by JE: JE fetches the
+     * whole record even for a partial read, and with the default {@link com.sleepycat.je.CacheMode#EVICT_LN} cache
+     * mode the record is evicted from the JE heap cache only once the cursor moves off it, so the whole record stays
+     * in the cache while the reader is open.
+     */
+    MessageContentReader openContentReader(long messageId, int contentSize) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Opening reader of content body", messageId);
+
+        DatabaseEntry contentKeyEntry = new DatabaseEntry();
+        LongBinding.longToEntry(messageId, contentKeyEntry);
+        DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(0, 0, true);
+
+        Cursor cursor = null;
+        OperationStatus status;
+        try
+        {
+            cursor = getMessageContentDb().openCursor(null, null);
+            status = cursor.getSearchKey(contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
+        }
+        catch (RuntimeException e)
+        {
+            closeCursorSafely(cursor, getEnvironmentFacade());
+            throw getEnvironmentFacade().handleDatabaseException("Error getting AMQMessage with id "
+                                                                 + messageId
+                                                                 + " to database: "
+                                                                 + e.getMessage(), e);
+        }
+
+        if (status != OperationStatus.SUCCESS)
+        {
+            closeCursorSafely(cursor, getEnvironmentFacade());
+            throw new StoreException("Unable to find message with id " + messageId);
+        }
+        return new BDBMessageContentReader(messageId, cursor, contentSize);
+    }
+
+    private static QpidByteBuffer toQpidByteBuffer(final DatabaseEntry value)
+    {
+        byte[] data = value.getData();
+        int offset = value.getOffset();
+        int length = value.getSize();
+        QpidByteBuffer buf = QpidByteBuffer.allocateDirect(length);
+        buf.put(data, offset, length);
+        buf.flip();
+        return buf;
+    }
+
+    private class BDBMessageContentReader implements MessageContentReader
+    {
+        private final long _messageId;
+        private final Cursor _cursor;
+        private final int _contentSize;
+        private int _position;
+
+        private BDBMessageContentReader(final long messageId, final Cursor cursor, final int contentSize)
+        {
+            _messageId = messageId;
+            _cursor = cursor;
+            _contentSize = contentSize;
+        }
+
+        @Override
+        public QpidByteBuffer read(final int length)
+        {
+            final int rangeLength = Math.min(length, _contentSize - _position);
+            DatabaseEntry key = new DatabaseEntry();
+            key.setPartial(0, 0, true);
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(_position, rangeLength, true);
+            OperationStatus status;
+            try
+            {
+                status = _cursor.getCurrent(key, value, LockMode.READ_UNCOMMITTED);
+            }
+            catch (RuntimeException e)
+            {
+                throw getEnvironmentFacade().handleDatabaseException("Error getting AMQMessage with id "
+                                                                     + _messageId
+                                                                     + " to database: "
+                                                                     + e.getMessage(), e);
+            }
+
+            if (status != OperationStatus.SUCCESS)
+            {
+                throw new StoreException("Unable to find message with id " + _messageId);
+            }
+            _position += rangeLength;
+            return toQpidByteBuffer(value);
+        }
+
+        @Override
+        public void close()
+        {
+            closeCursorSafely(_cursor, getEnvironmentFacade());
+        }
+    }
+
     private void visitMessagesInternal(MessageHandler handler, EnvironmentFacade environmentFacade)
     {
         DatabaseEntry key = new DatabaseEntry();
@@ -553,9 +709,10 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         LongBinding.longToEntry(messageId, key);
         DatabaseEntry value = new DatabaseEntry();
 
-        byte[] data = new byte[contentBody.remaining()];
-        contentBody.copyTo(data);
-        value.setData(data);
+        final int size = contentBody.remaining();
+        final byte[] data = _entryWriteBuffers.getBuffer(size, _entryWriteBufferStatistics);
+        contentBody.copyTo(ByteBuffer.wrap(data, 0, size));
+        value.setData(data, 0, size);
         try
         {
             OperationStatus status = getMessageContentDb().put(tx, key, value);
@@ -574,6 +731,11 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                                                                  + " to database: "
                                                                  + e.getMessage(), e);
         }
+        finally
+        {
+            // JE has copied the data by the time put returns
+            _entryWriteBuffers.returnBuffer(data);
+        }
     }
 
     /**
@@ -596,33 +758,42 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         DatabaseEntry value = new DatabaseEntry();
 
         MessageMetaDataBinding messageBinding = MessageMetaDataBinding.getInstance();
-        messageBinding.objectToEntry(messageMetaData, value);
+        final byte[] data = _entryWriteBuffers.getBuffer(MessageMetaDataBinding.getEntrySize(messageMetaData),
+                                                         _entryWriteBufferStatistics);
+        messageBinding.objectToEntry(messageMetaData, value, data);
 
         boolean complete = false;
         int attempts = 0;
 
-        do
+        try
         {
-            try
+            do
             {
-                getMessageMetaDataDb().put(tx, key, value);
-                getLogger().debug("Storing message metadata for message id {} in transaction {}", messageId, tx);
-                complete = true;
+                try
+                {
+                    getMessageMetaDataDb().put(tx, key, value);
+                    getLogger().debug("Storing message metadata for message id {} in transaction {}", messageId, tx);
+                    complete = true;
 
+                }
+                catch (LockConflictException e)
+                {
+                    sleepOrThrowOnLockConflict(attempts++, "Cannot store metadata", e);
+                }
+                catch (RuntimeException e)
+                {
+                    throw getEnvironmentFacade().handleDatabaseException("Error writing message metadata with id "
+                            + messageId
+                            + " to database: "
+                            + e.getMessage(), e);
+                }
             }
-            catch (LockConflictException e)
-            {
-                sleepOrThrowOnLockConflict(attempts++, "Cannot store metadata", e);
-            }
-            catch (RuntimeException e)
-            {
-                throw getEnvironmentFacade().handleDatabaseException("Error writing message metadata with id "
-                        + messageId
-                        + " to database: "
-                        + e.getMessage(), e);
-            }
+            while(!complete);
+        }
+        finally
+        {
+            _entryWriteBuffers.returnBuffer(data);
         }
-        while(!complete);
     }
 
 
@@ -808,7 +979,9 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             throw new StoreException("Fatal internal error: transactional is null at commitTran");
         }
 
+        final long startTime = System.nanoTime();
         getEnvironmentFacade().commit(tx);
+        _commitLatency.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
 
         getLogger().debug("commitTranImpl completed {} transaction synchronous", tx);
 
@@ -822,7 +995,10 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             throw new StoreException("Fatal internal error: transactional is null at commitTran");
         }
 
+        final long startTime = System.nanoTime();
         ListenableFuture<X> result = getEnvironmentFacade().commitAsync(tx, val);
+        result.addListener(() -> _commitLatency.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS),
+                           MoreExecutors.directExecutor());
 
         getLogger().debug("commitTranAsynImpl completed transaction {}", tx);
 
@@ -1161,6 +1337,15 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         @Override
         public synchronized QpidByteBuffer getContent(int offset, int length)
         {
+            if (isRangeOfContentNotInMemory(offset, length))
+            {
+                // read only the requested range, leaving the rest of the content on disk
+                checkMessageStoreOpen();
+                return AbstractBDBMessageStore.this.getContent(_messageId,
+                                                               offset,
+                                                               Math.min(length, getContentSize() - offset));
+            }
+
             QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
             if (length == Integer.MAX_VALUE)
             {
@@ -1169,6 +1354,27 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             return contentAsByteBuffer.view(offset, length);
         }
 
+        @Override
+        public synchronized MessageContentReader openContentReader()
+        {
+            if (_messageDataRef != null && _messageDataRef.getData() == null && stored())
+            {
+                // stream the content from the store, leaving it on disk
+                checkMessageStoreOpen();
+                return AbstractBDBMessageStore.this.openContentReader(_messageId, getContentSize());
+            }
+            return StoredMessage.super.openContentReader();
+        }
+
+        private boolean isRangeOfContentNotInMemory(final int offset, final int length)
+        {
+            return (offset > 0 || length < getContentSize())
+                   && offset < getContentSize()
+                   && _messageDataRef != null
+                   && _messageDataRef.getData() == null
+                   && stored();
+        }
+
         @Override
         public int getContentSize()
         {
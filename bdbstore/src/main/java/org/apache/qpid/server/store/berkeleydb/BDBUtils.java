@@ -27,6 +27,7 @@ import java.util.regex.Pattern;
 
 import com.sleepycat.je.CacheMode;
 import com.sleepycat.je.CheckpointConfig;
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
@@ -62,6 +63,22 @@ public class BDBUtils
         }
     }
 
+    public static void closeCursorSafely(Cursor cursor, EnvironmentFacade environmentFacade)
+    {
+        try
+        {
+            if (cursor != null)
+            {
+                cursor.close();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // We need the possible side effect of the facade restarting the environment but don't care about the exception
+            environmentFacade.handleDatabaseException("Cannot close cursor", e);
+        }
+    }
+
     public synchronized static void runCleaner(final Environment environment)
     {
         if (environment == null || !environment.isValid())
@@ -0,0 +1,186 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.qpid.server.virtualhost.berkeleydb.BDBVirtualHost;
+
+/**
+ * Pool of heap arrays from which message metadata and content are written to the database.
+ * <p>
+ * JE copies the data of a database entry when the entry is written, so the array holding the data may be returned
+ * to the pool as soon as the write returns. Arrays are pooled by size, rounded up to a power of two, and the total
+ * size of the arrays held by the pool is bounded. An array which is returned while the pool is full, or which is
+ * larger than the pool, is left to the garbage collector.
+ * <p>
+ * A single pool is shared by all the message stores of the broker. Its arrays are released once the last store
+ * using it is closed.
+ */
+final class EntryWriteBuffers
+{
+    private static final int MINIMUM_BUFFER_SIZE_SHIFT = 8;
+    private static final int MAXIMUM_BUFFER_SIZE_SHIFT = 30;
+    private static final EntryWriteBuffers SHARED_INSTANCE =
+            new EntryWriteBuffers(BDBVirtualHost.DEFAULT_QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE);
+
+    private final Queue<byte[]>[] _pooledBuffers;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+    private final AtomicInteger _users = new AtomicInteger();
+    private volatile long _maximumPoolSize;
+
+    @SuppressWarnings("unchecked")
+    EntryWriteBuffers(final long maximumPoolSize)
+    {
+        _maximumPoolSize = maximumPoolSize;
+        _pooledBuffers = new Queue[MAXIMUM_BUFFER_SIZE_SHIFT + 1];
+        for (int i = MINIMUM_BUFFER_SIZE_SHIFT; i <= MAXIMUM_BUFFER_SIZE_SHIFT; i++)
+        {
+            _pooledBuffers[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    static EntryWriteBuffers getSharedInstance()
+    {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Registers a user of the pool, which from now on holds arrays up to the given total size.
+     */
+    void open(final long maximumPoolSize)
+    {
+        _maximumPoolSize = maximumPoolSize;
+        _users.incrementAndGet();
+    }
+
+    /**
+     * Deregisters a user of the pool, releasing the pooled arrays if no other user remains.
+     */
+    void close()
+    {
+        if (_users.decrementAndGet() <= 0)
+        {
+            clear();
+        }
+    }
+
+    /**
+     * Returns an array of at least the given size, which the caller should hand back by
+     * {@link #returnBuffer(byte[])} once the data written from it has been copied by the database.
+     */
+    byte[] getBuffer(final int size, final Statistics statistics)
+    {
+        final int shift = getSizeShift(size);
+        final long maximumPoolSize = _maximumPoolSize;
+        if (shift > MAXIMUM_BUFFER_SIZE_SHIFT || (1L << shift) > maximumPoolSize)
+        {
+            statistics._allocatedBytes.add(size);
+            return new byte[size];
+        }
+
+        final byte[] pooled = _pooledBuffers[shift].poll();
+        if (pooled != null)
+        {
+            _pooledBytes.addAndGet(-pooled.length);
+            statistics._reusedBytes.add(size);
+            return pooled;
+        }
+
+        statistics._allocatedBytes.add(1L << shift);
+        return new byte[1 << shift];
+    }
+
+    /**
+     * Hands back an array obtained from {@link #getBuffer(int, Statistics)}, retaining it if the pool has room.
+     */
+    void returnBuffer(final byte[] buffer)
+    {
+        final int length = buffer.length;
+        if (Integer.bitCount(length) != 1 || length < 1 << MINIMUM_BUFFER_SIZE_SHIFT)
+        {
+            return;
+        }
+
+        long pooledBytes;
+        do
+        {
+            pooledBytes = _pooledBytes.get();
+            if (pooledBytes + length > _maximumPoolSize)
+            {
+                return;
+            }
+        }
+        while (!_pooledBytes.compareAndSet(pooledBytes, pooledBytes + length));
+        _pooledBuffers[Integer.numberOfTrailingZeros(length)].offer(buffer);
+    }
+
+    void clear()
+    {
+        for (int i = MINIMUM_BUFFER_SIZE_SHIFT; i <= MAXIMUM_BUFFER_SIZE_SHIFT; i++)
+        {
+            byte[] buffer;
+            while ((buffer = _pooledBuffers[i].poll()) != null)
+            {
+                _pooledBytes.addAndGet(-buffer.length);
+            }
+        }
+    }
+
+    long getPooledBytes()
+    {
+        return _pooledBytes.get();
+    }
+
+    private static int getSizeShift(final int size)
+    {
+        return Math.max(MINIMUM_BUFFER_SIZE_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, size) - 1));
+    }
+
+    /**
+     * Counts, for one message store, the bytes of the arrays allocated and reused to write to its database.
+     */
+    static final class Statistics
+    {
+        private final LongAdder _allocatedBytes = new LongAdder();
+        private final LongAdder _reusedBytes = new LongAdder();
+
+        long getAllocatedBytes()
+        {
+            return _allocatedBytes.sum();
+        }
+
+        long getReusedBytes()
+        {
+            return _reusedBytes.sum();
+        }
+
+        void reset()
+        {
+            _allocatedBytes.reset();
+            _reusedBytes.reset();
+        }
+    }
+}
@@ -74,10 +74,19 @@ public class MessageMetaDataBinding implements EntryBinding<StorableMessageMetaD
     @Override
     public void objectToEntry(StorableMessageMetaData metaData, DatabaseEntry entry)
     {
-        final int bodySize = 1 + metaData.getStorableSize();
-        byte[] underlying = new byte[4+bodySize];
+        objectToEntry(metaData, entry, new byte[getEntrySize(metaData)]);
+    }
+
+    /**
+     * Writes the meta data into the start of the given array, which must hold at least
+     * {@link #getEntrySize(StorableMessageMetaData)} bytes, and sets that part of the array as the data of the entry.
+     */
+    public void objectToEntry(StorableMessageMetaData metaData, DatabaseEntry entry, byte[] underlying)
+    {
+        final int entrySize = getEntrySize(metaData);
+        final int bodySize = entrySize - 4;
         underlying[4] = (byte) metaData.getType().ordinal();
-        try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying))
+        try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying, 0, entrySize))
         {
             buf.putInt(bodySize ^ 0x80000000);
             buf.position(5);
@@ -86,6 +95,11 @@ public class MessageMetaDataBinding implements EntryBinding<StorableMessageMetaD
                 metaData.writeToBuffer(bufSlice);
             }
         }
-        entry.setData(underlying);
+        entry.setData(underlying, 0, entrySize);
+    }
+
+    public static int getEntrySize(StorableMessageMetaData metaData)
+    {
+        return 4 + 1 + metaData.getStorableSize();
     }
 }
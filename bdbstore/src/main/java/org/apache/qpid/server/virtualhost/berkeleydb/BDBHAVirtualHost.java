@@ -22,6 +22,9 @@ package org.apache.qpid.server.virtualhost.berkeleydb;
 
 import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 import org.apache.qpid.server.store.SizeMonitoringSettings;
 import org.apache.qpid.server.virtualhost.NonStandardVirtualHost;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -57,4 +60,13 @@ public interface BDBHAVirtualHost<X extends BDBHAVirtualHost<X>>
     @ManagedAttribute(mandatory = true, defaultValue = "0")
     Long getStoreOverfullSize();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Write Buffer Allocated Bytes",
+            description = "Total number of bytes of heap arrays allocated to write message metadata and content to the store.",
+            resettable = true)
+    long getWriteBufferAllocatedBytes();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Write Buffer Reused Bytes",
+            description = "Total number of bytes of message metadata and content written to the store from reused heap arrays.",
+            resettable = true)
+    long getWriteBufferReusedBytes();
 }
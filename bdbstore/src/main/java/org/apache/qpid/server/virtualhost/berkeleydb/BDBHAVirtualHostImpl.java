@@ -29,6 +29,7 @@ import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.ManagedObjectFactoryConstructor;
 import org.apache.qpid.server.model.VirtualHostNode;
 import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.berkeleydb.AbstractBDBMessageStore;
 import org.apache.qpid.server.store.berkeleydb.BDBConfigurationStore;
 import org.apache.qpid.server.store.berkeleydb.replication.ReplicatedEnvironmentFacade;
 import org.apache.qpid.server.virtualhost.AbstractVirtualHost;
@@ -168,4 +169,17 @@ public class BDBHAVirtualHostImpl extends AbstractVirtualHost<BDBHAVirtualHostIm
         validateTransactionSynchronizationPolicy(this.getRemoteTransactionSynchronizationPolicy());
     }
 
+    @Override
+    public long getWriteBufferAllocatedBytes()
+    {
+        final AbstractBDBMessageStore messageStore = (AbstractBDBMessageStore) getMessageStore();
+        return messageStore == null ? 0L : messageStore.getWriteBufferAllocatedBytes();
+    }
+
+    @Override
+    public long getWriteBufferReusedBytes()
+    {
+        final AbstractBDBMessageStore messageStore = (AbstractBDBMessageStore) getMessageStore();
+        return messageStore == null ? 0L : messageStore.getWriteBufferReusedBytes();
+    }
 }
@@ -22,6 +22,9 @@ package org.apache.qpid.server.virtualhost.berkeleydb;
 
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 import org.apache.qpid.server.store.FileBasedSettings;
 import org.apache.qpid.server.store.SizeMonitoringSettings;
 import org.apache.qpid.server.store.berkeleydb.BDBEnvironmentContainer;
@@ -39,6 +42,7 @@ public interface BDBVirtualHost<X extends BDBVirtualHost<X>> extends QueueManagi
     String QPID_BROKER_BDB_TOTAL_CACHE_SIZE = "qpid.broker.bdbTotalCacheSize";
     String QPID_BROKER_BDB_COMMITER_NOTIFY_THRESHOLD = "qpid.broker.bdbCommiterNotifyThreshold";
     String QPID_BROKER_BDB_COMMITER_WAIT_TIMEOUT = "qpid.broker.bdbCommiterWaitTimeout";
+    String QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE = "qpid.broker.bdbWriteBufferPoolSize";
 
     // Default the JE cache to 5% of total memory, but no less than 10Mb
     @ManagedContextDefault(name= QPID_BROKER_BDB_TOTAL_CACHE_SIZE)
@@ -52,6 +56,10 @@ public interface BDBVirtualHost<X extends BDBVirtualHost<X>> extends QueueManagi
     @ManagedContextDefault(name = QPID_BROKER_BDB_COMMITER_WAIT_TIMEOUT, description = "Timeout for BDB log flush to the disk")
     long DEFAULT_QPID_BROKER_BDB_COMMITER_WAIT_TIMEOUT = 500L;
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE, description = "Maximum total size of the arrays pooled for writing message data to BDB. The pool is shared by all BDB message stores of the broker, and content larger than the pool is written from an array allocated for the write.")
+    long DEFAULT_QPID_BROKER_BDB_WRITE_BUFFER_POOL_SIZE = 32L * 1024 * 1024;
+
     @Override
     @ManagedAttribute(mandatory = true, defaultValue = "${qpid.work_dir}${file.separator}${this:name}${file.separator}messages")
     String getStorePath();
@@ -64,4 +72,13 @@ public interface BDBVirtualHost<X extends BDBVirtualHost<X>> extends QueueManagi
     @ManagedAttribute(mandatory = true, defaultValue = "0")
     Long getStoreOverfullSize();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Write Buffer Allocated Bytes",
+            description = "Total number of bytes of heap arrays allocated to write message metadata and content to the store.",
+            resettable = true)
+    long getWriteBufferAllocatedBytes();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Write Buffer Reused Bytes",
+            description = "Total number of bytes of message metadata and content written to the store from reused heap arrays.",
+            resettable = true)
+    long getWriteBufferReusedBytes();
 }
@@ -28,6 +28,7 @@ import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.ManagedObjectFactoryConstructor;
 import org.apache.qpid.server.model.VirtualHostNode;
 import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.berkeleydb.AbstractBDBMessageStore;
 import org.apache.qpid.server.store.berkeleydb.BDBMessageStore;
 import org.apache.qpid.server.store.berkeleydb.EnvironmentFacade;
 import org.apache.qpid.server.store.berkeleydb.BDBCacheSizeSetter;
@@ -193,4 +194,18 @@ public class BDBVirtualHostImpl extends AbstractVirtualHost<BDBVirtualHostImpl>
         }
         return null;
     }
+
+    @Override
+    public long getWriteBufferAllocatedBytes()
+    {
+        final AbstractBDBMessageStore messageStore = (AbstractBDBMessageStore) getMessageStore();
+        return messageStore == null ? 0L : messageStore.getWriteBufferAllocatedBytes();
+    }
+
+    @Override
+    public long getWriteBufferReusedBytes()
+    {
+        final AbstractBDBMessageStore messageStore = (AbstractBDBMessageStore) getMessageStore();
+        return messageStore == null ? 0L : messageStore.getWriteBufferReusedBytes();
+    }
 }
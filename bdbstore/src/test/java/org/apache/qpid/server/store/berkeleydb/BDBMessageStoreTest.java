@@ -22,6 +22,7 @@ package org.apache.qpid.server.store.berkeleydb;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -173,6 +174,53 @@ public class BDBMessageStoreTest extends MessageStoreTestCase
         return storedMessage_0_8.allContentAdded();
     }
 
+    @Test
+    public void testLargeContentWrittenFromPooledBuffers()
+    {
+        final BDBMessageStore bdbStore = (BDBMessageStore) getStore();
+        final byte[] content = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+
+        final long firstMessageId = storeMessage(bdbStore, content);
+        final long allocatedBytes = bdbStore.getWriteBufferAllocatedBytes();
+        final long reusedBytes = bdbStore.getWriteBufferReusedBytes();
+        final long secondMessageId = storeMessage(bdbStore, content);
+
+        assertEquals(allocatedBytes, bdbStore.getWriteBufferAllocatedBytes(),
+                     "Array allocated to write the content of the second message");
+        assertTrue(bdbStore.getWriteBufferReusedBytes() - reusedBytes >= content.length,
+                   "Content of the second message not written from a pooled array");
+
+        for (long messageId : new long[] {firstMessageId, secondMessageId})
+        {
+            final QpidByteBuffer storedContent = bdbStore.getAllContent(messageId);
+            try
+            {
+                final byte[] storedBytes = new byte[storedContent.remaining()];
+                storedContent.get(storedBytes);
+                assertArrayEquals(content, storedBytes, "Unexpected content of message " + messageId);
+            }
+            finally
+            {
+                storedContent.dispose();
+            }
+        }
+    }
+
+    private long storeMessage(final MessageStore store, final byte[] content)
+    {
+        final ContentHeaderBody contentHeaderBody =
+                createContentHeaderBody_0_8(createContentHeaderProperties_0_8(), content.length);
+        final MessageMetaData metaData = new MessageMetaData(createPublishInfoBody_0_8(), contentHeaderBody);
+        final MessageHandle<MessageMetaData> handle = store.addMessage(metaData);
+        handle.addContent(QpidByteBuffer.wrap(content));
+        ((AbstractBDBMessageStore.StoredBDBMessage) handle).flushToStore();
+        return handle.allContentAdded().getMessageNumber();
+    }
+
     @Test
     public void testOnDelete()
     {
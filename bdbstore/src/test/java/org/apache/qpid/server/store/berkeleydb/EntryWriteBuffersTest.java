@@ -0,0 +1,119 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class EntryWriteBuffersTest extends UnitTestBase
+{
+    @Test
+    public void testReturnedBufferReused()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(4096);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+
+        final byte[] first = buffers.getBuffer(1000, statistics);
+        assertEquals(1024, first.length, "Unexpected buffer size");
+        buffers.returnBuffer(first);
+        assertEquals(1024, buffers.getPooledBytes(), "Unexpected pooled bytes");
+
+        assertSame(first, buffers.getBuffer(600, statistics), "Buffer not reused");
+        assertEquals(0, buffers.getPooledBytes(), "Unexpected pooled bytes");
+        assertEquals(1024, statistics.getAllocatedBytes(), "Unexpected allocated bytes");
+        assertEquals(600, statistics.getReusedBytes(), "Unexpected reused bytes");
+    }
+
+    @Test
+    public void testBufferNotReusedUntilReturned()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(4096);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+
+        final byte[] first = buffers.getBuffer(1000, statistics);
+        assertNotSame(first, buffers.getBuffer(1000, statistics), "Buffer handed out twice");
+    }
+
+    @Test
+    public void testPoolSizeBounded()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(2048);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+
+        final byte[] first = buffers.getBuffer(1024, statistics);
+        final byte[] second = buffers.getBuffer(1024, statistics);
+        final byte[] third = buffers.getBuffer(1024, statistics);
+        buffers.returnBuffer(first);
+        buffers.returnBuffer(second);
+        buffers.returnBuffer(third);
+
+        assertEquals(2048, buffers.getPooledBytes(), "Pool grew beyond its maximum size");
+    }
+
+    @Test
+    public void testBufferLargerThanPoolNotPooled()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(2048);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+
+        final byte[] oversized = buffers.getBuffer(3000, statistics);
+        assertEquals(3000, oversized.length, "Unexpected buffer size");
+        buffers.returnBuffer(oversized);
+
+        assertEquals(0, buffers.getPooledBytes(), "Oversized buffer pooled");
+        assertEquals(3000, statistics.getAllocatedBytes(), "Unexpected allocated bytes");
+    }
+
+    @Test
+    public void testPoolClearedWhenLastUserCloses()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(4096);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+        buffers.open(4096);
+        buffers.open(4096);
+
+        buffers.returnBuffer(buffers.getBuffer(1024, statistics));
+        buffers.close();
+        assertEquals(1024, buffers.getPooledBytes(), "Pool cleared while still in use");
+
+        buffers.close();
+        assertEquals(0, buffers.getPooledBytes(), "Pool not cleared when no longer used");
+    }
+
+    @Test
+    public void testResetStatistics()
+    {
+        final EntryWriteBuffers buffers = new EntryWriteBuffers(4096);
+        final EntryWriteBuffers.Statistics statistics = new EntryWriteBuffers.Statistics();
+        buffers.returnBuffer(buffers.getBuffer(10, statistics));
+        buffers.getBuffer(10, statistics);
+
+        statistics.reset();
+
+        assertEquals(0, statistics.getAllocatedBytes(), "Unexpected allocated bytes");
+        assertEquals(0, statistics.getReusedBytes(), "Unexpected reused bytes");
+    }
+}
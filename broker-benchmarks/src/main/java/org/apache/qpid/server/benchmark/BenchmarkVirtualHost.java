@@ -0,0 +1,75 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.benchmark;
+
+import java.util.Map;
+
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.message.internal.InternalMessageHeader;
+import org.apache.qpid.server.model.BrokerTestHelper;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+/**
+ * In-memory virtual host on which benchmarks create their queues, exchanges and messages, so that the benchmarks
+ * need neither a running broker nor a persistent store.
+ */
+public final class BenchmarkVirtualHost implements AutoCloseable
+{
+    private final UnitTestBase _resources = new UnitTestBase();
+    private final QueueManagingVirtualHost<?> _virtualHost;
+
+    public BenchmarkVirtualHost(final String name) throws Exception
+    {
+        _virtualHost = BrokerTestHelper.createVirtualHost(name, _resources);
+    }
+
+    public QueueManagingVirtualHost<?> getVirtualHost()
+    {
+        return _virtualHost;
+    }
+
+    public InternalMessage createMessage(final Map<String, Object> headers, final byte priority, final String body)
+    {
+        final long now = System.currentTimeMillis();
+        final InternalMessageHeader header = new InternalMessageHeader(headers,
+                                                                       null,
+                                                                       0L,
+                                                                       null,
+                                                                       null,
+                                                                       null,
+                                                                       "text/plain",
+                                                                       null,
+                                                                       priority,
+                                                                       now,
+                                                                       0L,
+                                                                       null,
+                                                                       null,
+                                                                       now);
+        return InternalMessage.createStringMessage(_virtualHost.getMessageStore(), header, body);
+    }
+
+    @Override
+    public void close()
+    {
+        _resources.cleanupAfterAll();
+    }
+}
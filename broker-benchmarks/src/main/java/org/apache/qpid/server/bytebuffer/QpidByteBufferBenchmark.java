@@ -0,0 +1,125 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.bytebuffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures allocating pooled direct buffers and creating duplicates and slices of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QpidByteBufferBenchmark
+{
+    private static final int POOLED_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_POOL_SIZE = 1024;
+    private static final int THREAD_CACHE_SIZE = 16;
+    private static final double SPARSITY_FRACTION = 0.5;
+
+    @Param({"64", "4096", "65536"})
+    public int size;
+
+    private QpidByteBuffer _buffer;
+
+    @Setup
+    public void setUp()
+    {
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(POOLED_BUFFER_SIZE, MAX_POOL_SIZE, THREAD_CACHE_SIZE, SPARSITY_FRACTION);
+        _buffer = QpidByteBuffer.allocateDirect(size);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _buffer.dispose();
+        QpidByteBuffer.deinitialisePool();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void allocateAndDispose(final ThreadCaching threadCaching, final Blackhole blackhole)
+    {
+        try (QpidByteBuffer buffer = QpidByteBuffer.allocateDirect(size))
+        {
+            blackhole.consume(buffer.putInt(0, 1));
+        }
+    }
+
+    /**
+     * Enables the buffer pool thread cache for each benchmark thread, as it is for the broker's IO threads.
+     */
+    @State(Scope.Thread)
+    public static class ThreadCaching
+    {
+        @Param({"false", "true"})
+        public boolean enabled;
+
+        @Setup
+        public void setUp()
+        {
+            BufferPool.setThreadCachingEnabled(enabled);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            BufferPool.setThreadCachingEnabled(false);
+        }
+    }
+
+    @Benchmark
+    public void duplicate(final Blackhole blackhole)
+    {
+        try (QpidByteBuffer duplicate = _buffer.duplicate())
+        {
+            blackhole.consume(duplicate.remaining());
+        }
+    }
+
+    @Benchmark
+    public void slice(final Blackhole blackhole)
+    {
+        try (QpidByteBuffer slice = _buffer.view(size / 4, size / 2))
+        {
+            blackhole.consume(slice.remaining());
+        }
+    }
+}
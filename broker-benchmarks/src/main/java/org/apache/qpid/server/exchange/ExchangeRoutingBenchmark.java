@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.benchmark.BenchmarkVirtualHost;
+import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.Queue;
+
+/**
+ * Measures routing a message through a topic or headers exchange with a given number of bindings, each to its own
+ * queue. Roughly one binding in ten matches the routed message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeRoutingBenchmark
+{
+    private static final String ROUTING_KEY = "stock.nyse.3.ibm";
+
+    @Param({ExchangeDefaults.TOPIC_EXCHANGE_CLASS, ExchangeDefaults.HEADERS_EXCHANGE_CLASS})
+    public String exchangeType;
+
+    @Param({"10", "100", "1000"})
+    public int bindingCount;
+
+    private BenchmarkVirtualHost _virtualHost;
+    private Exchange<?> _exchange;
+    private InternalMessage _message;
+    private MessageReference<?> _reference;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _virtualHost = new BenchmarkVirtualHost(getClass().getSimpleName());
+        _exchange = _virtualHost.getVirtualHost().createChild(Exchange.class,
+                                                              Map.of(Exchange.NAME, exchangeType + "Exchange",
+                                                                     Exchange.TYPE, exchangeType));
+
+        for (int i = 0; i < bindingCount; i++)
+        {
+            final String queueName = "queue" + i;
+            _virtualHost.getVirtualHost().createChild(Queue.class, Map.of(Queue.NAME, queueName));
+            if (ExchangeDefaults.TOPIC_EXCHANGE_CLASS.equals(exchangeType))
+            {
+                final String bindingKey = i % 2 == 0 ? "stock.*." + (i % 10) + ".#" : "#." + (i % 10) + ".*";
+                _exchange.bind(queueName, bindingKey, Map.of(), false);
+            }
+            else
+            {
+                final Map<String, Object> arguments = new HashMap<>();
+                arguments.put("x-match", "all");
+                arguments.put("market", "nyse");
+                arguments.put("sector", String.valueOf(i % 10));
+                _exchange.bind(queueName, queueName, arguments, false);
+            }
+        }
+
+        _message = _virtualHost.createMessage(Map.of("market", "nyse", "sector", "3", "symbol", "ibm"),
+                                              (byte) 4,
+                                              "message");
+        _reference = _message.newReference();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _reference.release();
+        _virtualHost.close();
+    }
+
+    @Benchmark
+    public int route()
+    {
+        return _exchange.route(_message, ROUTING_KEY, InstanceProperties.EMPTY).getNumberOfRoutes();
+    }
+}
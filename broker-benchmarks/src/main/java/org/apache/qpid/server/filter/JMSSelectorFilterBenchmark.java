@@ -0,0 +1,97 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.benchmark.BenchmarkVirtualHost;
+import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.internal.InternalMessage;
+
+/**
+ * Measures evaluating JMS selectors of increasing complexity against a message, with and without compilation of
+ * the selector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JMSSelectorFilterBenchmark
+{
+    @Param({"symbol = 'ibm'",
+            "symbol = 'ibm' AND price > 100",
+            "symbol IN ('ibm', 'msft', 'orcl') AND price BETWEEN 100 AND 200 AND market LIKE 'ny%'",
+            "JMSPriority > 3 AND (sector = 3 OR sector = 5) AND NOT (symbol = 'msft')"})
+    public String selector;
+
+    @Param({"true", "false"})
+    public boolean compiled;
+
+    private BenchmarkVirtualHost _virtualHost;
+    private MessageReference<?> _reference;
+    private JMSSelectorFilter _filter;
+    private Filterable _filterable;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _virtualHost = new BenchmarkVirtualHost(getClass().getSimpleName());
+        final InternalMessage message = _virtualHost.createMessage(Map.of("symbol", "ibm",
+                                                                          "price", 150,
+                                                                          "market", "nyse",
+                                                                          "sector", 3),
+                                                                   (byte) 4,
+                                                                   "message");
+        _reference = message.newReference();
+        _filter = new JMSSelectorFilter(selector, compiled);
+        _filterable = Filterable.Factory.newInstance(message, InstanceProperties.EMPTY);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _reference.release();
+        _virtualHost.close();
+    }
+
+    @Benchmark
+    public boolean matches()
+    {
+        return _filter.matches(_filterable);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.benchmark.BenchmarkVirtualHost;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.protocol.v0_8.AMQMessage;
+import org.apache.qpid.server.protocol.v1_0.Message_1_0;
+
+/**
+ * Measures converting an internal message into the AMQP 0-8 and AMQP 1.0 message formats, both directly through
+ * the converter and through the registry, which shares a conversion between the deliveries of a message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageConversionBenchmark
+{
+    private BenchmarkVirtualHost _virtualHost;
+    private InternalMessage _message;
+    private MessageReference<?> _reference;
+    private MessageConverter<InternalMessage, AMQMessage> _converterTo0_8;
+    private MessageConverter<InternalMessage, Message_1_0> _converterTo1_0;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _virtualHost = new BenchmarkVirtualHost(getClass().getSimpleName());
+        _message = _virtualHost.createMessage(Map.of("symbol", "ibm", "price", 150, "market", "nyse"),
+                                              (byte) 4,
+                                              "The quick brown fox jumps over the lazy dog");
+        _reference = _message.newReference();
+        _converterTo0_8 = MessageConverterRegistry.getConverter(InternalMessage.class, AMQMessage.class);
+        _converterTo1_0 = MessageConverterRegistry.getConverter(InternalMessage.class, Message_1_0.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _reference.release();
+        _virtualHost.close();
+    }
+
+    @Benchmark
+    public void convertTo0_8(final Blackhole blackhole)
+    {
+        final AMQMessage converted = _converterTo0_8.convert(_message, _virtualHost.getVirtualHost());
+        blackhole.consume(converted);
+        _converterTo0_8.dispose(converted);
+    }
+
+    @Benchmark
+    public void convertTo1_0(final Blackhole blackhole)
+    {
+        final Message_1_0 converted = _converterTo1_0.convert(_message, _virtualHost.getVirtualHost());
+        blackhole.consume(converted);
+        _converterTo1_0.dispose(converted);
+    }
+
+    @Benchmark
+    public void sharedConvertTo1_0(final Blackhole blackhole)
+    {
+        final MessageReference<Message_1_0> converted =
+                MessageConverterRegistry.convert(_message, Message_1_0.class, _virtualHost.getVirtualHost());
+        blackhole.consume(converted.getMessage());
+        converted.release();
+    }
+}
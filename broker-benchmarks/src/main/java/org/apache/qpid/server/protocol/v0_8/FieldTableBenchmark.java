@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_8;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+
+/**
+ * Measures encoding a map into an AMQP 0-8 field table and decoding an encoded field table back into a map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldTableBenchmark
+{
+    @Param({"4", "32"})
+    public int entryCount;
+
+    private Map<String, Object> _map;
+    private QpidByteBuffer _encoded;
+    private QpidByteBuffer _buffer;
+
+    @Setup
+    public void setUp()
+    {
+        _map = new LinkedHashMap<>();
+        for (int i = 0; i < entryCount; i++)
+        {
+            switch (i % 4)
+            {
+                case 0:
+                    _map.put("string" + i, "value" + i);
+                    break;
+                case 1:
+                    _map.put("int" + i, i);
+                    break;
+                case 2:
+                    _map.put("long" + i, (long) i << 32);
+                    break;
+                default:
+                    _map.put("boolean" + i, i % 8 == 3);
+                    break;
+            }
+        }
+
+        final FieldTable fieldTable = FieldTableFactory.createFieldTable(_map);
+        final int size = Integer.BYTES + (int) fieldTable.getEncodedSize();
+        _encoded = QpidByteBuffer.allocate(false, size);
+        fieldTable.writeToBuffer(_encoded);
+        _encoded.flip();
+        _buffer = QpidByteBuffer.allocate(false, size);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _encoded.dispose();
+        _buffer.dispose();
+    }
+
+    @Benchmark
+    public QpidByteBuffer encode()
+    {
+        _buffer.clear();
+        FieldTableFactory.createFieldTable(_map).writeToBuffer(_buffer);
+        return _buffer;
+    }
+
+    @Benchmark
+    public Map<String, Object> decode()
+    {
+        try (QpidByteBuffer encoded = _encoded.duplicate())
+        {
+            final FieldTable fieldTable = EncodingUtils.readFieldTable(encoded);
+            final Map<String, Object> map = FieldTable.convertToMap(fieldTable);
+            fieldTable.dispose();
+            return map;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoder;
+import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoderImpl;
+import org.apache.qpid.server.protocol.v1_0.type.AmqpErrorException;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+import org.apache.qpid.server.protocol.v1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.ApplicationProperties;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Data;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.EncodingRetainingSection;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Properties;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Transfer;
+
+/**
+ * Measures decoding the Transfer performative and the message sections carried as its payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferDecodeBenchmark
+{
+    private static final AMQPDescribedTypeRegistry TYPE_REGISTRY = AMQPDescribedTypeRegistry.newInstance()
+                                                                                              .registerTransportLayer()
+                                                                                              .registerMessagingLayer()
+                                                                                              .registerTransactionLayer()
+                                                                                              .registerSecurityLayer();
+
+    private ValueHandler _valueHandler;
+    private SectionDecoder _sectionDecoder;
+    private QpidByteBuffer _performative;
+    private QpidByteBuffer _payload;
+
+    @Setup
+    public void setUp()
+    {
+        _valueHandler = new ValueHandler(TYPE_REGISTRY);
+        _sectionDecoder = new SectionDecoderImpl(TYPE_REGISTRY.getSectionDecoderRegistry());
+
+        final Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+        transfer.setDeliveryId(UnsignedInteger.valueOf(1234));
+        transfer.setDeliveryTag(new Binary(new byte[]{0, 0, 0, 0, 0, 0, 4, (byte) 210}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+        transfer.setSettled(Boolean.FALSE);
+        transfer.setMore(Boolean.FALSE);
+        final ValueWriter<Transfer> writer = TYPE_REGISTRY.getValueWriter(transfer);
+        _performative = QpidByteBuffer.allocate(false, writer.getEncodedSize());
+        writer.writeToBuffer(_performative);
+        _performative.flip();
+
+        final Properties properties = new Properties();
+        properties.setMessageId("ID:benchmark-1234");
+        properties.setSubject("stock.nyse.ibm");
+        final List<EncodingRetainingSection<?>> sections = new ArrayList<>();
+        sections.add(properties.createEncodingRetainingSection());
+        sections.add(new ApplicationProperties(Map.of("symbol", "ibm", "price", 150, "market", "nyse"))
+                             .createEncodingRetainingSection());
+        sections.add(new Data(new Binary("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8)))
+                             .createEncodingRetainingSection());
+        final List<QpidByteBuffer> encodedSections = new ArrayList<>();
+        for (EncodingRetainingSection<?> section : sections)
+        {
+            encodedSections.add(section.getEncodedForm());
+            section.dispose();
+        }
+        _payload = QpidByteBuffer.concatenate(encodedSections);
+        encodedSections.forEach(QpidByteBuffer::dispose);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _performative.dispose();
+        _payload.dispose();
+    }
+
+    @Benchmark
+    public Object decodePerformative() throws AmqpErrorException
+    {
+        try (QpidByteBuffer performative = _performative.duplicate())
+        {
+            return _valueHandler.parse(performative);
+        }
+    }
+
+    @Benchmark
+    public void decodeSections(final Blackhole blackhole) throws AmqpErrorException
+    {
+        try (QpidByteBuffer payload = _payload.duplicate())
+        {
+            for (EncodingRetainingSection<?> section : _sectionDecoder.parseAll(payload))
+            {
+                blackhole.consume(section.getValue());
+                section.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0.delivery;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.protocol.v1_0.LinkEndpoint;
+import org.apache.qpid.server.protocol.v1_0.SequenceNumber;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+
+/**
+ * Measures registering a batch of deliveries and settling them with a single disposition, comparing settlement of
+ * the whole range by the registry with looking up and removing each delivery id of the range in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeliveryRegistryBenchmark
+{
+    @Param({"1", "64", "4096"})
+    public int rangeSize;
+
+    private DeliveryRegistry _registry;
+    private UnsettledDelivery[] _deliveries;
+    private int _nextDeliveryId;
+
+    @Setup
+    public void setUp()
+    {
+        _registry = new DeliveryRegistryImpl();
+        final LinkEndpoint<?, ?> linkEndpoint = mock(LinkEndpoint.class);
+        _deliveries = new UnsettledDelivery[rangeSize];
+        for (int i = 0; i < rangeSize; i++)
+        {
+            _deliveries[i] = new UnsettledDelivery(new Binary(Integer.toString(i).getBytes()), linkEndpoint);
+        }
+    }
+
+    @Benchmark
+    public void settleRange(final Blackhole blackhole)
+    {
+        final int first = addDeliveries();
+        _registry.forEachDelivery(first, first + rangeSize - 1, true, blackhole::consume);
+    }
+
+    @Benchmark
+    public void settleEachDeliveryId(final Blackhole blackhole)
+    {
+        final int first = addDeliveries();
+        final SequenceNumber deliveryId = new SequenceNumber(first);
+        final SequenceNumber last = new SequenceNumber(first + rangeSize - 1);
+        while (deliveryId.compareTo(last) <= 0)
+        {
+            final UnsignedInteger deliveryIdUnsigned = UnsignedInteger.valueOf(deliveryId.intValue());
+            final UnsettledDelivery unsettledDelivery = _registry.getDelivery(deliveryIdUnsigned);
+            if (unsettledDelivery != null)
+            {
+                blackhole.consume(unsettledDelivery);
+                _registry.removeDelivery(deliveryIdUnsigned);
+            }
+            deliveryId.incr();
+        }
+    }
+
+    private int addDeliveries()
+    {
+        final int first = _nextDeliveryId;
+        for (UnsettledDelivery delivery : _deliveries)
+        {
+            _registry.addDelivery(UnsignedInteger.valueOf(_nextDeliveryId++), delivery);
+        }
+        return first;
+    }
+}
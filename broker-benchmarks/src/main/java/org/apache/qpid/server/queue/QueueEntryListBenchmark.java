@@ -0,0 +1,152 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.benchmark.BenchmarkVirtualHost;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.model.Queue;
+
+/**
+ * Measures enqueuing messages onto, and acquiring and deleting them from, the entry list of each queue type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueEntryListBenchmark
+{
+    private static final int BATCH_SIZE = 1000;
+    private static final String KEY = "key";
+
+    @Param({"standard", "priority", "sorted", "lvq"})
+    public String queueType;
+
+    private BenchmarkVirtualHost _virtualHost;
+    private AbstractQueue<?> _queue;
+    private final List<InternalMessage> _messages = new ArrayList<>();
+    private final List<MessageReference<?>> _references = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _virtualHost = new BenchmarkVirtualHost(getClass().getSimpleName());
+
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put(Queue.NAME, queueType);
+        attributes.put(Queue.TYPE, queueType);
+        switch (queueType)
+        {
+            case "priority":
+                attributes.put(PriorityQueue.PRIORITIES, 10);
+                break;
+            case SortedQueue.SORTED_QUEUE_TYPE:
+                attributes.put(SortedQueue.SORT_KEY, KEY);
+                break;
+            case LastValueQueue.LAST_VALUE_QUEUE_TYPE:
+                attributes.put(LastValueQueue.LVQ_KEY, KEY);
+                break;
+            default:
+                break;
+        }
+        _queue = (AbstractQueue<?>) _virtualHost.getVirtualHost().createChild(Queue.class, attributes);
+
+        final List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++)
+        {
+            keys.add(i);
+        }
+        Collections.shuffle(keys);
+        for (int key : keys)
+        {
+            final InternalMessage message = _virtualHost.createMessage(Map.of(KEY, String.format("%08d", key)),
+                                                                       (byte) (key % 10),
+                                                                       "message " + key);
+            _messages.add(message);
+            // hold a reference of our own so that the message outlives its deletion from the queue
+            _references.add(message.newReference());
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _references.forEach(MessageReference::release);
+        _references.clear();
+        _messages.clear();
+        _virtualHost.close();
+    }
+
+    @Benchmark
+    public void enqueueAcquireDelete(final Blackhole blackhole)
+    {
+        _queue.enqueue(_messages.get(0), null, null);
+        final QueueEntryList entries = _queue.getEntries();
+        final QueueEntry entry = entries.next(entries.getHead());
+        blackhole.consume(entry.acquire());
+        entry.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void enqueueBatchThenDrain(final Blackhole blackhole)
+    {
+        for (InternalMessage message : _messages)
+        {
+            _queue.enqueue(message, null, null);
+        }
+
+        final QueueEntryIterator iterator = _queue.getEntries().iterator();
+        while (iterator.advance())
+        {
+            final QueueEntry entry = iterator.getNode();
+            if (entry.acquire())
+            {
+                entry.delete();
+                blackhole.consume(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.benchmark.BenchmarkVirtualHost;
+import org.apache.qpid.server.model.Queue;
+
+/**
+ * Compares the entry lists of a sorted queue with sixteen threads each publishing a message and then consuming the
+ * first available message, so that publishers and consumers contend on the list as they do on a busy queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SortedQueueEntryListBenchmark
+{
+    private static final int KEY_RANGE = 100000;
+    private static final String KEY = "key";
+
+    @Param({"TREE", "SKIP_LIST"})
+    public SortedQueueEntryListType entryListType;
+
+    private BenchmarkVirtualHost _virtualHost;
+    private AbstractQueue<?> _queue;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _virtualHost = new BenchmarkVirtualHost(getClass().getSimpleName());
+
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put(Queue.NAME, "sorted");
+        attributes.put(Queue.TYPE, SortedQueue.SORTED_QUEUE_TYPE);
+        attributes.put(SortedQueue.SORT_KEY, KEY);
+        attributes.put(SortedQueue.ENTRY_LIST_TYPE, entryListType);
+        _queue = (AbstractQueue<?>) _virtualHost.getVirtualHost().createChild(Queue.class, attributes);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _virtualHost.close();
+    }
+
+    @Benchmark
+    public void publishThenConsume(final Blackhole blackhole)
+    {
+        final String key = String.format("%08d", ThreadLocalRandom.current().nextInt(KEY_RANGE));
+        _queue.enqueue(_virtualHost.createMessage(Map.of(KEY, key), (byte) 4, key), null, null);
+
+        final QueueEntryIterator iterator = _queue.getEntries().iterator();
+        while (iterator.advance())
+        {
+            final QueueEntry entry = iterator.getNode();
+            if (entry.acquire())
+            {
+                entry.delete();
+                blackhole.consume(entry);
+                return;
+            }
+        }
+    }
+}
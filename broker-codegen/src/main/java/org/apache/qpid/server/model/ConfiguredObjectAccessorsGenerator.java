@@ -0,0 +1,193 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.model;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.apache.qpid.server.License;
+
+/**
+ * Generates, for each interface declaring managed attributes or statistics, a class in the same package named after
+ * the binary name of the interface with the suffix <code>Accessors</code>, which provides getters for the attributes
+ * and statistics calling the annotated methods directly, so that the type registry need not invoke them reflectively.
+ */
+@SupportedAnnotationTypes({ConfiguredObjectAccessorsGenerator.MANAGED_ATTRIBUTE_CLASS_NAME,
+                           ConfiguredObjectAccessorsGenerator.DERIVED_ATTRIBUTE_CLASS_NAME,
+                           ConfiguredObjectAccessorsGenerator.MANAGED_STATISTIC_CLASS_NAME})
+public class ConfiguredObjectAccessorsGenerator extends AbstractProcessor
+{
+    public static final String MANAGED_ATTRIBUTE_CLASS_NAME = "org.apache.qpid.server.model.ManagedAttribute";
+    public static final String DERIVED_ATTRIBUTE_CLASS_NAME = "org.apache.qpid.server.model.DerivedAttribute";
+    public static final String MANAGED_STATISTIC_CLASS_NAME = "org.apache.qpid.server.model.ManagedStatistic";
+
+    static final String ACCESSORS_CLASS_SUFFIX = "Accessors";
+
+    private final Set<String> _generatedClassNames = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latest();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        if (roundEnv.processingOver())
+        {
+            return false;
+        }
+
+        final Map<TypeElement, Set<ExecutableElement>> gettersByType = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations)
+        {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+            {
+                if (element.getKind() == ElementKind.METHOD
+                    && element.getEnclosingElement().getKind() == ElementKind.INTERFACE
+                    && ((ExecutableElement) element).getParameters().isEmpty()
+                    && !element.getModifiers().contains(Modifier.STATIC)
+                    && isAccessible((TypeElement) element.getEnclosingElement()))
+                {
+                    gettersByType.computeIfAbsent((TypeElement) element.getEnclosingElement(),
+                                                  type -> new LinkedHashSet<>()).add((ExecutableElement) element);
+                }
+            }
+        }
+
+        for (Map.Entry<TypeElement, Set<ExecutableElement>> entry : gettersByType.entrySet())
+        {
+            generateAccessors(entry.getKey(), entry.getValue());
+        }
+        return false;
+    }
+
+    private boolean isAccessible(final TypeElement typeElement)
+    {
+        Element element = typeElement;
+        while (element instanceof TypeElement)
+        {
+            if (element.getModifiers().contains(Modifier.PRIVATE))
+            {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generateAccessors(final TypeElement typeElement, final Set<ExecutableElement> getters)
+    {
+        final Elements elementUtils = processingEnv.getElementUtils();
+        final PackageElement packageElement = elementUtils.getPackageOf(typeElement);
+        final String packageName = packageElement.getQualifiedName().toString();
+        final String binaryName = elementUtils.getBinaryName(typeElement).toString();
+        final String simpleClassName =
+                (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_')
+                + ACCESSORS_CLASS_SUFFIX;
+        final String className = packageName.isEmpty() ? simpleClassName : packageName + "." + simpleClassName;
+        if (!_generatedClassNames.add(className))
+        {
+            return;
+        }
+
+        String typeName = typeElement.getQualifiedName().toString();
+        if (!typeElement.getTypeParameters().isEmpty())
+        {
+            typeName += typeElement.getTypeParameters()
+                                   .stream()
+                                   .map(parameter -> "?")
+                                   .collect(Collectors.joining(", ", "<", ">"));
+        }
+
+        try
+        {
+            JavaFileObject accessorsFile = processingEnv.getFiler().createSourceFile(className, typeElement);
+            PrintWriter pw = new PrintWriter(new OutputStreamWriter(accessorsFile.openOutputStream(), "UTF-8"));
+            pw.println("/*");
+            for (String headerLine : License.LICENSE)
+            {
+                pw.println(" *" + headerLine);
+            }
+            pw.println(" */");
+            pw.println();
+            if (!packageName.isEmpty())
+            {
+                pw.println("package " + packageName + ";");
+                pw.println();
+            }
+            pw.println("import java.util.function.Function;");
+            pw.println();
+            pw.println("import org.apache.qpid.server.model.ConfiguredObject;");
+            pw.println("import org.apache.qpid.server.model.ManagedAttributeAccessors;");
+            pw.println();
+            pw.println("public final class " + simpleClassName + " implements ManagedAttributeAccessors");
+            pw.println("{");
+            pw.println("    @Override");
+            pw.println("    public Function<ConfiguredObject<?>, Object> getAccessor(final String methodName)");
+            pw.println("    {");
+            pw.println("        switch (methodName)");
+            pw.println("        {");
+            for (ExecutableElement getter : getters)
+            {
+                final String methodName = getter.getSimpleName().toString();
+                pw.println("            case \"" + methodName + "\":");
+                pw.println("                return object -> ((" + typeName + ") object)." + methodName + "();");
+            }
+            pw.println("            default:");
+            pw.println("                return null;");
+            pw.println("        }");
+            pw.println("    }");
+            pw.println("}");
+            pw.close();
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                     "Failed to write file: "
+                                                     + className
+                                                     + " - "
+                                                     + e.getLocalizedMessage());
+        }
+    }
+}
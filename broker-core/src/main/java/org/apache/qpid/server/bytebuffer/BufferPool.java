@@ -21,37 +21,127 @@
 package org.apache.qpid.server.bytebuffer;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Pool of direct buffers of a single size.
+ * <p>
+ * Pooled buffers are held in a depot split into stripes, each guarded by its own monitor, with a thread choosing its
+ * home stripe from its id. Threads which have enabled thread caching additionally hold a small cache of their own,
+ * which is refilled from and flushed to the depot in batches, so that most buffer requests touch no shared state.
+ * A thread which finds both its cache and its home stripe empty steals from the other stripes.
+ * <p>
+ * The total number of buffers held by the depot and the thread caches never exceeds the maximum size of the pool.
+ * Thread caches reserve capacity from the pool in batches and release it when they are found empty.
+ */
 class BufferPool
 {
+    private static final int MAX_STRIPES = 64;
+    private static final ThreadLocal<Boolean> THREAD_CACHING_ENABLED = new ThreadLocal<>();
+
     private final int _maxSize;
-    private final ConcurrentLinkedQueue<ByteBuffer> _pooledBuffers = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger _size = new AtomicInteger();
+    private final int _threadCacheSize;
+    private final int _transferBatchSize;
+    private final Stripe[] _stripes;
+    private final AtomicInteger _reservedSize = new AtomicInteger();
+    private final ThreadLocal<ThreadCache> _threadCache = new ThreadLocal<>();
+    private final Set<ThreadCache> _threadCaches = ConcurrentHashMap.newKeySet();
+    private final LongAdder _hitCount = new LongAdder();
+    private final LongAdder _missCount = new LongAdder();
+    private final LongAdder _stealCount = new LongAdder();
 
     BufferPool(final int maxSize)
+    {
+        this(maxSize, 0);
+    }
+
+    BufferPool(final int maxSize, final int threadCacheSize)
     {
         _maxSize = maxSize;
+        _threadCacheSize = Math.max(0, Math.min(threadCacheSize, maxSize));
+        _transferBatchSize = Math.max(1, _threadCacheSize / 2);
+
+        int stripeCount = 1;
+        while (stripeCount < Runtime.getRuntime().availableProcessors() && stripeCount < MAX_STRIPES)
+        {
+            stripeCount <<= 1;
+        }
+        _stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+        {
+            _stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Enables or disables the thread cache for buffers obtained and returned by the current thread. Only threads
+     * which release their cache with {@link #releaseThreadCache()} before terminating should enable caching.
+     */
+    static void setThreadCachingEnabled(final boolean enabled)
+    {
+        if (enabled)
+        {
+            THREAD_CACHING_ENABLED.set(Boolean.TRUE);
+        }
+        else
+        {
+            THREAD_CACHING_ENABLED.remove();
+        }
     }
 
     ByteBuffer getBuffer()
     {
-        final ByteBuffer buffer = _pooledBuffers.poll();
-        if (buffer != null)
+        final ThreadCache cache = getThreadCache();
+        if (cache == null)
         {
-            _size.decrementAndGet();
+            return pollDepot();
         }
-        return buffer;
+
+        if (cache._count > 0)
+        {
+            _hitCount.increment();
+        }
+        else if (!cache.refill())
+        {
+            return null;
+        }
+        return cache.pop();
     }
 
     void returnBuffer(ByteBuffer buf)
     {
         buf.clear();
-        if (size() < _maxSize)
+        final ThreadCache cache = getThreadCache();
+        if (cache == null)
+        {
+            if (reserve(1) == 1)
+            {
+                homeStripe().add(buf);
+            }
+        }
+        else
+        {
+            cache.push(buf);
+        }
+    }
+
+    /**
+     * Moves the buffers cached by the current thread into the depot.
+     */
+    void releaseThreadCache()
+    {
+        final ThreadCache cache = _threadCache.get();
+        if (cache != null)
         {
-            _pooledBuffers.add(buf);
-            _size.incrementAndGet();
+            _threadCache.remove();
+            _threadCaches.remove(cache);
+            cache.flush(cache._count);
+            release(cache._reservedSize);
+            cache._reservedSize = 0;
         }
     }
 
@@ -60,8 +150,241 @@ class BufferPool
         return _maxSize;
     }
 
+    public int getThreadCacheSize()
+    {
+        return _threadCacheSize;
+    }
+
     public int size()
     {
-        return _size.get();
+        int size = 0;
+        for (Stripe stripe : _stripes)
+        {
+            size += stripe.size();
+        }
+        for (ThreadCache cache : _threadCaches)
+        {
+            size += cache._count;
+        }
+        return size;
+    }
+
+    long getHitCount()
+    {
+        return _hitCount.sum();
+    }
+
+    long getMissCount()
+    {
+        return _missCount.sum();
+    }
+
+    long getStealCount()
+    {
+        return _stealCount.sum();
+    }
+
+    private ThreadCache getThreadCache()
+    {
+        if (_threadCacheSize == 0 || THREAD_CACHING_ENABLED.get() == null)
+        {
+            return null;
+        }
+        ThreadCache cache = _threadCache.get();
+        if (cache == null)
+        {
+            cache = new ThreadCache();
+            _threadCache.set(cache);
+            _threadCaches.add(cache);
+        }
+        return cache;
+    }
+
+    private ByteBuffer pollDepot()
+    {
+        final int home = homeStripeIndex();
+        ByteBuffer buffer = _stripes[home].poll();
+        if (buffer != null)
+        {
+            _hitCount.increment();
+        }
+        else
+        {
+            for (int i = 1; i < _stripes.length && buffer == null; i++)
+            {
+                buffer = _stripes[(home + i) & (_stripes.length - 1)].poll();
+            }
+            if (buffer == null)
+            {
+                _missCount.increment();
+                return null;
+            }
+            _stealCount.increment();
+        }
+        release(1);
+        return buffer;
+    }
+
+    private int reserve(final int requested)
+    {
+        while (true)
+        {
+            final int reserved = _reservedSize.get();
+            final int granted = Math.min(requested, _maxSize - reserved);
+            if (granted <= 0)
+            {
+                return 0;
+            }
+            if (_reservedSize.compareAndSet(reserved, reserved + granted))
+            {
+                return granted;
+            }
+        }
+    }
+
+    private void release(final int size)
+    {
+        if (size > 0)
+        {
+            _reservedSize.addAndGet(-size);
+        }
+    }
+
+    private int homeStripeIndex()
+    {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & (_stripes.length - 1);
+    }
+
+    private Stripe homeStripe()
+    {
+        return _stripes[homeStripeIndex()];
+    }
+
+    /**
+     * Buffers cached by a single thread. Each cached buffer is backed by capacity reserved from the pool; capacity
+     * left over once buffers are taken from the cache is kept for buffers returned later.
+     */
+    private final class ThreadCache
+    {
+        private final ByteBuffer[] _buffers = new ByteBuffer[_threadCacheSize];
+        private volatile int _count;
+        private int _reservedSize;
+
+        ByteBuffer pop()
+        {
+            final int count = _count - 1;
+            final ByteBuffer buffer = _buffers[count];
+            _buffers[count] = null;
+            _count = count;
+            return buffer;
+        }
+
+        void push(final ByteBuffer buffer)
+        {
+            if (_count == _reservedSize)
+            {
+                if (_count == _buffers.length)
+                {
+                    flush(_transferBatchSize);
+                }
+                _reservedSize += reserve(Math.min(_transferBatchSize, _buffers.length - _reservedSize));
+            }
+            if (_count < _reservedSize)
+            {
+                _buffers[_count] = buffer;
+                _count = _count + 1;
+            }
+        }
+
+        /**
+         * Refills the empty cache from the depot, stealing from the other stripes if the home stripe is empty.
+         * Capacity reserved by the cache which is not needed for the transferred buffers is released.
+         */
+        boolean refill()
+        {
+            final int home = homeStripeIndex();
+            int transferred = _stripes[home].transferTo(this, _transferBatchSize);
+            if (transferred > 0)
+            {
+                _hitCount.increment();
+            }
+            else
+            {
+                for (int i = 1; i < _stripes.length && transferred == 0; i++)
+                {
+                    transferred = _stripes[(home + i) & (_stripes.length - 1)].transferTo(this, _transferBatchSize);
+                }
+                if (transferred > 0)
+                {
+                    _stealCount.increment();
+                }
+                else
+                {
+                    _missCount.increment();
+                }
+            }
+            release(_reservedSize);
+            _reservedSize = transferred;
+            return transferred > 0;
+        }
+
+        /**
+         * Moves the given number of the least recently cached buffers, together with their reserved capacity, into
+         * the depot.
+         */
+        void flush(final int size)
+        {
+            if (size > 0)
+            {
+                homeStripe().addAll(_buffers, size);
+                System.arraycopy(_buffers, size, _buffers, 0, _count - size);
+                for (int i = _count - size; i < _count; i++)
+                {
+                    _buffers[i] = null;
+                }
+                _count = _count - size;
+                _reservedSize -= size;
+            }
+        }
+    }
+
+    private static final class Stripe
+    {
+        private final ArrayDeque<ByteBuffer> _buffers = new ArrayDeque<>();
+
+        synchronized ByteBuffer poll()
+        {
+            return _buffers.pollLast();
+        }
+
+        synchronized void add(final ByteBuffer buffer)
+        {
+            _buffers.addLast(buffer);
+        }
+
+        synchronized void addAll(final ByteBuffer[] buffers, final int size)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                _buffers.addLast(buffers[i]);
+            }
+        }
+
+        synchronized int transferTo(final ThreadCache cache, final int size)
+        {
+            int transferred = 0;
+            while (transferred < size && !_buffers.isEmpty())
+            {
+                cache._buffers[transferred++] = _buffers.pollLast();
+            }
+            cache._count = transferred;
+            return transferred;
+        }
+
+        synchronized int size()
+        {
+            return _buffers.size();
+        }
     }
 }
@@ -0,0 +1,72 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.bytebuffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference to a buffer which is not pooled, running an action once every QpidByteBuffer sharing the buffer has
+ * been disposed.
+ */
+class DisposalTrackingByteBufferRef implements ByteBufferRef
+{
+    private final ByteBuffer _buffer;
+    private final Runnable _disposalAction;
+    private final AtomicInteger _refCount = new AtomicInteger();
+
+    DisposalTrackingByteBufferRef(final ByteBuffer buffer, final Runnable disposalAction)
+    {
+        if (buffer == null || disposalAction == null)
+        {
+            throw new NullPointerException();
+        }
+        _buffer = buffer;
+        _disposalAction = disposalAction;
+    }
+
+    @Override
+    public void incrementRef(final int capacity)
+    {
+        _refCount.incrementAndGet();
+    }
+
+    @Override
+    public void decrementRef(final int capacity)
+    {
+        if (_refCount.decrementAndGet() == 0)
+        {
+            _disposalAction.run();
+        }
+    }
+
+    @Override
+    public ByteBuffer getBuffer()
+    {
+        return _buffer;
+    }
+
+    @Override
+    public boolean isSparse(final double minimumSparsityFraction)
+    {
+        return false;
+    }
+}
@@ -89,6 +89,15 @@ public interface QpidByteBuffer extends AutoCloseable
         return QpidByteBufferFactory.wrap(wrap);
     }
 
+    /**
+     * Wraps the given buffer, running the given action once the returned buffer and every buffer derived from it
+     * have been disposed.
+     */
+    static QpidByteBuffer wrap(ByteBuffer wrap, Runnable disposalAction)
+    {
+        return QpidByteBufferFactory.wrap(wrap, disposalAction);
+    }
+
     static QpidByteBuffer wrap(byte[] data)
     {
         return QpidByteBufferFactory.wrap(data);
@@ -104,6 +113,11 @@ public interface QpidByteBuffer extends AutoCloseable
         QpidByteBufferFactory.initialisePool(bufferSize, maxPoolSize, sparsityFraction);
     }
 
+    static void initialisePool(int bufferSize, int maxPoolSize, int threadCacheSize, double sparsityFraction)
+    {
+        QpidByteBufferFactory.initialisePool(bufferSize, maxPoolSize, threadCacheSize, sparsityFraction);
+    }
+
     /**
      * Test use only
      */
@@ -142,6 +156,21 @@ public interface QpidByteBuffer extends AutoCloseable
         return QpidByteBufferFactory.getPooledBufferDisposalCounter();
     }
 
+    static long getPooledBufferHitCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferHitCount();
+    }
+
+    static long getPooledBufferMissCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferMissCount();
+    }
+
+    static long getPooledBufferStealCount()
+    {
+        return QpidByteBufferFactory.getPooledBufferStealCount();
+    }
+
     static QpidByteBuffer reallocateIfNecessary(QpidByteBuffer data)
     {
         return QpidByteBufferFactory.reallocateIfNecessary(data);
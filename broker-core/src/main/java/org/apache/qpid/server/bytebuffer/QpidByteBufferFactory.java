@@ -47,6 +47,7 @@ final class QpidByteBufferFactory
     private volatile static boolean _isPoolInitialized;
     private volatile static BufferPool _bufferPool;
     private volatile static int _pooledBufferSize;
+    private volatile static int _requestedThreadCacheSize;
     private volatile static double _sparsityFraction;
     private volatile static ByteBuffer _zeroed;
 
@@ -281,6 +282,11 @@ final class QpidByteBufferFactory
         return new SingleQpidByteBuffer(new NonPooledByteBufferRef(wrap));
     }
 
+    static QpidByteBuffer wrap(ByteBuffer wrap, Runnable disposalAction)
+    {
+        return new SingleQpidByteBuffer(new DisposalTrackingByteBufferRef(wrap, disposalAction));
+    }
+
     static QpidByteBuffer wrap(byte[] data)
     {
         return wrap(ByteBuffer.wrap(data));
@@ -292,28 +298,42 @@ final class QpidByteBufferFactory
     }
 
     static void initialisePool(int bufferSize, int maxPoolSize, double sparsityFraction)
+    {
+        initialisePool(bufferSize, maxPoolSize, 0, sparsityFraction);
+    }
+
+    static void initialisePool(int bufferSize, int maxPoolSize, int threadCacheSize, double sparsityFraction)
     {
         if (_isPoolInitialized && (bufferSize != _pooledBufferSize
                                                        || maxPoolSize != _bufferPool.getMaxSize()
+                                                       || threadCacheSize != _requestedThreadCacheSize
                                                        || sparsityFraction != _sparsityFraction))
         {
             final String errorMessage = String.format(
-                    "QpidByteBuffer pool has already been initialised with bufferSize=%d, maxPoolSize=%d, and sparsityFraction=%f."
+                    "QpidByteBuffer pool has already been initialised with bufferSize=%d, maxPoolSize=%d, "
+                    + "threadCacheSize=%d and sparsityFraction=%f."
                     +
-                    "Re-initialisation with different bufferSize=%d and maxPoolSize=%d is not allowed.",
+                    "Re-initialisation with different bufferSize=%d, maxPoolSize=%d and threadCacheSize=%d is not allowed.",
                     _pooledBufferSize,
                     _bufferPool.getMaxSize(),
+                    _requestedThreadCacheSize,
                     _sparsityFraction,
                     bufferSize,
-                    maxPoolSize);
+                    maxPoolSize,
+                    threadCacheSize);
             throw new IllegalStateException(errorMessage);
         }
         if (bufferSize <= 0)
         {
             throw new IllegalArgumentException("Negative or zero bufferSize illegal : " + bufferSize);
         }
+        if (threadCacheSize < 0)
+        {
+            throw new IllegalArgumentException("Negative threadCacheSize illegal : " + threadCacheSize);
+        }
 
-        _bufferPool = new BufferPool(maxPoolSize);
+        _bufferPool = new BufferPool(maxPoolSize, threadCacheSize);
+        _requestedThreadCacheSize = threadCacheSize;
         _pooledBufferSize = bufferSize;
         _zeroed = ByteBuffer.allocateDirect(_pooledBufferSize);
         _sparsityFraction = sparsityFraction;
@@ -333,8 +353,10 @@ final class QpidByteBufferFactory
                 singleQpidByteBuffer.dispose();
                 _cachedBuffer.remove();
             }
+            _bufferPool.releaseThreadCache();
             _bufferPool = null;
             _pooledBufferSize = -1;
+            _requestedThreadCacheSize = 0;
             _isPoolInitialized = false;
             _sparsityFraction = 1.0;
             _zeroed = null;
@@ -384,6 +406,24 @@ final class QpidByteBufferFactory
         return PooledByteBufferRef.getDisposalCounter();
     }
 
+    static long getPooledBufferHitCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0L : bufferPool.getHitCount();
+    }
+
+    static long getPooledBufferMissCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0L : bufferPool.getMissCount();
+    }
+
+    static long getPooledBufferStealCount()
+    {
+        final BufferPool bufferPool = _bufferPool;
+        return bufferPool == null ? 0L : bufferPool.getStealCount();
+    }
+
     static QpidByteBuffer reallocateIfNecessary(QpidByteBuffer data)
     {
         if (data != null && data.isDirect() && data.isSparse())
@@ -459,6 +499,7 @@ final class QpidByteBufferFactory
     static ThreadFactory createQpidByteBufferTrackingThreadFactory(ThreadFactory factory)
     {
         return r -> factory.newThread(() -> {
+            BufferPool.setThreadCachingEnabled(true);
             try
             {
                 r.run();
@@ -471,6 +512,12 @@ final class QpidByteBufferFactory
                     cachedThreadLocalBuffer.dispose();
                     _cachedBuffer.remove();
                 }
+                final BufferPool bufferPool = _bufferPool;
+                if (bufferPool != null)
+                {
+                    bufferPool.releaseThreadCache();
+                }
+                BufferPool.setThreadCachingEnabled(false);
             }
         });
     }
@@ -276,6 +276,21 @@ class HeadersBinding
         return _replacementRoutingKey;
     }
 
+    boolean isMatchAny()
+    {
+        return matchAny;
+    }
+
+    Set<String> getRequiredHeaders()
+    {
+        return required;
+    }
+
+    Map<String, Object> getMatchedHeaders()
+    {
+        return matches;
+    }
+
     private static class ExcludeAllFilter implements MessageFilter
     {
         @Override
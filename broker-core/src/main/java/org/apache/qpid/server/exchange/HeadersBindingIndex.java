@@ -0,0 +1,136 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+
+/**
+ * Immutable inverted index from header names and values to the headers bindings which refer to them.
+ * <p>
+ * A binding with {@code x-match=any} can be satisfied by any one of its headers, so it is indexed under each of them.
+ * A binding with {@code x-match=all} can only be satisfied if all of its headers are present, so it is indexed under
+ * just one of them, preferring a header with a value as that is the most selective.  Bindings without any headers
+ * match every message and are always candidates.
+ * <p>
+ * The candidates returned for a message are a superset of the bindings that match it, so each candidate must still
+ * be evaluated with {@link HeadersBinding#matches(org.apache.qpid.server.filter.Filterable)}.
+ */
+final class HeadersBindingIndex
+{
+    static final HeadersBindingIndex EMPTY = new HeadersBindingIndex(List.of());
+
+    private final List<HeadersBinding> _unconditionalBindings = new ArrayList<>();
+    private final Map<String, List<HeadersBinding>> _bindingsByHeaderName = new HashMap<>();
+    private final Map<String, Map<Object, List<HeadersBinding>>> _bindingsByHeaderValue = new HashMap<>();
+
+    HeadersBindingIndex(final Collection<HeadersBinding> bindings)
+    {
+        for (HeadersBinding binding : bindings)
+        {
+            final Set<String> requiredHeaders = binding.getRequiredHeaders();
+            final Map<String, Object> matchedHeaders = binding.getMatchedHeaders();
+            if (requiredHeaders.isEmpty() && matchedHeaders.isEmpty())
+            {
+                _unconditionalBindings.add(binding);
+            }
+            else if (binding.isMatchAny())
+            {
+                requiredHeaders.forEach(name -> addByHeaderName(name, binding));
+                matchedHeaders.forEach((name, value) -> addByHeaderValue(name, value, binding));
+            }
+            else if (!matchedHeaders.isEmpty())
+            {
+                final Map.Entry<String, Object> header = matchedHeaders.entrySet().iterator().next();
+                addByHeaderValue(header.getKey(), header.getValue(), binding);
+            }
+            else
+            {
+                addByHeaderName(requiredHeaders.iterator().next(), binding);
+            }
+        }
+    }
+
+    Collection<HeadersBinding> getCandidates(final AMQMessageHeader headers)
+    {
+        if (headers == null || (_bindingsByHeaderName.isEmpty() && _bindingsByHeaderValue.isEmpty()))
+        {
+            return _unconditionalBindings;
+        }
+
+        Set<HeadersBinding> candidates = null;
+        for (String name : headers.getHeaderNames())
+        {
+            final List<HeadersBinding> bindingsByName = _bindingsByHeaderName.get(name);
+            if (bindingsByName != null)
+            {
+                candidates = addCandidates(candidates, bindingsByName);
+            }
+
+            final Map<Object, List<HeadersBinding>> bindingsByValue = _bindingsByHeaderValue.get(name);
+            if (bindingsByValue != null)
+            {
+                final Object value = headers.getHeader(name);
+                final List<HeadersBinding> bindings = value == null ? null : bindingsByValue.get(value);
+                if (bindings != null)
+                {
+                    candidates = addCandidates(candidates, bindings);
+                }
+            }
+        }
+
+        if (candidates == null)
+        {
+            return _unconditionalBindings;
+        }
+        candidates.addAll(_unconditionalBindings);
+        return candidates;
+    }
+
+    private Set<HeadersBinding> addCandidates(Set<HeadersBinding> candidates, final List<HeadersBinding> bindings)
+    {
+        if (candidates == null)
+        {
+            candidates = new HashSet<>();
+        }
+        candidates.addAll(bindings);
+        return candidates;
+    }
+
+    private void addByHeaderName(final String name, final HeadersBinding binding)
+    {
+        _bindingsByHeaderName.computeIfAbsent(name, key -> new ArrayList<>()).add(binding);
+    }
+
+    private void addByHeaderValue(final String name, final Object value, final HeadersBinding binding)
+    {
+        _bindingsByHeaderValue.computeIfAbsent(name, key -> new HashMap<>())
+                              .computeIfAbsent(value, key -> new ArrayList<>())
+                              .add(binding);
+    }
+}
@@ -23,9 +23,26 @@ package org.apache.qpid.server.exchange;
 import org.apache.qpid.server.exchange.ExchangeDefaults;
 import org.apache.qpid.server.model.Exchange;
 import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 
 @ManagedObject( category = false, type = ExchangeDefaults.HEADERS_EXCHANGE_CLASS,
         amqpName = "org.apache.qpid.HeadersExchange" )
 public interface HeadersExchange<X extends Exchange<X>> extends Exchange<X>
 {
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Binding Evaluations",
+            description = "Total number of bindings evaluated against messages received by this exchange. Only the "
+                          + "bindings which refer to the headers of a message are evaluated.",
+            metricName = "binding_evaluations_count",
+            resettable = true)
+    long getBindingEvaluations();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Binding Matches",
+            description = "Total number of bindings matched by messages received by this exchange.",
+            metricName = "binding_matches_count",
+            resettable = true)
+    long getBindingMatches();
 }
@@ -20,10 +20,11 @@
  */
 package org.apache.qpid.server.exchange;
 
-import java.util.Collections;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,7 +70,11 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HeadersExchangeImpl.class);
 
-    private final Set<HeadersBinding> _bindingHeaderMatchers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final ConcurrentMap<BindingIdentifier, HeadersBinding> _bindingHeaderMatchers = new ConcurrentHashMap<>();
+    private final AtomicLong _bindingEvaluations = new AtomicLong();
+    private final AtomicLong _bindingMatches = new AtomicLong();
+    private volatile HeadersBindingIndex _bindingIndex = HeadersBindingIndex.EMPTY;
+    private volatile boolean _bindingIndexStale;
 
     @ManagedObjectFactoryConstructor
     public HeadersExchangeImpl(final Map<String, Object> attributes, final QueueManagingVirtualHost<?> vhost)
@@ -85,10 +90,19 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
     {
         LOGGER.debug("Exchange {}: routing message with headers {}", getName(), payload.getMessageHeader());
 
-        for (HeadersBinding hb : _bindingHeaderMatchers)
+        final Collection<HeadersBinding> candidates = getBindingIndex().getCandidates(payload.getMessageHeader());
+        if (candidates.isEmpty())
         {
-            if (hb.matches(Filterable.Factory.newInstance(payload,instanceProperties)))
+            return;
+        }
+
+        final Filterable filterable = Filterable.Factory.newInstance(payload, instanceProperties);
+        int matches = 0;
+        for (HeadersBinding hb : candidates)
+        {
+            if (hb.matches(filterable))
             {
+                matches++;
                 MessageDestination destination = hb.getBinding().getDestination();
 
                 if (LOGGER.isDebugEnabled())
@@ -102,31 +116,72 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
                 routingResult.add(destination.route(payload, actualRoutingKey, instanceProperties));
             }
         }
+        _bindingEvaluations.addAndGet(candidates.size());
+        _bindingMatches.addAndGet(matches);
+    }
+
+    @Override
+    public long getBindingEvaluations()
+    {
+        return _bindingEvaluations.get();
+    }
+
+    @Override
+    public long getBindingMatches()
+    {
+        return _bindingMatches.get();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        super.resetStatistics();
+        _bindingEvaluations.set(0);
+        _bindingMatches.set(0);
     }
 
 
     @Override
     protected void onBind(final BindingIdentifier binding, Map<String,Object> arguments) throws AMQInvalidArgumentException
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        _bindingHeaderMatchers.put(binding, new HeadersBinding(binding, arguments));
+        _bindingIndexStale = true;
     }
 
     @Override
     protected void onBindingUpdated(final BindingIdentifier binding, final Map<String, Object> arguments)  throws AMQInvalidArgumentException
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        _bindingHeaderMatchers.put(binding, new HeadersBinding(binding, arguments));
+        _bindingIndexStale = true;
     }
 
     @Override
     protected void onUnbind(final BindingIdentifier binding)
     {
-        try
+        _bindingHeaderMatchers.remove(binding);
+        _bindingIndexStale = true;
+    }
+
+    private HeadersBindingIndex getBindingIndex()
+    {
+        if (_bindingIndexStale)
         {
-            _bindingHeaderMatchers.remove(new HeadersBinding(binding, Map.of()));
+            rebuildBindingIndex();
         }
-        catch (AMQInvalidArgumentException e)
+        return _bindingIndex;
+    }
+
+    /**
+     * The index is rebuilt lazily by the first route after a binding change, so that creating or removing many
+     * bindings costs one rebuild rather than one per binding.  The stale flag is cleared before the bindings are
+     * read, so a change made during the rebuild marks the index stale again.
+     */
+    private synchronized void rebuildBindingIndex()
+    {
+        if (_bindingIndexStale)
         {
-            // ignore
+            _bindingIndexStale = false;
+            _bindingIndex = new HeadersBindingIndex(_bindingHeaderMatchers.values());
         }
     }
 
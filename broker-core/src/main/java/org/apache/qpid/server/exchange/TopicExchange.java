@@ -22,10 +22,35 @@ package org.apache.qpid.server.exchange;
 
 import org.apache.qpid.server.exchange.ExchangeDefaults;
 import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
 
 @ManagedObject( category = false, type = ExchangeDefaults.TOPIC_EXCHANGE_CLASS,
         amqpName = "org.apache.qpid.TopicExchange" )
 public interface TopicExchange<X extends TopicExchange<X>> extends Exchange<X>
 {
+    String ROUTING_KEY_CACHE_SIZE = "exchange.topic.routingKeyCacheSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = ROUTING_KEY_CACHE_SIZE,
+            description = "Maximum number of routing keys for which the topic exchange caches the matched bindings."
+                          + " The least recently used routing key is evicted when the cache is full, and the cache is"
+                          + " cleared whenever a binding changes. A value of zero disables the cache.")
+    int DEFAULT_ROUTING_KEY_CACHE_SIZE = 0;
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Routing Key Cache Hits",
+            description = "Total number of messages whose routing key was found in the routing key cache.",
+            metricName = "routing_key_cache_hits_count",
+            resettable = true)
+    long getRoutingKeyCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Routing Key Cache Misses",
+            description = "Total number of messages whose routing key was not found in the routing key cache.",
+            metricName = "routing_key_cache_misses_count",
+            resettable = true)
+    long getRoutingKeyCacheMisses();
 }
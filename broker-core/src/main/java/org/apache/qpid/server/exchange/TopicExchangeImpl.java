@@ -26,7 +26,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,12 +58,45 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
 
     private final Map<BindingIdentifier, Map<String,Object>> _bindings = new HashMap<>();
 
+    private final LongAdder _routingKeyCacheHits = new LongAdder();
+    private final LongAdder _routingKeyCacheMisses = new LongAdder();
+    private volatile Cache<String, Collection<TopicMatcherResult>> _routingKeyCache;
+    private int _routingKeyCacheSize;
+
     @ManagedObjectFactoryConstructor
     public TopicExchangeImpl(final Map<String,Object> attributes, final QueueManagingVirtualHost<?> vhost)
     {
         super(attributes, vhost);
     }
 
+    @Override
+    protected void onOpen()
+    {
+        _routingKeyCacheSize = getContextValue(Integer.class, ROUTING_KEY_CACHE_SIZE);
+        invalidateRoutingKeyCache();
+        super.onOpen();
+    }
+
+    @Override
+    public long getRoutingKeyCacheHits()
+    {
+        return _routingKeyCacheHits.sum();
+    }
+
+    @Override
+    public long getRoutingKeyCacheMisses()
+    {
+        return _routingKeyCacheMisses.sum();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        super.resetStatistics();
+        _routingKeyCacheHits.reset();
+        _routingKeyCacheMisses.reset();
+    }
+
     @Override
     protected synchronized void onBindingUpdated(final BindingIdentifier binding, final Map<String, Object> newArguments)
             throws AMQInvalidArgumentException
@@ -76,6 +112,7 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
         {
             TopicExchangeResult result = _topicExchangeResults.get(routingKey);
             updateTopicExchangeResult(result, binding, newArguments);
+            invalidateRoutingKeyCache();
         }
     }
 
@@ -124,6 +161,7 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
             _bindings.put(binding, arguments);
             result.addBinding(binding, arguments);
         }
+        invalidateRoutingKeyCache();
     }
 
     @Override
@@ -180,6 +218,7 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
             }
 
             // shall we delete the result from _topicExchangeResults if result is empty?
+            invalidateRoutingKeyCache();
             return true;
         }
         else
@@ -191,7 +230,7 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
     private Map<MessageDestination, Set<String>> getMatchedDestinations(final Filterable message,
                                                                         final String routingKey)
     {
-        final Collection<TopicMatcherResult> results = _parser.parse(routingKey);
+        final Collection<TopicMatcherResult> results = getMatcherResults(routingKey);
         if (!results.isEmpty())
         {
             final Map<MessageDestination, Set<String>> matchedDestinations = new HashMap<>();
@@ -207,6 +246,38 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
         return Collections.emptyMap();
     }
 
+    private Collection<TopicMatcherResult> getMatcherResults(final String routingKey)
+    {
+        // the cache is replaced, rather than cleared, when bindings change, so that results parsed concurrently
+        // with a binding change can only ever be stored into the discarded cache
+        final Cache<String, Collection<TopicMatcherResult>> cache = _routingKeyCache;
+        if (cache == null)
+        {
+            return _parser.parse(routingKey);
+        }
+
+        Collection<TopicMatcherResult> results = cache.getIfPresent(routingKey);
+        if (results != null)
+        {
+            _routingKeyCacheHits.increment();
+            return results;
+        }
+
+        _routingKeyCacheMisses.increment();
+        results = _parser.parse(routingKey);
+        cache.put(routingKey, results);
+        return results;
+    }
+
+    private void invalidateRoutingKeyCache()
+    {
+        if (_routingKeyCacheSize > 0)
+        {
+            // the least recently used routing keys are evicted once the cache is full
+            _routingKeyCache = CacheBuilder.newBuilder().maximumSize(_routingKeyCacheSize).build();
+        }
+    }
+
     @Override
     protected void onBind(final BindingIdentifier binding, Map<String, Object> arguments)
             throws AMQInvalidArgumentException
@@ -135,9 +135,11 @@ public abstract class ComparisonExpression<T> extends BinaryExpression<T> implem
         @Override
         public Object evaluate(E message)
         {
+            return evaluateValue(this.getRight().evaluate(message));
+        }
 
-            Object rv = this.getRight().evaluate(message);
-
+        Object evaluateValue(final Object rv)
+        {
             if (rv == null)
             {
                 return null;
@@ -581,7 +583,7 @@ public abstract class ComparisonExpression<T> extends BinaryExpression<T> implem
         return (object != null) && (object == Boolean.TRUE);
     }
 
-    private static class EqualExpression<E> extends ComparisonExpression<E>
+    static class EqualExpression<E> extends ComparisonExpression<E>
     {
         public EqualExpression(final Expression<E> left, final Expression<E> right)
         {
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.filter.selector.ParseException;
 import org.apache.qpid.server.filter.selector.TokenMgrError;
+import org.apache.qpid.server.model.ConfiguredObject;
 
 
 public class FilterManagerFactory
@@ -38,7 +39,8 @@ public class FilterManagerFactory
     {
     }
 
-    public static FilterManager createManager(Map<String,Object> filters) throws AMQInvalidArgumentException
+    public static FilterManager createManager(Map<String,Object> filters, final ConfiguredObject<?> context)
+            throws AMQInvalidArgumentException
     {
         FilterManager manager = null;
 
@@ -54,7 +56,8 @@ public class FilterManagerFactory
                     manager = new FilterManager();
                     try
                     {
-                        MessageFilter filter = new JMSSelectorFilter((String)selector);
+                        MessageFilter filter = new JMSSelectorFilter((String) selector,
+                                                                     JMSSelectorFilter.isCompilationEnabled(context));
                         manager.add(filter.getName(), filter);
                     }
                     catch (ParseException | SelectorParsingException | TokenMgrError e)
@@ -30,6 +30,7 @@ import java.util.WeakHashMap;
 import org.apache.qpid.server.filter.selector.ParseException;
 import org.apache.qpid.server.filter.selector.TokenMgrError;
 import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.plugin.PluggableService;
 import org.apache.qpid.server.queue.QueueConsumer;
@@ -38,30 +39,38 @@ public class FilterSupport
 {
     private static final Map<String, WeakReference<JMSSelectorFilter>> _selectorCache =
             Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, WeakReference<JMSSelectorFilter>> _compiledSelectorCache =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
-    static MessageFilter createJMSSelectorFilter(Map<String, Object> args) throws AMQInvalidArgumentException
+    static MessageFilter createJMSSelectorFilter(Map<String, Object> args, MessageDestination queue)
+            throws AMQInvalidArgumentException
     {
         final String selectorString = (String) args.get(AMQPFilterTypes.JMS_SELECTOR.toString());
-        return getMessageFilter(selectorString);
+        final boolean compilationEnabled = JMSSelectorFilter.isCompilationEnabled(
+                queue instanceof ConfiguredObject ? (ConfiguredObject<?>) queue : null);
+        return getMessageFilter(selectorString, compilationEnabled);
     }
 
 
-    private static MessageFilter getMessageFilter(String selectorString) throws AMQInvalidArgumentException
+    private static MessageFilter getMessageFilter(String selectorString, boolean compilationEnabled)
+            throws AMQInvalidArgumentException
     {
-        WeakReference<JMSSelectorFilter> selectorRef = _selectorCache.get(selectorString);
+        final Map<String, WeakReference<JMSSelectorFilter>> selectorCache =
+                compilationEnabled ? _compiledSelectorCache : _selectorCache;
+        WeakReference<JMSSelectorFilter> selectorRef = selectorCache.get(selectorString);
         JMSSelectorFilter selector = null;
 
         if(selectorRef == null || (selector = selectorRef.get())==null)
         {
             try
             {
-                selector = new JMSSelectorFilter(selectorString);
+                selector = new JMSSelectorFilter(selectorString, compilationEnabled);
             }
             catch (ParseException | SelectorParsingException | TokenMgrError e)
             {
                 throw new AMQInvalidArgumentException("Cannot parse JMS selector \"" + selectorString + "\"", e);
             }
-            _selectorCache.put(selectorString, new WeakReference<>(selector));
+            selectorCache.put(selectorString, new WeakReference<>(selector));
         }
         return selector;
     }
@@ -108,7 +117,7 @@ public class FilterSupport
             {
                 filterManager = new FilterManager();
             }
-            filterManager.add(AMQPFilterTypes.JMS_SELECTOR.toString(),createJMSSelectorFilter(args));
+            filterManager.add(AMQPFilterTypes.JMS_SELECTOR.toString(),createJMSSelectorFilter(args, queue));
         }
         return filterManager;
 
@@ -20,12 +20,16 @@
  */
 package org.apache.qpid.server.filter;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.filter.selector.ParseException;
 import org.apache.qpid.server.filter.selector.SelectorParser;
 import org.apache.qpid.server.filter.selector.TokenMgrError;
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.plugin.PluggableService;
 
 
@@ -35,14 +39,61 @@ public class JMSSelectorFilter implements MessageFilter
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSSelectorFilter.class);
 
     private final String _selector;
-    private final BooleanExpression _matcher;
+    private final BooleanExpression<FilterableMessage> _matcher;
+    private final SelectorCompiler.CompiledSelector<FilterableMessage> _compiledMatcher;
+    private final Expression<FilterableMessage> _equalityProperty;
+    private final String _equalityValue;
+    private final LongAdder _evaluations;
 
     public JMSSelectorFilter(String selector) throws ParseException, TokenMgrError, SelectorParsingException
+    {
+        this(selector, Broker.DEFAULT_BROKER_SELECTOR_COMPILATION_ENABLED);
+    }
+
+    /**
+     * Creates a filter for the given selector which, if compilationEnabled, is compiled into evaluators specialised
+     * for the selector rather than being evaluated by interpreting the parsed selector.
+     */
+    public JMSSelectorFilter(String selector, boolean compilationEnabled)
+            throws ParseException, TokenMgrError, SelectorParsingException
     {
         _selector = selector;
         SelectorParser<FilterableMessage> selectorParser = new SelectorParser<>();
         selectorParser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
         _matcher = selectorParser.parse(selector);
+        _compiledMatcher = compilationEnabled ? SelectorCompiler.compile(_matcher) : null;
+        _evaluations = SelectorStatistics.register(this, _compiledMatcher != null);
+
+        Expression<FilterableMessage> equalityProperty = null;
+        Object equalityValue = null;
+        if (_matcher instanceof ComparisonExpression.EqualExpression)
+        {
+            final ComparisonExpression<FilterableMessage> equal = (ComparisonExpression<FilterableMessage>) _matcher;
+            if (equal.getLeft() instanceof PropertyExpression && equal.getRight() instanceof ConstantExpression)
+            {
+                equalityProperty = equal.getLeft();
+                equalityValue = ((ConstantExpression<FilterableMessage>) equal.getRight()).getValue();
+            }
+            else if (equal.getRight() instanceof PropertyExpression && equal.getLeft() instanceof ConstantExpression)
+            {
+                equalityProperty = equal.getRight();
+                equalityValue = ((ConstantExpression<FilterableMessage>) equal.getLeft()).getValue();
+            }
+        }
+        _equalityProperty = equalityValue instanceof String ? equalityProperty : null;
+        _equalityValue = equalityValue instanceof String ? (String) equalityValue : null;
+    }
+
+    /**
+     * Returns whether selectors of filters created for the given object are compiled, as configured by the context
+     * variable {@link Broker#BROKER_SELECTOR_COMPILATION_ENABLED}.
+     */
+    public static boolean isCompilationEnabled(final ConfiguredObject<?> object)
+    {
+        final Boolean compilationEnabled = object == null
+                ? null
+                : object.getContextValue(Boolean.class, Broker.BROKER_SELECTOR_COMPILATION_ENABLED);
+        return compilationEnabled == null ? Broker.DEFAULT_BROKER_SELECTOR_COMPILATION_ENABLED : compilationEnabled;
     }
 
     @Override
@@ -54,8 +105,8 @@ public class JMSSelectorFilter implements MessageFilter
     @Override
     public boolean matches(Filterable message)
     {
-
-        boolean match = _matcher.matches(message);
+        final boolean match = _compiledMatcher == null ? _matcher.matches(message) : _compiledMatcher.matches(message);
+        _evaluations.increment();
         if(LOGGER.isDebugEnabled())
         {
             LOGGER.debug(message + " match(" + match + ") selector(" + System.identityHashCode(_selector) + "):" + _selector);
@@ -74,6 +125,29 @@ public class JMSSelectorFilter implements MessageFilter
         return _selector;
     }
 
+    public boolean isCompiled()
+    {
+        return _compiledMatcher != null;
+    }
+
+    /**
+     * Returns the property which the selector requires to be equal to a string literal, or null if the selector is
+     * not such a comparison.
+     */
+    public Expression<FilterableMessage> getEqualityProperty()
+    {
+        return _equalityProperty;
+    }
+
+    /**
+     * Returns the string literal which the selector requires {@link #getEqualityProperty()} to be equal to, or null
+     * if the selector is not such a comparison.
+     */
+    public String getEqualityValue()
+    {
+        return _equalityValue;
+    }
+
     @Override
     public boolean equals(final Object o)
     {
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.qpid.server.filter.selector.ParseException;
 import org.apache.qpid.server.filter.selector.TokenMgrError;
+import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.plugin.MessageFilterFactory;
 import org.apache.qpid.server.plugin.PluggableService;
 
@@ -38,6 +39,12 @@ public final class JMSSelectorFilterFactory implements MessageFilterFactory
 
     @Override
     public MessageFilter newInstance(final List<String> arguments)
+    {
+        return newInstance(arguments, null);
+    }
+
+    @Override
+    public MessageFilter newInstance(final List<String> arguments, final ConfiguredObject<?> object)
     {
         if(arguments == null || arguments.size() != 1)
         {
@@ -46,7 +53,7 @@ public final class JMSSelectorFilterFactory implements MessageFilterFactory
         String arg = arguments.get(0);
         try
         {
-            return new JMSSelectorFilter(arg);
+            return new JMSSelectorFilter(arg, JMSSelectorFilter.isCompilationEnabled(object));
         }
         catch (ParseException | TokenMgrError | SelectorParsingException e)
         {
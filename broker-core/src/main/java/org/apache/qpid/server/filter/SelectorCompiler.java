@@ -0,0 +1,906 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compiles a parsed selector into a tree of evaluators specialised for the shape of the selector.
+ * <p>
+ * Compilation folds sub-expressions which refer to no message properties into constants, compares property values
+ * with numeric constants using primitive arithmetic, and evaluates each message property at most once per message.
+ * The operands of the AND and OR chains whose outcome decides whether the selector matches are evaluated cheapest
+ * first and are periodically reordered so that the operands which most often decide the outcome of the chain are
+ * evaluated before the others.  Expressions the compiler does not recognise are evaluated by the parsed expression
+ * itself.
+ * <p>
+ * Only operands which cannot fail to evaluate are reordered, and never across an operand which can, such as a
+ * comparison of a property whose value may not be comparable.  An operand which can fail is therefore evaluated for
+ * exactly the messages for which the parsed selector evaluates it, so that the compiled selector matches, or fails
+ * to evaluate, exactly the messages the parsed selector does.
+ */
+final class SelectorCompiler<E>
+{
+    private static final int REORDER_INTERVAL = 1024;
+    private static final int INTERPRETED_COST = 16;
+
+    private final Map<Expression<E>, Integer> _propertySlots = new HashMap<>();
+
+    private SelectorCompiler()
+    {
+    }
+
+    static <E> CompiledSelector<E> compile(final BooleanExpression<E> expression)
+    {
+        final SelectorCompiler<E> compiler = new SelectorCompiler<>();
+        final Node<E> root = compiler.compileCondition(expression);
+        return new CompiledSelector<>(root, compiler._propertySlots.size());
+    }
+
+    /**
+     * Compiles an expression whose value only matters in as much as it is, or is not, true.
+     */
+    private Node<E> compileCondition(final Expression<E> expression)
+    {
+        if (expression instanceof LogicExpression.AndExpression || expression instanceof LogicExpression.OrExpression)
+        {
+            final boolean conjunction = expression instanceof LogicExpression.AndExpression;
+            final List<Node<E>> operands = new ArrayList<>();
+            for (Expression<E> operand : flatten(expression, expression.getClass(), new ArrayList<>()))
+            {
+                final Node<E> node = compileCondition(operand);
+                if (node instanceof ConstantNode)
+                {
+                    if ((((ConstantNode<E>) node).getValue() == Boolean.TRUE) != conjunction)
+                    {
+                        return new ConstantNode<>(conjunction ? Boolean.FALSE : Boolean.TRUE);
+                    }
+                }
+                else
+                {
+                    operands.add(node);
+                }
+            }
+
+            if (operands.isEmpty())
+            {
+                return new ConstantNode<>(conjunction ? Boolean.TRUE : Boolean.FALSE);
+            }
+            else if (operands.size() == 1)
+            {
+                return operands.get(0);
+            }
+            return new JunctionNode<>(conjunction, operands);
+        }
+        return compile(expression);
+    }
+
+    private List<Expression<E>> flatten(final Expression<E> expression,
+                                        final Class<?> junctionClass,
+                                        final List<Expression<E>> operands)
+    {
+        if (expression.getClass() == junctionClass)
+        {
+            final BinaryExpression<E> junction = (BinaryExpression<E>) expression;
+            flatten(junction.getLeft(), junctionClass, operands);
+            flatten(junction.getRight(), junctionClass, operands);
+        }
+        else
+        {
+            operands.add(expression);
+        }
+        return operands;
+    }
+
+    private Node<E> compile(final Expression<E> expression)
+    {
+        if (expression instanceof ConstantExpression)
+        {
+            return new ConstantNode<>(((ConstantExpression<E>) expression).getValue());
+        }
+        else if (expression instanceof PropertyExpression)
+        {
+            final int slot = _propertySlots.computeIfAbsent(expression, key -> _propertySlots.size());
+            return new PropertyNode<>(slot, expression);
+        }
+        else if (isConstant(expression))
+        {
+            try
+            {
+                return new ConstantNode<>(expression.evaluate(null));
+            }
+            catch (RuntimeException e)
+            {
+                return new InterpretedNode<>(expression);
+            }
+        }
+        else if (expression instanceof LogicExpression.AndExpression)
+        {
+            final LogicExpression<E> and = (LogicExpression<E>) expression;
+            return new AndNode<>(compile(and.getLeft()), compile(and.getRight()));
+        }
+        else if (expression instanceof LogicExpression.OrExpression)
+        {
+            final LogicExpression<E> or = (LogicExpression<E>) expression;
+            return new OrNode<>(compile(or.getLeft()), compile(or.getRight()));
+        }
+        else if (expression instanceof UnaryExpression.NotExpression)
+        {
+            return new NotNode<>(compile(((UnaryExpression<E>) expression).getRight()));
+        }
+        else if (expression instanceof UnaryExpression.BooleanCastExpression)
+        {
+            return new BooleanCastNode<>(compile(((UnaryExpression<E>) expression).getRight()));
+        }
+        else if (expression instanceof ComparisonExpression.EqualExpression)
+        {
+            final ComparisonExpression<E> equal = (ComparisonExpression<E>) expression;
+            return new EqualNode<>(equal, compile(equal.getLeft()), compile(equal.getRight()));
+        }
+        else if (expression instanceof ComparisonExpression)
+        {
+            final ComparisonExpression<E> comparison = (ComparisonExpression<E>) expression;
+            final Node<E> left = compile(comparison.getLeft());
+            final Node<E> right = compile(comparison.getRight());
+            if (right instanceof ConstantNode)
+            {
+                final Object value = ((ConstantNode<E>) right).getValue();
+                if (value instanceof Integer || value instanceof Long)
+                {
+                    return new IntegralComparisonNode<>(comparison, left, (Number) value);
+                }
+                else if (value instanceof Double)
+                {
+                    return new FloatingPointComparisonNode<>(comparison, left, (Double) value);
+                }
+            }
+            return new ComparisonNode<>(comparison, left, right);
+        }
+        else if (expression instanceof ComparisonExpression.LikeExpression)
+        {
+            final ComparisonExpression.LikeExpression<E> like = (ComparisonExpression.LikeExpression<E>) expression;
+            return new LikeNode<>(like, compile(like.getRight()));
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            final UnaryExpression.InExpression<E> in = (UnaryExpression.InExpression<E>) expression;
+            return new InNode<>(in, compile(in.getRight()));
+        }
+        return new InterpretedNode<>(expression);
+    }
+
+    private boolean isConstant(final Expression<E> expression)
+    {
+        if (expression instanceof ConstantExpression)
+        {
+            return true;
+        }
+        else if (expression instanceof PropertyExpression || expression instanceof UnaryExpression.InExpression)
+        {
+            return false;
+        }
+        else if (expression instanceof BinaryExpression)
+        {
+            final BinaryExpression<E> binary = (BinaryExpression<E>) expression;
+            return isConstant(binary.getLeft()) && isConstant(binary.getRight());
+        }
+        else if (expression instanceof UnaryExpression)
+        {
+            return isConstant(((UnaryExpression<E>) expression).getRight());
+        }
+        return false;
+    }
+
+    static final class CompiledSelector<E>
+    {
+        private final Node<E> _root;
+        private final int _propertyCount;
+        /**
+         * A frame kept for reuse by the next evaluation.  A selector may be evaluated by several threads at once, so
+         * an evaluation takes the frame for itself and allocates a new one only if another evaluation holds it.
+         */
+        private final AtomicReference<Frame<E>> _spareFrame = new AtomicReference<>();
+
+        private CompiledSelector(final Node<E> root, final int propertyCount)
+        {
+            _root = root;
+            _propertyCount = propertyCount;
+        }
+
+        boolean matches(final E message)
+        {
+            Frame<E> frame = _spareFrame.getAndSet(null);
+            if (frame == null)
+            {
+                frame = new Frame<>(_propertyCount);
+            }
+            frame._message = message;
+            try
+            {
+                return _root.evaluate(frame) == Boolean.TRUE;
+            }
+            finally
+            {
+                frame.clear();
+                _spareFrame.set(frame);
+            }
+        }
+    }
+
+    /**
+     * The message being evaluated together with the values of the message properties looked up so far.
+     */
+    private static final class Frame<E>
+    {
+        private static final Object UNEVALUATED = new Object();
+
+        private final Object[] _propertyValues;
+        private E _message;
+
+        private Frame(final int propertyCount)
+        {
+            _propertyValues = new Object[propertyCount];
+            Arrays.fill(_propertyValues, UNEVALUATED);
+        }
+
+        private void clear()
+        {
+            _message = null;
+            Arrays.fill(_propertyValues, UNEVALUATED);
+        }
+
+        private Object getPropertyValue(final int slot, final Expression<E> property)
+        {
+            Object value = _propertyValues[slot];
+            if (value == UNEVALUATED)
+            {
+                value = property.evaluate(_message);
+                _propertyValues[slot] = value;
+            }
+            return value;
+        }
+    }
+
+    private interface Node<E>
+    {
+        Object evaluate(Frame<E> frame);
+
+        int getCost();
+
+        /**
+         * Returns true if the evaluation of the node may throw, in which case the node must be evaluated for exactly
+         * the messages for which the parsed expression would be evaluated.
+         */
+        boolean mayFail();
+    }
+
+    /**
+     * Returns true if the node may fail to evaluate when its value is cast to a boolean, as the parsed AND, OR and
+     * NOT expressions cast the values of their operands.
+     */
+    private static <E> boolean mayFailAsBoolean(final Node<E> node)
+    {
+        if (node instanceof ConstantNode)
+        {
+            final Object value = ((ConstantNode<E>) node).getValue();
+            return value != null && !(value instanceof Boolean);
+        }
+        return node instanceof PropertyNode || node.mayFail();
+    }
+
+    private static final class ConstantNode<E> implements Node<E>
+    {
+        private final Object _value;
+
+        private ConstantNode(final Object value)
+        {
+            _value = value;
+        }
+
+        private Object getValue()
+        {
+            return _value;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            return _value;
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return false;
+        }
+    }
+
+    private static final class PropertyNode<E> implements Node<E>
+    {
+        private final int _slot;
+        private final Expression<E> _property;
+
+        private PropertyNode(final int slot, final Expression<E> property)
+        {
+            _slot = slot;
+            _property = property;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            return frame.getPropertyValue(_slot, _property);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1;
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return false;
+        }
+    }
+
+    private static final class InterpretedNode<E> implements Node<E>
+    {
+        private final Expression<E> _expression;
+
+        private InterpretedNode(final Expression<E> expression)
+        {
+            _expression = expression;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            return _expression.evaluate(frame._message);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return INTERPRETED_COST;
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return true;
+        }
+    }
+
+    private static final class AndNode<E> implements Node<E>
+    {
+        private final Node<E> _left;
+        private final Node<E> _right;
+
+        private AndNode(final Node<E> left, final Node<E> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Boolean lv = (Boolean) _left.evaluate(frame);
+            if (lv == null)
+            {
+                return null;
+            }
+            if (!lv)
+            {
+                return Boolean.FALSE;
+            }
+            return (Boolean) _right.evaluate(frame);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _left.getCost() + _right.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return mayFailAsBoolean(_left) || mayFailAsBoolean(_right);
+        }
+    }
+
+    private static final class OrNode<E> implements Node<E>
+    {
+        private final Node<E> _left;
+        private final Node<E> _right;
+
+        private OrNode(final Node<E> left, final Node<E> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Boolean lv = (Boolean) _left.evaluate(frame);
+            if (lv != null && lv)
+            {
+                return Boolean.TRUE;
+            }
+            return (Boolean) _right.evaluate(frame);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _left.getCost() + _right.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return mayFailAsBoolean(_left) || mayFailAsBoolean(_right);
+        }
+    }
+
+    private static final class NotNode<E> implements Node<E>
+    {
+        private final Node<E> _operand;
+
+        private NotNode(final Node<E> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Boolean value = (Boolean) _operand.evaluate(frame);
+            if (value == null)
+            {
+                return null;
+            }
+            return value ? Boolean.FALSE : Boolean.TRUE;
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _operand.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return mayFailAsBoolean(_operand);
+        }
+    }
+
+    private static final class BooleanCastNode<E> implements Node<E>
+    {
+        private final Node<E> _operand;
+
+        private BooleanCastNode(final Node<E> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Object value = _operand.evaluate(frame);
+            if (value == null)
+            {
+                return null;
+            }
+            return value.getClass() == Boolean.class && (Boolean) value ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _operand.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return _operand.mayFail();
+        }
+    }
+
+    private static final class EqualNode<E> implements Node<E>
+    {
+        private final ComparisonExpression<E> _expression;
+        private final Node<E> _left;
+        private final Node<E> _right;
+
+        private EqualNode(final ComparisonExpression<E> expression, final Node<E> left, final Node<E> right)
+        {
+            _expression = expression;
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Object lv = _left.evaluate(frame);
+            final Object rv = _right.evaluate(frame);
+            if ((lv == null) ^ (rv == null))
+            {
+                return Boolean.FALSE;
+            }
+            if (lv == rv || lv.equals(rv))
+            {
+                return Boolean.TRUE;
+            }
+            if (lv instanceof Comparable && rv instanceof Comparable)
+            {
+                return _expression.compare((Comparable) lv, (Comparable) rv);
+            }
+            return Boolean.FALSE;
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _left.getCost() + _right.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            // a string may only fail to convert to an enum, which is never the value of a constant
+            return _left.mayFail() || _right.mayFail() || !(_right instanceof ConstantNode);
+        }
+    }
+
+    private static class ComparisonNode<E> implements Node<E>
+    {
+        final ComparisonExpression<E> _expression;
+        final Node<E> _left;
+        private final Node<E> _right;
+
+        private ComparisonNode(final ComparisonExpression<E> expression, final Node<E> left, final Node<E> right)
+        {
+            _expression = expression;
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Comparable lv = (Comparable) _left.evaluate(frame);
+            if (lv == null)
+            {
+                return null;
+            }
+            final Comparable rv = (Comparable) _right.evaluate(frame);
+            if (rv == null)
+            {
+                return null;
+            }
+            return _expression.compare(lv, rv);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 1 + _left.getCost() + _right.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            // the value of a property may not be comparable
+            return true;
+        }
+    }
+
+    /**
+     * Comparison of a value with an integer or long constant, performed on primitives for the numeric types to which
+     * {@link ComparisonExpression#compare(Comparable, Comparable)} would promote the operands.
+     */
+    private static final class IntegralComparisonNode<E> extends ComparisonNode<E>
+    {
+        private final Comparable _constant;
+        private final long _longConstant;
+        private final float _floatConstant;
+        private final double _doubleConstant;
+
+        private IntegralComparisonNode(final ComparisonExpression<E> expression,
+                                       final Node<E> left,
+                                       final Number constant)
+        {
+            super(expression, left, new ConstantNode<>(constant));
+            _constant = (Comparable) constant;
+            _longConstant = constant.longValue();
+            _floatConstant = constant.floatValue();
+            _doubleConstant = constant.doubleValue();
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Comparable lv = (Comparable) _left.evaluate(frame);
+            if (lv == null)
+            {
+                return null;
+            }
+
+            final int answer;
+            if (lv instanceof Integer || lv instanceof Long || lv instanceof Short || lv instanceof Byte)
+            {
+                answer = Long.compare(((Number) lv).longValue(), _longConstant);
+            }
+            else if (lv instanceof Double)
+            {
+                answer = Double.compare((Double) lv, _doubleConstant);
+            }
+            else if (lv instanceof Float)
+            {
+                answer = Float.compare((Float) lv, _floatConstant);
+            }
+            else
+            {
+                return _expression.compare(lv, _constant);
+            }
+            return _expression.asBoolean(answer) ? Boolean.TRUE : Boolean.FALSE;
+        }
+    }
+
+    /**
+     * Comparison of a value with a floating point constant, performed on primitives for the numeric types to which
+     * {@link ComparisonExpression#compare(Comparable, Comparable)} would promote the operands.
+     */
+    private static final class FloatingPointComparisonNode<E> extends ComparisonNode<E>
+    {
+        private final Double _constant;
+        private final double _doubleConstant;
+
+        private FloatingPointComparisonNode(final ComparisonExpression<E> expression,
+                                            final Node<E> left,
+                                            final Double constant)
+        {
+            super(expression, left, new ConstantNode<>(constant));
+            _constant = constant;
+            _doubleConstant = constant;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Comparable lv = (Comparable) _left.evaluate(frame);
+            if (lv == null)
+            {
+                return null;
+            }
+
+            if (lv instanceof Double || lv instanceof Float || lv instanceof Integer || lv instanceof Long
+                || lv instanceof Short || lv instanceof Byte)
+            {
+                final int answer = Double.compare(((Number) lv).doubleValue(), _doubleConstant);
+                return _expression.asBoolean(answer) ? Boolean.TRUE : Boolean.FALSE;
+            }
+            return _expression.compare(lv, _constant);
+        }
+    }
+
+    private static final class LikeNode<E> implements Node<E>
+    {
+        private final ComparisonExpression.LikeExpression<E> _expression;
+        private final Node<E> _operand;
+
+        private LikeNode(final ComparisonExpression.LikeExpression<E> expression, final Node<E> operand)
+        {
+            _expression = expression;
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            return _expression.evaluateValue(_operand.evaluate(frame));
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 8 + _operand.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return _operand.mayFail();
+        }
+    }
+
+    private static final class InNode<E> implements Node<E>
+    {
+        private final UnaryExpression.InExpression<E> _expression;
+        private final Node<E> _operand;
+
+        private InNode(final UnaryExpression.InExpression<E> expression, final Node<E> operand)
+        {
+            _expression = expression;
+            _operand = operand;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            return _expression.evaluateValue(_operand.evaluate(frame), frame._message);
+        }
+
+        @Override
+        public int getCost()
+        {
+            return 4 + _operand.getCost();
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return _operand.mayFail();
+        }
+    }
+
+    /**
+     * A chain of AND or OR operands whose value only matters in as much as it is, or is not, true.  The operands which
+     * cannot fail to evaluate can therefore be evaluated in any order, stopping at the first operand which decides the
+     * outcome of the chain, as long as none is moved across an operand which can fail.
+     * <p>
+     * The operands between those which can fail are initially ordered cheapest first.  Every
+     * {@value #REORDER_INTERVAL} evaluations they are reordered by the rate at which they decided the outcome per unit
+     * of cost.
+     * <p>
+     * A compiled selector is shared by every consumer using the same selector, so a junction is evaluated by many
+     * threads at once.  The per-operand counts behind the rates are updated without synchronisation, as lost updates
+     * merely make the ordering less accurate.  The evaluation that completes an interval claims the reorder with a
+     * compare-and-set, and the reorder computes its scores into a map of its own and sorts a copy of the operands,
+     * so that the array being evaluated is never modified and a concurrent reorder cannot change the scores being
+     * sorted by.  The reordered array is then published through a volatile field.
+     */
+    private static final class JunctionNode<E> implements Node<E>
+    {
+        private final boolean _conjunction;
+        private final int _cost;
+        private final boolean _mayFail;
+        private volatile Operand<E>[] _operands;
+        private final AtomicInteger _evaluations = new AtomicInteger();
+
+        @SuppressWarnings("unchecked")
+        private JunctionNode(final boolean conjunction, final List<Node<E>> operands)
+        {
+            _conjunction = conjunction;
+            final Operand<E>[] ordered = operands.stream().map(Operand::new).toArray(Operand[]::new);
+            sortBetweenFallibleOperands(ordered, Comparator.comparingInt(operand -> operand._cost));
+            _cost = 1 + Arrays.stream(ordered).mapToInt(operand -> operand._cost).sum();
+            _mayFail = Arrays.stream(ordered).anyMatch(operand -> operand._mayFail);
+            _operands = ordered;
+        }
+
+        @Override
+        public Object evaluate(final Frame<E> frame)
+        {
+            final Operand<E>[] operands = _operands;
+            boolean result = _conjunction;
+            for (Operand<E> operand : operands)
+            {
+                operand._evaluations++;
+                if (((Boolean) operand._node.evaluate(frame) == Boolean.TRUE) != _conjunction)
+                {
+                    operand._decisions++;
+                    result = !_conjunction;
+                    break;
+                }
+            }
+
+            final int evaluations = _evaluations.incrementAndGet();
+            if (evaluations >= REORDER_INTERVAL && _evaluations.compareAndSet(evaluations, 0))
+            {
+                reorder(operands);
+            }
+            return result ? Boolean.TRUE : Boolean.FALSE;
+        }
+
+        private void reorder(final Operand<E>[] operands)
+        {
+            final Operand<E>[] reordered = operands.clone();
+            final Map<Operand<E>, Double> scores = new IdentityHashMap<>();
+            for (Operand<E> operand : reordered)
+            {
+                scores.put(operand, (operand._decisions + 1.0) / (operand._evaluations + 2.0) / (operand._cost + 1));
+                operand._decisions = 0;
+                operand._evaluations = 0;
+            }
+            sortBetweenFallibleOperands(reordered,
+                                        Comparator.comparingDouble((Operand<E> operand) -> scores.get(operand)).reversed());
+            _operands = reordered;
+        }
+
+        /**
+         * Sorts each run of operands which cannot fail, leaving the operands which can fail where they are.
+         */
+        private static <E> void sortBetweenFallibleOperands(final Operand<E>[] operands,
+                                                            final Comparator<Operand<E>> comparator)
+        {
+            int start = 0;
+            for (int i = 0; i <= operands.length; i++)
+            {
+                if (i == operands.length || operands[i]._mayFail)
+                {
+                    Arrays.sort(operands, start, i, comparator);
+                    start = i + 1;
+                }
+            }
+        }
+
+        @Override
+        public int getCost()
+        {
+            return _cost;
+        }
+
+        @Override
+        public boolean mayFail()
+        {
+            return _mayFail;
+        }
+    }
+
+    private static final class Operand<E>
+    {
+        private final Node<E> _node;
+        private final int _cost;
+        private final boolean _mayFail;
+        private int _evaluations;
+        private int _decisions;
+
+        private Operand(final Node<E> node)
+        {
+            _node = node;
+            _cost = node.getCost();
+            _mayFail = mayFailAsBoolean(node);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the JMS selectors compiled and the evaluations made by compiled and interpreted selectors.
+ * <p>
+ * Each {@link JMSSelectorFilter} counts its own evaluations, so evaluating different selectors never updates a
+ * shared counter. The counters of live filters are summed when a statistic is read. Once a filter has been garbage
+ * collected its evaluations are added to the retired totals.
+ */
+public final class SelectorStatistics
+{
+    private static final LongAdder COMPILED_SELECTORS = new LongAdder();
+    private static final LongAdder RETIRED_COMPILED_EVALUATIONS = new LongAdder();
+    private static final LongAdder RETIRED_INTERPRETED_EVALUATIONS = new LongAdder();
+    private static final Set<EvaluationCounter> LIVE_COUNTERS = ConcurrentHashMap.newKeySet();
+    private static final ReferenceQueue<JMSSelectorFilter> COLLECTED_FILTERS = new ReferenceQueue<>();
+
+    private SelectorStatistics()
+    {
+    }
+
+    static LongAdder register(final JMSSelectorFilter filter, final boolean compiled)
+    {
+        expungeCollectedFilters();
+        if (compiled)
+        {
+            COMPILED_SELECTORS.increment();
+        }
+        final EvaluationCounter counter = new EvaluationCounter(filter, compiled);
+        LIVE_COUNTERS.add(counter);
+        return counter._evaluations;
+    }
+
+    public static long getCompiledSelectorCount()
+    {
+        return COMPILED_SELECTORS.sum();
+    }
+
+    public static long getCompiledEvaluationCount()
+    {
+        return RETIRED_COMPILED_EVALUATIONS.sum() + sumLiveEvaluations(true);
+    }
+
+    public static long getInterpretedEvaluationCount()
+    {
+        return RETIRED_INTERPRETED_EVALUATIONS.sum() + sumLiveEvaluations(false);
+    }
+
+    private static long sumLiveEvaluations(final boolean compiled)
+    {
+        expungeCollectedFilters();
+        long evaluations = 0L;
+        for (EvaluationCounter counter : LIVE_COUNTERS)
+        {
+            if (counter._compiled == compiled)
+            {
+                evaluations += counter._evaluations.sum();
+            }
+        }
+        return evaluations;
+    }
+
+    private static void expungeCollectedFilters()
+    {
+        Reference<? extends JMSSelectorFilter> reference;
+        while ((reference = COLLECTED_FILTERS.poll()) != null)
+        {
+            final EvaluationCounter counter = (EvaluationCounter) reference;
+            if (LIVE_COUNTERS.remove(counter))
+            {
+                (counter._compiled ? RETIRED_COMPILED_EVALUATIONS : RETIRED_INTERPRETED_EVALUATIONS)
+                        .add(counter._evaluations.sum());
+            }
+        }
+    }
+
+    private static final class EvaluationCounter extends WeakReference<JMSSelectorFilter>
+    {
+        private final boolean _compiled;
+        private final LongAdder _evaluations = new LongAdder();
+
+        private EvaluationCounter(final JMSSelectorFilter filter, final boolean compiled)
+        {
+            super(filter, COLLECTED_FILTERS);
+            _compiled = compiled;
+        }
+    }
+}
@@ -215,7 +215,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class InExpression<E> extends BooleanUnaryExpression<E>
+    static class InExpression<E> extends BooleanUnaryExpression<E>
     {
         private final Collection<?> _inList;
         private final boolean _not;
@@ -235,8 +235,11 @@ public abstract class UnaryExpression<T> implements Expression<T>
         @Override
         public Object evaluate(E expression)
         {
+            return evaluateValue(getRight().evaluate(expression), expression);
+        }
 
-            Object rvalue = getRight().evaluate(expression);
+        Object evaluateValue(final Object rvalue, final E expression)
+        {
             if (rvalue == null || !(_allowNonJms || rvalue instanceof String))
             {
                 return null;
@@ -337,7 +340,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class NotExpression<E> extends BooleanUnaryExpression<E>
+    static class NotExpression<E> extends BooleanUnaryExpression<E>
     {
         public NotExpression(final BooleanExpression<E> left)
         {
@@ -363,7 +366,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class BooleanCastExpression<E> extends BooleanUnaryExpression<E>
+    static class BooleanCastExpression<E> extends BooleanUnaryExpression<E>
     {
         public BooleanCastExpression(final Expression<E> left)
         {
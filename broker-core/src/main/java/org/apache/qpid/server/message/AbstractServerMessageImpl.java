@@ -32,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
@@ -46,7 +48,13 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
     private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, Collection> _resourcesUpdater =
             AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, Collection.class,"_resources");
 
+    private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, ConvertedMessageCache>
+            _convertedMessageCacheUpdater = AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class,
+                                                                                   ConvertedMessageCache.class,
+                                                                                   "_convertedMessageCache");
+
     private volatile int _referenceCount = 0;
+    private volatile ConvertedMessageCache _convertedMessageCache;
     private final StoredMessage<T> _handle;
     private final Object _connectionReference;
     @SuppressWarnings("unused")
@@ -125,6 +133,11 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
                 if (updated)
                 {
                     _handle.remove();
+                    final ConvertedMessageCache convertedMessageCache = _convertedMessageCache;
+                    if (convertedMessageCache != null)
+                    {
+                        convertedMessageCache.close();
+                    }
                 }
             }
             else
@@ -136,6 +149,27 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         while (!updated);
     }
 
+    /**
+     * Returns a reference to this message converted by the given converter. The converted message is shared with
+     * the other deliveries of this message needing the same conversion, and is disposed once this message has been
+     * deleted and all the references to the converted message have been released.
+     */
+    public <N extends ServerMessage<?>> MessageReference<N> getConvertedMessage(final MessageConverter<?, ?> converter,
+                                                                              final NamedAddressSpace addressSpace)
+    {
+        ConvertedMessageCache convertedMessageCache = _convertedMessageCache;
+        if (convertedMessageCache == null)
+        {
+            _convertedMessageCacheUpdater.compareAndSet(this, null, new ConvertedMessageCache());
+            convertedMessageCache = _convertedMessageCache;
+            if (_referenceCount < 0)
+            {
+                convertedMessageCache.close();
+            }
+        }
+        return convertedMessageCache.getConvertedMessage(this, converter, addressSpace);
+    }
+
     public String debugIdentity()
     {
         return "(HC:" + System.identityHashCode(this) + " ID:" + getMessageNumber() + " Ref:" + getReferenceCount() + ")";
@@ -208,6 +242,42 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         }
     }
 
+    @Override
+    public MessageContentReader openContentReader()
+    {
+        final StoredMessage<T> storedMessage = getStoredMessage();
+        final boolean wasInMemory = storedMessage.isInContentInMemory();
+        final MessageContentReader reader = storedMessage.openContentReader();
+        if (wasInMemory)
+        {
+            return reader;
+        }
+        return new MessageContentReader()
+        {
+            @Override
+            public QpidByteBuffer read(final int length)
+            {
+                return reader.read(length);
+            }
+
+            @Override
+            public void close()
+            {
+                try
+                {
+                    reader.close();
+                }
+                finally
+                {
+                    if (checkValid())
+                    {
+                        storedMessage.flowToDisk();
+                    }
+                }
+            }
+        };
+    }
+
     @Override
     final public Object getConnectionReference()
     {
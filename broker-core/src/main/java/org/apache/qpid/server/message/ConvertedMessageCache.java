@@ -0,0 +1,253 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+
+/**
+ * Forms of a message converted for delivery, shared by all the consumers which need the message in the same form.
+ * <p>
+ * A converted form is disposed once the original message has been deleted and no delivery still refers to it. It is
+ * also disposed as soon as no delivery refers to it if the converted messages of the virtualhost exceed the size
+ * allowed by {@link QueueManagingVirtualHost#CONVERTED_MESSAGE_CACHE_SIZE}, or if the address space is not a
+ * virtualhost. The size of the converted forms is registered with the virtualhost, so that it counts towards the
+ * target size for flow to disk.
+ */
+final class ConvertedMessageCache
+{
+    private final List<Entry> _entries = new ArrayList<>(2);
+    private boolean _closed;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    <N extends ServerMessage<?>> MessageReference<N> getConvertedMessage(final ServerMessage<?> message,
+                                                                          final MessageConverter converter,
+                                                                          final NamedAddressSpace addressSpace)
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            if (_closed)
+            {
+                entry = null;
+            }
+            else
+            {
+                entry = findEntry(converter, addressSpace);
+                if (entry == null)
+                {
+                    entry = new Entry(converter, addressSpace, converter.convert(message, addressSpace));
+                    _entries.add(entry);
+                    registerConversion(addressSpace, false);
+                    registerSize(addressSpace, entry._size);
+                }
+                else
+                {
+                    registerConversion(addressSpace, true);
+                }
+                entry._referenceCount++;
+            }
+        }
+
+        if (entry == null)
+        {
+            registerConversion(addressSpace, false);
+            return new UncachedReference<>((N) converter.convert(message, addressSpace), converter);
+        }
+        return new CachedReference<>(entry);
+    }
+
+    /**
+     * Disposes the converted forms which are no longer referenced; the others are disposed once they are released.
+     */
+    void close()
+    {
+        synchronized (this)
+        {
+            _closed = true;
+            for (Entry entry : _entries)
+            {
+                if (entry._referenceCount == 0)
+                {
+                    dispose(entry);
+                }
+            }
+            _entries.removeIf(entry -> entry._referenceCount == 0);
+        }
+    }
+
+    private void release(final Entry entry)
+    {
+        synchronized (this)
+        {
+            entry._referenceCount--;
+            if (entry._referenceCount == 0 && (_closed || !isRetainable(entry._addressSpace)))
+            {
+                _entries.remove(entry);
+                dispose(entry);
+            }
+        }
+    }
+
+    private Entry findEntry(final MessageConverter<?, ?> converter, final NamedAddressSpace addressSpace)
+    {
+        for (Entry entry : _entries)
+        {
+            if (entry._converter == converter && entry._addressSpace == addressSpace)
+            {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void dispose(final Entry entry)
+    {
+        entry._converter.dispose(entry._convertedMessage);
+        registerSize(entry._addressSpace, -entry._size);
+    }
+
+    private static boolean isRetainable(final NamedAddressSpace addressSpace)
+    {
+        return addressSpace instanceof QueueManagingVirtualHost
+               && !((QueueManagingVirtualHost<?>) addressSpace).isConvertedMessageCacheFull();
+    }
+
+    private static void registerSize(final NamedAddressSpace addressSpace, final long size)
+    {
+        if (addressSpace instanceof QueueManagingVirtualHost)
+        {
+            ((QueueManagingVirtualHost<?>) addressSpace).registerConvertedMessageSize(size);
+        }
+    }
+
+    private static void registerConversion(final NamedAddressSpace addressSpace, final boolean cacheHit)
+    {
+        if (addressSpace instanceof QueueManagingVirtualHost)
+        {
+            final QueueManagingVirtualHost<?> virtualHost = (QueueManagingVirtualHost<?>) addressSpace;
+            if (cacheHit)
+            {
+                virtualHost.registerConvertedMessageCacheHit();
+            }
+            else
+            {
+                virtualHost.registerMessageConverted();
+            }
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class Entry
+    {
+        private final MessageConverter _converter;
+        private final NamedAddressSpace _addressSpace;
+        private final ServerMessage _convertedMessage;
+        private final long _size;
+        private int _referenceCount;
+
+        private Entry(final MessageConverter converter,
+                      final NamedAddressSpace addressSpace,
+                      final ServerMessage convertedMessage)
+        {
+            _converter = converter;
+            _addressSpace = addressSpace;
+            _convertedMessage = convertedMessage;
+            _size = convertedMessage.getSizeIncludingHeader();
+        }
+    }
+
+    private final class CachedReference<N extends ServerMessage<?>> implements MessageReference<N>
+    {
+        private final Entry _entry;
+        private boolean _released;
+
+        private CachedReference(final Entry entry)
+        {
+            _entry = entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public N getMessage()
+        {
+            return (N) _entry._convertedMessage;
+        }
+
+        @Override
+        public synchronized void release()
+        {
+            if (!_released)
+            {
+                _released = true;
+                ConvertedMessageCache.this.release(_entry);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            release();
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    static final class UncachedReference<N extends ServerMessage<?>> implements MessageReference<N>
+    {
+        private final N _message;
+        private final MessageConverter _converter;
+        private boolean _released;
+
+        UncachedReference(final N message, final MessageConverter converter)
+        {
+            _message = message;
+            _converter = converter;
+        }
+
+        @Override
+        public N getMessage()
+        {
+            return _message;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public synchronized void release()
+        {
+            if (!_released)
+            {
+                _released = true;
+                _converter.dispose(_message);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            release();
+        }
+    }
+}
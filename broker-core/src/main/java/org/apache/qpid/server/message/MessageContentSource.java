@@ -29,4 +29,12 @@ public interface MessageContentSource
     QpidByteBuffer getContent(int offset, int length);
 
     long getSize();
+
+    /**
+     * Opens a reader of the content from its beginning. Caller is responsible for closing the reader.
+     */
+    default MessageContentReader openContentReader()
+    {
+        return new RangedMessageContentReader(this::getContent, (int) getSize());
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.message;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+
+/**
+ * Reads content sequentially by requesting each successive range of it from the underlying source.
+ */
+public class RangedMessageContentReader implements MessageContentReader
+{
+    public interface ContentRangeSource
+    {
+        QpidByteBuffer getContent(int offset, int length);
+    }
+
+    private final ContentRangeSource _source;
+    private final int _size;
+    private int _position;
+
+    public RangedMessageContentReader(final ContentRangeSource source, final int size)
+    {
+        _source = source;
+        _size = size;
+    }
+
+    @Override
+    public QpidByteBuffer read(final int length)
+    {
+        final int rangeLength = Math.min(length, _size - _position);
+        final QpidByteBuffer content = _source.getContent(_position, rangeLength);
+        _position += rangeLength;
+        return content;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.EventLoggerProvider;
 import org.apache.qpid.server.security.auth.SocketConnectionMetaData;
 import org.apache.qpid.server.stats.StatisticsGatherer;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
 import org.apache.qpid.server.store.preferences.UserPreferencesCreator;
 
 @ManagedObject( defaultType = Broker.BROKER_TYPE, amqpName = "org.apache.qpid.Broker")
@@ -130,6 +131,12 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
     @ManagedContextDefault(name = BROKER_STATISTICS_REPORING_PERIOD)
     int DEFAULT_STATISTICS_REPORTING_PERIOD = 0;
 
+    String STATISTICS_SNAPSHOT_REFRESH_INTERVAL = "qpid.broker.statisticsSnapshotRefreshInterval";
+    @ManagedContextDefault(name = STATISTICS_SNAPSHOT_REFRESH_INTERVAL,
+            description = "Time interval (in milliseconds) for which a snapshot of the statistics of the Broker and its"
+                          + " descendants is shared by its readers, such as metrics scrapes, before it is retaken.")
+    long DEFAULT_STATISTICS_SNAPSHOT_REFRESH_INTERVAL = 5000L;
+
     String PROPERTY_DISABLED_FEATURES = "qpid.broker_disabled_features";
 
     @DerivedAttribute
@@ -186,10 +193,23 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
     @ManagedContextDefault(name = BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE)
     int DEFAULT_BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE = 1024;
 
+    String BROKER_DIRECT_BYTE_BUFFER_POOL_THREAD_CACHE_SIZE = "broker.directByteBufferPoolThreadCacheSize";
+    @ManagedContextDefault(name = BROKER_DIRECT_BYTE_BUFFER_POOL_THREAD_CACHE_SIZE,
+            description = "Maximum number of pooled direct memory buffers cached by each broker thread. Cached buffers"
+                          + " count towards the size of the pool. A value of zero disables thread caching.")
+    int DEFAULT_BROKER_DIRECT_BYTE_BUFFER_POOL_THREAD_CACHE_SIZE = 16;
+
     String BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION = "broker.directByteBufferPoolSparsityReallocationFraction";
     @ManagedContextDefault(name = BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION)
     double DEFAULT_BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION = 0.5;
 
+    String BROKER_SELECTOR_COMPILATION_ENABLED = "broker.selectorCompilationEnabled";
+    @ManagedContextDefault(name = BROKER_SELECTOR_COMPILATION_ENABLED,
+            description = "If true, JMS selectors are compiled into evaluators specialised for each selector rather than"
+                          + " being evaluated by interpreting the parsed selector. The value is read when the selector"
+                          + " is created, so it may be overridden for a virtual host, queue or connection.")
+    boolean DEFAULT_BROKER_SELECTOR_COMPILATION_ENABLED = false;
+
     @ManagedAttribute(validValues = {"org.apache.qpid.server.model.BrokerImpl#getAvailableConfigurationEncrypters()"})
     String getConfidentialConfigurationEncryptionProvider();
 
@@ -336,6 +356,57 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
             description = "Number of unused direct memory buffers currently in the pool.")
     long getNumberOfBuffersInPool();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Hits",
+            description = "Number of direct memory buffer requests satisfied from the requesting thread's cache or"
+                          + " its own part of the pool.",
+            metricName = "buffer_pool_hits_count")
+    long getBufferPoolHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Misses",
+            description = "Number of direct memory buffer requests which found the pool empty and required a new"
+                          + " buffer to be allocated.",
+            metricName = "buffer_pool_misses_count")
+    long getBufferPoolMisses();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Steals",
+            description = "Number of direct memory buffer requests satisfied from a part of the pool belonging to"
+                          + " other threads.",
+            metricName = "buffer_pool_steals_count")
+    long getBufferPoolSteals();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Compiled Selectors",
+            description = "Number of JMS selectors compiled into evaluators specialised for the selector.",
+            metricName = "compiled_selectors_count")
+    long getCompiledSelectors();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Compiled Selector Evaluations",
+            description = "Number of times a message was evaluated against a compiled JMS selector.",
+            metricName = "compiled_selector_evaluations_count")
+    long getCompiledSelectorEvaluations();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Interpreted Selector Evaluations",
+            description = "Number of times a message was evaluated against a JMS selector which was not compiled.",
+            metricName = "interpreted_selector_evaluations_count")
+    long getInterpretedSelectorEvaluations();
+
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME,
             units = StatisticUnit.BYTES,
@@ -438,6 +509,12 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
 
     ScheduledFuture<?> scheduleTask(long delay, final TimeUnit unit, Runnable task);
 
+    /**
+     * Returns a snapshot of the statistics of the Broker and its descendants, which may be as old as the interval
+     * set by the {@value #STATISTICS_SNAPSHOT_REFRESH_INTERVAL} context variable.
+     */
+    StatisticsSnapshot getStatisticsSnapshot();
+
     @DerivedAttribute(description = "Threshold direct memory size (in bytes) at which the Broker will start flowing incoming messages to disk.")
     long getFlowToDiskThreshold();
 
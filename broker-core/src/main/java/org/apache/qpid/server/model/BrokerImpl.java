@@ -63,6 +63,7 @@ import org.apache.qpid.server.configuration.CommonProperties;
 import org.apache.qpid.server.configuration.IllegalConfigurationException;
 import org.apache.qpid.server.configuration.updater.TaskExecutor;
 import org.apache.qpid.server.configuration.updater.TaskExecutorImpl;
+import org.apache.qpid.server.filter.SelectorStatistics;
 import org.apache.qpid.server.logging.messages.BrokerMessages;
 import org.apache.qpid.server.model.port.AmqpPort;
 import org.apache.qpid.server.model.preferences.UserPreferences;
@@ -81,6 +82,8 @@ import org.apache.qpid.server.security.auth.UsernamePrincipal;
 import org.apache.qpid.server.security.auth.manager.SimpleAuthenticationManager;
 import org.apache.qpid.server.security.group.GroupPrincipal;
 import org.apache.qpid.server.stats.StatisticsReportingTask;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
+import org.apache.qpid.server.stats.StatisticsSnapshotCache;
 import org.apache.qpid.server.store.FileBasedSettings;
 import org.apache.qpid.server.store.preferences.PreferenceRecord;
 import org.apache.qpid.server.store.preferences.PreferenceStore;
@@ -142,6 +145,8 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
     private ScheduledFuture<?> _assignTargetSizeSchedulingFuture;
     private volatile ScheduledFuture<?> _statisticsReportingFuture;
     private long _housekeepingCheckPeriod;
+    private final StatisticsSnapshotCache _statisticsSnapshotCache =
+            new StatisticsSnapshotCache(this, () -> getContextValue(Long.class, STATISTICS_SNAPSHOT_REFRESH_INTERVAL));
 
     @ManagedObjectFactoryConstructor
     public BrokerImpl(Map<String, Object> attributes,
@@ -195,8 +200,9 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
 
         _sparsityFraction = getContextValue(Double.class, BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION);
         int poolSize = getContextValue(Integer.class, BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE);
+        int threadCacheSize = getContextValue(Integer.class, BROKER_DIRECT_BYTE_BUFFER_POOL_THREAD_CACHE_SIZE);
 
-        QpidByteBuffer.initialisePool(_networkBufferSize, poolSize, _sparsityFraction);
+        QpidByteBuffer.initialisePool(_networkBufferSize, poolSize, threadCacheSize, _sparsityFraction);
     }
 
     @Override
@@ -904,6 +910,42 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
         return QpidByteBuffer.getNumberOfBuffersInPool();
     }
 
+    @Override
+    public long getBufferPoolHits()
+    {
+        return QpidByteBuffer.getPooledBufferHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMisses()
+    {
+        return QpidByteBuffer.getPooledBufferMissCount();
+    }
+
+    @Override
+    public long getBufferPoolSteals()
+    {
+        return QpidByteBuffer.getPooledBufferStealCount();
+    }
+
+    @Override
+    public long getCompiledSelectors()
+    {
+        return SelectorStatistics.getCompiledSelectorCount();
+    }
+
+    @Override
+    public long getCompiledSelectorEvaluations()
+    {
+        return SelectorStatistics.getCompiledEvaluationCount();
+    }
+
+    @Override
+    public long getInterpretedSelectorEvaluations()
+    {
+        return SelectorStatistics.getInterpretedEvaluationCount();
+    }
+
     @Override
     public long getInboundMessageSizeHighWatermark()
     {
@@ -1135,6 +1177,12 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
         return _housekeepingCheckPeriod;
     }
 
+    @Override
+    public StatisticsSnapshot getStatisticsSnapshot()
+    {
+        return _statisticsSnapshotCache.getSnapshot();
+    }
+
     @Override
     public void compactMemory()
     {
@@ -23,6 +23,7 @@ package org.apache.qpid.server.model;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.Function;
 
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 
@@ -33,6 +34,7 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
     private final String _name;
     private final Class<T> _type;
     private final Method _getter;
+    private final Function<ConfiguredObject<?>, Object> _accessor;
 
     ConfiguredObjectMethodAttributeOrStatistic(final Method getter)
     {
@@ -40,6 +42,7 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
         _getter = getter;
         _type = (Class<T>) AttributeValueConverter.getTypeFromMethod(getter);
         _name = AttributeValueConverter.getNameFromMethod(getter, getType());
+        _accessor = ConfiguredObjectTypeRegistry.getGeneratedAccessor(getter);
     }
 
     @Override
@@ -63,6 +66,11 @@ abstract class ConfiguredObjectMethodAttributeOrStatistic<C extends ConfiguredOb
     @Override
     public T getValue(C configuredObject)
     {
+        if (_accessor != null)
+        {
+            return (T) _accessor.apply(configuredObject);
+        }
+
         try
         {
             return (T) getGetter().invoke(configuredObject);
@@ -39,12 +39,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -68,6 +70,9 @@ public class ConfiguredObjectTypeRegistry
     private static final ConcurrentMap<Class<?>, Class<? extends ConfiguredObject>> CATEGORY_CACHE =
             new ConcurrentHashMap<>();
 
+    private static final ConcurrentMap<Class<?>, Optional<ManagedAttributeAccessors>> ACCESSORS_CACHE =
+            new ConcurrentHashMap<>();
+
     static
     {
         int i = 0;
@@ -508,6 +513,46 @@ public class ConfiguredObjectTypeRegistry
         return category;
     }
 
+    /**
+     * Returns the generated getter for the given attribute or statistic method, or null if no accessors were
+     * generated for the interface declaring it, in which case the value has to be obtained reflectively.
+     */
+    static Function<ConfiguredObject<?>, Object> getGeneratedAccessor(final Method getter)
+    {
+        final Optional<ManagedAttributeAccessors> accessors =
+                ACCESSORS_CACHE.computeIfAbsent(getter.getDeclaringClass(),
+                                                ConfiguredObjectTypeRegistry::loadGeneratedAccessors);
+        return accessors.map(a -> a.getAccessor(getter.getName())).orElse(null);
+    }
+
+    private static Optional<ManagedAttributeAccessors> loadGeneratedAccessors(final Class<?> clazz)
+    {
+        final String packageName = clazz.getPackageName();
+        final String binaryName = packageName.isEmpty()
+                ? clazz.getName()
+                : clazz.getName().substring(packageName.length() + 1);
+        final String simpleName = binaryName.replace('$', '_') + "Accessors";
+        final String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try
+        {
+            final Class<?> accessorsClass = Class.forName(className, true, clazz.getClassLoader());
+            if (ManagedAttributeAccessors.class.isAssignableFrom(accessorsClass))
+            {
+                return Optional.of((ManagedAttributeAccessors) accessorsClass.getConstructor().newInstance());
+            }
+        }
+        catch (ClassNotFoundException e)
+        {
+            LOGGER.debug("No generated accessors found for {}", clazz.getName());
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            LOGGER.warn("Unable to instantiate generated accessors {}, attribute values will be obtained reflectively",
+                        className, e);
+        }
+        return Optional.empty();
+    }
+
     private static Class<? extends ConfiguredObject> calculateCategory(final Class<?> clazz)
     {
         ManagedObject annotation = clazz.getAnnotation(ManagedObject.class);
@@ -215,6 +215,13 @@ public interface Connection<X extends Connection<X>> extends ConfiguredObject<X>
             resettable = true)
     long getTransactedMessagesOut();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES,
+            label = "Retained Network Buffers",
+            description = "Current size in bytes of the network buffers held by this connection.",
+            metricName = "retained_network_buffer_bytes_total")
+    long getRetainedNetworkBufferSize();
+
     @ManagedOperation(description = "Resets connection statistics", changesConfiguredObjectState = true)
     void resetStatistics();
 
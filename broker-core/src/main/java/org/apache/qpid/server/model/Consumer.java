@@ -89,6 +89,26 @@ public interface Consumer<X extends Consumer<X,T>, T extends ConsumerTarget> ext
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.MESSAGES, label = "Prefetch")
     long getUnacknowledgedMessages();
 
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (p50)",
+                      description = "Median latency in milliseconds "
+                                    + "from the delivery of a message to this consumer to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (p99)",
+                      description = "99th percentile latency in milliseconds from the delivery of a message to this consumer to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (max)",
+                      description = "Maximum latency in milliseconds "
+                                    + "from the delivery of a message to this consumer to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyMax();
+
     @ManagedOperation(description = "Resets consumer statistics", changesConfiguredObjectState = true)
     void resetStatistics();
 
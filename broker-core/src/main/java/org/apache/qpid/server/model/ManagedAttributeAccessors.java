@@ -0,0 +1,38 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.model;
+
+import java.util.function.Function;
+
+/**
+ * Getters of the managed attributes and statistics declared by a configured object interface.
+ * <p>
+ * Implementations are generated at build time for each such interface, in the package of the interface, and are
+ * used by {@link ConfiguredObjectTypeRegistry} to read attribute and statistic values without reflection.
+ */
+public interface ManagedAttributeAccessors
+{
+    /**
+     * Returns the getter calling the given method of the interface, or null if the method is not an attribute or
+     * statistic declared by the interface.
+     */
+    Function<ConfiguredObject<?>, Object> getAccessor(String methodName);
+}
@@ -90,6 +90,52 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
     String EXPIRY_POLICY = "expiryPolicy";
     String MAXIMUM_LIVE_CONSUMERS = "maximumLiveConsumers";
 
+    String MESSAGE_STATUS_FULL_SCAN_PERIOD = "queue.messageStatusFullScanPeriod";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = MESSAGE_STATUS_FULL_SCAN_PERIOD,
+            description = "The minimum interval (in milliseconds) between housekeeping checks which visit every "
+                          + "message on the queue. Between these checks only the oldest message and the messages "
+                          + "which are due to expire or which are held are examined, so that message size alerts "
+                          + "and the detection of malformed messages for the other messages may be delayed by up "
+                          + "to this interval. A value of zero or less causes every check to visit every message.")
+    long DEFAULT_MESSAGE_STATUS_FULL_SCAN_PERIOD = 60000L;
+
+    String QUEUE_MESSAGE_ID_INDEX_ENABLED = "queue.messageIdIndexEnabled";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_MESSAGE_ID_INDEX_ENABLED,
+            description = "If true, the queue maintains an index of its entries by message id, so that management "
+                          + "operations which refer to individual messages by id do not need to visit every "
+                          + "message on the queue.")
+    boolean DEFAULT_QUEUE_MESSAGE_ID_INDEX_ENABLED = false;
+
+    String QUEUE_PURGE_BATCH_SIZE = "queue.purgeBatchSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_PURGE_BATCH_SIZE,
+            description = "If positive, the maximum number of messages removed within a single store transaction "
+                          + "when the queue is cleared or messages are deleted from it by a management operation. "
+                          + "Such a removal is not atomic: batches already committed are not restored if a later "
+                          + "batch fails. A value of zero or less removes all the messages within a single "
+                          + "transaction.")
+    int DEFAULT_QUEUE_PURGE_BATCH_SIZE = 0;
+
+    String QUEUE_LATENCY_HISTOGRAMS_ENABLED = "queue.latencyHistogramsEnabled";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_LATENCY_HISTOGRAMS_ENABLED,
+            description = "If true, the queue and its consumers keep histograms of the latencies from enqueue to "
+                          + "delivery and from delivery to acknowledgement. Each histogram takes up to a few KB; "
+                          + "when disabled, the latency statistics of the queue and its consumers are zero.")
+    boolean DEFAULT_QUEUE_LATENCY_HISTOGRAMS_ENABLED = false;
+
+    String QUEUE_SELECTOR_PARTITIONING_ENABLED = "queue.selectorPartitioningEnabled";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_SELECTOR_PARTITIONING_ENABLED,
+            description = "If true, consumers whose selector requires a message property to be equal to a string "
+                          + "literal only visit the queue entries whose property can match, rather than every entry "
+                          + "of the queue. Whilst such consumers are attached, the property is evaluated for every "
+                          + "message enqueued, and attaching the first consumer for a property value visits every "
+                          + "message on the queue. Partitioning is not used by priority or sorted queues.")
+    boolean DEFAULT_QUEUE_SELECTOR_PARTITIONING_ENABLED = false;
+
     String QUEUE_SCAVANGE_COUNT = "qpid.queue.scavenge_count";
     @SuppressWarnings("unused")
     @ManagedContextDefault( name = QUEUE_SCAVANGE_COUNT)
@@ -380,6 +426,11 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
 
     void visit(QueueEntryVisitor visitor);
 
+    /**
+     * Visits, in queue order, the entries for the given message ids which are present on the queue.
+     */
+    void visit(Collection<Long> messageIds, QueueEntryVisitor visitor);
+
     ListenableFuture<Integer> deleteAndReturnCountAsync();
 
     int deleteAndReturnCount();
@@ -553,6 +604,89 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
             description = "Number of producers to this queue.", metricName = "producers_count")
     long getProducerCount();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Message Groups",
+                      description = "Current number of message groups assigned to consumers of this queue.",
+                      metricName = "message_groups_total")
+    int getMessageGroupCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+                      label = "Message Group Assignment Contention",
+                      description = "Total number of times the assignment of a message group to a consumer was "
+                                    + "retried or lost to a concurrent assignment of the same group.",
+                      metricName = "message_group_assignment_contention_count")
+    long getMessageGroupAssignmentContentionCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Enqueue to Delivery Latency (p50)",
+                      description = "Median latency in milliseconds "
+                                    + "from the arrival of a message to its delivery to a consumer of this queue.",
+                      metricDisabled = true, resettable = true)
+    long getEnqueueToDeliveryLatencyP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Enqueue to Delivery Latency (p99)",
+                      description = "99th percentile latency in milliseconds "
+                                    + "from the arrival of a message to its delivery to a consumer of this queue.",
+                      metricDisabled = true, resettable = true)
+    long getEnqueueToDeliveryLatencyP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Enqueue to Delivery Latency (max)",
+                      description = "Maximum latency in milliseconds "
+                                    + "from the arrival of a message to its delivery to a consumer of this queue.",
+                      metricDisabled = true, resettable = true)
+    long getEnqueueToDeliveryLatencyMax();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (p50)",
+                      description = "Median latency in milliseconds "
+                                    + "from the delivery of a message to a consumer of this queue to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyP50();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (p99)",
+                      description = "99th percentile latency in milliseconds "
+                                    + "from the delivery of a message to a consumer of this queue to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Delivery to Acknowledgement Latency (max)",
+                      description = "Maximum latency in milliseconds "
+                                    + "from the delivery of a message to a consumer of this queue to its acknowledgement.",
+                      metricDisabled = true, resettable = true)
+    long getDeliveryToAcknowledgementLatencyMax();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES,
+                      label = "Recovered Messages",
+                      description = "Number of messages recovered onto this queue from the message store.",
+                      metricDisabled = true)
+    long getRecoveredMessages();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES,
+                      label = "Recovered Bytes",
+                      description = "Size of the messages recovered onto this queue from the message store.",
+                      metricDisabled = true)
+    long getRecoveredBytes();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+                      label = "Recovery Duration",
+                      description = "Time in milliseconds taken to recover the messages of this queue from the "
+                                    + "message store, or elapsed so far if the recovery is still in progress.",
+                      metricDisabled = true)
+    long getRecoveryDuration();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES,
+                      label = "Purged Messages",
+                      description = "Number of messages removed from this queue by the clearQueue and deleteMessages "
+                                    + "operations. While a removal in batches is in progress, it is updated as each "
+                                    + "batch is committed.",
+                      metricDisabled = true)
+    long getPurgedMessages();
+
     @ManagedOperation(description = "move messages from this queue to another", changesConfiguredObjectState = false)
     List<Long> moveMessages(@Param(name = "destination", description = "The queue to which the messages should be moved", mandatory = true) Queue<?> destination,
                             @Param(name = "messageIds", description = "If provided, only messages in the queue whose (internal) message-id is supplied will be considered for moving") List<Long> messageIds,
@@ -567,13 +701,19 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
                             @Param(name = "limit", description = "Maximum number of messages to copy", defaultValue = "-1") int limit);
 
 
-    @ManagedOperation(description = "removes messages from this queue", changesConfiguredObjectState = false)
+    @ManagedOperation(description = "removes messages from this queue. If the context variable " + QUEUE_PURGE_BATCH_SIZE
+                                    + " is set, the messages are removed in store transactions of at most that number "
+                                    + "of messages.",
+                      changesConfiguredObjectState = false)
     List<Long> deleteMessages(@Param(name = "messageIds", description = "If provided, only messages in the queue whose (internal) message-id is supplied will be considered for deletion") List<Long> messageIds,
                               @Param(name = "selector", description = "A (JMS) selector - if provided, only messages which match the selector will be considered for deletion") String selector,
                               @Param(name = "limit", description = "Maximum number of messages to delete", defaultValue = "-1") int limit);
 
 
-    @ManagedOperation(description = "removes all messages from this queue", changesConfiguredObjectState = false)
+    @ManagedOperation(description = "removes all messages from this queue. If the context variable " + QUEUE_PURGE_BATCH_SIZE
+                                    + " is set, the messages are removed in store transactions of at most that number "
+                                    + "of messages.",
+                      changesConfiguredObjectState = false)
     long clearQueue();
 
     @ManagedOperation(nonModifying = true, secure = true, changesConfiguredObjectState = false,
@@ -618,6 +758,8 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
 
     void requeue(QueueEntry entry);
 
+    void entryDeleted(QueueEntry entry);
+
     List<? extends QueueEntry> getMessagesOnTheQueue();
 
     QueueEntry getMessageOnTheQueue(long messageId);
@@ -647,6 +789,11 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
 
     QueueEntryIterator queueEntryIterator();
 
+    /**
+     * Returns an iterator positioned at the given entry of this queue, which visits the entries following it.
+     */
+    QueueEntryIterator queueEntryIterator(QueueEntry startEntry);
+
     boolean checkValid(QueueEntry queueEntry);
 
     enum ExpiryPolicy
@@ -23,6 +23,8 @@ package org.apache.qpid.server.model.port;
 import java.net.SocketAddress;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
@@ -153,6 +155,27 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
     @ManagedContextDefault(name = TLS_SESSION_CACHE_SIZE, description = "TLS session cache size for AMQP ports.")
     int DEFAULT_TLS_SESSION_CACHE_SIZE = 100;
 
+    String TLS_HANDSHAKE_THREAD_POOL_SIZE = "qpid.port.amqp.tlsHandshakeThreadPool.size";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_HANDSHAKE_THREAD_POOL_SIZE,
+            description = "Number of threads running the delegated tasks of TLS handshakes for AMQP ports, so that"
+                          + " these tasks do not occupy the IO threads. If zero, the tasks run on the IO threads.")
+    int DEFAULT_TLS_HANDSHAKE_THREAD_POOL_SIZE = Math.max(Runtime.getRuntime().availableProcessors() / 4, 1);
+
+    String TLS_HANDSHAKE_QUEUE_SIZE = "qpid.port.amqp.tlsHandshakeThreadPool.queueSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_HANDSHAKE_QUEUE_SIZE,
+            description = "Maximum number of TLS handshake tasks waiting for a TLS handshake thread for AMQP ports."
+                          + " Tasks beyond this limit run on the IO threads.")
+    int DEFAULT_TLS_HANDSHAKE_QUEUE_SIZE = 1024;
+
+    String TLS_IDLE_BUFFER_RELEASE_DELAY = "qpid.port.amqp.tlsIdleBufferReleaseDelay";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_IDLE_BUFFER_RELEASE_DELAY,
+            description = "Time in milliseconds for which a TLS connection on an AMQP port must neither read nor write"
+                          + " before its network buffers are returned to the buffer pool.")
+    long DEFAULT_TLS_IDLE_BUFFER_RELEASE_DELAY = 5000L;
+
     String CONNECTION_PROPERTY_ENRICHERS = "qpid.port.connection_property_enrichers";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = CONNECTION_PROPERTY_ENRICHERS,
@@ -204,6 +227,31 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
             resettable = true)
     long getTotalConnectionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+            label = "Total TLS Handshakes",
+            description = "Total number of TLS handshakes completed on this port",
+            metricName = "tls_handshake_count",
+            resettable = true)
+    long getTotalTlsHandshakeCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+            label = "TLS Handshake Duration (p99)",
+            description = "99th percentile of the time in milliseconds taken by the TLS handshakes on this port",
+            metricDisabled = true, resettable = true)
+    long getTlsHandshakeDurationP99();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+            label = "TLS Handshake Duration (max)",
+            description = "Maximum time in milliseconds taken by a TLS handshake on this port",
+            metricDisabled = true, resettable = true)
+    long getTlsHandshakeDurationMax();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+            label = "TLS Handshake Queue Depth",
+            description = "Current number of TLS handshake tasks waiting for a TLS handshake thread of this port",
+            metricName = "tls_handshake_queue_depth_total")
+    long getTlsHandshakeQueueDepth();
+
     @ManagedOperation(description = "Resets port statistics", changesConfiguredObjectState = true)
     void resetStatistics();
 
@@ -238,4 +286,12 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
     int getNetworkBufferSize();
 
     List<ConnectionPropertyEnricher> getConnectionPropertyEnrichers();
+
+    /**
+     * Returns the executor running the delegated tasks of TLS handshakes for connections to this port, or null if
+     * these tasks are to run on the IO thread.
+     */
+    Executor getTlsHandshakeExecutor();
+
+    void registerTlsHandshake(long duration, TimeUnit unit);
 }
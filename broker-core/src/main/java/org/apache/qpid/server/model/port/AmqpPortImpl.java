@@ -31,7 +31,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
@@ -67,13 +74,15 @@ import org.apache.qpid.server.plugin.ConnectionPropertyEnricher;
 import org.apache.qpid.server.plugin.ProtocolEngineCreator;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.plugin.TransportProviderFactory;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
 import org.apache.qpid.server.transport.AcceptingTransport;
 import org.apache.qpid.server.transport.PortBindFailureException;
 import org.apache.qpid.server.transport.TransportProvider;
 import org.apache.qpid.server.transport.network.security.ssl.SSLUtil;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 
-public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort<AmqpPortImpl>
+public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort<AmqpPortImpl>, LatencyHistogramProvider
 {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AmqpPortImpl.class);
@@ -94,11 +103,15 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
     private final AtomicLong _connectionCount = new AtomicLong();
     private final AtomicBoolean _connectionCountWarningGiven = new AtomicBoolean();
     private final AtomicLong _totalConnectionCount = new AtomicLong();
+    private final AtomicLong _totalTlsHandshakeCount = new AtomicLong();
+    private final LatencyHistogram _tlsHandshakeDuration =
+            new LatencyHistogram("tlsHandshakeDuration", "Time taken by the TLS handshakes on this port");
 
     private final Container<?> _container;
     private final AtomicBoolean _closingOrDeleting = new AtomicBoolean();
 
     private volatile AcceptingTransport _transport;
+    private volatile ThreadPoolExecutor _tlsHandshakeExecutor;
     private volatile SSLContext _sslContext;
     private volatile int _connectionWarnCount;
     private volatile long _protocolHandshakeTimeout;
@@ -251,6 +264,10 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
             {
                 _sslContext = createSslContext();
             }
+            if (transports.contains(Transport.SSL))
+            {
+                _tlsHandshakeExecutor = createTlsHandshakeExecutor();
+            }
             Protocol defaultSupportedProtocolReply = getDefaultAmqpSupportedReply();
             try
             {
@@ -273,6 +290,7 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
             catch (PortBindFailureException e)
             {
                 _container.getEventLogger().message(PortMessages.BIND_FAILED(getType().toUpperCase(), getPort()));
+                shutdownTlsHandshakeExecutor();
                 throw e;
             }
         }
@@ -329,6 +347,43 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
 
             _transport.close();
         }
+        shutdownTlsHandshakeExecutor();
+    }
+
+    private ThreadPoolExecutor createTlsHandshakeExecutor()
+    {
+        final int poolSize = getContextValue(Integer.class, AmqpPort.TLS_HANDSHAKE_THREAD_POOL_SIZE);
+        if (poolSize <= 0)
+        {
+            return null;
+        }
+        final int queueSize = Math.max(getContextValue(Integer.class, AmqpPort.TLS_HANDSHAKE_QUEUE_SIZE), 1);
+        final long keepAliveTimeout = getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT);
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable ->
+        {
+            final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("TLS-handshake-" + getName() + "-" + threadCount.incrementAndGet());
+            return thread;
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize,
+                                                                   poolSize,
+                                                                   keepAliveTimeout,
+                                                                   TimeUnit.MINUTES,
+                                                                   new ArrayBlockingQueue<>(queueSize),
+                                                                   threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void shutdownTlsHandshakeExecutor()
+    {
+        final ThreadPoolExecutor executor = _tlsHandshakeExecutor;
+        if (executor != null)
+        {
+            _tlsHandshakeExecutor = null;
+            executor.shutdown();
+        }
     }
 
     @Override
@@ -343,6 +398,19 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         return _connectionPropertyEnrichers;
     }
 
+    @Override
+    public Executor getTlsHandshakeExecutor()
+    {
+        return _tlsHandshakeExecutor;
+    }
+
+    @Override
+    public void registerTlsHandshake(final long duration, final TimeUnit unit)
+    {
+        _totalTlsHandshakeCount.incrementAndGet();
+        _tlsHandshakeDuration.record(duration, unit);
+    }
+
     @Override
     public int getBoundPort()
     {
@@ -616,6 +684,37 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         return _totalConnectionCount.get();
     }
 
+    @Override
+    public long getTotalTlsHandshakeCount()
+    {
+        return _totalTlsHandshakeCount.get();
+    }
+
+    @Override
+    public long getTlsHandshakeDurationP99()
+    {
+        return _tlsHandshakeDuration.getSnapshot().getValueAtQuantile(0.99, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getTlsHandshakeDurationMax()
+    {
+        return _tlsHandshakeDuration.getSnapshot().getMax(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getTlsHandshakeQueueDepth()
+    {
+        final ThreadPoolExecutor executor = _tlsHandshakeExecutor;
+        return executor == null ? 0L : executor.getQueue().size();
+    }
+
+    @Override
+    public Collection<LatencyHistogram> getLatencyHistograms()
+    {
+        return List.of(_tlsHandshakeDuration);
+    }
+
     @Override
     public long getProtocolHandshakeTimeout()
     {
@@ -626,6 +725,8 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
     public void resetStatistics()
     {
         _totalConnectionCount.set(0L);
+        _totalTlsHandshakeCount.set(0L);
+        _tlsHandshakeDuration.reset();
         getChildren(Connection.class).forEach(Connection::resetStatistics);
     }
 
@@ -23,8 +23,17 @@ package org.apache.qpid.server.plugin;
 import java.util.List;
 
 import org.apache.qpid.server.filter.MessageFilter;
+import org.apache.qpid.server.model.ConfiguredObject;
 
 public interface MessageFilterFactory extends Pluggable
 {
     MessageFilter newInstance(List<String> arguments);
+
+    /**
+     * Creates a filter for the given object, whose context may configure how the filter is built.
+     */
+    default MessageFilter newInstance(List<String> arguments, ConfiguredObject<?> object)
+    {
+        return newInstance(arguments);
+    }
 }
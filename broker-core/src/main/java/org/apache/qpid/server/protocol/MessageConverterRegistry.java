@@ -23,7 +23,11 @@ package org.apache.qpid.server.protocol;
 
 import java.util.HashMap;
 import java.util.Map;
+
+import org.apache.qpid.server.message.AbstractServerMessageImpl;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
 
@@ -56,4 +60,51 @@ public class MessageConverterRegistry
         }
         return map == null ? null : map.get(to);
     }
+
+    /**
+     * Converts the given message into the given class. Where possible the converted message is shared with other
+     * deliveries of the same message. The returned reference must be released once the converted message has been
+     * sent; releasing it disposes of the converted message when it is no longer needed.
+     *
+     * @return reference to the converted message, or null if there is no converter to the given class
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <N extends ServerMessage<?>> MessageReference<N> convert(final ServerMessage<?> message,
+                                                                           final Class<N> to,
+                                                                           final NamedAddressSpace addressSpace)
+    {
+        final MessageConverter converter = getConverter((Class<ServerMessage>) message.getClass(), (Class) to);
+        if (converter == null)
+        {
+            return null;
+        }
+        else if (message instanceof AbstractServerMessageImpl)
+        {
+            return ((AbstractServerMessageImpl<?, ?>) message).getConvertedMessage(converter, addressSpace);
+        }
+        else
+        {
+            final N convertedMessage = (N) converter.convert(message, addressSpace);
+            return new MessageReference<>()
+            {
+                @Override
+                public N getMessage()
+                {
+                    return convertedMessage;
+                }
+
+                @Override
+                public void release()
+                {
+                    converter.dispose(convertedMessage);
+                }
+
+                @Override
+                public void close()
+                {
+                    release();
+                }
+            };
+        }
+    }
 }
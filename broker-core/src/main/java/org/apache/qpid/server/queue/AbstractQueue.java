@@ -47,6 +47,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -132,6 +133,8 @@ import org.apache.qpid.server.security.SecurityToken;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
 import org.apache.qpid.server.session.AMQPSession;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
 import org.apache.qpid.server.store.MessageDurability;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -156,7 +159,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         extends AbstractConfiguredObject<X>
         implements Queue<X>,
                    MessageGroupManager.ConsumerResetHelper,
-                   TransactionMonitor
+                   TransactionMonitor,
+                   LatencyHistogramProvider
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractQueue.class);
 
@@ -175,6 +179,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private static final int COMPLETING_RECOVERY = 2;
     private static final int RECOVERED = 3;
 
+    private static final long EXPIRY_INDEX_TICK_DURATION = 1000L;
+
     private final QueueManagingVirtualHost<?> _virtualHost;
     private final DeletedChildListener _deletedChildListener = new DeletedChildListener();
 
@@ -201,6 +207,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private final long[] _lastNotificationTimes = new long[NotificationCheck.values().length];
 
     private final AtomicInteger _recovering = new AtomicInteger(RECOVERING);
+    private final AtomicLong _recoveredMessages = new AtomicLong();
+    private final AtomicLong _purgedMessages = new AtomicLong();
+    private final AtomicLong _recoveredBytes = new AtomicLong();
+    private final AtomicLong _recoveryStartTime = new AtomicLong();
+    private volatile long _recoveryEndTime;
     private final AtomicInteger _enqueuingWhileRecovering = new AtomicInteger(0);
     private final ConcurrentLinkedQueue<EnqueueRequest> _postRecoveryQueue = new ConcurrentLinkedQueue<>();
     private final ConcurrentMap<String, Callable<MessageFilter>> _defaultFiltersMap = new ConcurrentHashMap<>();
@@ -209,6 +220,9 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private final Set<LocalTransaction> _transactions = ConcurrentHashMap.newKeySet();
     private final LocalTransaction.LocalTransactionListener _localTransactionListener = _transactions::remove;
     private final AtomicLong _producerCount = new AtomicLong();
+    private final QueueEntryExpiryIndex _expiryIndex = new QueueEntryExpiryIndex(EXPIRY_INDEX_TICK_DURATION);
+    private final SelectorPartitions _selectorPartitions = new SelectorPartitions();
+    private final Set<QueueEntry> _heldEntries = ConcurrentHashMap.newKeySet();
 
     @ManagedAttributeField( beforeSet = "preSetAlternateBinding", afterSet = "postSetAlternateBinding")
     private AlternateBinding _alternateBinding;
@@ -304,6 +318,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private long _flowToDiskThreshold;
     private volatile MessageDestination _alternateBindingDestination;
     private volatile MessageConversionExceptionHandlingPolicy _messageConversionExceptionHandlingPolicy;
+    private long _messageStatusFullScanPeriod;
+    private int _purgeBatchSize;
+    private volatile boolean _latencyHistogramsEnabled;
+    private boolean _selectorPartitioningEnabled;
+    private long _lastMessageStatusFullScanTime;
 
     private interface HoldMethod
     {
@@ -527,6 +546,15 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _messageConversionExceptionHandlingPolicy = getContextValue(MessageConversionExceptionHandlingPolicy.class, MESSAGE_CONVERSION_EXCEPTION_HANDLING_POLICY);
 
         _flowToDiskThreshold = getAncestor(Broker.class).getFlowToDiskThreshold();
+        _messageStatusFullScanPeriod = getContextValue(Long.class, MESSAGE_STATUS_FULL_SCAN_PERIOD);
+        _purgeBatchSize = getContextValue(Integer.class, QUEUE_PURGE_BATCH_SIZE);
+        _latencyHistogramsEnabled = getContextValue(Boolean.class, QUEUE_LATENCY_HISTOGRAMS_ENABLED);
+        if (_latencyHistogramsEnabled)
+        {
+            _queueStatistics.enableLatencyHistograms();
+        }
+        _selectorPartitioningEnabled = isSelectorPartitioningSupported()
+                                       && getContextValue(Boolean.class, QUEUE_SELECTOR_PARTITIONING_ENABLED);
 
         if (_defaultFilters != null)
         {
@@ -546,8 +574,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                     {
                         final List<String> filterArguments = filterValue.values().iterator().next();
                         // check the arguments are valid
-                        filterFactory.newInstance(filterArguments);
-                        _defaultFiltersMap.put(name, () -> filterFactory.newInstance(filterArguments));
+                        filterFactory.newInstance(filterArguments, this);
+                        _defaultFiltersMap.put(name, () -> filterFactory.newInstance(filterArguments, this));
                     }
                     else
                     {
@@ -1018,14 +1046,19 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             _exclusiveSubscriber = consumer;
         }
 
+        final SelectorPartitions.Partition selectorPartition = acquireSelectorPartition(filters);
         QueueContext queueContext;
         if(filters == null || !filters.startAtTail())
         {
-            queueContext = new QueueContext(getEntries().getHead());
+            queueContext = new QueueContext(getEntries().getHead(), selectorPartition);
         }
         else
         {
-            queueContext = new QueueContext(getEntries().getTail());
+            queueContext = new QueueContext(getEntries().getTail(), selectorPartition);
+        }
+        if (selectorPartition != null)
+        {
+            selectorPartition.addContext(queueContext);
         }
         consumer.setQueueContext(queueContext);
         if (_maximumLiveConsumers > 0 && !incrementNumberOfLiveConsumersIfApplicable())
@@ -1059,6 +1092,42 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return consumer;
     }
 
+    private SelectorPartitions.Partition acquireSelectorPartition(final FilterManager filters)
+    {
+        if (_selectorPartitioningEnabled && filters != null)
+        {
+            final Iterator<MessageFilter> iterator = filters.filters();
+            while (iterator.hasNext())
+            {
+                final MessageFilter filter = iterator.next();
+                if (filter instanceof JMSSelectorFilter)
+                {
+                    final JMSSelectorFilter selectorFilter = (JMSSelectorFilter) filter;
+                    if (selectorFilter.getEqualityProperty() != null)
+                    {
+                        return _selectorPartitions.acquire(selectorFilter.getEqualityProperty(),
+                                                           selectorFilter.getEqualityValue(),
+                                                           getEntries());
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the queue delivers its entries in entry id order, as required for selector partitioning.
+     */
+    boolean isSelectorPartitioningSupported()
+    {
+        return true;
+    }
+
+    int getSelectorPartitionCount()
+    {
+        return _selectorPartitions.getPartitionCount();
+    }
+
     @Override
     protected ListenableFuture<Void> beforeClose()
     {
@@ -1088,7 +1157,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             // No longer can the queue have an exclusive consumer
             clearExclusiveSubscriber();
 
+            final QueueContext queueContext = consumer.getQueueContext();
             consumer.setQueueContext(null);
+            if (queueContext != null && queueContext.getSelectorPartition() != null)
+            {
+                _selectorPartitions.release(queueContext.getSelectorPartition(), queueContext);
+            }
 
             if(_exclusive == ExclusivityPolicy.LINK)
             {
@@ -1243,6 +1317,110 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _producerCount.get();
     }
 
+    @Override
+    public int getMessageGroupCount()
+    {
+        final MessageGroupManager messageGroupManager = _messageGroupManager;
+        return messageGroupManager == null ? 0 : messageGroupManager.getGroupCount();
+    }
+
+    @Override
+    public long getMessageGroupAssignmentContentionCount()
+    {
+        final MessageGroupManager messageGroupManager = _messageGroupManager;
+        return messageGroupManager == null ? 0L : messageGroupManager.getAssignmentContentionCount();
+    }
+
+    @Override
+    public long getEnqueueToDeliveryLatencyP50()
+    {
+        return getLatencyMillis(_queueStatistics.getEnqueueToDeliveryLatency(), 0.5);
+    }
+
+    @Override
+    public long getEnqueueToDeliveryLatencyP99()
+    {
+        return getLatencyMillis(_queueStatistics.getEnqueueToDeliveryLatency(), 0.99);
+    }
+
+    @Override
+    public long getEnqueueToDeliveryLatencyMax()
+    {
+        return getMaxLatencyMillis(_queueStatistics.getEnqueueToDeliveryLatency());
+    }
+
+    @Override
+    public long getDeliveryToAcknowledgementLatencyP50()
+    {
+        return getLatencyMillis(_queueStatistics.getDeliveryToAcknowledgementLatency(), 0.5);
+    }
+
+    @Override
+    public long getDeliveryToAcknowledgementLatencyP99()
+    {
+        return getLatencyMillis(_queueStatistics.getDeliveryToAcknowledgementLatency(), 0.99);
+    }
+
+    @Override
+    public long getDeliveryToAcknowledgementLatencyMax()
+    {
+        return getMaxLatencyMillis(_queueStatistics.getDeliveryToAcknowledgementLatency());
+    }
+
+    static long getLatencyMillis(final LatencyHistogram histogram, final double quantile)
+    {
+        return histogram == null ? 0L : histogram.getSnapshot().getValueAtQuantile(quantile, TimeUnit.MILLISECONDS);
+    }
+
+    static long getMaxLatencyMillis(final LatencyHistogram histogram)
+    {
+        return histogram == null ? 0L : histogram.getSnapshot().getMax(TimeUnit.MILLISECONDS);
+    }
+
+    boolean isLatencyHistogramsEnabled()
+    {
+        return _latencyHistogramsEnabled;
+    }
+
+    @Override
+    public long getRecoveredMessages()
+    {
+        return _recoveredMessages.get();
+    }
+
+    @Override
+    public long getRecoveredBytes()
+    {
+        return _recoveredBytes.get();
+    }
+
+    @Override
+    public long getRecoveryDuration()
+    {
+        final long startTime = _recoveryStartTime.get();
+        if (startTime == 0L)
+        {
+            return 0L;
+        }
+        final long endTime = _recoveryEndTime;
+        return (endTime == 0L ? System.currentTimeMillis() : endTime) - startTime;
+    }
+
+    @Override
+    public long getPurgedMessages()
+    {
+        return _purgedMessages.get();
+    }
+
+    @Override
+    public Collection<LatencyHistogram> getLatencyHistograms()
+    {
+        return _latencyHistogramsEnabled
+                ? List.of(_queueStatistics.getEnqueueToDeliveryLatency(),
+                          _queueStatistics.getDeliveryToAcknowledgementLatency())
+                : List.of();
+    }
+
     @Override
     public LogSubject getLogSubject()
     {
@@ -1316,7 +1494,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public final void recover(ServerMessage message, final MessageEnqueueRecord enqueueRecord)
     {
+        _recoveryStartTime.compareAndSet(0L, System.currentTimeMillis());
         doEnqueue(message, null, enqueueRecord);
+        _recoveredMessages.incrementAndGet();
+        _recoveredBytes.addAndGet(message.getSizeIncludingHeader());
     }
 
 
@@ -1325,6 +1506,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         if(_recovering.compareAndSet(RECOVERING, COMPLETING_RECOVERY))
         {
+            _recoveryStartTime.compareAndSet(0L, System.currentTimeMillis());
             while(_enqueuingWhileRecovering.get() != 0)
             {
                 Thread.yield();
@@ -1337,7 +1519,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             enqueueFromPostRecoveryQueue();
 
             _recovering.set(RECOVERED);
-
+            _recoveryEndTime = System.currentTimeMillis();
         }
     }
 
@@ -1356,6 +1538,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         final QueueEntry entry = getEntries().add(message, enqueueRecord);
         updateExpiration(entry);
+        _selectorPartitions.entryAdded(entry);
 
         try
         {
@@ -1386,11 +1569,19 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private void updateExpiration(final QueueEntry entry)
     {
+        final long previousExpiration = entry.getExpiration();
         long expiration = calculateExpiration(entry.getMessage());
         if (expiration > 0)
         {
             entry.setExpiration(expiration);
         }
+        _expiryIndex.update(entry, previousExpiration, entry.getExpiration());
+
+        // the entry may have been consumed concurrently, in which case entryDeleted may have run before it was indexed
+        if (entry.isDeleted())
+        {
+            _expiryIndex.remove(entry, entry.getExpiration());
+        }
     }
 
     private long calculateExpiration(final ServerMessage message)
@@ -1520,6 +1711,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public void requeue(QueueEntry entry)
     {
+        // the entry is dropped from the expiry index if it is polled while acquired, so is indexed again on release
+        _expiryIndex.add(entry, entry.getExpiration());
+        if (entry.isDeleted())
+        {
+            _expiryIndex.remove(entry, entry.getExpiration());
+        }
         resetSubPointers(entry, false);
     }
 
@@ -1692,6 +1889,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return getEntries().iterator();
     }
 
+    @Override
+    public QueueEntryIterator queueEntryIterator(final QueueEntry startEntry)
+    {
+        return getEntries().iterator(startEntry);
+    }
+
     @Override
     public int compareTo(final X o)
     {
@@ -1737,6 +1940,13 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public QueueEntry getMessageOnTheQueue(final long messageId)
     {
+        final QueueEntryMessageIndex messageIndex = getEntries().getMessageIndex();
+        if (messageIndex != null)
+        {
+            final QueueEntry entry = messageIndex.get(messageId);
+            return entry == null || entry.isDeleted() ? null : entry;
+        }
+
         List<QueueEntry> entries = getMessagesOnTheQueue(new QueueEntryFilter()
         {
             private boolean _complete;
@@ -1792,25 +2002,66 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
         while(queueListIterator.advance())
         {
-            QueueEntry node = queueListIterator.getNode();
-            MessageReference reference = node.newMessageReference();
-            if(reference != null)
+            if (visitEntry(queueListIterator.getNode(), visitor))
             {
-                try
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void visit(final Collection<Long> messageIds, final QueueEntryVisitor visitor)
+    {
+        final QueueEntryMessageIndex messageIndex = getEntries().getMessageIndex();
+        if (messageIndex == null)
+        {
+            final Set<Long> ids = new HashSet<>(messageIds);
+            visit(entry ->
+                  {
+                      final ServerMessage message = entry.getMessage();
+                      return message != null && ids.contains(message.getMessageNumber()) && visitor.visit(entry);
+                  });
+        }
+        else
+        {
+            final List<QueueEntry> entries = new ArrayList<>(messageIds.size());
+            for (long messageId : messageIds)
+            {
+                final QueueEntry entry = messageIndex.get(messageId);
+                if (entry != null && !entry.isDeleted())
                 {
-                    if (!node.isDeleted() && reference.getMessage().checkValid() && visitor.visit(node))
-                    {
-                        break;
-                    }
+                    entries.add(entry);
                 }
-                finally
+            }
+            entries.sort(null);
+
+            for (QueueEntry entry : entries)
+            {
+                if (visitEntry(entry, visitor))
                 {
-                    reference.release();
+                    break;
                 }
             }
         }
     }
 
+    private boolean visitEntry(final QueueEntry node, final QueueEntryVisitor visitor)
+    {
+        MessageReference reference = node.newMessageReference();
+        if(reference != null)
+        {
+            try
+            {
+                return !node.isDeleted() && reference.getMessage().checkValid() && visitor.visit(node);
+            }
+            finally
+            {
+                reference.release();
+            }
+        }
+        return false;
+    }
+
     // ------ Management functions
 
     @Override
@@ -1818,6 +2069,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         QueueEntryIterator queueListIterator = getEntries().iterator();
         long count = 0;
+        long batchCount = 0;
 
         ServerTransaction txn = new LocalTransaction(getVirtualHost().getMessageStore());
 
@@ -1830,10 +2082,21 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             {
                 dequeueEntry(node, txn);
                 count++;
+                // clearing in batches is not atomic: a committed batch stays removed even if a later batch fails
+                batchCount++;
+                if (_purgeBatchSize > 0 && batchCount >= _purgeBatchSize)
+                {
+                    txn.commit();
+                    _purgedMessages.addAndGet(batchCount);
+                    logOperation(String.format("clearQueue : %s: %d removed so far", getName(), count));
+                    txn = new LocalTransaction(getVirtualHost().getMessageStore());
+                    batchCount = 0;
+                }
             }
         }
 
         txn.commit();
+        _purgedMessages.addAndGet(batchCount);
         logOperation(String.format("clearQueue : %s: %d", getName(), count));
         return count;
     }
@@ -2150,17 +2413,18 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             }
         }
 
+        final HigherPriorityCheck higherPriorityCheck = new HigherPriorityCheck(entry);
         final Iterator<QueueConsumer<?,?>> interestedIterator = _queueConsumerManager.getInterestedIterator();
         while (entry.isAvailable() && interestedIterator.hasNext())
         {
             QueueConsumer<?,?> consumer = interestedIterator.next();
             if(consumer.hasInterest(entry))
             {
-                if(notifyConsumer(consumer))
+                if(notifyConsumer(consumer, higherPriorityCheck))
                 {
                     break;
                 }
-                else if(!noHigherPriorityWithCredit(consumer, entry))
+                else if(!noHigherPriorityWithCredit(consumer, entry, higherPriorityCheck))
                 {
                     // there exists a higher priority consumer that would take this message, therefore no point in
                     // continuing to loop
@@ -2286,6 +2550,10 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                     else
                     {
                         setLastSeenEntry(sub, node);
+                        if (sub.acquires() && node.isAcquiredBy(sub))
+                        {
+                            recordDelivery(node);
+                        }
                         return new MessageContainer(node, messageReference);
                     }
                 }
@@ -2299,31 +2567,83 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return NO_MESSAGES;
     }
 
+    /**
+     * Records the delivery of an entry which has been acquired by the consumer to which it is to be sent.
+     */
+    private void recordDelivery(final QueueEntry entry)
+    {
+        final LatencyHistogram enqueueToDeliveryLatency = _queueStatistics.getEnqueueToDeliveryLatency();
+        if (enqueueToDeliveryLatency != null)
+        {
+            final ServerMessage<?> message = entry.getMessage();
+            if (message != null)
+            {
+                enqueueToDeliveryLatency.record(System.currentTimeMillis() - message.getArrivalTime(),
+                                                TimeUnit.MILLISECONDS);
+            }
+            entry.setDeliveryTime(System.nanoTime());
+        }
+    }
+
     private boolean noHigherPriorityWithCredit(final QueueConsumer<?,?> sub, final QueueEntry queueEntry)
     {
-        Iterator<QueueConsumer<?,?>> consumerIterator = _queueConsumerManager.getAllIterator();
+        return noHigherPriorityWithCredit(sub, queueEntry, null);
+    }
+
+    /**
+     * Returns true if no consumer of a priority higher than that of the given consumer both desires work and would
+     * take the given entry. If a check is given for the same entry, the priority levels it has already found
+     * without such a consumer are not visited again, and the check is updated with the levels visited.
+     */
+    private boolean noHigherPriorityWithCredit(final QueueConsumer<?,?> sub,
+                                               final QueueEntry queueEntry,
+                                               final HigherPriorityCheck check)
+    {
+        final int priority = sub.getPriority();
+        final boolean checkApplies = check != null && check._entry == queueEntry;
+        if (checkApplies && priority >= check._checkedPriority)
+        {
+            return true;
+        }
+
+        Iterator<QueueConsumer<?,?>> consumerIterator =
+                _queueConsumerManager.getWorkDesiredIterator(priority,
+                                                             checkApplies ? check._checkedPriority : Integer.MAX_VALUE);
 
         while (consumerIterator.hasNext())
         {
             QueueConsumer<?,?> consumer = consumerIterator.next();
-            if(consumer.getPriority() > sub.getPriority())
+            if(consumer.isNotifyWorkDesired()
+               && consumer.acquires()
+               && consumer.hasInterest(queueEntry)
+               && getNextAvailableEntry(consumer) != null)
             {
-                if(consumer.isNotifyWorkDesired()
-                   && consumer.acquires()
-                   && consumer.hasInterest(queueEntry)
-                   && getNextAvailableEntry(consumer) != null)
-                {
-                    return false;
-                }
-            }
-            else
-            {
-                break;
+                return false;
             }
         }
+        if (checkApplies)
+        {
+            check._checkedPriority = priority;
+        }
         return true;
     }
 
+    /**
+     * Remembers, while the consumers are notified of a single entry, the priority above which no consumer desiring
+     * work would take the entry. Consumers are notified in descending order of priority, so each priority level is
+     * visited at most once for the entry rather than once for every consumer of a lower priority.
+     */
+    private static final class HigherPriorityCheck
+    {
+        private final QueueEntry _entry;
+        private int _checkedPriority = Integer.MAX_VALUE;
+
+        private HigherPriorityCheck(final QueueEntry entry)
+        {
+            _entry = entry;
+        }
+    }
+
 
     private QueueEntry getNextAvailableEntry(final QueueConsumer<?, ?> sub)
     {
@@ -2333,8 +2653,9 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             QueueEntry lastSeen = context.getLastSeenEntry();
             QueueEntry releasedNode = context.getReleasedEntry();
 
-            QueueEntry node = (releasedNode != null && lastSeen.compareTo(releasedNode)>=0) ? releasedNode : getEntries()
-                    .next(lastSeen);
+            QueueEntry node = (releasedNode != null && lastSeen.compareTo(releasedNode)>=0)
+                    ? releasedNode
+                    : getNextEntry(context, lastSeen);
 
             boolean expired = false;
             while (node != null && (!node.isAvailable() || (expired = node.expired()) || !sub.hasInterest(node) ||
@@ -2355,7 +2676,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                 releasedNode = context.getReleasedEntry();
                 node = (releasedNode != null && lastSeen.compareTo(releasedNode)>=0)
                         ? releasedNode
-                        : getEntries().next(lastSeen);
+                        : getNextEntry(context, lastSeen);
             }
             return node;
         }
@@ -2365,6 +2686,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
+    private QueueEntry getNextEntry(final QueueContext context, final QueueEntry lastSeen)
+    {
+        final SelectorPartitions.Partition selectorPartition = context.getSelectorPartition();
+        return selectorPartition == null ? getEntries().next(lastSeen) : selectorPartition.next(lastSeen);
+    }
+
     @Override
     public boolean isEntryAheadOfConsumer(QueueEntry entry, QueueConsumer<?,?> sub)
     {
@@ -2381,8 +2708,74 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     }
 
 
+    @Override
+    public void entryDeleted(final QueueEntry entry)
+    {
+        _expiryIndex.remove(entry, entry.getExpiration());
+        _heldEntries.remove(entry);
+        _selectorPartitions.entryDeleted(entry);
+    }
+
     @Override
     public void checkMessageStatus()
+    {
+        final long currentTime = System.currentTimeMillis();
+        final long fullScanPeriod = _messageStatusFullScanPeriod;
+        if (fullScanPeriod <= 0L || currentTime - _lastMessageStatusFullScanTime >= fullScanPeriod)
+        {
+            _lastMessageStatusFullScanTime = currentTime;
+            checkAllMessagesStatus(currentTime);
+        }
+        else
+        {
+            checkIndexedMessagesStatus(currentTime);
+        }
+    }
+
+    private void checkIndexedMessagesStatus(final long currentTime)
+    {
+        _expiryIndex.pollExpired(currentTime, node ->
+        {
+            if (!_stopped.get() && !node.isDeleted() && node.expired())
+            {
+                expireEntry(node);
+            }
+        });
+
+        final Iterator<QueueEntry> heldEntries = _heldEntries.iterator();
+        while (!_stopped.get() && heldEntries.hasNext())
+        {
+            final QueueEntry node = heldEntries.next();
+            if (node.isDeleted() || !node.checkHeld(currentTime))
+            {
+                heldEntries.remove();
+            }
+        }
+
+        final QueueNotificationListener listener = _notificationListener;
+        final long thresholdTime = currentTime - getAlertRepeatGap();
+        final Set<NotificationCheck> perMessageChecks = EnumSet.noneOf(NotificationCheck.class);
+        for (NotificationCheck check : getNotificationChecks())
+        {
+            if (check.isMessageSpecific())
+            {
+                perMessageChecks.add(check);
+            }
+            else
+            {
+                checkForNotification(null, listener, currentTime, thresholdTime, check);
+            }
+        }
+
+        // the oldest message is checked on every run, the others only by the full scan
+        final QueueEntry oldest = getEntries().getOldestEntry();
+        if (!_stopped.get() && oldest != null && !oldest.isDeleted())
+        {
+            checkEntryStatus(oldest, perMessageChecks, listener, currentTime, thresholdTime);
+        }
+    }
+
+    private void checkAllMessagesStatus(final long currentTime)
     {
         QueueEntryIterator queueListIterator = getEntries().iterator();
 
@@ -2401,7 +2794,6 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             }
         }
         QueueNotificationListener listener = _notificationListener;
-        final long currentTime = System.currentTimeMillis();
         final long thresholdTime = currentTime - getAlertRepeatGap();
 
         while (!_stopped.get() && queueListIterator.advance())
@@ -2410,48 +2802,57 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             // Only process nodes that are not currently deleted and not dequeued
             if (!node.isDeleted())
             {
-                // If the node has expired then acquire it
-                if (node.expired())
-                {
-                    expireEntry(node);
-                }
-                else
-                {
-                    node.checkHeld(currentTime);
+                checkEntryStatus(node, perMessageChecks, listener, currentTime, thresholdTime);
+            }
+        }
 
-                    // There is a chance that the node could be deleted by
-                    // the time the check actually occurs. So verify we
-                    // can actually get the message to perform the check.
-                    ServerMessage msg = node.getMessage();
-                    if (msg != null)
+        for(NotificationCheck check : queueLevelChecks)
+        {
+            checkForNotification(null, listener, currentTime, thresholdTime, check);
+        }
+    }
+
+    private void checkEntryStatus(final QueueEntry node,
+                                  final Collection<NotificationCheck> perMessageChecks,
+                                  final QueueNotificationListener listener,
+                                  final long currentTime,
+                                  final long thresholdTime)
+    {
+        // If the node has expired then acquire it
+        if (node.expired())
+        {
+            expireEntry(node);
+        }
+        else
+        {
+            node.checkHeld(currentTime);
+
+            // There is a chance that the node could be deleted by
+            // the time the check actually occurs. So verify we
+            // can actually get the message to perform the check.
+            ServerMessage msg = node.getMessage();
+            if (msg != null)
+            {
+                try (MessageReference messageReference = msg.newReference())
+                {
+                    if (!msg.checkValid())
                     {
-                        try (MessageReference messageReference = msg.newReference())
-                        {
-                            if (!msg.checkValid())
-                            {
-                                malformedEntry(node);
-                            }
-                            else
-                            {
-                                for (NotificationCheck check : perMessageChecks)
-                                {
-                                    checkForNotification(msg, listener, currentTime, thresholdTime, check);
-                                }
-                            }
-                        }
-                        catch(MessageDeletedException e)
+                        malformedEntry(node);
+                    }
+                    else
+                    {
+                        for (NotificationCheck check : perMessageChecks)
                         {
-                            // Ignore
+                            checkForNotification(msg, listener, currentTime, thresholdTime, check);
                         }
                     }
                 }
+                catch(MessageDeletedException e)
+                {
+                    // Ignore
+                }
             }
         }
-
-        for(NotificationCheck check : queueLevelChecks)
-        {
-            checkForNotification(null, listener, currentTime, thresholdTime, check);
-        }
     }
 
     private void expireEntry(final QueueEntry node)
@@ -2562,11 +2963,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
-    private boolean consumerHasAvailableMessages(final QueueConsumer consumer)
+    private boolean consumerHasAvailableMessages(final QueueConsumer consumer, final HigherPriorityCheck check)
     {
         final QueueEntry queueEntry;
         return !consumer.acquires() || ((queueEntry = getNextAvailableEntry(consumer)) != null
-                                        && noHigherPriorityWithCredit(consumer, queueEntry));
+                                        && noHigherPriorityWithCredit(consumer, queueEntry, check));
     }
 
     void setNotifyWorkDesired(final QueueConsumer consumer, final boolean desired)
@@ -2599,7 +3000,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private boolean notifyConsumer(final QueueConsumer<?,?> consumer)
     {
-        if(consumerHasAvailableMessages(consumer) && _queueConsumerManager.setNotified(consumer, true))
+        return notifyConsumer(consumer, null);
+    }
+
+    private boolean notifyConsumer(final QueueConsumer<?,?> consumer, final HigherPriorityCheck check)
+    {
+        if(consumerHasAvailableMessages(consumer, check) && _queueConsumerManager.setNotified(consumer, true))
         {
             consumer.notifyWork();
             return true;
@@ -2898,6 +3304,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                     {
                         if(method.isHeld(ref, evaluationTime))
                         {
+                            _heldEntries.add(queueEntry);
                             return true;
                         }
                     }
@@ -3542,10 +3949,27 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public List<Long> deleteMessages(final List<Long> messageIds, final String selector, int limit)
     {
+        // if _purgeBatchSize is positive the messages are deleted in batches of that size, so the deletion as a whole
+        // is not atomic
         DeleteMessagesTransaction transaction = new DeleteMessagesTransaction(this,
                                                                               messageIds,
                                                                               parseSelector(selector),
-                                                                              limit);
+                                                                              limit,
+                                                                              _purgeBatchSize)
+        {
+            private long _removed;
+
+            @Override
+            public void batchCommitted(final int updatedEntries, final boolean last)
+            {
+                _removed += updatedEntries;
+                _purgedMessages.addAndGet(updatedEntries);
+                if (!last)
+                {
+                    logOperation(String.format("deleteMessages : %s: %d removed so far", getName(), _removed));
+                }
+            }
+        };
         _virtualHost.executeTransaction(transaction);
         logOperation(String.format("deleteMessages : %s: %d",
                                    getName(),
@@ -3557,7 +3981,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         try
         {
-            return selector == null ? null : new JMSSelectorFilter(selector);
+            return selector == null ? null : new JMSSelectorFilter(selector, JMSSelectorFilter.isCompilationEnabled(this));
         }
         catch (ParseException | SelectorParsingException | TokenMgrError e)
         {
@@ -3569,7 +3993,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     public Content getMessageContent(final long messageId, final long limit, boolean returnJson, boolean decompressBeforeLimiting)
     {
         final MessageContentFinder messageFinder = new MessageContentFinder(messageId);
-        visit(messageFinder);
+        visit(List.of(messageId), messageFinder);
         if (messageFinder.isFound())
         {
             return createMessageContent(messageFinder.getMessageReference(), returnJson, limit, decompressBeforeLimiting);
@@ -3639,7 +4063,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     public MessageInfo getMessageInfoById(final long messageId, boolean includeHeaders)
     {
         final MessageFinder messageFinder = new MessageFinder(messageId, includeHeaders);
-        visit(messageFinder);
+        visit(List.of(messageId), messageFinder);
         return messageFinder.getMessageInfo();
     }
 
@@ -20,8 +20,14 @@
  */
 package org.apache.qpid.server.queue;
 
+import static org.apache.qpid.server.model.Queue.QUEUE_MESSAGE_ID_INDEX_ENABLED;
+
+import java.util.concurrent.TimeUnit;
+
 import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.MessageDurability;
 
 abstract class AbstractQueueEntryList implements QueueEntryList
@@ -31,8 +37,16 @@ abstract class AbstractQueueEntryList implements QueueEntryList
     private final boolean _respectPersistent;
     private final Queue<?> _queue;
     private final QueueStatistics _queueStatistics;
+    private final QueueEntryMessageIndex _messageIndex;
 
     protected AbstractQueueEntryList(final Queue<?> queue, final QueueStatistics queueStatistics)
+    {
+        this(queue, queueStatistics, createMessageIndex(queue));
+    }
+
+    protected AbstractQueueEntryList(final Queue<?> queue,
+                                     final QueueStatistics queueStatistics,
+                                     final QueueEntryMessageIndex messageIndex)
     {
 
         final MessageDurability messageDurability = queue.getMessageDurability();
@@ -40,6 +54,45 @@ abstract class AbstractQueueEntryList implements QueueEntryList
         _queueStatistics = queueStatistics;
         _forcePersistent = messageDurability == MessageDurability.ALWAYS;
         _respectPersistent = messageDurability == MessageDurability.DEFAULT;
+        _messageIndex = messageIndex;
+    }
+
+    static QueueEntryMessageIndex createMessageIndex(final Queue<?> queue)
+    {
+        return Boolean.TRUE.equals(queue.getContextValue(Boolean.class, QUEUE_MESSAGE_ID_INDEX_ENABLED))
+                ? new QueueEntryMessageIndex()
+                : null;
+    }
+
+    @Override
+    public QueueEntryMessageIndex getMessageIndex()
+    {
+        return _messageIndex;
+    }
+
+    void addToMessageIndex(final QueueEntry entry)
+    {
+        final QueueEntryMessageIndex messageIndex = _messageIndex;
+        if (messageIndex != null)
+        {
+            final long messageNumber = entry.getMessage().getMessageNumber();
+            messageIndex.put(messageNumber, entry);
+
+            // the entry may have been consumed before it was indexed, in which case entryDeleted has already run
+            if (entry.isDeleted())
+            {
+                messageIndex.remove(messageNumber, entry);
+            }
+        }
+    }
+
+    void removeFromMessageIndex(final QueueEntry entry)
+    {
+        final QueueEntryMessageIndex messageIndex = _messageIndex;
+        if (messageIndex != null)
+        {
+            messageIndex.remove(entry.getMessage().getMessageNumber(), entry);
+        }
     }
 
 
@@ -89,6 +142,12 @@ abstract class AbstractQueueEntryList implements QueueEntryList
                     queueStatistics.addToUnacknowledged(sizeWithHeader);
                 }
                 break;
+            case DEQUEUED:
+                if (wasConsumerAcquired)
+                {
+                    recordAcknowledgement(entry, ((MessageInstance.ConsumerAcquiredState<?>) fromState).getConsumer());
+                }
+                break;
             case DELETED:
                 queueStatistics.removeFromQueue(sizeWithHeader);
                 queueStatistics.addToDequeued(sizeWithHeader);
@@ -101,4 +160,25 @@ abstract class AbstractQueueEntryList implements QueueEntryList
         }
     }
 
+    private void recordAcknowledgement(final QueueEntry entry, final MessageInstanceConsumer<?> consumer)
+    {
+        final long deliveryTime = entry.getDeliveryTime();
+        if (deliveryTime != 0L)
+        {
+            final long latency = System.nanoTime() - deliveryTime;
+            final LatencyHistogram queueLatency = _queueStatistics.getDeliveryToAcknowledgementLatency();
+            if (queueLatency != null)
+            {
+                queueLatency.record(latency, TimeUnit.NANOSECONDS);
+            }
+            if (consumer instanceof QueueConsumer)
+            {
+                final LatencyHistogram consumerLatency = ((QueueConsumer<?, ?>) consumer).getDeliveryToAcknowledgementLatency();
+                if (consumerLatency != null)
+                {
+                    consumerLatency.record(latency, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
 }
@@ -23,6 +23,7 @@ package org.apache.qpid.server.queue;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,7 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
     private final String _groupId;
     private final ConcurrentMap<Integer, QueueConsumer<?,?>> _groupMap = new ConcurrentHashMap<>();
     private final int _groupMask;
+    private final LongAdder _assignmentContentionCount = new LongAdder();
 
     AssignedConsumerMessageGroupManager(final String groupId, final int maxGroups)
     {
@@ -104,6 +106,10 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
                 {
                     LOGGER.debug("Assigning group {} to sub {}", groupVal, sub);
                     assignedSub = _groupMap.putIfAbsent(group, sub);
+                    if (assignedSub != null)
+                    {
+                        _assignmentContentionCount.increment();
+                    }
                     return assignedSub == null || assignedSub == sub;
                 }
                 else
@@ -177,4 +183,16 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
             }
         }
     }
+
+    @Override
+    public int getGroupCount()
+    {
+        return _groupMap.size();
+    }
+
+    @Override
+    public long getAssignmentContentionCount()
+    {
+        return _assignmentContentionCount.sum();
+    }
 }
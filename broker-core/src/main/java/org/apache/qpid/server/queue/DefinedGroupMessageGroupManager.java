@@ -20,10 +20,13 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,20 +38,36 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.util.StateChangeListener;
 
+/**
+ * Message group manager for shared groups.
+ * <p>
+ * Each group is guarded by its own monitor, so that consumers working on different groups do not contend, and the
+ * groups are held in a concurrent map.  A group is replaced in the map only by a compare-and-set, which is retried
+ * if another consumer assigns or releases the group concurrently.
+ * <p>
+ * Each group keeps, in queue order, the entries which other consumers skipped because the group was assigned
+ * elsewhere together with those released by its consumer, the first of them being the point from which the queue
+ * must be rescanned once the group is released.  The groups assigned to each consumer are indexed, so that the
+ * earliest available entry assigned to a departing consumer is the earliest of the first available entries of its
+ * groups, and is found without visiting the queue.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<QueueConsumer<?,?>, Set<Group>> _groupsByConsumer = new ConcurrentHashMap<>();
+    private final LongAdder _assignmentContentionCount = new LongAdder();
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
     {
         private final Object _group;
-        private final SortedSet<QueueEntry> _skippedEntries = new TreeSet<>();
+        private final SortedSet<QueueEntry> _pendingEntries = new TreeSet<>();
         private QueueConsumer<?,?> _consumer;
         private int _activeCount;
+        private boolean _removed;
 
         private Group(final Object key, final QueueConsumer<?,?> consumer)
         {
@@ -71,45 +90,28 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         
         void subtract(final QueueEntry entry, final boolean released)
         {
-            if(!released)
+            if(released)
+            {
+                _pendingEntries.add(entry);
+            }
+            else
             {
-                _skippedEntries.remove(entry);
+                _pendingEntries.remove(entry);
             }
             if(--_activeCount == 0)
             {
-                _groupMap.remove(_group);
-                if(!_skippedEntries.isEmpty())
+                _removed = true;
+                unindex(this, _consumer);
+                _groupMap.remove(_group, this);
+                if(!_pendingEntries.isEmpty())
                 {
-                    _resetHelper.resetSubPointersForGroups(_skippedEntries.first());
-                    _skippedEntries.clear();
+                    _resetHelper.resetSubPointersForGroups(_pendingEntries.first());
+                    _pendingEntries.clear();
                 }
                 _consumer = null;
             }
         }
 
-        @Override
-        public boolean equals(final Object o)
-        {
-            if (this == o)
-            {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass())
-            {
-                return false;
-            }
-
-            Group group = (Group) o;
-
-            return _group.equals(group._group);
-        }
-
-        @Override
-        public int hashCode()
-        {
-            return _group.hashCode();
-        }
-
         public boolean isValid()
         {
             return !(_consumer == null || (_activeCount == 0 && _consumer.isClosed()));
@@ -132,7 +134,25 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
 
         void addSkippedEntry(final QueueEntry entry)
         {
-            _skippedEntries.add(entry);
+            _pendingEntries.add(entry);
+        }
+
+        synchronized QueueEntry getEarliestAvailableEntry()
+        {
+            final Iterator<QueueEntry> iterator = _pendingEntries.iterator();
+            while (iterator.hasNext())
+            {
+                final QueueEntry entry = iterator.next();
+                if (entry.isAvailable())
+                {
+                    return entry;
+                }
+                else if (entry.isDeleted())
+                {
+                    iterator.remove();
+                }
+            }
+            return null;
         }
     }
 
@@ -144,111 +164,194 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
     }
     
     @Override
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
         Group group = _groupMap.get(groupId);
-        final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
-        if(!possibleAssignment)
+        if (group == null)
         {
-            group.addSkippedEntry(entry);
+            return true;
+        }
+        synchronized (group)
+        {
+            final boolean possibleAssignment = group._removed || !group.isValid() || group.getConsumer() == sub;
+            if (!possibleAssignment)
+            {
+                group.addSkippedEntry(entry);
+            }
+            return possibleAssignment;
         }
-        return possibleAssignment;
     }
 
     @Override
-    public synchronized boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        return assignAndAcquire(sub, entry);
     }
 
-    private boolean assignMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    private boolean assignAndAcquire(final QueueConsumer<?,?> sub, final QueueEntry entry)
     {
         Object groupId = getKey(entry);
-        Group group = _groupMap.get(groupId);
-
-        if(group == null || !group.isValid())
+        while (true)
         {
-            group = new Group(groupId, sub);
-
-            _groupMap.put(groupId, group);
+            Group group = _groupMap.get(groupId);
+            final boolean assigned = group == null || !isCurrent(group);
 
-            // there's a small chance that the group became empty between the point at which getNextAvailable() was
-            // called on the consumer, and when accept message is called... in that case we want to avoid delivering
-            // out of order
-            if(_resetHelper.isEntryAheadOfConsumer(entry, sub))
+            if (assigned)
             {
-                return false;
+                final Group newGroup = new Group(groupId, sub);
+                if (!putGroup(groupId, group, newGroup))
+                {
+                    _assignmentContentionCount.increment();
+                    continue;
+                }
+                group = newGroup;
+
+                // there's a small chance that the group became empty between the point at which getNextAvailable() was
+                // called on the consumer, and when accept message is called... in that case we want to avoid delivering
+                // out of order
+                if(_resetHelper.isEntryAheadOfConsumer(entry, sub))
+                {
+                    return false;
+                }
             }
-        }
 
-        QueueConsumer<?,?> assignedSub = group.getConsumer();
+            synchronized (group)
+            {
+                if (group._removed || (!assigned && !group.isValid()))
+                {
+                    // the group was released or replaced since it was looked up
+                    _assignmentContentionCount.increment();
+                    continue;
+                }
 
-        if(assignedSub == sub)
-        {
-            entry.addStateChangeListener(new GroupStateChangeListener(group));
-            return true;
-        }
-        else
-        {
-            group.addSkippedEntry(entry);
-            return false;            
+                QueueConsumer<?,?> assignedSub = group.getConsumer();
+
+                if(assignedSub == sub)
+                {
+                    // acquire while holding the group so that it cannot be released before its count is incremented
+                    entry.addStateChangeListener(new GroupStateChangeListener(group));
+                    return entry.acquire(sub);
+                }
+                else
+                {
+                    group.addSkippedEntry(entry);
+                    return false;
+                }
+            }
         }
     }
 
-    @Override
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
+    private boolean isCurrent(final Group group)
     {
-        EntryFinder visitor = new EntryFinder(sub);
-        sub.getQueue().visit(visitor);
-        return visitor.getEntry();
+        synchronized (group)
+        {
+            return !group._removed && group.isValid();
+        }
     }
 
-    private class EntryFinder implements QueueEntryVisitor
+    private boolean putGroup(final Object groupId, final Group existingGroup, final Group newGroup)
     {
-        private final QueueConsumer<?,?> _sub;
-        private QueueEntry _entry;
-
-        EntryFinder(final QueueConsumer<?, ?> sub)
+        if (existingGroup == null)
         {
-            _sub = sub;
+            if (_groupMap.putIfAbsent(groupId, newGroup) != null)
+            {
+                return false;
+            }
         }
-
-        @Override
-        public boolean visit(final QueueEntry entry)
+        else
         {
-            if(!entry.isAvailable())
+            if (!_groupMap.replace(groupId, existingGroup, newGroup))
             {
                 return false;
             }
+            synchronized (existingGroup)
+            {
+                existingGroup._removed = true;
+                unindex(existingGroup, existingGroup.getConsumer());
+            }
+        }
+        LOGGER.debug("Assigning group {} to consumer {}", groupId, newGroup.getConsumer());
+        index(newGroup, newGroup.getConsumer());
+        return true;
+    }
 
-            Object groupId = getKey(entry);
+    private void index(final Group group, final QueueConsumer<?,?> consumer)
+    {
+        if (!isRemoved(consumer))
+        {
+            _groupsByConsumer.computeIfAbsent(consumer, c -> ConcurrentHashMap.newKeySet()).add(group);
 
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
+            // the assignments of the consumer may have been cleared concurrently
+            if (isRemoved(consumer))
             {
-                _entry = entry;
-                return true;
+                _groupsByConsumer.remove(consumer);
             }
-            else
+        }
+    }
+
+    private boolean isRemoved(final QueueConsumer<?,?> consumer)
+    {
+        // the queue context of a consumer is cleared before its assignments are
+        return consumer.isClosed() || consumer.getQueueContext() == null;
+    }
+
+    private void unindex(final Group group, final QueueConsumer<?,?> consumer)
+    {
+        if (consumer != null)
+        {
+            final Set<Group> groups = _groupsByConsumer.get(consumer);
+            if (groups != null)
             {
-                return false;
+                groups.remove(group);
             }
         }
+    }
 
-        public QueueEntry getEntry()
+    /**
+     * Returns the earliest available entry of the groups assigned to the consumer which another consumer may have
+     * passed over: an entry the other consumer skipped, or one the consumer released.  An entry which no other
+     * consumer has passed yet is still ahead of them all, so need not be revisited.
+     */
+    @Override
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
+    {
+        final Set<Group> groups = _groupsByConsumer.get(sub);
+        if (groups == null)
+        {
+            return null;
+        }
+        QueueEntry earliestEntry = null;
+        for (Group group : groups)
         {
-            return _entry;
+            final QueueEntry entry = group.getEarliestAvailableEntry();
+            if (entry != null && (earliestEntry == null || entry.compareTo(earliestEntry) < 0))
+            {
+                earliestEntry = entry;
+            }
         }
+        return earliestEntry;
     }
 
-    
     @Override
     public void clearAssignments(final QueueConsumer<?,?> sub)
     {
+        _groupsByConsumer.remove(sub);
     }
-    
+
+    @Override
+    public int getGroupCount()
+    {
+        return _groupMap.size();
+    }
+
+    @Override
+    public long getAssignmentContentionCount()
+    {
+        return _assignmentContentionCount.sum();
+    }
+
     private Object getKey(QueueEntry entry)
     {
         final ServerMessage message = entry.getMessage();
@@ -283,7 +386,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         @Override
         public void stateChanged(final MessageInstance entry, final EntryState oldState, final EntryState newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (_group)
             {
                 if(_group.isValid())
                 {
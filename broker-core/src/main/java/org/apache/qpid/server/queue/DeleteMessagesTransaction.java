@@ -28,12 +28,30 @@ import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
 
 public class DeleteMessagesTransaction extends QueueEntryTransaction
 {
+    private final int _batchSize;
+
     public DeleteMessagesTransaction(Queue sourceQueue,
                                      List<Long> messageIds,
                                      final MessageFilter filter,
                                      final int limit)
+    {
+        this(sourceQueue, messageIds, filter, limit, 0);
+    }
+
+    public DeleteMessagesTransaction(Queue sourceQueue,
+                                     List<Long> messageIds,
+                                     final MessageFilter filter,
+                                     final int limit,
+                                     final int batchSize)
     {
         super(sourceQueue, messageIds, filter, limit);
+        _batchSize = batchSize;
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return _batchSize;
     }
 
     @Override
@@ -57,7 +57,15 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
                                  final QueueStatistics queueStatistics,
                                  HeadCreator headCreator)
     {
-        super(queue, queueStatistics);
+        this(queue, queueStatistics, createMessageIndex(queue), headCreator);
+    }
+
+    OrderedQueueEntryList(Queue<?> queue,
+                          final QueueStatistics queueStatistics,
+                          final QueueEntryMessageIndex messageIndex,
+                          HeadCreator headCreator)
+    {
+        super(queue, queueStatistics, messageIndex);
         _queue = queue;
         _scavengeCount = _queue.getContextValue(Integer.class, QUEUE_SCAVANGE_COUNT);
         _head = headCreator.createHead(this);
@@ -103,6 +111,7 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
                     if (_nextUpdater.compareAndSet(tail, null, node))
                     {
                         _tailUpdater.compareAndSet(this, tail, node);
+                        addToMessageIndex(node);
 
                         return node;
                     }
@@ -129,7 +138,7 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
         OrderedQueueEntry createHead(QueueEntryList list);
     }
 
-    public static class QueueEntryIteratorImpl implements QueueEntryIterator
+    static class QueueEntryIteratorImpl implements QueueEntryIterator
     {
         private QueueEntry _lastNode;
 
@@ -170,6 +179,12 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
         return new QueueEntryIteratorImpl(_head);
     }
 
+    @Override
+    public QueueEntryIterator iterator(final QueueEntry startEntry)
+    {
+        return new QueueEntryIteratorImpl(startEntry);
+    }
+
 
     @Override
     public QueueEntry getHead()
@@ -186,6 +201,8 @@ public abstract class OrderedQueueEntryList extends AbstractQueueEntryList
     @Override
     public void entryDeleted(QueueEntry queueEntry)
     {
+        removeFromMessageIndex(queueEntry);
+
         QueueEntry next = _head.getNextNode();
         QueueEntry newNext = _head.getNextValidEntry();
 
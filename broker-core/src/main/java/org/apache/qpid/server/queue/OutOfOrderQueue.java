@@ -33,6 +33,12 @@ public abstract class OutOfOrderQueue<X extends OutOfOrderQueue<X>> extends Abst
         super(attributes, virtualHost);
     }
 
+    @Override
+    boolean isSelectorPartitioningSupported()
+    {
+        return false;
+    }
+
     @Override
     protected void checkConsumersNotAheadOfDelivery(final QueueEntry entry)
     {
@@ -100,7 +100,7 @@ public class PriorityQueueImpl extends OutOfOrderQueue<PriorityQueueImpl> implem
         final JMSSelectorFilter filter;
         try
         {
-            filter = selector == null ? null : new JMSSelectorFilter(selector);
+            filter = selector == null ? null : new JMSSelectorFilter(selector, JMSSelectorFilter.isCompilationEnabled(this));
         }
         catch (ParseException | SelectorParsingException | TokenMgrError e)
         {
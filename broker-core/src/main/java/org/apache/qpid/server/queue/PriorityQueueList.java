@@ -38,6 +38,13 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
         super(queue, queue.getQueueStatistics(), headCreator);
     }
 
+    PriorityQueueList(final PriorityQueueImpl queue,
+                      final QueueEntryMessageIndex messageIndex,
+                      final HeadCreator headCreator)
+    {
+        super(queue, queue.getQueueStatistics(), messageIndex, headCreator);
+    }
+
     static class PriorityQueueMasterList extends PriorityQueueList
     {
         private static final HeadCreator DUMMY_HEAD_CREATOR = list -> null;
@@ -55,7 +62,7 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             _priorityOffset = 5-((priorities + 1)/2);
             for(int i = 0; i < priorities; i++)
             {
-                _priorityLists[i] = new PriorityQueueEntrySubList(queue, i);
+                _priorityLists[i] = new PriorityQueueEntrySubList(queue, getMessageIndex(), i);
             }
         }
 
@@ -120,11 +127,12 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
 
         private final class PriorityQueueEntryListIterator implements QueueEntryIterator
         {
-            private final QueueEntryIterator[] _iterators = new QueueEntryIterator[ _priorityLists.length ];
+            private final QueueEntryIterator[] _iterators;
             private PriorityQueueEntry _lastNode;
 
             PriorityQueueEntryListIterator()
             {
+                _iterators = new QueueEntryIterator[ _priorityLists.length ];
                 for(int i = 0; i < _priorityLists.length; i++)
                 {
                     _iterators[i] = _priorityLists[i].iterator();
@@ -132,6 +140,22 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
                 _lastNode = (PriorityQueueEntry) _iterators[_iterators.length - 1].getNode();
             }
 
+            /**
+             * Starts at the given entry and continues through the rest of its sub-list and then the sub-lists of
+             * lower priority. Entries of higher priority are ahead of the start entry and are not visited.
+             */
+            PriorityQueueEntryListIterator(final PriorityQueueEntry startEntry)
+            {
+                final int startIndex = indexOf(startEntry.getQueueEntryList());
+                _iterators = new QueueEntryIterator[ startIndex + 1 ];
+                for(int i = 0; i < startIndex; i++)
+                {
+                    _iterators[i] = _priorityLists[i].iterator();
+                }
+                _iterators[startIndex] = _priorityLists[startIndex].iterator(startEntry);
+                _lastNode = startEntry;
+            }
+
             @Override
             public boolean atTail()
             {
@@ -173,6 +197,24 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             return new PriorityQueueEntryListIterator();
         }
 
+        @Override
+        public PriorityQueueEntryListIterator iterator(final QueueEntry startEntry)
+        {
+            return new PriorityQueueEntryListIterator((PriorityQueueEntry) startEntry);
+        }
+
+        private int indexOf(final QueueEntryList subList)
+        {
+            for(int i = 0; i < _priorityLists.length; i++)
+            {
+                if(_priorityLists[i] == subList)
+                {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Entry does not belong to this queue");
+        }
+
         @Override
         public PriorityQueueEntry getHead()
         {
@@ -228,9 +270,9 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
         private static final HeadCreator HEAD_CREATOR = list -> new PriorityQueueEntry((PriorityQueueList) list);
         private final int _listPriority;
 
-        public PriorityQueueEntrySubList(PriorityQueueImpl queue, int listPriority)
+        public PriorityQueueEntrySubList(PriorityQueueImpl queue, QueueEntryMessageIndex messageIndex, int listPriority)
         {
-            super(queue, HEAD_CREATOR);
+            super(queue, messageIndex, HEAD_CREATOR);
             _listPriority = listPriority;
         }
 
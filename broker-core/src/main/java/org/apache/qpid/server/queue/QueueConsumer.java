@@ -25,6 +25,7 @@ import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.model.Consumer;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.session.AMQPSession;
+import org.apache.qpid.server.stats.LatencyHistogram;
 
 public interface QueueConsumer<X extends QueueConsumer<X,T>, T extends ConsumerTarget> extends Consumer<X, T>
 {
@@ -58,6 +59,12 @@ public interface QueueConsumer<X extends QueueConsumer<X,T>, T extends ConsumerT
 
     void setQueueConsumerNode(QueueConsumerNode node);
 
+    /**
+     * Returns the histogram of the latencies from delivery to acknowledgement, or null if the latency histograms of
+     * the queue are not enabled.
+     */
+    LatencyHistogram getDeliveryToAcknowledgementLatency();
+
     @Override
     AMQPSession<?,?> getSession();
 }
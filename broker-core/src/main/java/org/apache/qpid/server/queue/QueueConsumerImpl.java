@@ -23,9 +23,11 @@ package org.apache.qpid.server.queue;
 import static org.apache.qpid.server.logging.subjects.LogSubjectFormat.SUBSCRIPTION_FORMAT;
 
 import java.text.MessageFormat;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -61,11 +63,13 @@ import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.session.AMQPSession;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
 import org.apache.qpid.server.util.StateChangeListener;
 
 class QueueConsumerImpl<T extends ConsumerTarget>
     extends AbstractConfiguredObject<QueueConsumerImpl<T>>
-        implements QueueConsumer<QueueConsumerImpl<T>,T>, LogSubject
+        implements QueueConsumer<QueueConsumerImpl<T>,T>, LogSubject, LatencyHistogramProvider
 {
     private final static Logger LOGGER = LoggerFactory.getLogger(QueueConsumerImpl.class);
     private final AtomicBoolean _closed = new AtomicBoolean(false);
@@ -79,6 +83,7 @@ class QueueConsumerImpl<T extends ConsumerTarget>
     private final boolean _isTransient;
     private final AtomicLong _deliveredCount = new AtomicLong(0);
     private final AtomicLong _deliveredBytes = new AtomicLong(0);
+    private final LatencyHistogram _deliveryToAcknowledgementLatency;
     private final FilterManager _filters;
     private final Class<? extends ServerMessage> _messageClass;
     private final Object _sessionReference;
@@ -121,6 +126,12 @@ class QueueConsumerImpl<T extends ConsumerTarget>
         _consumerNumber = CONSUMER_NUMBER_GENERATOR.getAndIncrement();
         _filters = filters;
         _acquires = optionSet.contains(ConsumerOption.ACQUIRES);
+        // acknowledgements of a consumer are mostly recorded by the thread of its connection, so one stripe suffices
+        _deliveryToAcknowledgementLatency = queue.isLatencyHistogramsEnabled()
+                ? new LatencyHistogram("deliveryToAcknowledgementLatency",
+                                       "Latency from the delivery of a message to the consumer to its acknowledgement.",
+                                       1)
+                : null;
         _seesRequeues = optionSet.contains(ConsumerOption.SEES_REQUEUES);
         _isTransient = optionSet.contains(ConsumerOption.TRANSIENT);
         _target = target;
@@ -511,11 +522,45 @@ class QueueConsumerImpl<T extends ConsumerTarget>
         return _deliveredCount.longValue();
     }
 
+    @Override
+    public long getDeliveryToAcknowledgementLatencyP50()
+    {
+        return AbstractQueue.getLatencyMillis(_deliveryToAcknowledgementLatency, 0.5);
+    }
+
+    @Override
+    public long getDeliveryToAcknowledgementLatencyP99()
+    {
+        return AbstractQueue.getLatencyMillis(_deliveryToAcknowledgementLatency, 0.99);
+    }
+
+    @Override
+    public long getDeliveryToAcknowledgementLatencyMax()
+    {
+        return AbstractQueue.getMaxLatencyMillis(_deliveryToAcknowledgementLatency);
+    }
+
+    @Override
+    public LatencyHistogram getDeliveryToAcknowledgementLatency()
+    {
+        return _deliveryToAcknowledgementLatency;
+    }
+
+    @Override
+    public Collection<LatencyHistogram> getLatencyHistograms()
+    {
+        return _deliveryToAcknowledgementLatency == null ? List.of() : List.of(_deliveryToAcknowledgementLatency);
+    }
+
     @Override
     public void resetStatistics()
     {
         _deliveredBytes.set(0L);
         _deliveredCount.set(0L);
+        if (_deliveryToAcknowledgementLatency != null)
+        {
+            _deliveryToAcknowledgementLatency.reset();
+        }
         _target.resetStatistics();
     }
 
@@ -33,6 +33,19 @@ public interface QueueConsumerManager
     Iterator<QueueConsumer<?,?>> getAllIterator();
     Iterator<QueueConsumer<?,?>> getNonAcquiringIterator();
 
+    /**
+     * Returns an iterator over the acquiring consumers which desire work and have a priority higher than the given
+     * priority. Priority levels without any such consumer are skipped without visiting their consumers.
+     */
+    Iterator<QueueConsumer<?,?>> getHigherPriorityWorkDesiredIterator(int priority);
+
+    /**
+     * Returns an iterator over the acquiring consumers which desire work and have a priority higher than
+     * abovePriority but not higher than upToPriority. Priority levels outside this range, or without any such
+     * consumer, are skipped without visiting their consumers.
+     */
+    Iterator<QueueConsumer<?,?>> getWorkDesiredIterator(int abovePriority, int upToPriority);
+
     int getAllSize();
     int getHighestNotifiedPriority();
 }
@@ -178,6 +178,18 @@ public class QueueConsumerManagerImpl implements QueueConsumerManager
         return new QueueConsumerIterator(_nonAcquiring.iterator());
     }
 
+    @Override
+    public Iterator<QueueConsumer<?,?>> getHigherPriorityWorkDesiredIterator(final int priority)
+    {
+        return getWorkDesiredIterator(priority, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Iterator<QueueConsumer<?,?>> getWorkDesiredIterator(final int abovePriority, final int upToPriority)
+    {
+        return new QueueConsumerIterator(new WorkDesiredQueueConsumerNodeIterator(abovePriority, upToPriority));
+    }
+
     @Override
     public int getAllSize()
     {
@@ -333,6 +345,73 @@ public class QueueConsumerManagerImpl implements QueueConsumerManager
         }
     }
 
+    /**
+     * Iterates over the notified and then the interested consumers of the priority levels in the given range.
+     * The per priority lists are ordered from highest to lowest priority, so iteration of each passes over the
+     * levels above the range and stops at the first level below it. Levels whose list is empty are passed over.
+     */
+    private class WorkDesiredQueueConsumerNodeIterator implements Iterator<QueueConsumerNode>
+    {
+        private final int _abovePriority;
+        private final int _upToPriority;
+        private Iterator<PriorityConsumerListPair> _outerIterator;
+        private boolean _interestedVisited;
+        private Iterator<QueueConsumerNode> _innerIterator;
+
+        private WorkDesiredQueueConsumerNodeIterator(final int abovePriority, final int upToPriority)
+        {
+            _abovePriority = abovePriority;
+            _upToPriority = upToPriority;
+            _outerIterator = _notified.iterator();
+            _innerIterator = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (true)
+            {
+                if (_innerIterator.hasNext())
+                {
+                    return true;
+                }
+                final PriorityConsumerListPair pair = _outerIterator.hasNext() ? _outerIterator.next() : null;
+                if (pair != null && pair._priority > _abovePriority)
+                {
+                    if (pair._priority <= _upToPriority && !pair._consumers.isEmpty())
+                    {
+                        _innerIterator = pair._consumers.iterator();
+                    }
+                }
+                else if (!_interestedVisited)
+                {
+                    _interestedVisited = true;
+                    _outerIterator = _interested.iterator();
+                }
+                else
+                {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public QueueConsumerNode next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            return _innerIterator.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private class PrioritisedQueueConsumerNodeIterator implements Iterator<QueueConsumerNode>
     {
         final Iterator<PriorityConsumerListPair> _outerIterator;
@@ -37,9 +37,17 @@ final class QueueContext
         AtomicReferenceFieldUpdater.newUpdater
         (QueueContext.class, QueueEntry.class, "_releasedEntry");
 
+    private final SelectorPartitions.Partition _selectorPartition;
+
     public QueueContext(QueueEntry head)
+    {
+        this(head, null);
+    }
+
+    QueueContext(QueueEntry head, SelectorPartitions.Partition selectorPartition)
     {
         _lastSeenEntry = head;
+        _selectorPartition = selectorPartition;
     }
 
     public QueueEntry getLastSeenEntry()
@@ -53,12 +61,18 @@ final class QueueContext
         return _releasedEntry;
     }
 
+    SelectorPartitions.Partition getSelectorPartition()
+    {
+        return _selectorPartition;
+    }
+
     @Override
     public String toString()
     {
         return "QueueContext{" +
                "_lastSeenEntry=" + _lastSeenEntry +
                ", _releasedEntry=" + _releasedEntry +
+               ", _selectorPartition=" + _selectorPartition +
                '}';
     }
 }
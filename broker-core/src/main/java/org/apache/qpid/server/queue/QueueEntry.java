@@ -43,7 +43,17 @@ public interface QueueEntry extends MessageInstance, Comparable<QueueEntry>
 
     void setExpiration(long calculatedExpiration);
 
+    long getExpiration();
+
     MessageReference newMessageReference();
 
     boolean checkHeld(final long evaluationTime);
+
+    /**
+     * Returns the {@link System#nanoTime()} at which the entry was last delivered to an acquiring consumer, or zero if
+     * it has not been delivered.
+     */
+    long getDeliveryTime();
+
+    void setDeliveryTime(long deliveryTime);
 }
@@ -0,0 +1,120 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel of queue entries keyed by their expiration time.
+ * <p>
+ * Entries are placed into buckets of {@code tickDuration} milliseconds, so that the housekeeping task only needs to
+ * visit the buckets which have become due rather than every entry on the queue. Buckets in the past are removed
+ * wholesale; the bucket containing the current time is visited entry by entry.
+ */
+final class QueueEntryExpiryIndex
+{
+    private final long _tickDuration;
+    private final ConcurrentSkipListMap<Long, Set<QueueEntry>> _buckets = new ConcurrentSkipListMap<>();
+
+    QueueEntryExpiryIndex(final long tickDuration)
+    {
+        if (tickDuration <= 0L)
+        {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        _tickDuration = tickDuration;
+    }
+
+    void add(final QueueEntry entry, final long expiration)
+    {
+        if (expiration != 0L)
+        {
+            _buckets.computeIfAbsent(getBucket(expiration), bucket -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    void remove(final QueueEntry entry, final long expiration)
+    {
+        if (expiration != 0L)
+        {
+            final Set<QueueEntry> entries = _buckets.get(getBucket(expiration));
+            if (entries != null)
+            {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    void update(final QueueEntry entry, final long previousExpiration, final long expiration)
+    {
+        remove(entry, previousExpiration);
+        add(entry, expiration);
+    }
+
+    /**
+     * Removes the entries whose expiration time is not after the given time and passes them to the given consumer.
+     * Empty buckets in the past are discarded. Entries which cannot be expired when polled, such as those which are
+     * acquired, must be added again by the caller once they can be.
+     */
+    void pollExpired(final long currentTime, final Consumer<QueueEntry> expiredEntryConsumer)
+    {
+        final long currentBucket = getBucket(currentTime);
+        Map.Entry<Long, Set<QueueEntry>> bucket;
+        while ((bucket = _buckets.firstEntry()) != null && bucket.getKey() <= currentBucket)
+        {
+            final Set<QueueEntry> entries = bucket.getValue();
+            if (bucket.getKey() < currentBucket)
+            {
+                _buckets.remove(bucket.getKey(), entries);
+                entries.forEach(expiredEntryConsumer);
+            }
+            else
+            {
+                final Iterator<QueueEntry> iterator = entries.iterator();
+                while (iterator.hasNext())
+                {
+                    final QueueEntry entry = iterator.next();
+                    if (entry.isDeleted() || entry.expired())
+                    {
+                        iterator.remove();
+                        expiredEntryConsumer.accept(entry);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    int size()
+    {
+        return _buckets.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private long getBucket(final long time)
+    {
+        return time / _tickDuration;
+    }
+}
@@ -108,6 +108,7 @@ public abstract class QueueEntryImpl implements QueueEntry
     private static final int IMMEDIATE_FLAG = 8;
     private int _flags;
     private long _expiration;
+    private volatile long _deliveryTime;
 
     /** Number of times this message has been delivered */
     private volatile int _deliveryCount = -1;
@@ -116,6 +117,14 @@ public abstract class QueueEntryImpl implements QueueEntry
 
     private final MessageEnqueueRecord _enqueueRecord;
 
+    private volatile SelectorPartitions.ChainLink _selectorPartitionChains;
+
+    private static final
+        AtomicReferenceFieldUpdater<QueueEntryImpl, SelectorPartitions.ChainLink>
+                _selectorPartitionChainsUpdater =
+        AtomicReferenceFieldUpdater.newUpdater
+        (QueueEntryImpl.class, SelectorPartitions.ChainLink.class, "_selectorPartitionChains");
+
 
     QueueEntryImpl(QueueEntryList queueEntryList)
     {
@@ -166,6 +175,12 @@ public abstract class QueueEntryImpl implements QueueEntry
         _expiration = expiration;
     }
 
+    @Override
+    public long getExpiration()
+    {
+        return _expiration;
+    }
+
     @Override
     public InstanceProperties getInstanceProperties()
     {
@@ -577,6 +592,7 @@ public abstract class QueueEntryImpl implements QueueEntry
         {
             notifyStateChange(state, DELETED_STATE);
             _queueEntryList.entryDeleted(this);
+            getQueue().entryDeleted(this);
             onDelete();
             _message.release();
 
@@ -718,6 +734,29 @@ public abstract class QueueEntryImpl implements QueueEntry
         return _deliveryCount == -1 ? 0 : _deliveryCount;
     }
 
+    @Override
+    public long getDeliveryTime()
+    {
+        return _deliveryTime;
+    }
+
+    @Override
+    public void setDeliveryTime(final long deliveryTime)
+    {
+        _deliveryTime = deliveryTime;
+    }
+
+    SelectorPartitions.ChainLink getSelectorPartitionChains()
+    {
+        return _selectorPartitionChains;
+    }
+
+    boolean compareAndSetSelectorPartitionChains(final SelectorPartitions.ChainLink expected,
+                                                 final SelectorPartitions.ChainLink chains)
+    {
+        return _selectorPartitionChainsUpdater.compareAndSet(this, expected, chains);
+    }
+
     @Override
     public int getMaximumDeliveryCount()
     {
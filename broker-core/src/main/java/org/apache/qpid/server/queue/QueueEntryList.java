@@ -34,6 +34,11 @@ interface QueueEntryList
 
     QueueEntryIterator iterator();
 
+    /**
+     * @return an iterator positioned at the given entry, which must belong to this list
+     */
+    QueueEntryIterator iterator(QueueEntry startEntry);
+
     QueueEntry getHead();
 
     QueueEntry getTail();
@@ -48,4 +53,9 @@ interface QueueEntryList
 
     QueueEntry getLeastSignificantOldestEntry();
 
+    /**
+     * @return the index of entries by message number, or null if this list does not maintain one
+     */
+    QueueEntryMessageIndex getMessageIndex();
+
 }
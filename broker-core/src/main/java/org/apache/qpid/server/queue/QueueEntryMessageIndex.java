@@ -0,0 +1,205 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+/**
+ * Concurrent map from message number to queue entry.
+ * <p>
+ * The map is split into a fixed number of segments, each of which is an open-addressing hash table with linear
+ * probing guarded by its own monitor. Keys are held as primitive longs so that neither lookups nor updates box the
+ * message number.
+ */
+final class QueueEntryMessageIndex
+{
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENT_SHIFT = Integer.SIZE - SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] _segments = new Segment[1 << SEGMENT_BITS];
+
+    QueueEntryMessageIndex()
+    {
+        for (int i = 0; i < _segments.length; i++)
+        {
+            _segments[i] = new Segment();
+        }
+    }
+
+    void put(final long messageNumber, final QueueEntry entry)
+    {
+        final int hash = hash(messageNumber);
+        _segments[hash >>> SEGMENT_SHIFT].put(messageNumber, hash, entry);
+    }
+
+    QueueEntry get(final long messageNumber)
+    {
+        final int hash = hash(messageNumber);
+        return _segments[hash >>> SEGMENT_SHIFT].get(messageNumber, hash);
+    }
+
+    /**
+     * Removes the mapping for the given message number only if it is currently mapped to the given entry.
+     */
+    boolean remove(final long messageNumber, final QueueEntry entry)
+    {
+        final int hash = hash(messageNumber);
+        return _segments[hash >>> SEGMENT_SHIFT].remove(messageNumber, hash, entry);
+    }
+
+    int size()
+    {
+        int size = 0;
+        for (Segment segment : _segments)
+        {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static int hash(final long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Segment
+    {
+        private long[] _keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private QueueEntry[] _values = new QueueEntry[INITIAL_SEGMENT_CAPACITY];
+        private int _size;
+
+        synchronized QueueEntry get(final long key, final int hash)
+        {
+            final int mask = _values.length - 1;
+            for (int i = hash & mask; _values[i] != null; i = (i + 1) & mask)
+            {
+                if (_keys[i] == key)
+                {
+                    return _values[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(final long key, final int hash, final QueueEntry value)
+        {
+            if ((_size + 1) * 4 > _values.length * 3)
+            {
+                resize(_values.length << 1);
+            }
+            final int mask = _values.length - 1;
+            int i = hash & mask;
+            while (_values[i] != null)
+            {
+                if (_keys[i] == key)
+                {
+                    _values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            _keys[i] = key;
+            _values[i] = value;
+            _size++;
+        }
+
+        synchronized boolean remove(final long key, final int hash, final QueueEntry value)
+        {
+            final int mask = _values.length - 1;
+            int i = hash & mask;
+            while (_values[i] != null)
+            {
+                if (_keys[i] == key)
+                {
+                    if (_values[i] != value)
+                    {
+                        return false;
+                    }
+                    deleteSlot(i);
+                    _size--;
+                    if (_values.length > INITIAL_SEGMENT_CAPACITY && _size * 8 < _values.length)
+                    {
+                        resize(_values.length >> 1);
+                    }
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        synchronized int size()
+        {
+            return _size;
+        }
+
+        /**
+         * Empties the given slot, shifting back any later entries of the probe sequence which would otherwise
+         * become unreachable.
+         */
+        private void deleteSlot(int slot)
+        {
+            final int mask = _values.length - 1;
+            int i = slot;
+            int j = slot;
+            while (true)
+            {
+                j = (j + 1) & mask;
+                if (_values[j] == null)
+                {
+                    break;
+                }
+                final int k = hash(_keys[j]) & mask;
+                final boolean inPlace = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+                if (!inPlace)
+                {
+                    _keys[i] = _keys[j];
+                    _values[i] = _values[j];
+                    i = j;
+                }
+            }
+            _keys[i] = 0L;
+            _values[i] = null;
+        }
+
+        private void resize(final int capacity)
+        {
+            final long[] oldKeys = _keys;
+            final QueueEntry[] oldValues = _values;
+            _keys = new long[capacity];
+            _values = new QueueEntry[capacity];
+            final int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++)
+            {
+                if (oldValues[j] != null)
+                {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (_values[i] != null)
+                    {
+                        i = (i + 1) & mask;
+                    }
+                    _keys[i] = oldKeys[j];
+                    _values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
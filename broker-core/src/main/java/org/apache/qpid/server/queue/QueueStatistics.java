@@ -23,6 +23,8 @@ package org.apache.qpid.server.queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.qpid.server.stats.LatencyHistogram;
+
 final class QueueStatistics
 {
     private final AtomicInteger _queueCount = new AtomicInteger();
@@ -57,6 +59,9 @@ final class QueueStatistics
     private final AtomicInteger _malformedCount = new AtomicInteger();
     private final AtomicLong _malformedSize = new AtomicLong();
 
+    private volatile LatencyHistogram _enqueueToDeliveryLatency;
+    private volatile LatencyHistogram _deliveryToAcknowledgementLatency;
+
     public int getQueueCount()
     {
         return _queueCount.get();
@@ -223,6 +228,33 @@ final class QueueStatistics
         _unackedSize.addAndGet(-size);
     }
 
+    void enableLatencyHistograms()
+    {
+        _enqueueToDeliveryLatency =
+                new LatencyHistogram("enqueueToDeliveryLatency",
+                                     "Latency from the arrival of a message to its delivery to a consumer of the queue.");
+        _deliveryToAcknowledgementLatency =
+                new LatencyHistogram("deliveryToAcknowledgementLatency",
+                                     "Latency from the delivery of a message to a consumer of the queue to its acknowledgement.");
+    }
+
+    /**
+     * Returns the histogram of the latencies from enqueue to delivery, or null if latency histograms are not enabled.
+     */
+    LatencyHistogram getEnqueueToDeliveryLatency()
+    {
+        return _enqueueToDeliveryLatency;
+    }
+
+    /**
+     * Returns the histogram of the latencies from delivery to acknowledgement, or null if latency histograms are not
+     * enabled.
+     */
+    LatencyHistogram getDeliveryToAcknowledgementLatency()
+    {
+        return _deliveryToAcknowledgementLatency;
+    }
+
     void addToEnqueued(long size)
     {
         _enqueueCount.incrementAndGet();
@@ -293,5 +325,16 @@ final class QueueStatistics
 
         _malformedCount.set(0);
         _malformedSize.set(0L);
+
+        final LatencyHistogram enqueueToDeliveryLatency = _enqueueToDeliveryLatency;
+        if (enqueueToDeliveryLatency != null)
+        {
+            enqueueToDeliveryLatency.reset();
+        }
+        final LatencyHistogram deliveryToAcknowledgementLatency = _deliveryToAcknowledgementLatency;
+        if (deliveryToAcknowledgementLatency != null)
+        {
+            deliveryToAcknowledgementLatency.reset();
+        }
     }
 }
@@ -0,0 +1,317 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.qpid.server.filter.Expression;
+import org.apache.qpid.server.filter.FilterableMessage;
+import org.apache.qpid.server.message.MessageReference;
+
+/**
+ * Chains of the entries of a queue which can match the consumers whose selectors require a message property to be
+ * equal to a string literal.
+ * <p>
+ * Consumers whose selectors compare the same property with the same literal share a partition.  The partition chains
+ * the entries whose property has that value, whilst the entries whose property is neither a string nor null are
+ * chained for every partition of the property, as their value may still be converted to match.  A consumer with a
+ * partition therefore only visits the entries of its chains, which are a superset of the entries it can match.
+ * <p>
+ * Chains are ordered by entry id, so partitioning is only used for queues whose entries are delivered in entry id
+ * order.  Entries are chained when they are enqueued and unchained when they are deleted; a partition created for a
+ * queue which already holds entries is populated from the queue before its first consumer is attached.  Each entry
+ * records the chains it has been added to, so that it is unchained without evaluating its property again.
+ * <p>
+ * Concurrent enqueues may chain their entries in a different order from the one in which they were added to the
+ * queue, so a consumer may already have moved past an entry when it is chained.  Chaining an entry therefore moves
+ * the released entry of each consumer of the partition back to the entry, as an out of order queue does for its
+ * consumers, so that the consumer returns to it.
+ */
+final class SelectorPartitions
+{
+    private static final Object UNKNOWN_VALUE = new Object();
+
+    private volatile Map<Expression<FilterableMessage>, PropertyPartitions> _propertyPartitions =
+            Collections.emptyMap();
+
+    synchronized Partition acquire(final Expression<FilterableMessage> property,
+                                   final String value,
+                                   final QueueEntryList entries)
+    {
+        PropertyPartitions propertyPartitions = _propertyPartitions.get(property);
+        final boolean newProperty = propertyPartitions == null;
+        if (newProperty)
+        {
+            propertyPartitions = new PropertyPartitions(property);
+            final Map<Expression<FilterableMessage>, PropertyPartitions> copy = new HashMap<>(_propertyPartitions);
+            copy.put(property, propertyPartitions);
+            _propertyPartitions = copy;
+        }
+
+        Partition partition = propertyPartitions._partitions.get(value);
+        if (partition == null)
+        {
+            partition = new Partition(propertyPartitions, value);
+            propertyPartitions._partitions.put(value, partition);
+            populate(partition, newProperty, entries);
+        }
+        partition._consumerCount++;
+        return partition;
+    }
+
+    synchronized void release(final Partition partition, final QueueContext context)
+    {
+        partition._contexts.remove(context);
+        if (--partition._consumerCount == 0)
+        {
+            final PropertyPartitions propertyPartitions = partition._propertyPartitions;
+            propertyPartitions._partitions.remove(partition._value);
+            if (propertyPartitions._partitions.isEmpty())
+            {
+                final Map<Expression<FilterableMessage>, PropertyPartitions> copy = new HashMap<>(_propertyPartitions);
+                copy.remove(propertyPartitions._property);
+                _propertyPartitions = copy.isEmpty() ? Collections.emptyMap() : copy;
+            }
+        }
+    }
+
+    void entryAdded(final QueueEntry entry)
+    {
+        final Map<Expression<FilterableMessage>, PropertyPartitions> propertyPartitions = _propertyPartitions;
+        if (!propertyPartitions.isEmpty())
+        {
+            for (PropertyPartitions partitions : propertyPartitions.values())
+            {
+                partitions.add(entry, partitions.evaluate(entry));
+            }
+        }
+    }
+
+    void entryDeleted(final QueueEntry entry)
+    {
+        for (ChainLink link = ((QueueEntryImpl) entry).getSelectorPartitionChains(); link != null; link = link._next)
+        {
+            link._chain.remove(entry);
+        }
+    }
+
+    int getPartitionCount()
+    {
+        return _propertyPartitions.values().stream().mapToInt(partitions -> partitions._partitions.size()).sum();
+    }
+
+    private void populate(final Partition partition, final boolean newProperty, final QueueEntryList entries)
+    {
+        final PropertyPartitions propertyPartitions = partition._propertyPartitions;
+        final QueueEntryIterator iterator = entries.iterator();
+        while (iterator.advance())
+        {
+            final QueueEntry entry = iterator.getNode();
+            if (entry != null && !entry.isDeleted())
+            {
+                final Object value = propertyPartitions.evaluate(entry);
+                if (partition._value.equals(value))
+                {
+                    partition.add(entry);
+                }
+                else if (newProperty && value != null && !(value instanceof String))
+                {
+                    propertyPartitions.addUnclassified(entry);
+                }
+            }
+        }
+    }
+
+    private static boolean add(final ConcurrentSkipListSet<QueueEntry> chain, final QueueEntry entry)
+    {
+        final QueueEntryImpl entryImpl = (QueueEntryImpl) entry;
+        ChainLink chains;
+        do
+        {
+            chains = entryImpl.getSelectorPartitionChains();
+        }
+        while (!entryImpl.compareAndSetSelectorPartitionChains(chains, new ChainLink(chain, chains)));
+        chain.add(entry);
+
+        // the entry may have been deleted before it was chained, in which case entryDeleted has already run
+        if (entry.isDeleted())
+        {
+            chain.remove(entry);
+            return false;
+        }
+        return true;
+    }
+
+    private static final class PropertyPartitions
+    {
+        private final Expression<FilterableMessage> _property;
+        private final Map<String, Partition> _partitions = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<QueueEntry> _unclassified = new ConcurrentSkipListSet<>();
+
+        private PropertyPartitions(final Expression<FilterableMessage> property)
+        {
+            _property = property;
+        }
+
+        private Object evaluate(final QueueEntry entry)
+        {
+            final MessageReference<?> reference = entry.newMessageReference();
+            if (reference == null)
+            {
+                return null;
+            }
+            try
+            {
+                return _property.evaluate(entry.asFilterable());
+            }
+            catch (RuntimeException e)
+            {
+                return UNKNOWN_VALUE;
+            }
+            finally
+            {
+                reference.release();
+            }
+        }
+
+        private void add(final QueueEntry entry, final Object value)
+        {
+            if (value instanceof String)
+            {
+                final Partition partition = _partitions.get(value);
+                if (partition != null && partition.add(entry))
+                {
+                    partition.rewindContexts(entry);
+                }
+            }
+            else if (value != null && addUnclassified(entry))
+            {
+                for (Partition partition : _partitions.values())
+                {
+                    partition.rewindContexts(entry);
+                }
+            }
+        }
+
+        private boolean addUnclassified(final QueueEntry entry)
+        {
+            return SelectorPartitions.add(_unclassified, entry);
+        }
+    }
+
+    /**
+     * A link of the immutable list of the chains an entry has been added to.
+     */
+    static final class ChainLink
+    {
+        private final ConcurrentSkipListSet<QueueEntry> _chain;
+        private final ChainLink _next;
+
+        private ChainLink(final ConcurrentSkipListSet<QueueEntry> chain, final ChainLink next)
+        {
+            _chain = chain;
+            _next = next;
+        }
+    }
+
+    static final class Partition
+    {
+        private final PropertyPartitions _propertyPartitions;
+        private final String _value;
+        private final ConcurrentSkipListSet<QueueEntry> _entries = new ConcurrentSkipListSet<>();
+        private final Set<QueueContext> _contexts = new CopyOnWriteArraySet<>();
+        private int _consumerCount;
+
+        private Partition(final PropertyPartitions propertyPartitions, final String value)
+        {
+            _propertyPartitions = propertyPartitions;
+            _value = value;
+        }
+
+        private boolean add(final QueueEntry entry)
+        {
+            return SelectorPartitions.add(_entries, entry);
+        }
+
+        void addContext(final QueueContext context)
+        {
+            _contexts.add(context);
+        }
+
+        /**
+         * Moves the released entry of each consumer of the partition back to the given entry, which has just been
+         * chained, unless the consumer is already due to return to an earlier entry.
+         */
+        private void rewindContexts(final QueueEntry entry)
+        {
+            for (QueueContext context : _contexts)
+            {
+                QueueEntry released = context.getReleasedEntry();
+                while (!entry.isAcquired() && (released == null || released.compareTo(entry) > 0))
+                {
+                    if (QueueContext._releasedUpdater.compareAndSet(context, released, entry))
+                    {
+                        break;
+                    }
+                    released = context.getReleasedEntry();
+                }
+            }
+        }
+
+        /**
+         * Returns the first entry after the given entry which can match the consumers of the partition.
+         */
+        QueueEntry next(final QueueEntry entry)
+        {
+            final QueueEntry matching = _entries.higher(entry);
+            final QueueEntry unclassified = _propertyPartitions._unclassified.higher(entry);
+            if (matching == null)
+            {
+                return unclassified;
+            }
+            else if (unclassified == null)
+            {
+                return matching;
+            }
+            return matching.compareTo(unclassified) < 0 ? matching : unclassified;
+        }
+
+        int size()
+        {
+            return _entries.size();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Partition{" +
+                   "property=" + _propertyPartitions._property +
+                   ", value='" + _value + '\'' +
+                   '}';
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package org.apache.qpid.server.queue;
 
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.Queue;
 
@@ -30,9 +31,19 @@ public interface SortedQueue<X extends SortedQueue<X>> extends Queue<X>
 {
     String SORT_KEY = "sortKey";
     String SORTED_QUEUE_TYPE = "sorted";
+    String ENTRY_LIST_TYPE = "entryListType";
 
     @ManagedAttribute( mandatory = true )
     String getSortKey();
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = "queue.sortedEntryListType")
+    SortedQueueEntryListType DEFAULT_ENTRY_LIST_TYPE = SortedQueueEntryListType.TREE;
+
+    @ManagedAttribute( defaultValue = "${queue.sortedEntryListType}", immutable = true,
+                       description = "The structure holding the queue entries in sort order. TREE serialises "
+                                     + "enqueues and deletions on a single lock; SKIP_LIST allows them to proceed "
+                                     + "concurrently.")
+    SortedQueueEntryListType getEntryListType();
 
 }
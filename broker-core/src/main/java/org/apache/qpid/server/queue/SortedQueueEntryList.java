@@ -73,6 +73,7 @@ public class SortedQueueEntryList extends AbstractQueueEntryList
             entry.setKey(key);
 
             insert(entry);
+            addToMessageIndex(entry);
 
             return entry;
         }
@@ -327,6 +328,12 @@ public class SortedQueueEntryList extends AbstractQueueEntryList
         return new QueueEntryIteratorImpl(_head);
     }
 
+    @Override
+    public QueueEntryIterator iterator(final QueueEntry startEntry)
+    {
+        return new QueueEntryIteratorImpl((SortedQueueEntry) startEntry);
+    }
+
     @Override
     public SortedQueueEntry getHead()
     {
@@ -376,6 +383,7 @@ public class SortedQueueEntryList extends AbstractQueueEntryList
     public void entryDeleted(final QueueEntry e)
     {
         SortedQueueEntry entry = (SortedQueueEntry)e;
+        removeFromMessageIndex(entry);
         synchronized(_lock)
         {
             // If the node to be removed has two children, we swap the position
@@ -38,7 +38,10 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
 
     @ManagedAttributeField
     private String _sortKey;
-    private SortedQueueEntryList _entries;
+    @ManagedAttributeField
+    private SortedQueueEntryListType _entryListType;
+    private AbstractQueueEntryList _entries;
+    private boolean _concurrentEntries;
 
     @ManagedObjectFactoryConstructor
     public SortedQueueImpl(Map<String, Object> attributes, QueueManagingVirtualHost<?> virtualHost)
@@ -50,7 +53,10 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
     protected void onOpen()
     {
         super.onOpen();
-        _entries = new SortedQueueEntryList(this, getQueueStatistics());
+        _concurrentEntries = _entryListType == SortedQueueEntryListType.SKIP_LIST;
+        _entries = _concurrentEntries
+                ? new ConcurrentSortedQueueEntryList(this, getQueueStatistics())
+                : new SortedQueueEntryList(this, getQueueStatistics());
     }
 
     @Override
@@ -58,6 +64,10 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
                         final Action<? super MessageInstance> action,
                         MessageEnqueueRecord record)
     {
+        if (_concurrentEntries)
+        {
+            return super.doEnqueue(message, action, record);
+        }
         synchronized (_sortedQueueLock)
         {
             return super.doEnqueue(message, action, record);
@@ -65,7 +75,7 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
     }
 
     @Override
-    SortedQueueEntryList getEntries()
+    AbstractQueueEntryList getEntries()
     {
         return _entries;
     }
@@ -75,4 +85,10 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
     {
         return _sortKey;
     }
+
+    @Override
+    public SortedQueueEntryListType getEntryListType()
+    {
+        return _entryListType;
+    }
 }
@@ -0,0 +1,286 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histogram of latencies recorded with microsecond resolution.
+ * <p>
+ * Latencies are counted in log-linear buckets: each power of two is split into {@link #SUB_BUCKET_COUNT} buckets, so
+ * that a recorded latency is known to within 1/{@value #SUB_BUCKET_COUNT} of its value, in the manner of an HDR
+ * histogram.  Latencies above {@link #MAXIMUM_TRACKABLE_MICROS} are counted in the highest bucket, although the
+ * maximum latency is tracked exactly.
+ * <p>
+ * Recording threads are spread over a number of stripes, each holding its own counters, which are allocated on
+ * first use, so that threads rarely contend.  A stripe takes a little over 2 KB, so a histogram recorded by a single
+ * thread may be created with a single stripe.  The stripes are merged into a {@link Snapshot} when the histogram is
+ * read, at most once per {@link #SNAPSHOT_INTERVAL_MILLIS} for {@link #getSnapshot()}.
+ */
+public final class LatencyHistogram
+{
+    static final int SUB_BUCKET_COUNT = 8;
+    static final long MAXIMUM_TRACKABLE_MICROS = 1L << 36;
+    static final long SNAPSHOT_INTERVAL_MILLIS = 1000L;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+    private static final int BUCKET_COUNT = bucketIndex(MAXIMUM_TRACKABLE_MICROS) + 1;
+    private static final int SUM_INDEX = BUCKET_COUNT;
+    private static final int MAX_INDEX = BUCKET_COUNT + 1;
+    private static final int MAX_STRIPES = 8;
+
+    private final String _name;
+    private final String _description;
+    private final AtomicReferenceArray<AtomicLongArray> _stripes;
+    private volatile Snapshot _snapshot;
+
+    public LatencyHistogram(final String name, final String description)
+    {
+        this(name, description, MAX_STRIPES);
+    }
+
+    /**
+     * Creates a histogram spreading its recording threads over at most the given number of stripes, and no more
+     * stripes than there are processors.
+     */
+    public LatencyHistogram(final String name, final String description, final int maximumStripes)
+    {
+        _name = name;
+        _description = description;
+        int stripeCount = 1;
+        while (stripeCount < Runtime.getRuntime().availableProcessors() && stripeCount < maximumStripes)
+        {
+            stripeCount <<= 1;
+        }
+        _stripes = new AtomicReferenceArray<>(stripeCount);
+    }
+
+    public String getName()
+    {
+        return _name;
+    }
+
+    public String getDescription()
+    {
+        return _description;
+    }
+
+    public void record(final long latency, final TimeUnit unit)
+    {
+        final long micros = Math.max(0L, unit.toMicros(latency));
+        final AtomicLongArray stripe = getStripe();
+        stripe.incrementAndGet(bucketIndex(Math.min(micros, MAXIMUM_TRACKABLE_MICROS)));
+        stripe.addAndGet(SUM_INDEX, micros);
+        long max;
+        while (micros > (max = stripe.get(MAX_INDEX)) && !stripe.compareAndSet(MAX_INDEX, max, micros))
+        {
+            // retry
+        }
+    }
+
+    /**
+     * Returns a snapshot of the histogram, which may be up to {@value #SNAPSHOT_INTERVAL_MILLIS} milliseconds old.
+     */
+    public Snapshot getSnapshot()
+    {
+        final Snapshot snapshot = _snapshot;
+        final long now = System.nanoTime();
+        if (snapshot != null && now - snapshot._time < TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_INTERVAL_MILLIS))
+        {
+            return snapshot;
+        }
+        return takeSnapshot();
+    }
+
+    /**
+     * Merges the counters of all stripes into a new snapshot.
+     */
+    public Snapshot takeSnapshot()
+    {
+        final long[] counts = new long[BUCKET_COUNT];
+        long sum = 0L;
+        long max = 0L;
+        for (int i = 0; i < _stripes.length(); i++)
+        {
+            final AtomicLongArray stripe = _stripes.get(i);
+            if (stripe != null)
+            {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+                {
+                    counts[bucket] += stripe.get(bucket);
+                }
+                sum += stripe.get(SUM_INDEX);
+                max = Math.max(max, stripe.get(MAX_INDEX));
+            }
+        }
+        final Snapshot snapshot = new Snapshot(counts, sum, max, System.nanoTime());
+        _snapshot = snapshot;
+        return snapshot;
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < _stripes.length(); i++)
+        {
+            final AtomicLongArray stripe = _stripes.get(i);
+            if (stripe != null)
+            {
+                for (int index = 0; index < stripe.length(); index++)
+                {
+                    stripe.set(index, 0L);
+                }
+            }
+        }
+        _snapshot = null;
+    }
+
+    private AtomicLongArray getStripe()
+    {
+        final long threadId = Thread.currentThread().getId();
+        final int index = (int) (threadId ^ (threadId >>> 32)) & (_stripes.length() - 1);
+        AtomicLongArray stripe = _stripes.get(index);
+        if (stripe == null)
+        {
+            stripe = new AtomicLongArray(BUCKET_COUNT + 2);
+            if (!_stripes.compareAndSet(index, null, stripe))
+            {
+                stripe = _stripes.get(index);
+            }
+        }
+        return stripe;
+    }
+
+    static int bucketIndex(final long micros)
+    {
+        if (micros < SUB_BUCKET_COUNT)
+        {
+            return (int) micros;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the highest latency, in microseconds, counted in the given bucket.
+     */
+    static long bucketUpperBound(final int bucket)
+    {
+        if (bucket < SUB_BUCKET_COUNT)
+        {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKET_COUNT;
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+
+    /**
+     * Merged view of the counts recorded by a histogram.
+     */
+    public static final class Snapshot
+    {
+        private final long[] _counts;
+        private final long _count;
+        private final long _sum;
+        private final long _max;
+        private final long _time;
+
+        private Snapshot(final long[] counts, final long sum, final long max, final long time)
+        {
+            long count = 0L;
+            for (long bucketCount : counts)
+            {
+                count += bucketCount;
+            }
+            _counts = counts;
+            _count = count;
+            _sum = sum;
+            _max = max;
+            _time = time;
+        }
+
+        public long getCount()
+        {
+            return _count;
+        }
+
+        /**
+         * Returns the sum of all recorded latencies in microseconds.
+         */
+        public long getSum()
+        {
+            return _sum;
+        }
+
+        /**
+         * Returns the maximum recorded latency in microseconds.
+         */
+        public long getMax()
+        {
+            return _max;
+        }
+
+        /**
+         * Returns the maximum recorded latency in the given unit.
+         */
+        public long getMax(final TimeUnit unit)
+        {
+            return unit.convert(_max, TimeUnit.MICROSECONDS);
+        }
+
+        /**
+         * Returns the latency in the given unit at or below which the given fraction of the recorded latencies fall,
+         * or zero if no latency has been recorded.
+         */
+        public long getValueAtQuantile(final double quantile, final TimeUnit unit)
+        {
+            return unit.convert(getValueAtQuantile(quantile), TimeUnit.MICROSECONDS);
+        }
+
+        /**
+         * Returns the latency in microseconds at or below which the given fraction of the recorded latencies fall,
+         * or zero if no latency has been recorded.
+         */
+        public long getValueAtQuantile(final double quantile)
+        {
+            if (_count == 0L)
+            {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(quantile * _count));
+            long seen = 0L;
+            for (int bucket = 0; bucket < _counts.length; bucket++)
+            {
+                seen += _counts[bucket];
+                if (seen >= rank)
+                {
+                    // the highest bucket also counts latencies above the trackable maximum
+                    return bucket == _counts.length - 1 ? _max : Math.min(bucketUpperBound(bucket), _max);
+                }
+            }
+            return _max;
+        }
+    }
+}
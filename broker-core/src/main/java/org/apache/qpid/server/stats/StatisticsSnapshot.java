@@ -0,0 +1,380 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.Model;
+
+/**
+ * Point in time copy of the statistics of a configured object and all of its descendants.
+ * <p>
+ * Objects are grouped by type, and the values of each group are held in a single flat array with a row per object
+ * and a column per statistic of the type, so that building, holding and reading a snapshot of many objects needs no
+ * map or boxed value per object and statistic.  Integral statistics and dates are held as longs, floating point
+ * statistics as the bits of a double.
+ */
+public final class StatisticsSnapshot
+{
+    private final List<TypeStatistics> _typeStatistics;
+    private final int _objectCount;
+    private final long _creationTime;
+    private final long _creationNanoTime;
+    private final long _buildDuration;
+    private volatile Map<ConfiguredObject<?>, ObjectStatistics> _objectStatistics;
+
+    private StatisticsSnapshot(final List<TypeStatistics> typeStatistics,
+                               final long creationNanoTime,
+                               final long buildDuration)
+    {
+        _typeStatistics = Collections.unmodifiableList(typeStatistics);
+        _objectCount = typeStatistics.stream().mapToInt(TypeStatistics::size).sum();
+        _creationTime = System.currentTimeMillis();
+        _creationNanoTime = creationNanoTime;
+        _buildDuration = buildDuration;
+    }
+
+    /**
+     * Reads the statistics of the given object and all of its descendants.
+     */
+    public static StatisticsSnapshot create(final ConfiguredObject<?> root)
+    {
+        final long start = System.nanoTime();
+        final Map<Class<?>, TypeStatisticsBuilder> builders = new LinkedHashMap<>();
+        collect(root, root.getModel(), builders);
+
+        final List<TypeStatistics> typeStatistics = new ArrayList<>(builders.size());
+        for (TypeStatisticsBuilder builder : builders.values())
+        {
+            typeStatistics.add(builder.build());
+        }
+        final long end = System.nanoTime();
+        return new StatisticsSnapshot(typeStatistics, end, end - start);
+    }
+
+    private static void collect(final ConfiguredObject<?> object,
+                                final Model model,
+                                final Map<Class<?>, TypeStatisticsBuilder> builders)
+    {
+        builders.computeIfAbsent(object.getClass(), type -> new TypeStatisticsBuilder(object)).add(object);
+        for (Class<? extends ConfiguredObject> childClass : model.getChildTypes(object.getCategoryClass()))
+        {
+            final Collection<? extends ConfiguredObject> children = object.getChildren(childClass);
+            if (children != null)
+            {
+                for (ConfiguredObject<?> child : children)
+                {
+                    collect(child, model, builders);
+                }
+            }
+        }
+    }
+
+    public Collection<TypeStatistics> getTypeStatistics()
+    {
+        return _typeStatistics;
+    }
+
+    public int getObjectCount()
+    {
+        return _objectCount;
+    }
+
+    /**
+     * Returns the time, in milliseconds since the epoch, at which the snapshot was taken.
+     */
+    public long getCreationTime()
+    {
+        return _creationTime;
+    }
+
+    /**
+     * Returns the time in nanoseconds since the snapshot was taken.
+     */
+    public long getAge()
+    {
+        return System.nanoTime() - _creationNanoTime;
+    }
+
+    /**
+     * Returns the time in nanoseconds taken to build the snapshot.
+     */
+    public long getBuildDuration()
+    {
+        return _buildDuration;
+    }
+
+    /**
+     * Returns the statistics of the given object, or null if the object is not in the snapshot.
+     */
+    public ObjectStatistics getObjectStatistics(final ConfiguredObject<?> object)
+    {
+        Map<ConfiguredObject<?>, ObjectStatistics> objectStatistics = _objectStatistics;
+        if (objectStatistics == null)
+        {
+            // the index is only needed for lookups of single objects, so is not built with the snapshot
+            objectStatistics = new IdentityHashMap<>(_objectCount);
+            for (TypeStatistics typeStatistics : _typeStatistics)
+            {
+                for (int row = 0; row < typeStatistics.size(); row++)
+                {
+                    objectStatistics.put(typeStatistics.getObject(row), new ObjectStatistics(typeStatistics, row));
+                }
+            }
+            _objectStatistics = objectStatistics;
+        }
+        return objectStatistics.get(object);
+    }
+
+    private enum ValueKind
+    {
+        INTEGRAL, FLOATING_POINT, DATE;
+
+        static ValueKind of(final Class<?> type)
+        {
+            if (Date.class.isAssignableFrom(type))
+            {
+                return DATE;
+            }
+            else if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class)
+            {
+                return INTEGRAL;
+            }
+            return FLOATING_POINT;
+        }
+    }
+
+    /**
+     * Statistics of all objects of a single type.
+     */
+    public static final class TypeStatistics
+    {
+        private final Class<? extends ConfiguredObject> _categoryClass;
+        private final List<ConfiguredObjectStatistic<?, ?>> _statistics;
+        private final ValueKind[] _kinds;
+        private final ConfiguredObject<?>[] _objects;
+        private final long[] _values;
+        private final BitSet _absent;
+
+        private TypeStatistics(final Class<? extends ConfiguredObject> categoryClass,
+                               final List<ConfiguredObjectStatistic<?, ?>> statistics,
+                               final ValueKind[] kinds,
+                               final ConfiguredObject<?>[] objects,
+                               final long[] values,
+                               final BitSet absent)
+        {
+            _categoryClass = categoryClass;
+            _statistics = statistics;
+            _kinds = kinds;
+            _objects = objects;
+            _values = values;
+            _absent = absent;
+        }
+
+        public Class<? extends ConfiguredObject> getCategoryClass()
+        {
+            return _categoryClass;
+        }
+
+        public List<ConfiguredObjectStatistic<?, ?>> getStatistics()
+        {
+            return _statistics;
+        }
+
+        public int size()
+        {
+            return _objects.length;
+        }
+
+        public ConfiguredObject<?> getObject(final int row)
+        {
+            return _objects[row];
+        }
+
+        /**
+         * Returns false if the getter of the statistic returned null for the object.
+         */
+        public boolean hasValue(final int row, final int column)
+        {
+            return !_absent.get(row * _kinds.length + column);
+        }
+
+        public boolean isNumeric(final int column)
+        {
+            return _kinds[column] != ValueKind.DATE;
+        }
+
+        /**
+         * Returns the value of a statistic as a double, dates being represented by milliseconds since the epoch.
+         */
+        public double getDoubleValue(final int row, final int column)
+        {
+            final long value = _values[row * _kinds.length + column];
+            return _kinds[column] == ValueKind.FLOATING_POINT ? Double.longBitsToDouble(value) : (double) value;
+        }
+
+        /**
+         * Returns the value of a statistic as the type returned by its getter, or null if the getter returned null.
+         */
+        public Object getValue(final int row, final int column)
+        {
+            if (!hasValue(row, column))
+            {
+                return null;
+            }
+            final long value = _values[row * _kinds.length + column];
+            final Class<?> type = _statistics.get(column).getType();
+            switch (_kinds[column])
+            {
+                case DATE:
+                    return new Date(value);
+                case INTEGRAL:
+                    if (type == Integer.class)
+                    {
+                        return (int) value;
+                    }
+                    else if (type == Short.class)
+                    {
+                        return (short) value;
+                    }
+                    else if (type == Byte.class)
+                    {
+                        return (byte) value;
+                    }
+                    return value;
+                default:
+                    final double doubleValue = Double.longBitsToDouble(value);
+                    return type == Float.class ? (Object) (float) doubleValue : (Object) doubleValue;
+            }
+        }
+    }
+
+    /**
+     * Statistics of a single object.
+     */
+    public static final class ObjectStatistics
+    {
+        private final TypeStatistics _typeStatistics;
+        private final int _row;
+
+        private ObjectStatistics(final TypeStatistics typeStatistics, final int row)
+        {
+            _typeStatistics = typeStatistics;
+            _row = row;
+        }
+
+        /**
+         * Returns the statistics in the form of {@link ConfiguredObject#getStatistics()}.
+         */
+        public Map<String, Object> toMap()
+        {
+            final List<ConfiguredObjectStatistic<?, ?>> statistics = _typeStatistics.getStatistics();
+            final Map<String, Object> map = new HashMap<>();
+            for (int column = 0; column < statistics.size(); column++)
+            {
+                final Object value = _typeStatistics.getValue(_row, column);
+                if (value != null)
+                {
+                    map.put(statistics.get(column).getName(), value);
+                }
+            }
+            return map;
+        }
+    }
+
+    private static final class TypeStatisticsBuilder
+    {
+        private final Class<? extends ConfiguredObject> _categoryClass;
+        private final List<ConfiguredObjectStatistic<?, ?>> _statistics;
+        private final ValueKind[] _kinds;
+        private final BitSet _absent = new BitSet();
+        private ConfiguredObject<?>[] _objects = new ConfiguredObject<?>[8];
+        private long[] _values;
+        private int _size;
+
+        private TypeStatisticsBuilder(final ConfiguredObject<?> object)
+        {
+            _categoryClass = object.getCategoryClass();
+            _statistics = List.copyOf(object.getModel().getTypeRegistry().getStatistics(object.getClass()));
+            _kinds = new ValueKind[_statistics.size()];
+            for (int column = 0; column < _kinds.length; column++)
+            {
+                _kinds[column] = ValueKind.of(_statistics.get(column).getType());
+            }
+            _values = new long[_objects.length * _kinds.length];
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void add(final ConfiguredObject<?> object)
+        {
+            if (_size == _objects.length)
+            {
+                _objects = Arrays.copyOf(_objects, _size * 2);
+                _values = Arrays.copyOf(_values, _objects.length * _kinds.length);
+            }
+            _objects[_size] = object;
+            int index = _size * _kinds.length;
+            for (int column = 0; column < _kinds.length; column++, index++)
+            {
+                final Object value = ((ConfiguredObjectStatistic) _statistics.get(column)).getValue(object);
+                if (value == null)
+                {
+                    _absent.set(index);
+                }
+                else if (_kinds[column] == ValueKind.DATE)
+                {
+                    _values[index] = ((Date) value).getTime();
+                }
+                else if (_kinds[column] == ValueKind.INTEGRAL)
+                {
+                    _values[index] = ((Number) value).longValue();
+                }
+                else
+                {
+                    _values[index] = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                }
+            }
+            _size++;
+        }
+
+        private TypeStatistics build()
+        {
+            return new TypeStatistics(_categoryClass,
+                                      _statistics,
+                                      _kinds,
+                                      Arrays.copyOf(_objects, _size),
+                                      Arrays.copyOf(_values, _size * _kinds.length),
+                                      _absent);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+
+/**
+ * Holds a {@link StatisticsSnapshot} of a configured object shared by its readers.  The snapshot is retaken when it
+ * is read after the refresh interval has elapsed, by a single reader while any others wait for it, so that the cost
+ * of reading the statistics does not grow with the number of readers.
+ */
+public final class StatisticsSnapshotCache
+{
+    private final ConfiguredObject<?> _root;
+    private final LongSupplier _refreshInterval;
+    private volatile StatisticsSnapshot _snapshot;
+
+    /**
+     * @param root the object whose statistics, and those of its descendants, are held
+     * @param refreshInterval supplies the interval in milliseconds after which the snapshot is retaken
+     */
+    public StatisticsSnapshotCache(final ConfiguredObject<?> root, final LongSupplier refreshInterval)
+    {
+        _root = root;
+        _refreshInterval = refreshInterval;
+    }
+
+    public StatisticsSnapshot getSnapshot()
+    {
+        StatisticsSnapshot snapshot = _snapshot;
+        if (isStale(snapshot))
+        {
+            synchronized (this)
+            {
+                snapshot = _snapshot;
+                if (isStale(snapshot))
+                {
+                    snapshot = StatisticsSnapshot.create(_root);
+                    _snapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private boolean isStale(final StatisticsSnapshot snapshot)
+    {
+        return snapshot == null
+               || snapshot.getAge() >= TimeUnit.MILLISECONDS.toNanos(_refreshInterval.getAsLong());
+    }
+}
@@ -24,6 +24,7 @@ package org.apache.qpid.server.store;
 import java.io.File;
 
 import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.handler.DistributedTransactionHandler;
 import org.apache.qpid.server.store.handler.MessageHandler;
 import org.apache.qpid.server.store.handler.MessageInstanceHandler;
@@ -65,6 +66,14 @@ public interface MessageStore
 
     long getBytesEvacuatedFromMemory();
 
+    /**
+     * Returns the histogram of the latency of transaction commits, or null if the store does not record it.
+     */
+    default LatencyHistogram getCommitLatency()
+    {
+        return null;
+    }
+
     void resetStatistics();
 
     /**
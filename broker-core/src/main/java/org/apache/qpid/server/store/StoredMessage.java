@@ -21,6 +21,8 @@
 package org.apache.qpid.server.store;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.MessageContentReader;
+import org.apache.qpid.server.message.RangedMessageContentReader;
 
 public interface StoredMessage<M extends StorableMessageMetaData>
 {
@@ -35,6 +37,16 @@ public interface StoredMessage<M extends StorableMessageMetaData>
      */
     QpidByteBuffer getContent(int offset, int length);
 
+    /**
+     * Opens a reader of the message content from its beginning. Caller is responsible for closing the reader.
+     * Implementations holding content which is not in memory read it piecewise through a single store resource
+     * held open by the reader, rather than locating the content in the store again for each read.
+     */
+    default MessageContentReader openContentReader()
+    {
+        return new RangedMessageContentReader(this::getContent, getContentSize());
+    }
+
     int getContentSize();
 
     int getMetadataSize();
@@ -734,6 +734,12 @@ public abstract class AbstractAMQPConnection<C extends AbstractAMQPConnection<C,
         return _transactedMessagesOut.get();
     }
 
+    @Override
+    public long getRetainedNetworkBufferSize()
+    {
+        return _network.getRetainedBufferSize();
+    }
+
     @Override
     public void resetStatistics()
     {
@@ -209,6 +209,12 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return _delegate.getTransportInfo();
     }
 
+    @Override
+    public long getRetainedBufferSize()
+    {
+        return _delegate.getRetainedBufferSize();
+    }
+
     boolean wantsRead()
     {
         return _fullyWritten;
@@ -276,6 +282,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                     _protocolEngine.notifyWork();
                 }
 
+                _delegate.releaseIdleBuffers(currentTime);
             }
             catch (IOException |
                     ConnectionScopedRuntimeException e)
@@ -486,7 +493,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         {
             long readData = readFromNetwork();
 
-            if (readData > 0)
+            if (readData > 0 || _delegate.hasUnprocessedData())
             {
                 return _delegate.processData();
             }
@@ -601,6 +608,19 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return "[NonBlockingConnection " + _remoteSocketAddress + "]";
     }
 
+    /**
+     * Notifies work for the connection from a thread other than an IO thread. The connection is scheduled directly,
+     * as the protocol engine does not notify its work listener until the protocol has been negotiated.
+     */
+    void notifyWork()
+    {
+        _protocolEngine.notifyWork();
+        if (!_scheduled.get())
+        {
+            getScheduler().schedule(this);
+        }
+    }
+
     public void processAmqpData(QpidByteBuffer applicationData)
     {
         _protocolEngine.received(applicationData);
@@ -613,7 +633,9 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         {
             case TLS:
                 _onTransportEncryptionAction.run();
-                _delegate = new NonBlockingConnectionTLSDelegate(this, _port);
+                final NonBlockingConnectionTLSDelegate tlsDelegate = new NonBlockingConnectionTLSDelegate(this, _port);
+                getTicker().addTicker(tlsDelegate.getIdleBufferReleaseTicker());
+                _delegate = tlsDelegate;
                 break;
             case NONE:
                 _delegate = new NonBlockingConnectionPlainDelegate(this, _port);
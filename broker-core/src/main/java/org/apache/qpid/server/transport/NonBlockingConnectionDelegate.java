@@ -56,6 +56,12 @@ interface NonBlockingConnectionDelegate
 
     boolean processData() throws IOException;
 
+    /**
+     * Returns true if data already read from the network awaits processing, such as data which could not be processed
+     * until the delegated tasks of a TLS handshake completed.
+     */
+    boolean hasUnprocessedData();
+
     Principal getPeerPrincipal();
 
     Certificate getPeerCertificate();
@@ -64,6 +70,17 @@ interface NonBlockingConnectionDelegate
 
     QpidByteBuffer getNetInputBuffer();
 
+    /**
+     * Called at the end of each I/O pass, to release the buffers which hold no pending data if the connection has
+     * been idle long enough. Buffers are acquired again when next required.
+     */
+    void releaseIdleBuffers(long currentTime);
+
+    /**
+     * Returns the total size in bytes of the buffers currently held.
+     */
+    long getRetainedBufferSize();
+
     void shutdownInput();
 
     void shutdownOutput();
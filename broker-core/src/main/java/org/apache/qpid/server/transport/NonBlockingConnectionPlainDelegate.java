@@ -136,6 +136,12 @@ public class NonBlockingConnectionPlainDelegate implements NonBlockingConnection
         return null;
     }
 
+    @Override
+    public boolean hasUnprocessedData()
+    {
+        return false;
+    }
+
     @Override
     public boolean needsWork()
     {
@@ -148,6 +154,19 @@ public class NonBlockingConnectionPlainDelegate implements NonBlockingConnection
         return _netInputBuffer;
     }
 
+    @Override
+    public void releaseIdleBuffers(final long currentTime)
+    {
+        // received messages are slices of the input buffer, so it is kept to be shared by the messages of later reads
+    }
+
+    @Override
+    public long getRetainedBufferSize()
+    {
+        final QpidByteBuffer netInputBuffer = _netInputBuffer;
+        return netInputBuffer == null ? 0L : netInputBuffer.capacity();
+    }
+
     @Override
     public void shutdownInput()
     {
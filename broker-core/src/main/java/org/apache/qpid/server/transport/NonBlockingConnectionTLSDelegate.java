@@ -28,6 +28,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SNIHostName;
@@ -43,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.transport.network.Ticker;
 import org.apache.qpid.server.transport.network.security.ssl.SSLUtil;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
@@ -53,6 +57,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 
     private final SSLEngine _sslEngine;
     private final NonBlockingConnection _parent;
+    private final AmqpPort<?> _port;
     private final int _networkBufferSize;
     private SSLEngineResult _status;
     private final List<QpidByteBuffer> _encryptedOutput = new ArrayList<>();
@@ -63,15 +68,27 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     private QpidByteBuffer _netInputBuffer;
     private QpidByteBuffer _netOutputBuffer;
     private QpidByteBuffer _applicationBuffer;
+    private boolean _inputShutdown;
+    private volatile long _retainedBufferSize;
+    private final long _idleBufferReleaseDelay;
+    private final Ticker _idleBufferReleaseTicker = new IdleBufferReleaseTicker();
+    private boolean _active;
+    private volatile long _lastActivityTime = System.currentTimeMillis();
+    private volatile boolean _releasableBuffersHeld;
     private final boolean _ignoreInvalidSni;
     private final AtomicInteger _loopingCounter = new AtomicInteger(0);
     private final boolean _enableDiagnosisOfSslEngineLooping;
     private final long _diagnosisOfSslEngineLoopingWarnThreshold;
     private final long _diagnosisOfSslEngineLoopingBreakThreshold;
+    private final long _handshakeStartTime = System.nanoTime();
+    private boolean _handshakeFinished;
+    private volatile boolean _handshakeTasksPending;
+    private volatile boolean _handshakeTasksCompleted;
 
     public NonBlockingConnectionTLSDelegate(NonBlockingConnection parent, AmqpPort port)
     {
         _parent = parent;
+        _port = port;
         _sslEngine = createSSLEngine(port);
         _networkBufferSize = port.getNetworkBufferSize();
 
@@ -82,10 +99,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                     + ") is greater then broker network buffer size (" + _networkBufferSize + ")");
         }
 
-        _netInputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
-        _applicationBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
-        _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
         _ignoreInvalidSni = port.isIgnoreInvalidSni();
+        _idleBufferReleaseDelay = port.getContextValue(Long.class, AmqpPort.TLS_IDLE_BUFFER_RELEASE_DELAY);
         _enableDiagnosisOfSslEngineLooping = port.getContextValue(Boolean.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING);
         _diagnosisOfSslEngineLoopingWarnThreshold = port.getContextValue(Integer.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING_WARN_THRESHOLD);
         _diagnosisOfSslEngineLoopingBreakThreshold = port.getContextValue(Integer.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING_BREAK_THRESHOLD);
@@ -123,6 +138,12 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 }
             }
         }
+        _handshakeTasksCompleted = false;
+        _active = true;
+        if (_applicationBuffer == null)
+        {
+            _applicationBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+        }
         _netInputBuffer.flip();
         boolean readData = false;
         boolean tasksRun;
@@ -140,6 +161,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 // We'd usually expect no more bytes to be sent following a close_notify
                 LOGGER.debug("SSLEngine closed, discarded {} byte(s)", remaining);
             }
+            checkHandshakeFinished(_status);
 
             tasksRun = runSSLEngineTasks(_status);
             _applicationBuffer.flip();
@@ -192,6 +214,10 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         final int bufCount = buffers.size();
 
         int totalConsumed = wrapBufferArray(buffers);
+        if (!_encryptedOutput.isEmpty())
+        {
+            _active = true;
+        }
 
         boolean bufsSent = true;
         final Iterator<QpidByteBuffer> itr = buffers.iterator();
@@ -266,9 +292,15 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         boolean encrypted;
         do
         {
-            if(_sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
+            if(!_handshakeTasksPending
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP
+               && (_netOutputBuffer != null || hasDataToWrap(buffers)))
             {
-                if(_netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
+                if(_netOutputBuffer == null)
+                {
+                    _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+                }
+                else if(_netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
                     if(_netOutputBuffer.position() != 0)
                     {
@@ -300,12 +332,13 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 }
                 encrypted = _status.bytesProduced() > 0;
                 totalConsumed += _status.bytesConsumed();
+                checkHandshakeFinished(_status);
                 runSSLEngineTasks(_status);
                 if(encrypted && _netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
                     _netOutputBuffer.flip();
                     _encryptedOutput.add(_netOutputBuffer);
-                    _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+                    _netOutputBuffer = null;
                 }
                 // SSLEngine looping circuit breaker
                 if (_enableDiagnosisOfSslEngineLooping)
@@ -342,7 +375,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             _loopingCounter.set(0);
         }
 
-        if(_netOutputBuffer.position() != 0)
+        if(_netOutputBuffer != null && _netOutputBuffer.position() != 0)
         {
             final QpidByteBuffer outputBuffer = _netOutputBuffer;
 
@@ -355,22 +388,91 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return totalConsumed;
     }
 
+    private boolean hasDataToWrap(final Collection<QpidByteBuffer> buffers)
+    {
+        if (_sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING)
+        {
+            return true;
+        }
+        for (QpidByteBuffer buffer : buffers)
+        {
+            if (buffer.hasRemaining())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the delegated tasks of the engine. If the port has a TLS handshake executor, the tasks are handed to it and
+     * false is returned: the engine makes no progress until they complete, whereupon the connection is rescheduled so
+     * that the handshake resumes on an IO thread. Should the executor be saturated, the tasks run on the IO thread.
+     *
+     * @return true if the tasks were run on the calling thread
+     */
     private boolean runSSLEngineTasks(final SSLEngineResult status)
     {
         if(status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
         {
+            if (_handshakeTasksPending)
+            {
+                return false;
+            }
+
+            final List<Runnable> tasks = new ArrayList<>();
             Runnable task;
             while((task = _sslEngine.getDelegatedTask()) != null)
             {
-                task.run();
+                tasks.add(task);
             }
 
+            final Executor executor = _port.getTlsHandshakeExecutor();
+            if (executor != null && !tasks.isEmpty())
+            {
+                _handshakeTasksPending = true;
+                try
+                {
+                    executor.execute(() -> runHandshakeTasks(tasks));
+                    return false;
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOGGER.debug("TLS handshake executor rejected tasks, running them on the IO thread", e);
+                    _handshakeTasksPending = false;
+                }
+            }
+
+            tasks.forEach(Runnable::run);
             return true;
         }
 
         return false;
     }
 
+    private void runHandshakeTasks(final List<Runnable> tasks)
+    {
+        try
+        {
+            tasks.forEach(Runnable::run);
+        }
+        finally
+        {
+            _handshakeTasksCompleted = true;
+            _handshakeTasksPending = false;
+            _parent.notifyWork();
+        }
+    }
+
+    private void checkHandshakeFinished(final SSLEngineResult status)
+    {
+        if (!_handshakeFinished && status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED)
+        {
+            _handshakeFinished = true;
+            _port.registerTlsHandshake(System.nanoTime() - _handshakeStartTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
     @Override
     public Principal getPeerPrincipal()
     {
@@ -388,7 +490,13 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public boolean needsWork()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+        return !_handshakeTasksPending && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+    }
+
+    @Override
+    public boolean hasUnprocessedData()
+    {
+        return _handshakeTasksCompleted && _netInputBuffer != null && _netInputBuffer.position() != 0;
     }
 
     private synchronized void checkPeerPrincipal()
@@ -442,12 +550,92 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public QpidByteBuffer getNetInputBuffer()
     {
+        if (_netInputBuffer == null && !_inputShutdown)
+        {
+            _netInputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+        }
         return _netInputBuffer;
     }
 
+    /**
+     * Releases the network and application buffers which hold no pending data back to the pool once the connection
+     * has neither read nor written for the idle buffer release delay. Each is acquired again when the connection next
+     * has data to read or write, so that idle connections hold no buffers, whilst active connections keep filling the
+     * buffers they hold.
+     */
+    @Override
+    public void releaseIdleBuffers(final long currentTime)
+    {
+        if (_active)
+        {
+            _active = false;
+            _lastActivityTime = currentTime;
+        }
+        else if (currentTime - _lastActivityTime >= _idleBufferReleaseDelay)
+        {
+            if (isReleasable(_netInputBuffer))
+            {
+                _netInputBuffer.dispose();
+                _netInputBuffer = null;
+            }
+
+            if (isReleasable(_applicationBuffer))
+            {
+                _applicationBuffer.dispose();
+                _applicationBuffer = null;
+            }
+
+            if (isReleasable(_netOutputBuffer))
+            {
+                _netOutputBuffer.dispose();
+                _netOutputBuffer = null;
+            }
+        }
+        updateRetainedBuffers();
+    }
+
+    @Override
+    public long getRetainedBufferSize()
+    {
+        return _retainedBufferSize;
+    }
+
+    /**
+     * Returns the ticker which schedules the connection once it has been idle for the idle buffer release delay, so
+     * that it releases its buffers even if it has nothing to read or write.
+     */
+    Ticker getIdleBufferReleaseTicker()
+    {
+        return _idleBufferReleaseTicker;
+    }
+
+    private void updateRetainedBuffers()
+    {
+        long size = 0L;
+        for (QpidByteBuffer buffer : _encryptedOutput)
+        {
+            size += buffer.capacity();
+        }
+        _retainedBufferSize = size + capacity(_netInputBuffer) + capacity(_applicationBuffer) + capacity(_netOutputBuffer);
+        _releasableBuffersHeld = isReleasable(_netInputBuffer)
+                                 || isReleasable(_applicationBuffer)
+                                 || isReleasable(_netOutputBuffer);
+    }
+
+    private static boolean isReleasable(final QpidByteBuffer buffer)
+    {
+        return buffer != null && buffer.position() == 0;
+    }
+
+    private static long capacity(final QpidByteBuffer buffer)
+    {
+        return buffer == null ? 0L : buffer.capacity();
+    }
+
     @Override
     public void shutdownInput()
     {
+        _inputShutdown = true;
         if (_netInputBuffer != null)
         {
             _netInputBuffer.dispose();
@@ -459,6 +647,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             _applicationBuffer.dispose();
             _applicationBuffer = null;
         }
+        updateRetainedBuffers();
     }
 
     @Override
@@ -470,6 +659,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             _netOutputBuffer.dispose();
             _netOutputBuffer = null;
         }
+        updateRetainedBuffers();
         try
         {
             _sslEngine.closeOutbound();
@@ -488,4 +678,25 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         SSLSession session = _sslEngine.getSession();
         return session.getProtocol() + " ; " + session.getCipherSuite() ;
     }
+
+    private final class IdleBufferReleaseTicker implements Ticker
+    {
+        @Override
+        public int getTimeToNextTick(final long currentTime)
+        {
+            if (!_releasableBuffersHeld)
+            {
+                return Integer.MAX_VALUE;
+            }
+            return (int) Math.max(0L, Math.min(_lastActivityTime + _idleBufferReleaseDelay - currentTime,
+                                               Integer.MAX_VALUE));
+        }
+
+        @Override
+        public int tick(final long currentTime)
+        {
+            // the buffers are released by releaseIdleBuffers at the end of the I/O pass which this tick schedules
+            return getTimeToNextTick(currentTime);
+        }
+    }
 }
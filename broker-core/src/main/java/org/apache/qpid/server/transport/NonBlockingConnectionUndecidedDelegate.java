@@ -90,6 +90,12 @@ public class NonBlockingConnectionUndecidedDelegate implements NonBlockingConnec
         return null;
     }
 
+    @Override
+    public boolean hasUnprocessedData()
+    {
+        return false;
+    }
+
     @Override
     public boolean needsWork()
     {
@@ -128,6 +134,17 @@ public class NonBlockingConnectionUndecidedDelegate implements NonBlockingConnec
         return _netInputBuffer;
     }
 
+    @Override
+    public void releaseIdleBuffers(final long currentTime)
+    {
+    }
+
+    @Override
+    public long getRetainedBufferSize()
+    {
+        return _netInputBuffer == null ? 0L : NUMBER_OF_BYTES_FOR_TLS_CHECK;
+    }
+
     @Override
     public void shutdownInput()
     {
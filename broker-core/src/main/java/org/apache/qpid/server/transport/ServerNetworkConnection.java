@@ -25,6 +25,11 @@ public interface ServerNetworkConnection extends NetworkConnection
 {
     String getTransportInfo();
 
+    /**
+     * Returns the total size in bytes of the network buffers currently held by the connection.
+     */
+    long getRetainedBufferSize();
+
     long getScheduledTime();
 
     void addSchedulingDelayNotificationListeners(SchedulingDelayNotificationListener listener);
@@ -60,6 +60,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -136,6 +137,7 @@ import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.plugin.SystemNodeCreator;
 import org.apache.qpid.server.pool.SuppressingInheritedAccessControlContextThreadFactory;
 import org.apache.qpid.server.protocol.LinkModel;
+import org.apache.qpid.server.queue.OutOfOrderQueue;
 import org.apache.qpid.server.queue.QueueEntry;
 import org.apache.qpid.server.queue.QueueEntryIterator;
 import org.apache.qpid.server.security.AccessControl;
@@ -145,6 +147,8 @@ import org.apache.qpid.server.security.SubjectFixedResultAccessControl;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
 import org.apache.qpid.server.security.auth.SocketConnectionMetaData;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
 import org.apache.qpid.server.stats.StatisticsReportingTask;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.Event;
@@ -174,7 +178,7 @@ import org.apache.qpid.server.util.HousekeepingExecutor;
 import org.apache.qpid.server.util.Strings;
 
 public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> extends AbstractConfiguredObject<X>
-        implements QueueManagingVirtualHost<X>
+        implements QueueManagingVirtualHost<X>, LatencyHistogramProvider
 {
     private static final String USE_ASYNC_RECOVERY = "use_async_message_store_recovery";
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractVirtualHost.class);
@@ -198,6 +202,9 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private final AtomicLong _bytesOut = new AtomicLong();
     private final AtomicLong _totalConnectionCount = new AtomicLong();
     private final AtomicLong _maximumMessageSize = new AtomicLong();
+    private final LongAdder _messagesConverted = new LongAdder();
+    private final LongAdder _convertedMessageCacheHits = new LongAdder();
+    private final AtomicLong _convertedMessageSize = new AtomicLong();
     private final AtomicBoolean _blocked = new AtomicBoolean();
     private final Map<String, MessageDestination> _systemNodeDestinations =
             Collections.synchronizedMap(new HashMap<>());
@@ -277,6 +284,9 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private Collection<VirtualHostLogger> _virtualHostLoggersToClose;
     private PreferenceStore _preferenceStore;
     private long _flowToDiskCheckPeriod;
+    private long _flowToDiskFullCheckPeriod;
+    private long _convertedMessageCacheSize;
+    private volatile long _lastFlowToDiskCheckFlowedBytes;
     private volatile boolean _isDiscardGlobalSharedSubscriptionLinksOnDetach;
 
     public AbstractVirtualHost(final Map<String, Object> attributes, VirtualHostNode<?> virtualHostNode)
@@ -613,6 +623,8 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
         _fileSystemMaxUsagePercent = getContextValue(Integer.class, Broker.STORE_FILESYSTEM_MAX_USAGE_PERCENT);
         _flowToDiskCheckPeriod = getContextValue(Long.class, FLOW_TO_DISK_CHECK_PERIOD);
+        _flowToDiskFullCheckPeriod = getContextValue(Long.class, FLOW_TO_DISK_FULL_CHECK_PERIOD);
+        _convertedMessageCacheSize = getContextValue(Long.class, CONVERTED_MESSAGE_CACHE_SIZE);
         _isDiscardGlobalSharedSubscriptionLinksOnDetach = getContextValue(Boolean.class, DISCARD_GLOBAL_SHARED_SUBSCRIPTION_LINKS_ON_DETACH);
 
         QpidServiceLoader serviceLoader = new QpidServiceLoader();
@@ -1467,6 +1479,45 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return _messageStore == null ? -1 : _messageStore.getBytesEvacuatedFromMemory();
     }
 
+    @Override
+    public long getStoreCommitLatencyP50()
+    {
+        final LatencyHistogram commitLatency = getStoreCommitLatency();
+        return commitLatency == null ? 0L : commitLatency.getSnapshot().getValueAtQuantile(0.5, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getStoreCommitLatencyP99()
+    {
+        final LatencyHistogram commitLatency = getStoreCommitLatency();
+        return commitLatency == null ? 0L : commitLatency.getSnapshot().getValueAtQuantile(0.99, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getStoreCommitLatencyMax()
+    {
+        final LatencyHistogram commitLatency = getStoreCommitLatency();
+        return commitLatency == null ? 0L : commitLatency.getSnapshot().getMax(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Collection<LatencyHistogram> getLatencyHistograms()
+    {
+        final LatencyHistogram commitLatency = getStoreCommitLatency();
+        return commitLatency == null ? List.of() : List.of(commitLatency);
+    }
+
+    private LatencyHistogram getStoreCommitLatency()
+    {
+        return _messageStore == null ? null : _messageStore.getCommitLatency();
+    }
+
+    @Override
+    public long getLastFlowToDiskCheckFlowedBytes()
+    {
+        return _lastFlowToDiskCheckFlowedBytes;
+    }
+
     @Override
     public long getInMemoryMessageThreshold()
     {
@@ -1501,6 +1552,48 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return _maximumMessageSize.get();
     }
 
+    @Override
+    public long getMessagesConverted()
+    {
+        return _messagesConverted.sum();
+    }
+
+    @Override
+    public long getConvertedMessageCacheHits()
+    {
+        return _convertedMessageCacheHits.sum();
+    }
+
+    @Override
+    public long getConvertedMessageSize()
+    {
+        return _convertedMessageSize.get();
+    }
+
+    @Override
+    public void registerMessageConverted()
+    {
+        _messagesConverted.increment();
+    }
+
+    @Override
+    public void registerConvertedMessageCacheHit()
+    {
+        _convertedMessageCacheHits.increment();
+    }
+
+    @Override
+    public void registerConvertedMessageSize(final long delta)
+    {
+        _convertedMessageSize.addAndGet(delta);
+    }
+
+    @Override
+    public boolean isConvertedMessageCacheFull()
+    {
+        return _convertedMessageSize.get() > _convertedMessageCacheSize;
+    }
+
     @Override
     public MessageDestination getDefaultDestination()
     {
@@ -1512,6 +1605,8 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     {
         _totalConnectionCount.set(0L);
         _maximumMessageSize.set(0L);
+        _messagesConverted.reset();
+        _convertedMessageCacheHits.reset();
 
         _bytesIn.set(0L);
         _bytesOut.set(0L);
@@ -1964,7 +2059,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     @Override
     public boolean isOverTargetSize()
     {
-        return getInMemoryMessageSize() > _targetSize.get();
+        return getInMemoryMessageSize() + _convertedMessageSize.get() > _targetSize.get();
     }
 
     private static class MessageHeaderImpl implements AMQMessageHeader
@@ -2113,8 +2208,21 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         }
     }
 
+    /**
+     * Flows message content to disk, keeping in memory the content nearest to the heads of the queues, shared
+     * round-robin between them, up to the target size of the virtualhost.
+     * <p>
+     * The task remembers for each queue the region at its tail which it flowed to disk, so that on later runs the
+     * region is skipped rather than walked again. The regions are forgotten once the virtualhost is back under its
+     * target size, and periodically, so that content brought back into memory within them is eventually found.
+     * Regions are not remembered for queues whose entries are not kept in arrival order, such as priority and sorted
+     * queues, as new entries may be inserted within a region.
+     */
     class FlowToDiskCheckingTask extends HouseKeepingTask
     {
+        private final Map<Queue<?>, FlowedRegion> _flowedRegions = new HashMap<>();
+        private long _lastFullCheckTime;
+
         public FlowToDiskCheckingTask()
         {
             super("FlowToDiskChecking["+AbstractVirtualHost.this.getName()+"]", AbstractVirtualHost.this, _housekeepingJobContext);
@@ -2125,57 +2233,207 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         {
             if (isOverTargetSize())
             {
-                long currentTargetSize = _targetSize.get();
+                // converted messages cannot be flowed to disk, so the content of other messages is flowed instead
+                long currentTargetSize = Math.max(0L, _targetSize.get() - _convertedMessageSize.get());
                 reportDirectMemoryAboveTargetIfExceeded(currentTargetSize,
                                                         AbstractVirtualHost.this.getInMemoryMessageSize());
-                List<QueueEntryIterator> queueIterators = new ArrayList<>();
-                for (Queue<?> q : getChildren(Queue.class))
+
+                final long currentTime = System.currentTimeMillis();
+                if (_flowToDiskFullCheckPeriod <= 0L || currentTime - _lastFullCheckTime >= _flowToDiskFullCheckPeriod)
                 {
-                    queueIterators.add(q.queueEntryIterator());
+                    _flowedRegions.clear();
+                    _lastFullCheckTime = currentTime;
                 }
-                Collections.shuffle(queueIterators);
+
+                final Collection<Queue> queues = getChildren(Queue.class);
+                _flowedRegions.keySet().retainAll(queues);
+                _flowedRegions.values().removeIf(FlowedRegion::isDeleted);
+                List<QueueFlowToDiskScan> queueScans = new ArrayList<>();
+                for (Queue<?> q : queues)
+                {
+                    queueScans.add(new QueueFlowToDiskScan(q, _flowedRegions.remove(q)));
+                }
+                Collections.shuffle(queueScans);
 
                 long cumulativeSize = 0;
-                final Iterator<QueueEntryIterator> cyclicIterators = cycle(queueIterators);
-                while (cyclicIterators.hasNext())
+                long flowedSize = 0;
+                final Iterator<QueueFlowToDiskScan> cyclicScans = cycle(queueScans);
+                while (cumulativeSize <= currentTargetSize && cyclicScans.hasNext())
                 {
-                    final QueueEntryIterator queueIterator = cyclicIterators.next();
-                    if (queueIterator.advance())
+                    final QueueFlowToDiskScan queueScan = cyclicScans.next();
+                    if (queueScan.advance())
                     {
-                        QueueEntry node = queueIterator.getNode();
-                        if (node != null && !node.isDeleted())
+                        final long inMemorySize = queueScan.getInMemorySize();
+                        cumulativeSize += inMemorySize;
+                        if (cumulativeSize > currentTargetSize)
                         {
-                            try (MessageReference messageReference = node.getMessage().newReference())
-                            {
-                                final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
-                                final long inMemorySize = storedMessage.getInMemorySize();
-                                if (inMemorySize > 0)
-                                {
-                                    if (cumulativeSize <= currentTargetSize)
-                                    {
-                                        cumulativeSize += inMemorySize;
-                                    }
-
-                                    if (cumulativeSize > currentTargetSize && node.getQueue().checkValid(node))
-                                    {
-                                        storedMessage.flowToDisk();
-                                    }
-                                }
-                            }
-                            catch (MessageDeletedException e)
-                            {
-                                // pass
-                            }
+                            flowedSize += queueScan.flowToDisk(inMemorySize);
+                        }
+                        else
+                        {
+                            queueScan.keep(inMemorySize);
                         }
                     }
                     else
                     {
-                        cyclicIterators.remove();
+                        cyclicScans.remove();
                     }
                 }
+
+                for (QueueFlowToDiskScan queueScan : queueScans)
+                {
+                    while (queueScan.advance())
+                    {
+                        flowedSize += queueScan.flowToDisk(queueScan.getInMemorySize());
+                    }
+                    final FlowedRegion flowedRegion = queueScan.getFlowedRegion();
+                    if (flowedRegion != null && !flowedRegion.isDeleted())
+                    {
+                        _flowedRegions.put(queueScan.getQueue(), flowedRegion);
+                    }
+                }
+
+                _lastFlowToDiskCheckFlowedBytes = flowedSize;
                 reportDirectMemoryBelowTargetIfReached(cumulativeSize,
                                                        AbstractVirtualHost.this.getInMemoryMessageSize());
             }
+            else
+            {
+                _flowedRegions.clear();
+                _lastFlowToDiskCheckFlowedBytes = 0L;
+            }
+        }
+    }
+
+    /**
+     * Region at the tail of a queue, from the first entry to the last entry given, whose content has been flowed to
+     * disk. A region is discarded once either entry is deleted.
+     */
+    private static final class FlowedRegion
+    {
+        private final QueueEntry _start;
+        private final QueueEntry _end;
+
+        private FlowedRegion(final QueueEntry start, final QueueEntry end)
+        {
+            _start = start;
+            _end = end;
+        }
+
+        private boolean isDeleted()
+        {
+            return _start.isDeleted() || _end.isDeleted();
+        }
+    }
+
+    private static final class QueueFlowToDiskScan
+    {
+        private final Queue<?> _queue;
+        private QueueEntryIterator _iterator;
+        private FlowedRegion _previouslyFlowedRegion;
+        private QueueEntry _flowedRegionStart;
+        private QueueEntry _node;
+        private MessageReference<?> _messageReference;
+
+        private QueueFlowToDiskScan(final Queue<?> queue, final FlowedRegion previouslyFlowedRegion)
+        {
+            _queue = queue;
+            _iterator = queue.queueEntryIterator();
+            _previouslyFlowedRegion = previouslyFlowedRegion;
+        }
+
+        private Queue<?> getQueue()
+        {
+            return _queue;
+        }
+
+        /**
+         * Moves to the next entry whose message is still available, jumping over the region flowed to disk
+         * by the previous run when the scan reaches it.
+         */
+        private boolean advance()
+        {
+            releaseNode();
+            while (_iterator.advance())
+            {
+                final QueueEntry node = _iterator.getNode();
+                if (node == null || node.isDeleted())
+                {
+                    continue;
+                }
+                if (_previouslyFlowedRegion != null && node.compareTo(_previouslyFlowedRegion._start) >= 0)
+                {
+                    if (_flowedRegionStart == null)
+                    {
+                        _flowedRegionStart = _previouslyFlowedRegion._start;
+                    }
+                    _iterator = _queue.queueEntryIterator(_previouslyFlowedRegion._end);
+                    _previouslyFlowedRegion = null;
+                    continue;
+                }
+                try
+                {
+                    _messageReference = node.getMessage().newReference();
+                    _node = node;
+                    return true;
+                }
+                catch (MessageDeletedException e)
+                {
+                    // pass
+                }
+            }
+            return false;
+        }
+
+        private long getInMemorySize()
+        {
+            return _messageReference.getMessage().getStoredMessage().getInMemorySize();
+        }
+
+        private void keep(final long inMemorySize)
+        {
+            if (inMemorySize > 0)
+            {
+                _flowedRegionStart = null;
+            }
+            else if (_flowedRegionStart == null)
+            {
+                _flowedRegionStart = _node;
+            }
+        }
+
+        private long flowToDisk(final long inMemorySize)
+        {
+            if (inMemorySize > 0)
+            {
+                if (_queue.checkValid(_node) && _messageReference.getMessage().getStoredMessage().flowToDisk())
+                {
+                    keep(0L);
+                    return inMemorySize;
+                }
+            }
+            keep(inMemorySize);
+            return 0L;
+        }
+
+        private FlowedRegion getFlowedRegion()
+        {
+            releaseNode();
+            if (_flowedRegionStart == null || _queue instanceof OutOfOrderQueue)
+            {
+                return null;
+            }
+            return new FlowedRegion(_flowedRegionStart, _iterator.getNode());
+        }
+
+        private void releaseNode()
+        {
+            if (_messageReference != null)
+            {
+                _messageReference.release();
+                _messageReference = null;
+            }
+            _node = null;
         }
     }
 
@@ -2252,7 +2510,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     public void executeTransaction(TransactionalOperation op)
     {
         final MessageStore store = getMessageStore();
-        final LocalTransaction txn = new LocalTransaction(store);
+        final TransactionBatch batch = new TransactionBatch(store, op);
 
         op.withinTransaction(new Transaction()
         {
@@ -2280,7 +2538,9 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                 });
                 if(acquired)
                 {
+                    final LocalTransaction txn = batch.getTransaction();
                     txn.dequeue(messageInstance.getEnqueueRecord(), deleteAction);
+                    batch.entryUpdated();
                 }
             }
 
@@ -2288,6 +2548,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
             public void copy(QueueEntry entry, final Queue<?> queue)
             {
                 final ServerMessage message = entry.getMessage();
+                final LocalTransaction txn = batch.getTransaction();
 
                 txn.enqueue(queue, message, new ServerTransaction.EnqueueAction()
                 {
@@ -2302,7 +2563,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                     {
                     }
                 });
-
+                batch.entryUpdated();
             }
 
             @Override
@@ -2311,6 +2572,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                 final ServerMessage message = entry.getMessage();
                 if(entry.acquire())
                 {
+                    final LocalTransaction txn = batch.getTransaction();
                     txn.enqueue(queue, message,
                                 new ServerTransaction.EnqueueAction()
                                 {
@@ -2343,12 +2605,56 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
                                     }
                                 });
-
+                    batch.entryUpdated();
                 }
             }
 
         });
-        txn.commit();
+        batch.commit();
+    }
+
+    /**
+     * Local transaction which is committed and replaced whenever the given number of entries has been updated
+     * within it.
+     */
+    private static final class TransactionBatch
+    {
+        private final MessageStore _store;
+        private final TransactionalOperation _operation;
+        private final int _batchSize;
+        private LocalTransaction _transaction;
+        private int _updatedEntries;
+
+        private TransactionBatch(final MessageStore store, final TransactionalOperation operation)
+        {
+            _store = store;
+            _operation = operation;
+            _batchSize = operation.getBatchSize();
+            _transaction = new LocalTransaction(store);
+        }
+
+        private LocalTransaction getTransaction()
+        {
+            return _transaction;
+        }
+
+        private void entryUpdated()
+        {
+            _updatedEntries++;
+            if (_batchSize > 0 && _updatedEntries >= _batchSize)
+            {
+                _transaction.commit();
+                _operation.batchCommitted(_updatedEntries, false);
+                _transaction = new LocalTransaction(_store);
+                _updatedEntries = 0;
+            }
+        }
+
+        private void commit()
+        {
+            _transaction.commit();
+            _operation.batchCommitted(_updatedEntries, true);
+        }
     }
 
     @Override
@@ -22,13 +22,15 @@ package org.apache.qpid.server.virtualhost;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -88,6 +90,29 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
     private static class AsynchronousRecoverer
     {
         public static final int THREAD_POOL_SHUTDOWN_TIMEOUT = 5000;
+        private static final int RECOVERED_MESSAGE_LOCK_STRIPES = 64;
+        /**
+         * Replaces the references in the map of recovered messages once they are released, so that the map still
+         * records which messages were recovered while the orphaned messages are looked for.
+         */
+        private static final MessageReference<ServerMessage<?>> RELEASED_REFERENCE = new MessageReference<>()
+        {
+            @Override
+            public ServerMessage<?> getMessage()
+            {
+                return null;
+            }
+
+            @Override
+            public void release()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
         private final QueueManagingVirtualHost<?> _virtualHost;
         private final EventLogger _eventLogger;
         private final MessageStore _store;
@@ -95,14 +120,10 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private final long _maxMessageId;
         private final Set<Queue<?>> _recoveringQueues = new CopyOnWriteArraySet<>();
         private final AtomicBoolean _recoveryComplete = new AtomicBoolean();
-        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new HashMap<>();
-        private final ListeningExecutorService _queueRecoveryExecutor =
-                MoreExecutors.listeningDecorator(new ThreadPoolExecutor(0,
-                                                                        Integer.MAX_VALUE,
-                                                                        60L,
-                                                                        TimeUnit.SECONDS,
-                                                                        new SynchronousQueue<>(),
-                                                                        QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(Executors.defaultThreadFactory())));
+        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages =
+                new ConcurrentHashMap<>();
+        private final Object[] _recoveredMessageLocks = new Object[RECOVERED_MESSAGE_LOCK_STRIPES];
+        private final ListeningExecutorService _queueRecoveryExecutor;
 
         private final MessageStore.MessageStoreReader _storeReader;
         private final AtomicBoolean _continueRecovery = new AtomicBoolean(true);
@@ -119,6 +140,38 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             Collection children = _virtualHost.getChildren(Queue.class);
             _recoveringQueues.addAll((Collection<? extends Queue<?>>) children);
 
+            for (int i = 0; i < _recoveredMessageLocks.length; i++)
+            {
+                _recoveredMessageLocks[i] = new Object();
+            }
+            _queueRecoveryExecutor = MoreExecutors.listeningDecorator(createQueueRecoveryExecutor(
+                    virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.RECOVERY_THREAD_COUNT)));
+        }
+
+        private ThreadPoolExecutor createQueueRecoveryExecutor(final Integer threadCount)
+        {
+            final ThreadFactory threadFactory =
+                    QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(Executors.defaultThreadFactory());
+            if (threadCount == null || threadCount <= 0)
+            {
+                return new ThreadPoolExecutor(0,
+                                              Integer.MAX_VALUE,
+                                              60L,
+                                              TimeUnit.SECONDS,
+                                              new SynchronousQueue<>(),
+                                              threadFactory);
+            }
+            else
+            {
+                final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount,
+                                                                           threadCount,
+                                                                           60L,
+                                                                           TimeUnit.SECONDS,
+                                                                           new LinkedBlockingQueue<>(),
+                                                                           threadFactory);
+                executor.allowCoreThreadTimeOut(true);
+                return executor;
+            }
         }
 
         public ListenableFuture<Void> recover()
@@ -192,11 +245,11 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private synchronized void completeRecovery()
         {
             // at this point nothing should be writing to the map of recovered messages
-            for (Map.Entry<Long,MessageReference<? extends ServerMessage<?>>> entry : _recoveredMessages.entrySet())
-            {
-                entry.getValue().release();
-                entry.setValue(null); // free up any memory associated with the reference object
-            }
+            _recoveredMessages.replaceAll((messageId, ref) ->
+                                          {
+                                              ref.release();
+                                              return RELEASED_REFERENCE;
+                                          });
             final List<StoredMessage<?>> messagesToDelete = new ArrayList<>();
             getStoreReader().visitMessages(storedMessage ->
             {
@@ -228,29 +281,38 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             }
 
             messagesToDelete.clear();
-            _recoveredMessages.clear();
+            _recoveredMessages.clear(); // free up any memory associated with the reference objects
             _storeReader.close();
             _queueRecoveryExecutor.shutdown();
         }
 
-        private synchronized ServerMessage<?> getRecoveredMessage(final long messageId)
+        private ServerMessage<?> getRecoveredMessage(final long messageId)
         {
             MessageReference<? extends ServerMessage<?>> ref = _recoveredMessages.get(messageId);
             if (ref == null)
             {
-                StoredMessage<?> message = _storeReader.getMessage(messageId);
-                if(message != null)
+                // queues recovered in parallel may share messages, and each message must be created only once, as
+                // releasing the reference to a duplicate would remove the message from the store
+                synchronized (_recoveredMessageLocks[(int) (messageId & (_recoveredMessageLocks.length - 1))])
                 {
-                    StorableMessageMetaData metaData = message.getMetaData();
+                    ref = _recoveredMessages.get(messageId);
+                    if (ref == null)
+                    {
+                        StoredMessage<?> message = _storeReader.getMessage(messageId);
+                        if (message != null)
+                        {
+                            StorableMessageMetaData metaData = message.getMetaData();
 
-                    @SuppressWarnings("rawtypes")
-                    MessageMetaDataType type = metaData.getType();
+                            @SuppressWarnings("rawtypes")
+                            MessageMetaDataType type = metaData.getType();
 
-                    @SuppressWarnings("unchecked")
-                    ServerMessage<?> serverMessage = type.createMessage(message);
+                            @SuppressWarnings("unchecked")
+                            ServerMessage<?> serverMessage = type.createMessage(message);
 
-                    ref = serverMessage.newReference();
-                    _recoveredMessages.put(messageId, ref);
+                            ref = serverMessage.newReference();
+                            _recoveredMessages.put(messageId, ref);
+                        }
+                    }
                 }
             }
             return ref == null ? null : ref.getMessage();
@@ -462,7 +524,11 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
                 try
                 {
-                    recoverQueue(_queue);
+                    // tasks still waiting for a thread when recovery is cancelled must not use the closed reader
+                    if (_continueRecovery.get())
+                    {
+                        recoverQueue(_queue);
+                    }
                 }
                 finally
                 {
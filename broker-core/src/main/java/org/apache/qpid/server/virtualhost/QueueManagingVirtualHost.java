@@ -82,6 +82,24 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
     @ManagedContextDefault(name = FLOW_TO_DISK_CHECK_PERIOD)
     long DEFAULT_FLOW_TO_DISK_CHECK_PERIOD = 30000L;
 
+    String FLOW_TO_DISK_FULL_CHECK_PERIOD = "virtualhost.flowToDiskFullCheckPeriod";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = FLOW_TO_DISK_FULL_CHECK_PERIOD,
+            description = "Period (in ms) after which the flow to disk check walks all queue entries again rather"
+                          + " than skipping the entries it previously flowed to disk. A value of zero or less"
+                          + " means every check walks all queue entries.")
+    long DEFAULT_FLOW_TO_DISK_FULL_CHECK_PERIOD = 300000L;
+
+    String CONVERTED_MESSAGE_CACHE_SIZE = "virtualhost.convertedMessageCacheSize";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = CONVERTED_MESSAGE_CACHE_SIZE,
+            description = "Maximum total size (in bytes) of messages converted for delivery to another protocol which"
+                          + " are kept for reuse by later deliveries once no delivery refers to them. Converted"
+                          + " messages count towards the target size of the virtualhost, so that more content is"
+                          + " flowed to disk while they are held. A value of zero means a converted message is only"
+                          + " shared by the deliveries in progress.")
+    long DEFAULT_CONVERTED_MESSAGE_CACHE_SIZE = 16L * 1024L * 1024L;
+
     String CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "connectionThreadPoolKeepAliveTimeout";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = QueueManagingVirtualHost.CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT)
@@ -93,6 +111,12 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
     @ManagedContextDefault( name = "virtualhost.housekeepingThreadCount")
     int DEFAULT_HOUSEKEEPING_THREAD_COUNT = 4;
 
+    String RECOVERY_THREAD_COUNT = "virtualhost.recoveryThreadCount";
+    @ManagedContextDefault(name = RECOVERY_THREAD_COUNT,
+            description = "Number of threads recovering the messages of queues in parallel when the message store is"
+                          + " recovered in the background. A value of zero or less means one thread for each queue.")
+    int DEFAULT_RECOVERY_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
     String VIRTUALHOST_STATISTICS_REPORING_PERIOD = "virtualhost.statisticsReportingPeriod";
     @ManagedContextDefault(name = VIRTUALHOST_STATISTICS_REPORING_PERIOD)
     int DEFAULT_STATISTICS_REPORTING_PERIOD = 0;
@@ -302,6 +326,13 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
             resettable = true)
     long getBytesEvacuatedFromMemory();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES,
+            label = "Last Flow to Disk Check Flowed Bytes",
+            description = "Size of the message content flowed to disk by the most recent flow to disk check.",
+            metricName = "last_flow_to_disk_check_flowed_bytes_total")
+    long getLastFlowToDiskCheckFlowedBytes();
+
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME,
             units = StatisticUnit.BYTES,
@@ -311,6 +342,55 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
             resettable = true)
     long getInboundMessageSizeHighWatermark();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Converted",
+            description = "Total number of messages converted from one protocol to another for delivery.",
+            metricName = "converted_messages_count",
+            resettable = true)
+    long getMessagesConverted();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT,
+            label = "Converted Message Cache Hits",
+            description = "Total number of deliveries which reused a message already converted for another delivery.",
+            metricName = "converted_message_cache_hits_count",
+            resettable = true)
+    long getConvertedMessageCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES,
+            label = "Converted Message Bytes",
+            description = "Current size of the messages converted for delivery to another protocol.",
+            metricName = "converted_message_size_bytes_total")
+    long getConvertedMessageSize();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+            label = "Store Commit Latency (p50)",
+            description = "Median latency in milliseconds "
+                          + "of transaction commits to the message store of the Virtual Host.",
+            metricDisabled = true,
+            resettable = true)
+    long getStoreCommitLatencyP50();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+            label = "Store Commit Latency (p99)",
+            description = "99th percentile latency in milliseconds "
+                          + "of transaction commits to the message store of the Virtual Host.",
+            metricDisabled = true,
+            resettable = true)
+    long getStoreCommitLatencyP99();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION,
+            label = "Store Commit Latency (max)",
+            description = "Maximum latency in milliseconds "
+                          + "of transaction commits to the message store of the Virtual Host.",
+            metricDisabled = true,
+            resettable = true)
+    long getStoreCommitLatencyMax();
+
     @ManagedOperation(description = "Resets Virtual Host statistics", changesConfiguredObjectState = true)
     void resetStatistics();
 
@@ -405,6 +485,14 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
 
     boolean isOverTargetSize();
 
+    void registerMessageConverted();
+
+    void registerConvertedMessageCacheHit();
+
+    void registerConvertedMessageSize(long delta);
+
+    boolean isConvertedMessageCacheFull();
+
     interface Transaction
     {
         void dequeue(QueueEntry entry);
@@ -420,5 +508,22 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
         void withinTransaction(Transaction txn);
 
         List<Long> getModifiedMessageIds();
+
+        /**
+         * Returns the maximum number of entries updated within a single store transaction, or zero or less if the
+         * whole operation is to be performed within one transaction.
+         */
+        default int getBatchSize()
+        {
+            return 0;
+        }
+
+        /**
+         * Called after each store transaction of the operation has been committed, with the number of entries
+         * updated within it.  The last transaction of the operation is committed after all the others.
+         */
+        default void batchCommitted(int updatedEntries, boolean last)
+        {
+        }
     }
 }
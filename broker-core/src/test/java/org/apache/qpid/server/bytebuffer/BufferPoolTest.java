@@ -0,0 +1,146 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.bytebuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class BufferPoolTest extends UnitTestBase
+{
+    private static final int BUFFER_SIZE = 8;
+
+    @AfterEach
+    public void tearDown()
+    {
+        BufferPool.setThreadCachingEnabled(false);
+    }
+
+    @Test
+    public void returnAndGetWithoutThreadCache()
+    {
+        final BufferPool pool = new BufferPool(2, 4);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        pool.returnBuffer(buffer);
+        pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        assertEquals(2, pool.size(), "Unexpected pool size");
+
+        assertNotNull(pool.getBuffer());
+        assertNotNull(pool.getBuffer());
+        assertNull(pool.getBuffer());
+        assertEquals(0, pool.size(), "Unexpected pool size");
+
+        assertEquals(2, pool.getHitCount() + pool.getStealCount(), "Unexpected number of hits and steals");
+        assertEquals(1, pool.getMissCount(), "Unexpected number of misses");
+    }
+
+    @Test
+    public void returnAndGetWithThreadCache()
+    {
+        BufferPool.setThreadCachingEnabled(true);
+        final BufferPool pool = new BufferPool(10, 4);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        pool.returnBuffer(buffer);
+        assertEquals(1, pool.size(), "Unexpected pool size");
+        assertSame(buffer, pool.getBuffer());
+        assertNull(pool.getBuffer());
+
+        assertEquals(1, pool.getHitCount(), "Unexpected number of hits");
+        assertEquals(1, pool.getMissCount(), "Unexpected number of misses");
+    }
+
+    @Test
+    public void maximumSizeIncludesThreadCaches()
+    {
+        BufferPool.setThreadCachingEnabled(true);
+        final BufferPool pool = new BufferPool(3, 4);
+
+        for (int i = 0; i < 6; i++)
+        {
+            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        assertEquals(3, pool.size(), "Unexpected pool size");
+
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        ByteBuffer buffer;
+        while ((buffer = pool.getBuffer()) != null)
+        {
+            buffers.add(buffer);
+        }
+        assertEquals(3, buffers.size(), "Unexpected number of pooled buffers");
+    }
+
+    @Test
+    public void threadCacheOverflowsIntoDepot()
+    {
+        BufferPool.setThreadCachingEnabled(true);
+        final BufferPool pool = new BufferPool(10, 4);
+
+        for (int i = 0; i < 8; i++)
+        {
+            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        assertEquals(8, pool.size(), "Unexpected pool size");
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertNotNull(pool.getBuffer(), "Buffer " + i + " not found");
+        }
+        assertNull(pool.getBuffer());
+        assertEquals(0, pool.size(), "Unexpected pool size");
+    }
+
+    @Test
+    public void releasedThreadCacheIsAvailableToOtherThreads() throws Exception
+    {
+        final BufferPool pool = new BufferPool(10, 4);
+        final Thread thread = new Thread(() ->
+        {
+            BufferPool.setThreadCachingEnabled(true);
+            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+            pool.releaseThreadCache();
+            BufferPool.setThreadCachingEnabled(false);
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(2, pool.size(), "Unexpected pool size");
+
+        BufferPool.setThreadCachingEnabled(true);
+        assertNotNull(pool.getBuffer(), "Buffer released by other thread not found");
+        assertNotNull(pool.getBuffer(), "Buffer released by other thread not found");
+        assertNull(pool.getBuffer());
+    }
+}
@@ -40,6 +40,7 @@ import java.nio.ByteBuffer;
 import java.nio.InvalidMarkException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.io.ByteStreams;
 import org.junit.jupiter.api.AfterEach;
@@ -281,6 +282,26 @@ public class QpidByteBufferTest extends UnitTestBase
         }
     }
 
+    @Test
+    public void testDisposalActionRunOnceWrappedBufferAndDerivedBuffersDisposed()
+    {
+        final AtomicInteger disposals = new AtomicInteger();
+        final QpidByteBuffer wrapped = QpidByteBuffer.wrap(ByteBuffer.wrap(getTestBytes(10)),
+                                                           disposals::incrementAndGet);
+        final QpidByteBuffer view = wrapped.view(2, 4);
+        final QpidByteBuffer duplicate = view.duplicate();
+
+        wrapped.dispose();
+        view.dispose();
+        assertEquals(0, disposals.get(), "Disposal action run while a derived buffer is outstanding");
+
+        duplicate.dispose();
+        assertEquals(1, disposals.get(), "Disposal action not run once all buffers disposed");
+
+        duplicate.dispose();
+        assertEquals(1, disposals.get(), "Disposal action run again on repeated disposal");
+    }
+
     @Test
     public void testPutByteBuffer()
     {
@@ -65,7 +65,7 @@ public class ExchangeStatisticsTest extends UnitTestBase
     {
         final Map<String, Object> statistics = _exchange.getStatistics();
 
-        assertEquals(6, statistics.size());
+        assertEquals(8, statistics.size());
 
         assertTrue(statistics.containsKey("bindingCount"));
         assertTrue(statistics.containsKey("bytesDropped"));
@@ -73,6 +73,8 @@ public class ExchangeStatisticsTest extends UnitTestBase
         assertTrue(statistics.containsKey("messagesDropped"));
         assertTrue(statistics.containsKey("messagesIn"));
         assertTrue(statistics.containsKey("producerCount"));
+        assertTrue(statistics.containsKey("routingKeyCacheHits"));
+        assertTrue(statistics.containsKey("routingKeyCacheMisses"));
 
         assertEquals(0L, _exchange.getStatistics().get("bindingCount"));
         assertEquals(0L, _exchange.getStatistics().get("bytesDropped"));
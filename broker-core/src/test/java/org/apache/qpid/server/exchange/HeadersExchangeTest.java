@@ -195,6 +195,49 @@ public class HeadersExchangeTest extends UnitTestBase
         List.of(q1, q2, q3).forEach(Queue::close);
     }
 
+    @Test
+    public void testOnBindingUpdated() throws Exception
+    {
+        final Queue<?> q1 = createAndBind("Q1", "F0000=Aardvark");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001=Bear")));
+
+        assertTrue(_exchange.bind("Q1", "Q1", getArgsMapFromStrings("F0001=Bear"), true),
+                "Could not update binding");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")));
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001=Bear")), q1);
+
+        q1.close();
+    }
+
+    @Test
+    public void testBindingStatistics() throws Exception
+    {
+        final Queue<?> q1 = createAndBind("Q1", "F0000=Aardvark");
+        final Queue<?> q2 = createAndBind("Q2", "F0000=Apple");
+        final Queue<?> q3 = createAndBind("Q3", "F0000", "F0001");
+        final Queue<?> q4 = createAndBind("Q4", "F0002");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1);
+
+        assertEquals(2, _exchange.getBindingEvaluations(), "Unexpected number of binding evaluations");
+        assertEquals(1, _exchange.getBindingMatches(), "Unexpected number of binding matches");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0003")));
+
+        assertEquals(2, _exchange.getBindingEvaluations(), "Unexpected number of binding evaluations");
+        assertEquals(1, _exchange.getBindingMatches(), "Unexpected number of binding matches");
+
+        _exchange.resetStatistics();
+
+        assertEquals(0, _exchange.getBindingEvaluations(), "Unexpected number of binding evaluations");
+        assertEquals(0, _exchange.getBindingMatches(), "Unexpected number of binding matches");
+
+        List.of(q1, q2, q3, q4).forEach(Queue::close);
+    }
+
     @Test
     public void testWithSelectors() throws Exception
     {
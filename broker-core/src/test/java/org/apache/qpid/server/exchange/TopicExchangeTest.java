@@ -550,6 +550,70 @@ public class TopicExchangeTest extends UnitTestBase
         assertEquals(1, exchange.getBindingCount());
     }
 
+    @Test
+    public void testRoutingKeyCache()
+    {
+        final Map<String, Object> exchangeAttributes = Map.of(Exchange.NAME, getTestName(),
+                Exchange.DURABLE, false,
+                Exchange.TYPE, ExchangeDefaults.TOPIC_EXCHANGE_CLASS,
+                Exchange.CONTEXT, Map.of(TopicExchange.ROUTING_KEY_CACHE_SIZE, "2"));
+        final TopicExchange<?> exchange = (TopicExchange<?>) _vhost.createChild(Exchange.class, exchangeAttributes);
+        final Queue<?> queue1 = _vhost.createChild(Queue.class, Map.of(Queue.NAME, getTestName() + "_queue1"));
+        final Queue<?> queue2 = _vhost.createChild(Queue.class, Map.of(Queue.NAME, getTestName() + "_queue2"));
+
+        exchange.bind(queue1.getName(), "a.*", null, false);
+
+        assertEquals(1, exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertEquals(1, exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertEquals(1, exchange.getRoutingKeyCacheHits(), "Unexpected number of cache hits");
+        assertEquals(1, exchange.getRoutingKeyCacheMisses(), "Unexpected number of cache misses");
+
+        exchange.bind(queue2.getName(), "#.b", null, false);
+
+        assertEquals(2, exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertEquals(1, exchange.getRoutingKeyCacheHits(), "Unexpected number of cache hits");
+        assertEquals(2, exchange.getRoutingKeyCacheMisses(), "Unexpected number of cache misses");
+
+        exchange.route(_messageWithNoHeaders, "a.c", _instanceProperties);
+        exchange.route(_messageWithNoHeaders, "a.d", _instanceProperties);
+        assertEquals(2, exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertEquals(6, exchange.getRoutingKeyCacheHits() + exchange.getRoutingKeyCacheMisses(),
+                     "Unexpected number of cache lookups");
+
+        exchange.deleteBinding("#.b", queue2);
+
+        assertEquals(1, exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+
+        exchange.resetStatistics();
+        assertEquals(0, exchange.getRoutingKeyCacheHits(), "Unexpected number of cache hits");
+        assertEquals(0, exchange.getRoutingKeyCacheMisses(), "Unexpected number of cache misses");
+    }
+
+    @Test
+    public void testRoutingKeyCacheEvictsLeastRecentlyUsed()
+    {
+        final Map<String, Object> exchangeAttributes = Map.of(Exchange.NAME, getTestName(),
+                Exchange.DURABLE, false,
+                Exchange.TYPE, ExchangeDefaults.TOPIC_EXCHANGE_CLASS,
+                Exchange.CONTEXT, Map.of(TopicExchange.ROUTING_KEY_CACHE_SIZE, "2"));
+        final TopicExchange<?> exchange = (TopicExchange<?>) _vhost.createChild(Exchange.class, exchangeAttributes);
+        final Queue<?> queue = _vhost.createChild(Queue.class, Map.of(Queue.NAME, getTestName() + "_queue"));
+        exchange.bind(queue.getName(), "a.*", null, false);
+
+        exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties);
+        exchange.route(_messageWithNoHeaders, "a.c", _instanceProperties);
+        exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties);
+        exchange.route(_messageWithNoHeaders, "a.d", _instanceProperties);
+        assertEquals(1, exchange.getRoutingKeyCacheHits(), "Unexpected number of cache hits");
+        assertEquals(3, exchange.getRoutingKeyCacheMisses(), "Unexpected number of cache misses");
+
+        exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties);
+        assertEquals(2, exchange.getRoutingKeyCacheHits(), "Recently used routing key was evicted");
+
+        exchange.route(_messageWithNoHeaders, "a.c", _instanceProperties);
+        assertEquals(4, exchange.getRoutingKeyCacheMisses(), "Least recently used routing key was not evicted");
+    }
+
     private ServerMessage<?> createTestMessage(final Map<String, Object> headerValues)
     {
         final AMQMessageHeader header = mock(AMQMessageHeader.class);
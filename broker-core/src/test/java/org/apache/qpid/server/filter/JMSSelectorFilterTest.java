@@ -19,11 +19,21 @@
 package org.apache.qpid.server.filter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.test.utils.UnitTestBase;
 
 public class JMSSelectorFilterTest extends UnitTestBase
@@ -43,6 +53,44 @@ public class JMSSelectorFilterTest extends UnitTestBase
         assertNotEqual(filter1, differentFilter);
     }
 
+    @Test
+    public void testCompilationConfiguredByContextOfObject() throws Exception
+    {
+        final Queue<?> queue = mock(Queue.class);
+        when(queue.getContextValue(Boolean.class, Broker.BROKER_SELECTOR_COMPILATION_ENABLED)).thenReturn(false);
+
+        assertFalse(new JMSSelectorFilter("1 = 1", JMSSelectorFilter.isCompilationEnabled(queue)).isCompiled(),
+                    "Selector compiled although compilation is disabled");
+        assertFalse(((JMSSelectorFilter) new JMSSelectorFilterFactory().newInstance(List.of("1 = 1"), queue)).isCompiled(),
+                    "Selector of factory compiled although compilation is disabled");
+
+        when(queue.getContextValue(Boolean.class, Broker.BROKER_SELECTOR_COMPILATION_ENABLED)).thenReturn(true);
+        assertTrue(new JMSSelectorFilter("1 = 1", JMSSelectorFilter.isCompilationEnabled(queue)).isCompiled(),
+                   "Selector not compiled although compilation is enabled");
+        assertFalse(new JMSSelectorFilter("1 = 1").isCompiled(), "Selector compiled by default");
+    }
+
+    @Test
+    public void testSelectorsCachedSeparatelyForEachCompilationSetting() throws Exception
+    {
+        final Queue<?> compilingQueue = mock(Queue.class);
+        when(compilingQueue.getContextValue(Boolean.class, Broker.BROKER_SELECTOR_COMPILATION_ENABLED)).thenReturn(true);
+        final Queue<?> interpretingQueue = mock(Queue.class);
+        when(interpretingQueue.getContextValue(Boolean.class, Broker.BROKER_SELECTOR_COMPILATION_ENABLED)).thenReturn(false);
+        final Map<String, Object> args = Map.of(AMQPFilterTypes.JMS_SELECTOR.toString(), getTestName() + " = 1");
+
+        final JMSSelectorFilter compiled = (JMSSelectorFilter) FilterSupport.createJMSSelectorFilter(args, compilingQueue);
+        final JMSSelectorFilter interpreted =
+                (JMSSelectorFilter) FilterSupport.createJMSSelectorFilter(args, interpretingQueue);
+
+        assertTrue(compiled.isCompiled(), "Selector not compiled although compilation is enabled");
+        assertFalse(interpreted.isCompiled(), "Selector compiled although compilation is disabled");
+        assertSame(compiled, FilterSupport.createJMSSelectorFilter(args, compilingQueue),
+                   "Compiled selector not cached");
+        assertSame(interpreted, FilterSupport.createJMSSelectorFilter(args, interpretingQueue),
+                   "Interpreted selector not cached");
+    }
+
     private void assertEqualsAndHashCodeMatch(final JMSSelectorFilter filter1, final JMSSelectorFilter filter2)
     {
         final String message = filter1 + " and " + filter2 + " should be equal";
@@ -0,0 +1,289 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.filter.selector.SelectorParser;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class SelectorCompilerTest extends UnitTestBase
+{
+    private static final String[] SELECTORS = {
+            "colour = 'red'",
+            "colour <> 'red'",
+            "colour = 'red' AND size = 'small'",
+            "colour = 'red' OR size = 'small'",
+            "NOT (colour = 'red' AND size = 'small')",
+            "NOT (colour = 'red' OR size = 'small')",
+            "price > 100",
+            "price >= 100 AND price <= 200",
+            "price BETWEEN 100 AND 200",
+            "price NOT BETWEEN 100 AND 200",
+            "price < 100.5",
+            "price > -5",
+            "price * 2 > 150",
+            "weight > 1 AND weight < 2.5",
+            "colour IN ('red', 'green', 'blue', 'yellow', 'purple')",
+            "colour NOT IN ('red', 'green')",
+            "colour LIKE 'r%'",
+            "colour NOT LIKE '_ed'",
+            "colour IS NULL",
+            "colour IS NOT NULL AND size IS NULL",
+            "1 = 1",
+            "1 = 2 OR colour = 'red'",
+            "2 > 1 AND colour = 'red'",
+            "flag",
+            "NOT flag",
+            "flag AND colour = 'red'",
+            "JMSPriority > 4 OR colour = 'blue'",
+            "(colour = 'red' OR colour = 'blue') AND (price > 100 OR size = 'small') AND NOT weight < 1"
+    };
+
+    @Test
+    public void compiledSelectorMatchesSameMessagesAsParsedSelector() throws Exception
+    {
+        final List<Filterable> messages = createMessages();
+        for (String selector : SELECTORS)
+        {
+            final BooleanExpression<FilterableMessage> expression = parse(selector);
+            final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+            for (Filterable message : messages)
+            {
+                assertEquals(outcome(() -> expression.matches(message)), outcome(() -> compiled.matches(message)),
+                             "Unexpected result for selector " + selector + " and message " + message);
+            }
+        }
+    }
+
+    @Test
+    public void reorderingPreservesResult() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> expression =
+                parse("colour = 'red' AND size LIKE 's%' AND price > 100");
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+        final List<Filterable> messages = createMessages();
+        for (int i = 0; i < 10000; i++)
+        {
+            final Filterable message = messages.get(i % messages.size());
+            assertEquals(expression.matches(message), compiled.matches(message),
+                         "Unexpected result for message " + message);
+        }
+    }
+
+    @Test
+    public void operandWhichMayFailNotReorderedAheadOfOtherOperands() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> expression = parse("size = 'small' AND colour * 2 > 1");
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+
+        // the numeric comparison decides every outcome, but it may fail so it stays behind the string comparison
+        final Filterable decidingMessage = createMessage(Map.of("size", "small", "colour", 0));
+        for (int i = 0; i < 2048; i++)
+        {
+            assertFalse(compiled.matches(decidingMessage));
+        }
+
+        final Filterable failingMessage = createMessage(Map.of("size", "large", "colour", "red"));
+        assertFalse(expression.matches(failingMessage));
+        assertFalse(compiled.matches(failingMessage));
+
+        final Filterable matchingMessage = createMessage(Map.of("size", "small", "colour", 1));
+        assertTrue(compiled.matches(matchingMessage));
+    }
+
+    @Test
+    public void compiledSelectorFailsForSameMessagesAsParsedSelectorAfterReordering() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> expression =
+                parse("colour = 'red' AND price > 100 AND size = 'small' AND weight < 2");
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+        final List<Filterable> messages = new ArrayList<>();
+        for (String colour : new String[]{"red", "blue"})
+        {
+            for (Object price : new Object[]{50, 150, List.of(150)})
+            {
+                for (String size : new String[]{"small", "large"})
+                {
+                    for (Object weight : new Object[]{1, 3, Map.of("weight", 1)})
+                    {
+                        messages.add(createMessage(Map.of("colour", colour, "price", price,
+                                                          "size", size, "weight", weight)));
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < 10000; i++)
+        {
+            final Filterable message = messages.get(i % messages.size());
+            assertEquals(outcome(() -> expression.matches(message)), outcome(() -> compiled.matches(message)),
+                         "Unexpected result for message " + message);
+        }
+    }
+
+    @Test
+    public void concurrentEvaluationAndReorderingPreservesResult() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> expression =
+                parse("colour = 'red' AND size LIKE 's%' AND price > 100 OR weight < 1");
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+        final List<Filterable> messages = createMessages();
+        final List<Boolean> expected = new ArrayList<>();
+        for (Filterable message : messages)
+        {
+            expected.add(expression.matches(message));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++)
+            {
+                final int offset = thread;
+                futures.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        final int index = (i + offset) % messages.size();
+                        assertEquals(expected.get(index), compiled.matches(messages.get(index)),
+                                     "Unexpected result for message " + messages.get(index));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void propertyEvaluatedOncePerMessage() throws Exception
+    {
+        final Filterable message = createMessage(Map.of("price", 150));
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled =
+                SelectorCompiler.compile(parse("price BETWEEN 100 AND 200 AND price <> 175"));
+
+        assertTrue(compiled.matches(message));
+        verify(message, times(1)).getHeader("price");
+    }
+
+    @Test
+    public void propertyValuesNotRetainedBetweenEvaluations() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> expression = parse("price > 100 AND price < 500");
+        final SelectorCompiler.CompiledSelector<FilterableMessage> compiled = SelectorCompiler.compile(expression);
+        final Filterable cheapMessage = createMessage(Map.of("price", 50));
+        final Filterable unpricedMessage = createMessage(Map.of("price", "high"));
+        final Filterable expensiveMessage = createMessage(Map.of("price", 150));
+
+        assertFalse(compiled.matches(cheapMessage));
+        assertEquals(outcome(() -> expression.matches(unpricedMessage)), outcome(() -> compiled.matches(unpricedMessage)),
+                     "Unexpected result for message with non-numeric price");
+        assertTrue(compiled.matches(expensiveMessage));
+        assertFalse(compiled.matches(cheapMessage));
+        verify(expensiveMessage, times(1)).getHeader("price");
+        verify(cheapMessage, times(2)).getHeader("price");
+    }
+
+    private Object outcome(final Supplier<Boolean> evaluation)
+    {
+        try
+        {
+            return evaluation.get();
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass();
+        }
+    }
+
+    private BooleanExpression<FilterableMessage> parse(final String selector) throws Exception
+    {
+        final SelectorParser<FilterableMessage> parser = new SelectorParser<>();
+        parser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
+        return parser.parse(selector);
+    }
+
+    private List<Filterable> createMessages()
+    {
+        final String[] colours = {null, "red", "blue", "green", "RED"};
+        final String[] sizes = {null, "small", "large"};
+        final Object[] prices = {null, 50, 100, 150L, 200, 250.5d, 99.5f, (byte) 120, (short) 300, "100"};
+        final Object[] weights = {null, 0.5d, 1.5f, 2, 3L};
+        final Object[] flags = {null, Boolean.TRUE, Boolean.FALSE, "true"};
+
+        final List<Filterable> messages = new ArrayList<>();
+        int i = 0;
+        for (String colour : colours)
+        {
+            for (String size : sizes)
+            {
+                for (Object price : prices)
+                {
+                    final Map<String, Object> headers = new HashMap<>();
+                    headers.put("colour", colour);
+                    headers.put("size", size);
+                    headers.put("price", price);
+                    headers.put("weight", weights[i % weights.length]);
+                    headers.put("flag", flags[i % flags.length]);
+                    final Filterable message = createMessage(headers);
+                    when(message.getPriority()).thenReturn((byte) (i % 10));
+                    messages.add(message);
+                    i++;
+                }
+            }
+        }
+        return messages;
+    }
+
+    private Filterable createMessage(final Map<String, Object> headers)
+    {
+        final Filterable message = mock(Filterable.class);
+        when(message.getHeader(anyString())).thenAnswer(invocation -> headers.get(invocation.getArgument(0)));
+        when(message.toString()).thenReturn(headers.toString());
+        return message;
+    }
+}
@@ -21,16 +21,23 @@
 package org.apache.qpid.server.message;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.Test;
 
+import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
 import org.apache.qpid.test.utils.UnitTestBase;
 
 public class AbstractServerMessageTest extends UnitTestBase
@@ -145,4 +152,67 @@ public class AbstractServerMessageTest extends UnitTestBase
         assertThrows(MessageDeletedException.class, () -> msg.newReference(q1),
                 "Message should not allow new references as all references had been removed");
     }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testConvertedMessageIsSharedUntilMessageDeleted()
+    {
+        final TestMessage<StorableMessageMetaData> msg = new TestMessage<>(mock(StoredMessage.class), this);
+        final MessageReference<TestMessage<StorableMessageMetaData>> ref = msg.newReference();
+
+        final ServerMessage<?> converted = mock(ServerMessage.class);
+        final MessageConverter converter = mock(MessageConverter.class);
+        final QueueManagingVirtualHost<?> virtualHost = mock(QueueManagingVirtualHost.class);
+        when(converter.convert(any(), any())).thenReturn(converted);
+
+        final MessageReference<ServerMessage<?>> convertedRef1 = msg.getConvertedMessage(converter, virtualHost);
+        final MessageReference<ServerMessage<?>> convertedRef2 = msg.getConvertedMessage(converter, virtualHost);
+        assertSame(converted, convertedRef1.getMessage());
+        assertSame(converted, convertedRef2.getMessage());
+        verify(converter, times(1)).convert(msg, virtualHost);
+        verify(virtualHost, times(1)).registerMessageConverted();
+        verify(virtualHost, times(1)).registerConvertedMessageCacheHit();
+
+        convertedRef1.release();
+        convertedRef2.release();
+        verify(converter, never()).dispose(any());
+
+        final MessageReference<ServerMessage<?>> convertedRef3 = msg.getConvertedMessage(converter, virtualHost);
+        ref.release();
+        verify(converter, never()).dispose(any());
+
+        convertedRef3.release();
+        verify(converter, times(1)).dispose(converted);
+        verify(converter, times(1)).convert(msg, virtualHost);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testConvertedMessageDisposedWhenReleasedIfCacheFull()
+    {
+        final TestMessage<StorableMessageMetaData> msg = new TestMessage<>(mock(StoredMessage.class), this);
+        final MessageReference<TestMessage<StorableMessageMetaData>> ref = msg.newReference();
+
+        final ServerMessage<?> converted = mock(ServerMessage.class);
+        when(converted.getSizeIncludingHeader()).thenReturn(100L);
+        final MessageConverter converter = mock(MessageConverter.class);
+        final QueueManagingVirtualHost<?> virtualHost = mock(QueueManagingVirtualHost.class);
+        when(converter.convert(any(), any())).thenReturn(converted);
+        when(virtualHost.isConvertedMessageCacheFull()).thenReturn(true);
+
+        final MessageReference<ServerMessage<?>> convertedRef1 = msg.getConvertedMessage(converter, virtualHost);
+        final MessageReference<ServerMessage<?>> convertedRef2 = msg.getConvertedMessage(converter, virtualHost);
+        verify(virtualHost).registerConvertedMessageSize(100L);
+
+        convertedRef1.release();
+        verify(converter, never()).dispose(any());
+
+        convertedRef2.release();
+        verify(converter, times(1)).dispose(converted);
+        verify(virtualHost).registerConvertedMessageSize(-100L);
+
+        msg.getConvertedMessage(converter, virtualHost).release();
+        verify(converter, times(2)).convert(msg, virtualHost);
+        ref.release();
+    }
 }
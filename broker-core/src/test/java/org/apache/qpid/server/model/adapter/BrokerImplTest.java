@@ -45,6 +45,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.apache.qpid.server.configuration.updater.TaskExecutorImpl;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.BrokerImpl;
@@ -256,6 +258,36 @@ public class BrokerImplTest extends UnitTestBase
         assertEquals(0L, statisticsAfterReset.get("transactedMessagesOut"));
     }
 
+    @Test
+    public void selectorStatistics() throws Exception
+    {
+        final Map<String, Object> brokerAttributes = Map.of("name", "Broker",
+                Broker.MODEL_VERSION, BrokerModel.MODEL_VERSION,
+                Broker.DURABLE, true);
+        _brokerImpl = new BrokerImpl(brokerAttributes, _systemConfig);
+        _brokerImpl.open();
+
+        final Map<String, Object> statisticsBefore = _brokerImpl.getStatistics();
+
+        final JMSSelectorFilter compiledFilter = new JMSSelectorFilter("1 = 1", true);
+        final JMSSelectorFilter interpretedFilter = new JMSSelectorFilter("1 = 1", false);
+        final Filterable message = mock(Filterable.class);
+        compiledFilter.matches(message);
+        compiledFilter.matches(message);
+        interpretedFilter.matches(message);
+
+        final Map<String, Object> statisticsAfter = _brokerImpl.getStatistics();
+        assertEquals(1L, (Long) statisticsAfter.get("compiledSelectors")
+                         - (Long) statisticsBefore.get("compiledSelectors"),
+                     "Unexpected number of compiled selectors");
+        assertEquals(2L, (Long) statisticsAfter.get("compiledSelectorEvaluations")
+                         - (Long) statisticsBefore.get("compiledSelectorEvaluations"),
+                     "Unexpected number of compiled selector evaluations");
+        assertEquals(1L, (Long) statisticsAfter.get("interpretedSelectorEvaluations")
+                         - (Long) statisticsBefore.get("interpretedSelectorEvaluations"),
+                     "Unexpected number of interpreted selector evaluations");
+    }
+
     private Collection<Preference> getPreferencesAs(final Subject testUserSubject)
     {
         return Subject.doAs(testUserSubject, (PrivilegedAction<Collection<Preference>>) () ->
@@ -21,6 +21,8 @@ package org.apache.qpid.server.model.port;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +40,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -288,6 +293,62 @@ public class AmqpPortImplTest extends UnitTestBase
         assertEquals(0L, statisticsAfterReset.get("totalConnectionCount"));
     }
 
+    @Test
+    public void testTlsHandshakeExecutor()
+    {
+        final Map<String, Object> attributes = Map.of(AmqpPort.TRANSPORTS, List.of(Transport.SSL),
+                AmqpPort.KEY_STORE, KEYSTORE_NAME,
+                AmqpPort.CONTEXT, Map.of(AmqpPort.TLS_HANDSHAKE_THREAD_POOL_SIZE, "2"));
+        _port = createPort(getTestName(), attributes);
+
+        final Executor executor = _port.getTlsHandshakeExecutor();
+        assertNotNull(executor, "TLS handshake executor not created");
+
+        _port.close();
+
+        assertNull(_port.getTlsHandshakeExecutor(), "TLS handshake executor not cleared");
+        assertTrue(((ExecutorService) executor).isShutdown(), "TLS handshake executor not shut down");
+    }
+
+    @Test
+    public void testTlsHandshakeExecutorDisabled()
+    {
+        final Map<String, Object> attributes = Map.of(AmqpPort.TRANSPORTS, List.of(Transport.SSL),
+                AmqpPort.KEY_STORE, KEYSTORE_NAME,
+                AmqpPort.CONTEXT, Map.of(AmqpPort.TLS_HANDSHAKE_THREAD_POOL_SIZE, "0"));
+        _port = createPort(getTestName(), attributes);
+
+        assertNull(_port.getTlsHandshakeExecutor(), "Unexpected TLS handshake executor");
+    }
+
+    @Test
+    public void testNoTlsHandshakeExecutorWithoutTls()
+    {
+        _port = createPort(getTestName());
+
+        assertNull(_port.getTlsHandshakeExecutor(), "Unexpected TLS handshake executor");
+    }
+
+    @Test
+    public void testTlsHandshakeStatistics()
+    {
+        _port = createPort(getTestName());
+
+        _port.registerTlsHandshake(1, TimeUnit.MILLISECONDS);
+        _port.registerTlsHandshake(3, TimeUnit.MILLISECONDS);
+
+        final Map<String, Object> statisticsBeforeReset = _port.getStatistics();
+        assertEquals(2L, statisticsBeforeReset.get("totalTlsHandshakeCount"));
+        assertEquals(3L, statisticsBeforeReset.get("tlsHandshakeDurationMax"));
+        assertEquals(0L, statisticsBeforeReset.get("tlsHandshakeQueueDepth"));
+
+        _port.resetStatistics();
+
+        final Map<String, Object> statisticsAfterReset = _port.getStatistics();
+        assertEquals(0L, statisticsAfterReset.get("totalTlsHandshakeCount"));
+        assertEquals(0L, statisticsAfterReset.get("tlsHandshakeDurationMax"));
+    }
+
     private AmqpPortImpl createPort(final String portName)
     {
         return createPort(portName, Map.of());
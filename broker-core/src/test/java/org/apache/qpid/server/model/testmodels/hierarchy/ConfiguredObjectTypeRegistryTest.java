@@ -27,6 +27,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -40,6 +42,7 @@ import org.junit.jupiter.api.Test;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectAttribute;
 import org.apache.qpid.server.model.ConfiguredObjectOperation;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
 import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
 import org.apache.qpid.server.model.ConfiguredSettableAttribute;
 import org.apache.qpid.server.model.ManagedInterface;
@@ -171,4 +174,26 @@ public class ConfiguredObjectTypeRegistryTest extends UnitTestBase
         assertEquals(Lists.newArrayList("GREY", "BLACK"), attribute.validValues(),
                 "The attribute's valid values should match the restricted set defined on the attribute itself");
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGeneratedAccessors()
+    {
+        final TestCar<?> car = mock(TestCar.class);
+        when(car.getMileage()).thenReturn(42);
+        when(car.getBodyColour()).thenReturn(TestCar.Colour.RED);
+
+        final TestCarAccessors accessors = new TestCarAccessors();
+        assertEquals(42, accessors.getAccessor("getMileage").apply(car));
+        assertEquals(TestCar.Colour.RED, accessors.getAccessor("getBodyColour").apply(car));
+        assertNull(accessors.getAccessor("startEngine"), "Operations should not have accessors");
+
+        final ConfiguredObjectStatistic<TestCar<?>, ?> mileage =
+                (ConfiguredObjectStatistic<TestCar<?>, ?>) _typeRegistry.getStatistics(TestCar.class)
+                                                                        .stream()
+                                                                        .filter(statistic -> "mileage".equals(statistic.getName()))
+                                                                        .findFirst()
+                                                                        .orElseThrow();
+        assertEquals(42, mileage.getValue(car));
+    }
 }
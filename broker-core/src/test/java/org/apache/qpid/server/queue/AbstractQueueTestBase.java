@@ -83,6 +83,7 @@ import org.apache.qpid.server.model.OverflowPolicy;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.QueueNotificationListener;
 import org.apache.qpid.server.queue.AbstractQueue.QueueEntryFilter;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
@@ -370,6 +371,94 @@ abstract class AbstractQueueTestBase extends UnitTestBase
                 "releasedEntry should be cleared after requeue processed");
     }
 
+    @Test
+    public void testLatencyHistogramsDisabledByDefault() throws Exception
+    {
+        final ServerMessage<?> messageA = createMessage(24L);
+        _queue.enqueue(messageA, null, null);
+        _consumer = (QueueConsumer<?,?>) _queue
+                .addConsumer(_consumerTarget, null, messageA.getClass(), "test",
+                EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        while(_consumerTarget.processPending());
+
+        assertTrue(((LatencyHistogramProvider) _queue).getLatencyHistograms().isEmpty(),
+                   "Queue has latency histograms although they are not enabled");
+        assertNull(_consumer.getDeliveryToAcknowledgementLatency(),
+                   "Consumer has a latency histogram although they are not enabled");
+        assertEquals(0L, _queue.getEnqueueToDeliveryLatencyMax(), "Unexpected latency");
+    }
+
+    @Test
+    public void testLatencyRecordedOnDeliveryAndAcknowledgement() throws Exception
+    {
+        final Queue<?> queue = createQueueWithLatencyHistograms();
+        final ServerMessage<?> messageA = createMessage(24L);
+        final ArrayList<QueueEntry> queueEntries = new ArrayList<>();
+        queue.enqueue(messageA, new EntryListAddingAction(queueEntries), null);
+
+        _consumer = (QueueConsumer<?,?>) queue
+                .addConsumer(_consumerTarget, null, messageA.getClass(), "test",
+                EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        while(_consumerTarget.processPending());
+
+        assertEquals(1L, getLatencyCount(queue, "enqueueToDeliveryLatency"),
+                "Unexpected number of recorded deliveries");
+        assertTrue(queueEntries.get(0).getDeliveryTime() != 0L, "Delivery time should be set");
+
+        queueEntries.get(0).delete();
+
+        assertEquals(1L, getLatencyCount(queue, "deliveryToAcknowledgementLatency"),
+                "Unexpected number of recorded acknowledgements on queue");
+        assertEquals(1L, _consumer.getDeliveryToAcknowledgementLatency().takeSnapshot().getCount(),
+                "Unexpected number of recorded acknowledgements on consumer");
+    }
+
+    @Test
+    public void testLatencyNotRecordedForEntryAcquiredElsewhere() throws Exception
+    {
+        final Queue<?> queue = createQueueWithLatencyHistograms();
+        final ServerMessage<?> messageA = createMessage(24L);
+        final ArrayList<QueueEntry> queueEntries = new ArrayList<>();
+        queue.enqueue(messageA, new EntryListAddingAction(queueEntries), null);
+        final QueueEntry entry = queueEntries.get(0);
+        assertTrue(entry.acquire(), "Entry was not acquired");
+
+        _consumer = (QueueConsumer<?,?>) queue
+                .addConsumer(_consumerTarget, null, messageA.getClass(), "test",
+                EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        while(_consumerTarget.processPending());
+
+        assertEquals(0L, getLatencyCount(queue, "enqueueToDeliveryLatency"),
+                "Delivery recorded for entry acquired elsewhere");
+        assertEquals(0L, entry.getDeliveryTime(), "Delivery time should not be set");
+
+        entry.release();
+        while(_consumerTarget.processPending());
+
+        assertEquals(1L, getLatencyCount(queue, "enqueueToDeliveryLatency"),
+                "Unexpected number of recorded deliveries");
+        assertTrue(entry.getDeliveryTime() != 0L, "Delivery time should be set");
+    }
+
+    private Queue<?> createQueueWithLatencyHistograms()
+    {
+        final Map<String,Object> attributes = ImmutableMap.<String,Object>builder().putAll(_arguments)
+                .put(Queue.NAME, getTestName())
+                .put(Queue.CONTEXT, Map.of(Queue.QUEUE_LATENCY_HISTOGRAMS_ENABLED, "true")).build();
+        return _virtualHost.createChild(Queue.class, attributes);
+    }
+
+    private long getLatencyCount(final Queue<?> queue, final String name)
+    {
+        return ((LatencyHistogramProvider) queue).getLatencyHistograms()
+                                                 .stream()
+                                                 .filter(histogram -> name.equals(histogram.getName()))
+                                                 .findFirst()
+                                                 .orElseThrow()
+                                                 .takeSnapshot()
+                                                 .getCount();
+    }
+
     /**
      * Tests that a released message that becomes expired is not resent to the subscriber.
      * This tests ensures that SimpleAMQQueue<?>Entry.getNextAvailableEntry avoids expired entries.
@@ -460,6 +549,43 @@ abstract class AbstractQueueTestBase extends UnitTestBase
                 _consumer.getQueueContext().getReleasedEntry());
     }
 
+    @Test
+    public void testExpiredEntryReleasedAfterStatusCheckIsExpired()
+    {
+        final ServerMessage<?> message = createMessage(24L);
+        when(message.getExpiration()).thenReturn(System.currentTimeMillis() - 1000L);
+        _queue.enqueue(message, null, null);
+
+        final QueueEntry entry = ((AbstractQueue<?>) _queue).getEntries().getOldestEntry();
+        assertTrue(entry.acquire(), "Entry was not acquired");
+
+        // the first check scans the whole queue, the second polls the expiry index
+        _queue.checkMessageStatus();
+        _queue.checkMessageStatus();
+        assertEquals(1, (long) _queue.getQueueDepthMessages(), "Acquired entry was expired");
+
+        entry.release();
+        _queue.checkMessageStatus();
+
+        assertEquals(0, (long) _queue.getQueueDepthMessages(), "Released entry was not expired");
+    }
+
+    @Test
+    public void testMalformedOldestEntryDeletedBetweenFullScans()
+    {
+        final ServerMessage<?> message = createMessage(24L);
+        _queue.enqueue(message, null, null);
+
+        // the first check scans the whole queue
+        _queue.checkMessageStatus();
+        assertEquals(1, (long) _queue.getQueueDepthMessages(), "Valid entry was deleted");
+
+        when(message.checkValid()).thenReturn(false);
+        _queue.checkMessageStatus();
+
+        assertEquals(0, (long) _queue.getQueueDepthMessages(), "Malformed oldest entry was not deleted");
+    }
+
     /**
      * Tests that if a client releases entries 'out of order' (the order
      * used by QueueEntryImpl.compareTo) that messages are still resent
@@ -743,6 +869,84 @@ abstract class AbstractQueueTestBase extends UnitTestBase
         assertEquals(0, (long) entries.size());
     }
 
+    @Test
+    public void testClearQueueAndDeleteMessagesInBatches()
+    {
+        final Map<String,Object> attributes = ImmutableMap.<String,Object>builder().putAll(_arguments)
+                .put(Queue.NAME, getTestName())
+                .put(Queue.CONTEXT, Map.of(Queue.QUEUE_PURGE_BATCH_SIZE, "2")).build();
+        final Queue<?> queue = _virtualHost.createChild(Queue.class, attributes);
+
+        enqueueGivenNumberOfMessages(queue, 5);
+        final List<Long> messageIds = new ArrayList<>();
+        queue.getMessagesOnTheQueue().forEach(entry -> messageIds.add(entry.getMessage().getMessageNumber()));
+        final List<Integer> depthsWhenAcquired = recordDepthsWhenAcquired(queue);
+
+        final List<Long> deletedIds = queue.deleteMessages(messageIds.subList(0, 3), null, -1);
+        assertEquals(Set.copyOf(messageIds.subList(0, 3)), Set.copyOf(deletedIds), "Unexpected deleted messages");
+        assertEquals(2, queue.getQueueDepthMessages(), "Unexpected queue depth after delete");
+        // the messages of a batch are only removed from the queue when its transaction commits
+        assertEquals(List.of(5, 5, 3), depthsWhenAcquired, "Unexpected batches of deleted messages");
+        assertEquals(3, queue.getPurgedMessages(), "Unexpected number of purged messages after delete");
+
+        putGivenNumberOfMessages(queue, 5);
+        final List<Integer> depthsWhenCleared = recordDepthsWhenAcquired(queue);
+        assertEquals(7, queue.clearQueue(), "Unexpected number of cleared messages");
+        assertEquals(0, queue.getQueueDepthMessages(), "Unexpected queue depth after clear");
+        assertEquals(List.of(7, 7, 5, 5, 3, 3, 1), depthsWhenCleared, "Unexpected batches of cleared messages");
+        assertEquals(10, queue.getPurgedMessages(), "Unexpected number of purged messages after clear");
+    }
+
+    private List<Integer> recordDepthsWhenAcquired(final Queue<?> queue)
+    {
+        final List<Integer> depths = new ArrayList<>();
+        for (QueueEntry entry : queue.getMessagesOnTheQueue())
+        {
+            entry.addStateChangeListener((object, oldState, newState) ->
+            {
+                if (newState.getState() == MessageInstance.State.ACQUIRED)
+                {
+                    depths.add(queue.getQueueDepthMessages());
+                }
+            });
+        }
+        return depths;
+    }
+
+    @Test
+    public void testMessageIdIndex()
+    {
+        final Map<String,Object> attributes = ImmutableMap.<String,Object>builder().putAll(_arguments)
+                .put(Queue.NAME, getTestName())
+                .put(Queue.CONTEXT, Map.of(Queue.QUEUE_MESSAGE_ID_INDEX_ENABLED, "true")).build();
+        final Queue<?> queue = _virtualHost.createChild(Queue.class, attributes);
+
+        enqueueGivenNumberOfMessages(queue, 4);
+        final List<? extends QueueEntry> entries = queue.getMessagesOnTheQueue();
+        final QueueEntry dequeued = dequeueMessage(queue, 1);
+
+        assertNull(queue.getMessageOnTheQueue(dequeued.getMessage().getMessageNumber()),
+                "Dequeued message should not be found");
+        assertNull(queue.getMessageOnTheQueue(100L), "Unknown message should not be found");
+
+        final List<Long> remainingIds = new ArrayList<>();
+        for (QueueEntry entry : entries)
+        {
+            if (entry != dequeued)
+            {
+                final long messageId = entry.getMessage().getMessageNumber();
+                assertEquals(entry, queue.getMessageOnTheQueue(messageId), "Unexpected entry for message " + messageId);
+                remainingIds.add(messageId);
+            }
+        }
+
+        final List<Long> deletedIds = queue.deleteMessages(remainingIds, null, -1);
+
+        assertEquals(Set.copyOf(remainingIds), Set.copyOf(deletedIds), "Unexpected deleted messages");
+        assertEquals(0, queue.getQueueDepthMessages(), "Unexpected queue depth");
+        assertEquals(0, ((AbstractQueue<?>) queue).getEntries().getMessageIndex().size(), "Unexpected index size");
+    }
+
     @Test
     public void testNotificationFiredOnEnqueue()
     {
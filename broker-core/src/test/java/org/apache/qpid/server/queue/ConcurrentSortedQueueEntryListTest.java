@@ -0,0 +1,272 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerTestHelper;
+import org.apache.qpid.server.model.LifetimePolicy;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+
+public class ConcurrentSortedQueueEntryListTest extends QueueEntryListTestBase
+{
+    private static final String[] KEYS = SortedQueueEntryListTest.KEYS;
+    private static final String[] KEYS_SORTED = KEYS.clone();
+
+    private QueueManagingVirtualHost<?> _virtualHost;
+    private SortedQueueImpl _testQueue;
+    private ConcurrentSortedQueueEntryList _list;
+
+    @BeforeAll
+    public void beforeAll() throws Exception
+    {
+        _virtualHost = BrokerTestHelper.createVirtualHost(getTestClassName(), this);
+        Arrays.sort(KEYS_SORTED);
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        final Map<String,Object> attributes = Map.of(Queue.ID, randomUUID(),
+                Queue.NAME, getTestName(),
+                Queue.DURABLE, false,
+                Queue.LIFETIME_POLICY, LifetimePolicy.PERMANENT,
+                SortedQueue.SORT_KEY, "KEY",
+                SortedQueue.ENTRY_LIST_TYPE, SortedQueueEntryListType.SKIP_LIST);
+        _testQueue = new SortedQueueImpl(attributes, _virtualHost);
+        _testQueue.open();
+        _list = (ConcurrentSortedQueueEntryList) _testQueue.getEntries();
+
+        long messageId = 0L;
+        for (final String key : KEYS)
+        {
+            _list.add(generateTestMessage(messageId++, key), null);
+        }
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList()
+    {
+        return getTestList(false);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList(final boolean newList)
+    {
+        return newList ? new ConcurrentSortedQueueEntryList(_testQueue, _testQueue.getQueueStatistics()) : _list;
+    }
+
+    @Override
+    public int getExpectedListLength()
+    {
+        return KEYS.length;
+    }
+
+    @Override
+    public long getExpectedFirstMsgId()
+    {
+        return 67L;
+    }
+
+    @Override
+    public ServerMessage<?> getTestMessageToAdd()
+    {
+        return generateTestMessage(1, "test value");
+    }
+
+    @Override
+    protected SortedQueueImpl getTestQueue()
+    {
+        return _testQueue;
+    }
+
+    @Override
+    @Test
+    public void testIterator() throws Exception
+    {
+        super.testIterator();
+
+        final QueueEntryIterator iter = getTestList().iterator();
+        int count = 0;
+        while (iter.advance())
+        {
+            assertEquals(KEYS_SORTED[count++], getSortedKeyValue(iter.getNode()),
+                         "Sorted queue entry value does not match sorted key array");
+        }
+    }
+
+    @Test
+    public void testNonUniqueAndNullSortKeys()
+    {
+        _list = getTestList(true);
+        for (long messageId = 0; messageId < 200; messageId++)
+        {
+            _list.add(generateTestMessage(messageId, messageId % 2 == 0 ? "samekey" : null), null);
+        }
+
+        final QueueEntryIterator iter = _list.iterator();
+        for (long expectedId = 1; expectedId < 200; expectedId += 2)
+        {
+            assertTrue(iter.advance());
+            assertNull(getSortedKeyValue(iter.getNode()), "Sorted queue entry value is not as expected");
+            assertEquals(expectedId, iter.getNode().getMessage().getMessageNumber(), "Message id not as expected");
+        }
+        for (long expectedId = 0; expectedId < 200; expectedId += 2)
+        {
+            assertTrue(iter.advance());
+            assertEquals("samekey", getSortedKeyValue(iter.getNode()), "Sorted queue entry value is not as expected");
+            assertEquals(expectedId, iter.getNode().getMessage().getMessageNumber(), "Message id not as expected");
+        }
+    }
+
+    @Test
+    public void testNextOfDeletedEntry()
+    {
+        _list = getTestList(true);
+        final QueueEntry a = _list.add(generateTestMessage(1, "A"), null);
+        final QueueEntry b = _list.add(generateTestMessage(2, "B"), null);
+        final QueueEntry c = _list.add(generateTestMessage(3, "C"), null);
+
+        assertTrue(b.acquire());
+        b.delete();
+
+        assertEquals(c, _list.next(a));
+        assertEquals(c, _list.next(b), "Removed entry should still lead to its successor");
+        assertEquals(c, _list.getTail());
+    }
+
+    @Test
+    public void testGetLeastSignificantOldestEntry()
+    {
+        _list = getTestList(true);
+
+        final QueueEntry entry1 = _list.add(generateTestMessage(1, "B"), null);
+        assertEquals(entry1, _list.getLeastSignificantOldestEntry(), "Unexpected last entry");
+
+        _list.add(generateTestMessage(2, "C"), null);
+        _list.add(generateTestMessage(3, null), null);
+        _list.add(generateTestMessage(4, "A"), null);
+        assertEquals(entry1, _list.getLeastSignificantOldestEntry(), "Unexpected last entry");
+    }
+
+    @Test
+    public void testConcurrentPublishersPreserveSortOrder() throws Exception
+    {
+        final int publishers = 16;
+        final int messagesPerPublisher = 500;
+        final ConcurrentSortedQueueEntryList list = getTestList(true);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(publishers);
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < publishers; p++)
+            {
+                final int publisher = p;
+                futures.add(executor.submit(() ->
+                {
+                    start.await();
+                    for (int i = 0; i < messagesPerPublisher; i++)
+                    {
+                        final long id = (long) publisher * messagesPerPublisher + i;
+                        list.add(generateTestMessage(id, String.format("%03d", (i * 7 + publisher) % 100)), null);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        final QueueEntryIterator iter = list.iterator();
+        ConcurrentSortedQueueEntry previous = null;
+        int count = 0;
+        while (iter.advance())
+        {
+            final ConcurrentSortedQueueEntry entry = assertInstanceOf(ConcurrentSortedQueueEntry.class, iter.getNode());
+            if (previous != null)
+            {
+                assertTrue(previous.getKey().compareTo(entry.getKey()) < 0
+                           || (previous.getKey().equals(entry.getKey())
+                               && previous.getEntryId() < entry.getEntryId()),
+                           "Entries out of order: " + previous + " before " + entry);
+            }
+            previous = entry;
+            count++;
+        }
+        assertEquals(publishers * messagesPerPublisher, count, "Unexpected number of entries");
+    }
+
+    private Object getSortedKeyValue(final QueueEntry entry)
+    {
+        return entry.getMessage().getMessageHeader().getHeader("KEY");
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ServerMessage<?> generateTestMessage(final long id, final String keyValue)
+    {
+        final ServerMessage<?> message = mock(ServerMessage.class);
+        final AMQMessageHeader hdr = mock(AMQMessageHeader.class);
+        when(message.getMessageHeader()).thenReturn(hdr);
+        when(hdr.getHeader(eq("KEY"))).thenReturn(keyValue);
+        when(hdr.containsHeader(eq("KEY"))).thenReturn(true);
+        when(hdr.getHeaderNames()).thenReturn(Set.of("KEY"));
+        final MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        when(message.getMessageNumber()).thenReturn(id);
+        return message;
+    }
+}
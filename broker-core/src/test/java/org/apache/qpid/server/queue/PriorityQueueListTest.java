@@ -21,6 +21,8 @@
 package org.apache.qpid.server.queue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -165,4 +167,29 @@ public class PriorityQueueListTest extends UnitTestBase
 
         assertEquals(newEntry, _list.getLeastSignificantOldestEntry(), "Unexpected last entry");
     }
+
+    @Test
+    public void testIteratorFromEntry()
+    {
+        final QueueEntryIterator iterator = _list.iterator(_priority5message1);
+        assertEquals(_priority5message1, iterator.getNode(), "Unexpected start entry");
+
+        assertTrue(iterator.advance());
+        assertEquals(_priority5message2, iterator.getNode(), "Unexpected entry");
+        assertTrue(iterator.advance());
+        assertEquals(_priority4message1, iterator.getNode(), "Unexpected entry");
+        assertTrue(iterator.advance());
+        assertEquals(_priority4message2, iterator.getNode(), "Unexpected entry");
+        assertFalse(iterator.advance(), "Iterator should be at the end of the list");
+    }
+
+    @Test
+    public void testIteratorFromLowerPriorityEntrySkipsHigherPriorities()
+    {
+        final QueueEntryIterator iterator = _list.iterator(_priority4message1);
+
+        assertTrue(iterator.advance());
+        assertEquals(_priority4message2, iterator.getNode(), "Unexpected entry");
+        assertFalse(iterator.advance(), "Iterator should be at the end of the list");
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class QueueConsumerManagerImplTest extends UnitTestBase
+{
+    private QueueConsumerManagerImpl _queueConsumerManager;
+
+    @BeforeEach
+    public void setUp()
+    {
+        final AbstractQueue<?> queue = mock(AbstractQueue.class);
+        when(queue.getContextValue(eq(Integer.class), eq(Queue.QUEUE_SCAVANGE_COUNT))).thenReturn(100);
+        _queueConsumerManager = new QueueConsumerManagerImpl(queue);
+    }
+
+    @Test
+    public void higherPriorityWorkDesiredIterator()
+    {
+        final QueueConsumer<?,?> high = createConsumer(10, true);
+        final QueueConsumer<?,?> highNotified = createConsumer(10, true);
+        final QueueConsumer<?,?> highNotInterested = createConsumer(10, true);
+        final QueueConsumer<?,?> medium = createConsumer(5, true);
+        final QueueConsumer<?,?> mediumNonAcquiring = createConsumer(5, false);
+        final QueueConsumer<?,?> low = createConsumer(1, true);
+
+        _queueConsumerManager.setNotified(highNotified, true);
+        _queueConsumerManager.setInterest(highNotInterested, false);
+
+        assertEquals(Set.of(high, highNotified, medium), toSet(_queueConsumerManager.getHigherPriorityWorkDesiredIterator(1)));
+        assertEquals(Set.of(high, highNotified), toSet(_queueConsumerManager.getHigherPriorityWorkDesiredIterator(5)));
+        assertFalse(_queueConsumerManager.getHigherPriorityWorkDesiredIterator(10).hasNext());
+
+        _queueConsumerManager.removeConsumer(medium);
+        _queueConsumerManager.removeConsumer(mediumNonAcquiring);
+        _queueConsumerManager.setInterest(low, false);
+
+        assertEquals(Set.of(high, highNotified), toSet(_queueConsumerManager.getHigherPriorityWorkDesiredIterator(0)));
+    }
+
+    @Test
+    public void workDesiredIteratorForRangeOfPriorities()
+    {
+        final QueueConsumer<?,?> high = createConsumer(10, true);
+        final QueueConsumer<?,?> medium = createConsumer(5, true);
+        final QueueConsumer<?,?> mediumNotified = createConsumer(5, true);
+        final QueueConsumer<?,?> low = createConsumer(1, true);
+
+        _queueConsumerManager.setNotified(mediumNotified, true);
+
+        assertEquals(Set.of(medium, mediumNotified), toSet(_queueConsumerManager.getWorkDesiredIterator(1, 5)));
+        assertEquals(Set.of(medium, mediumNotified, low), toSet(_queueConsumerManager.getWorkDesiredIterator(0, 9)));
+        assertEquals(Set.of(high), toSet(_queueConsumerManager.getWorkDesiredIterator(5, 10)));
+        assertFalse(_queueConsumerManager.getWorkDesiredIterator(5, 9).hasNext());
+        assertFalse(_queueConsumerManager.getWorkDesiredIterator(10, Integer.MAX_VALUE).hasNext());
+    }
+
+    private QueueConsumer<?,?> createConsumer(final int priority, final boolean acquires)
+    {
+        final QueueConsumer<?,?> consumer = mock(QueueConsumer.class);
+        final QueueConsumerNode[] node = new QueueConsumerNode[1];
+        when(consumer.getPriority()).thenReturn(priority);
+        when(consumer.acquires()).thenReturn(acquires);
+        when(consumer.isNotifyWorkDesired()).thenReturn(true);
+        doAnswer(invocation ->
+                 {
+                     node[0] = invocation.getArgument(0);
+                     return null;
+                 }).when(consumer).setQueueConsumerNode(any(QueueConsumerNode.class));
+        when(consumer.getQueueConsumerNode()).thenAnswer(invocation -> node[0]);
+        _queueConsumerManager.addConsumer(consumer);
+        return consumer;
+    }
+
+    private Set<QueueConsumer<?,?>> toSet(final Iterator<QueueConsumer<?,?>> iterator)
+    {
+        final Set<QueueConsumer<?,?>> consumers = new HashSet<>();
+        iterator.forEachRemaining(consumers::add);
+        return consumers;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class QueueEntryExpiryIndexTest extends UnitTestBase
+{
+    private static final long TICK = 1000L;
+
+    private QueueEntryExpiryIndex _index;
+
+    @BeforeEach
+    public void setUp()
+    {
+        _index = new QueueEntryExpiryIndex(TICK);
+    }
+
+    @Test
+    public void pollExpiredReturnsOnlyDueEntries()
+    {
+        final QueueEntry past = createEntry(true);
+        final QueueEntry future = createEntry(false);
+        _index.add(past, 1500L);
+        _index.add(future, 10500L);
+
+        final List<QueueEntry> expired = new ArrayList<>();
+        _index.pollExpired(5000L, expired::add);
+
+        assertEquals(List.of(past), expired);
+        assertEquals(1, _index.size());
+    }
+
+    @Test
+    public void pollExpiredChecksEntriesInCurrentBucket()
+    {
+        final QueueEntry due = createEntry(true);
+        final QueueEntry notYetDue = createEntry(false);
+        _index.add(due, 5100L);
+        _index.add(notYetDue, 5900L);
+
+        final List<QueueEntry> expired = new ArrayList<>();
+        _index.pollExpired(5500L, expired::add);
+
+        assertEquals(List.of(due), expired);
+        assertEquals(1, _index.size());
+    }
+
+    @Test
+    public void removedEntryIsNotPolled()
+    {
+        final QueueEntry entry = createEntry(true);
+        _index.add(entry, 1500L);
+        _index.remove(entry, 1500L);
+
+        final List<QueueEntry> expired = new ArrayList<>();
+        _index.pollExpired(5000L, expired::add);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(0, _index.size());
+    }
+
+    @Test
+    public void updateMovesEntryToNewBucket()
+    {
+        final QueueEntry entry = createEntry(true);
+        _index.add(entry, 10500L);
+        _index.update(entry, 10500L, 1500L);
+
+        final List<QueueEntry> expired = new ArrayList<>();
+        _index.pollExpired(5000L, expired::add);
+
+        assertEquals(List.of(entry), expired);
+        assertEquals(0, _index.size());
+    }
+
+    @Test
+    public void entryWithoutExpirationIsNotIndexed()
+    {
+        _index.add(createEntry(false), 0L);
+
+        assertEquals(0, _index.size());
+    }
+
+    private QueueEntry createEntry(final boolean expired)
+    {
+        final QueueEntry entry = mock(QueueEntry.class);
+        when(entry.expired()).thenReturn(expired);
+        return entry;
+    }
+}
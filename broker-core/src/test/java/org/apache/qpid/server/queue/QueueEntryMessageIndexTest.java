@@ -0,0 +1,106 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class QueueEntryMessageIndexTest extends UnitTestBase
+{
+    private QueueEntryMessageIndex _index;
+
+    @BeforeEach
+    public void setUp()
+    {
+        _index = new QueueEntryMessageIndex();
+    }
+
+    @Test
+    public void putAndGet()
+    {
+        final QueueEntry entry = mock(QueueEntry.class);
+        _index.put(1L, entry);
+
+        assertSame(entry, _index.get(1L));
+        assertNull(_index.get(2L));
+        assertEquals(1, _index.size());
+    }
+
+    @Test
+    public void removeRequiresMatchingEntry()
+    {
+        final QueueEntry entry = mock(QueueEntry.class);
+        _index.put(1L, entry);
+
+        assertFalse(_index.remove(1L, mock(QueueEntry.class)));
+        assertSame(entry, _index.get(1L));
+
+        assertTrue(_index.remove(1L, entry));
+        assertNull(_index.get(1L));
+        assertEquals(0, _index.size());
+    }
+
+    @Test
+    public void growAndShrink()
+    {
+        final int count = 10000;
+        final QueueEntry[] entries = new QueueEntry[count];
+        for (int i = 0; i < count; i++)
+        {
+            entries[i] = mock(QueueEntry.class);
+            _index.put(i, entries[i]);
+        }
+        assertEquals(count, _index.size());
+
+        for (int i = 0; i < count; i += 2)
+        {
+            assertTrue(_index.remove(i, entries[i]), "Failed to remove " + i);
+        }
+        assertEquals(count / 2, _index.size());
+
+        for (int i = 0; i < count; i++)
+        {
+            if (i % 2 == 0)
+            {
+                assertNull(_index.get(i), "Unexpected entry for " + i);
+            }
+            else
+            {
+                assertSame(entries[i], _index.get(i), "Unexpected entry for " + i);
+            }
+        }
+
+        for (int i = 1; i < count; i += 2)
+        {
+            assertTrue(_index.remove(i, entries[i]), "Failed to remove " + i);
+        }
+        assertEquals(0, _index.size());
+    }
+}
@@ -21,6 +21,7 @@
 package org.apache.qpid.server.queue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -91,6 +92,32 @@ public class QueueMessageRecoveryTest extends UnitTestBase
         }
     }
 
+    @Test
+    public void testRecoveryStatistics()
+    {
+        final List<ServerMessage<?>> messageList = new ArrayList<>();
+        final TestQueue queue = new TestQueue(Map.of(Queue.NAME, getTestName()), _vhost, messageList);
+
+        queue.open();
+        assertEquals(0L, queue.getRecoveryDuration());
+
+        final ServerMessage<?> message1 = createMockMessage(0);
+        when(message1.getSizeIncludingHeader()).thenReturn(100L);
+        final ServerMessage<?> message2 = createMockMessage(1);
+        when(message2.getSizeIncludingHeader()).thenReturn(50L);
+        queue.recover(message1, createEnqueueRecord(0, queue));
+        queue.recover(message2, createEnqueueRecord(1, queue));
+
+        assertEquals(2L, queue.getRecoveredMessages());
+        assertEquals(150L, queue.getRecoveredBytes());
+
+        queue.completeRecovery();
+
+        final long recoveryDuration = queue.getRecoveryDuration();
+        assertTrue(recoveryDuration >= 0L);
+        assertEquals(recoveryDuration, queue.getRecoveryDuration(), "Duration should not change once recovered");
+    }
+
     @Test
     public void testMultiThreadedRecovery() throws Exception
     {
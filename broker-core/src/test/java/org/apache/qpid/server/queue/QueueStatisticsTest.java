@@ -56,7 +56,7 @@ public class QueueStatisticsTest extends UnitTestBase
     {
         final Map<String, Object> statistics = _queue.getStatistics();
 
-        assertEquals(27, statistics.size());
+        assertEquals(39, statistics.size());
 
         assertTrue(statistics.containsKey("availableBytes"));
         assertTrue(statistics.containsKey("availableBytesHighWatermark"));
@@ -65,6 +65,14 @@ public class QueueStatisticsTest extends UnitTestBase
         assertTrue(statistics.containsKey("bindingCount"));
         assertTrue(statistics.containsKey("consumerCount"));
         assertTrue(statistics.containsKey("consumerCountWithCredit"));
+        assertTrue(statistics.containsKey("messageGroupAssignmentContentionCount"));
+        assertTrue(statistics.containsKey("messageGroupCount"));
+        assertTrue(statistics.containsKey("enqueueToDeliveryLatencyP50"));
+        assertTrue(statistics.containsKey("enqueueToDeliveryLatencyP99"));
+        assertTrue(statistics.containsKey("enqueueToDeliveryLatencyMax"));
+        assertTrue(statistics.containsKey("deliveryToAcknowledgementLatencyP50"));
+        assertTrue(statistics.containsKey("deliveryToAcknowledgementLatencyP99"));
+        assertTrue(statistics.containsKey("deliveryToAcknowledgementLatencyMax"));
         assertTrue(statistics.containsKey("producerCount"));
         assertTrue(statistics.containsKey("oldestMessageAge"));
         assertTrue(statistics.containsKey("persistentDequeuedBytes"));
@@ -75,6 +83,10 @@ public class QueueStatisticsTest extends UnitTestBase
         assertTrue(statistics.containsKey("queueDepthBytesHighWatermark"));
         assertTrue(statistics.containsKey("queueDepthMessages"));
         assertTrue(statistics.containsKey("queueDepthMessagesHighWatermark"));
+        assertTrue(statistics.containsKey("purgedMessages"));
+        assertTrue(statistics.containsKey("recoveredBytes"));
+        assertTrue(statistics.containsKey("recoveredMessages"));
+        assertTrue(statistics.containsKey("recoveryDuration"));
         assertTrue(statistics.containsKey("totalDequeuedBytes"));
         assertTrue(statistics.containsKey("totalDequeuedMessages"));
         assertTrue(statistics.containsKey("totalMalformedBytes"));
@@ -93,6 +105,14 @@ public class QueueStatisticsTest extends UnitTestBase
         assertEquals(0, statistics.get("bindingCount"));
         assertEquals(0, statistics.get("consumerCount"));
         assertEquals(0, statistics.get("consumerCountWithCredit"));
+        assertEquals(0L, statistics.get("messageGroupAssignmentContentionCount"));
+        assertEquals(0, statistics.get("messageGroupCount"));
+        assertEquals(0L, statistics.get("enqueueToDeliveryLatencyP50"));
+        assertEquals(0L, statistics.get("enqueueToDeliveryLatencyP99"));
+        assertEquals(0L, statistics.get("enqueueToDeliveryLatencyMax"));
+        assertEquals(0L, statistics.get("deliveryToAcknowledgementLatencyP50"));
+        assertEquals(0L, statistics.get("deliveryToAcknowledgementLatencyP99"));
+        assertEquals(0L, statistics.get("deliveryToAcknowledgementLatencyMax"));
         assertEquals(0L, statistics.get("producerCount"));
         assertEquals(0L, statistics.get("oldestMessageAge"));
         assertEquals(0L, statistics.get("persistentDequeuedBytes"));
@@ -103,6 +123,10 @@ public class QueueStatisticsTest extends UnitTestBase
         assertEquals(0L, statistics.get("queueDepthBytesHighWatermark"));
         assertEquals(0, statistics.get("queueDepthMessages"));
         assertEquals(0, statistics.get("queueDepthMessagesHighWatermark"));
+        assertEquals(0L, statistics.get("purgedMessages"));
+        assertEquals(0L, statistics.get("recoveredBytes"));
+        assertEquals(0L, statistics.get("recoveredMessages"));
+        assertEquals(0L, statistics.get("recoveryDuration"));
         assertEquals(0L, statistics.get("totalDequeuedBytes"));
         assertEquals(0L, statistics.get("totalDequeuedMessages"));
         assertEquals(0L, statistics.get("totalMalformedBytes"));
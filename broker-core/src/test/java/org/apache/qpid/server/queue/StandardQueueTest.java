@@ -24,17 +24,25 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
 import org.apache.qpid.server.consumer.ConsumerOption;
 import org.apache.qpid.server.consumer.TestConsumerTarget;
+import org.apache.qpid.server.filter.AMQPFilterTypes;
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.ServerMessage;
@@ -189,6 +197,206 @@ public class StandardQueueTest extends AbstractQueueTestBase
         assertEquals(MessageDurability.NEVER, queue.getMessageDurability());
     }
 
+    @Test
+    public void testSelectorPartitioningDisabledByDefault() throws Exception
+    {
+        final AbstractQueue<?> queue = (AbstractQueue<?>) getQueue();
+        final TestConsumerTarget target = new TestConsumerTarget();
+        final ServerMessage<?> red = createMessage(1L, (byte) 4, Map.of("colour", "red"), 0L);
+        queue.addConsumer(target, createSelectorFilterManager("colour = 'red'"), red.getClass(), "red",
+                          EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        queue.enqueue(red, null, null);
+        while (target.processPending());
+
+        assertEquals(0, queue.getSelectorPartitionCount(), "Unexpected number of selector partitions");
+        assertEquals(List.of(red), getMessages(target), "Unexpected messages received by consumer");
+    }
+
+    @Test
+    public void testSelectorPartitionedConsumersReceiveOnlyMatchingMessages() throws Exception
+    {
+        final AbstractQueue<?> queue = createSelectorPartitionedQueue();
+        final ServerMessage<?> red1 = createMessage(1L, (byte) 4, Map.of("colour", "red"), 0L);
+        final ServerMessage<?> blue1 = createMessage(2L, (byte) 4, Map.of("colour", "blue"), 0L);
+        final ServerMessage<?> numeric = createMessage(3L, (byte) 4, Map.of("colour", 3), 0L);
+        queue.enqueue(red1, null, null);
+        queue.enqueue(blue1, null, null);
+        queue.enqueue(numeric, null, null);
+
+        final TestConsumerTarget redTarget = new TestConsumerTarget();
+        final TestConsumerTarget blueTarget = new TestConsumerTarget();
+        final QueueConsumer<?, ?> redConsumer = (QueueConsumer<?, ?>) queue.addConsumer(redTarget,
+                createSelectorFilterManager("colour = 'red'"), red1.getClass(), "red",
+                EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        final QueueConsumer<?, ?> blueConsumer = (QueueConsumer<?, ?>) queue.addConsumer(blueTarget,
+                createSelectorFilterManager("'blue' = colour"), red1.getClass(), "blue",
+                EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+        assertEquals(2, queue.getSelectorPartitionCount(), "Unexpected number of selector partitions");
+
+        final ServerMessage<?> red2 = createMessage(4L, (byte) 4, Map.of("colour", "red"), 0L);
+        final ServerMessage<?> green = createMessage(5L, (byte) 4, Map.of("colour", "green"), 0L);
+        final ServerMessage<?> blue2 = createMessage(6L, (byte) 4, Map.of("colour", "blue"), 0L);
+        queue.enqueue(red2, null, null);
+        queue.enqueue(green, null, null);
+        queue.enqueue(blue2, null, null);
+        while (redTarget.processPending() || blueTarget.processPending());
+
+        assertEquals(List.of(red1, red2),
+                     redTarget.getMessages().stream().map(MessageInstance::getMessage).collect(Collectors.toList()),
+                     "Unexpected messages received by red consumer");
+        assertEquals(List.of(blue1, blue2),
+                     blueTarget.getMessages().stream().map(MessageInstance::getMessage).collect(Collectors.toList()),
+                     "Unexpected messages received by blue consumer");
+
+        redConsumer.close();
+        blueConsumer.close();
+        assertEquals(0, queue.getSelectorPartitionCount(), "Unexpected number of selector partitions");
+    }
+
+    @Test
+    public void testSelectorPartitionedConsumerReceivesAllMatchingMessagesOfConcurrentProducers() throws Exception
+    {
+        final int producerCount = 4;
+        final int messagesPerProducer = 500;
+        final AbstractQueue<?> queue = createSelectorPartitionedQueue();
+
+        final List<List<ServerMessage<?>>> producerMessages = new ArrayList<>();
+        final Set<ServerMessage<?>> redMessages = new HashSet<>();
+        long messageId = 0L;
+        for (int i = 0; i < producerCount; i++)
+        {
+            final List<ServerMessage<?>> messages = new ArrayList<>();
+            for (int j = 0; j < messagesPerProducer; j++)
+            {
+                final String colour = j % 2 == 0 ? "red" : "blue";
+                final ServerMessage<?> message = createMessage(++messageId, (byte) 4, Map.of("colour", colour), 0L);
+                messages.add(message);
+                if ("red".equals(colour))
+                {
+                    redMessages.add(message);
+                }
+            }
+            producerMessages.add(messages);
+        }
+
+        final TestConsumerTarget redTarget = new TestConsumerTarget();
+        queue.addConsumer(redTarget, createSelectorFilterManager("colour = 'red'"),
+                          producerMessages.get(0).get(0).getClass(), "red",
+                          EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        final Thread consumerThread = new Thread(() ->
+        {
+            while (producing.get())
+            {
+                redTarget.processPending();
+            }
+        }, "red-consumer");
+        consumerThread.start();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> producers = new ArrayList<>();
+        for (final List<ServerMessage<?>> messages : producerMessages)
+        {
+            final Thread producer = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                messages.forEach(message -> queue.enqueue(message, null, null));
+            }, "producer-" + producers.size());
+            producers.add(producer);
+            producer.start();
+        }
+        start.countDown();
+        for (Thread producer : producers)
+        {
+            producer.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        producing.set(false);
+        consumerThread.join(TimeUnit.MINUTES.toMillis(1));
+        while (redTarget.processPending());
+
+        final List<ServerMessage<?>> received = getMessages(redTarget);
+        assertEquals(redMessages.size(), received.size(), "Unexpected number of messages received by red consumer");
+        assertEquals(redMessages, new HashSet<>(received), "Matching messages not received by red consumer");
+    }
+
+    @Test
+    public void testSharedMessageGroupsRedeliveredToRemainingConsumerOnRelease() throws Exception
+    {
+        final AbstractQueue<?> queue = (AbstractQueue<?>) getVirtualHost().createChild(Queue.class,
+                Map.of(Queue.NAME, getTestName(),
+                       Queue.MESSAGE_GROUP_TYPE, MessageGroupType.SHARED_GROUPS,
+                       Queue.MESSAGE_GROUP_KEY_OVERRIDE, "group"));
+        try
+        {
+            final ServerMessage<?> a1 = createMessage(1L, (byte) 4, Map.of("group", "a"), 0L);
+            final ServerMessage<?> b1 = createMessage(2L, (byte) 4, Map.of("group", "b"), 0L);
+            queue.enqueue(a1, null, null);
+            queue.enqueue(b1, null, null);
+
+            final TestConsumerTarget target1 = new TestConsumerTarget();
+            final QueueConsumer<?, ?> consumer1 = (QueueConsumer<?, ?>) queue.addConsumer(target1, null,
+                    a1.getClass(), "consumer1", EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+            while (target1.processPending());
+            assertEquals(List.of(a1, b1), getMessages(target1), "Unexpected messages received by first consumer");
+            assertEquals(2, queue.getMessageGroupCount(), "Unexpected number of message groups");
+
+            final TestConsumerTarget target2 = new TestConsumerTarget();
+            queue.addConsumer(target2, null, a1.getClass(), "consumer2",
+                              EnumSet.of(ConsumerOption.ACQUIRES, ConsumerOption.SEES_REQUEUES), 0);
+            final ServerMessage<?> a2 = createMessage(3L, (byte) 4, Map.of("group", "a"), 0L);
+            final ServerMessage<?> c1 = createMessage(4L, (byte) 4, Map.of("group", "c"), 0L);
+            queue.enqueue(a2, null, null);
+            queue.enqueue(c1, null, null);
+            while (target2.processPending());
+            assertEquals(List.of(c1), getMessages(target2), "Group assigned to the first consumer was not skipped");
+            assertEquals(3, queue.getMessageGroupCount(), "Unexpected number of message groups");
+
+            consumer1.close();
+            target1.getMessages().forEach(instance -> instance.release(consumer1));
+            while (target2.processPending());
+            assertEquals(List.of(c1, a1, b1, a2), getMessages(target2),
+                         "Messages of released groups not delivered to the remaining consumer in order");
+            assertEquals(3, queue.getMessageGroupCount(), "Unexpected number of message groups");
+        }
+        finally
+        {
+            queue.close();
+        }
+    }
+
+    private AbstractQueue<?> createSelectorPartitionedQueue()
+    {
+        getQueue().close();
+        getQueue().delete();
+
+        final Queue<?> queue = getVirtualHost().createChild(Queue.class,
+                Map.of(Queue.NAME, getQname(),
+                       Queue.CONTEXT, Map.of(Queue.QUEUE_SELECTOR_PARTITIONING_ENABLED, "true")));
+        setQueue(queue);
+        return (AbstractQueue<?>) queue;
+    }
+
+    private List<ServerMessage<?>> getMessages(final TestConsumerTarget target)
+    {
+        return target.getMessages().stream().<ServerMessage<?>>map(MessageInstance::getMessage).collect(Collectors.toList());
+    }
+
+    private FilterManager createSelectorFilterManager(final String selector) throws Exception
+    {
+        final FilterManager filterManager = new FilterManager();
+        filterManager.add(AMQPFilterTypes.JMS_SELECTOR.toString(), new JMSSelectorFilter(selector));
+        return filterManager;
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     private final class DequeuedQueue extends AbstractQueue
     {
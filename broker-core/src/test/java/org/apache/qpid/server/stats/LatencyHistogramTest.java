@@ -0,0 +1,119 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class LatencyHistogramTest extends UnitTestBase
+{
+    @Test
+    public void emptyHistogram()
+    {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram("test", "test").takeSnapshot();
+
+        assertEquals(0L, snapshot.getCount());
+        assertEquals(0L, snapshot.getSum());
+        assertEquals(0L, snapshot.getMax());
+        assertEquals(0L, snapshot.getValueAtQuantile(0.5));
+    }
+
+    @Test
+    public void quantiles()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram("test", "test");
+        for (int i = 1; i <= 1000; i++)
+        {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.takeSnapshot();
+        assertEquals(1000L, snapshot.getCount());
+        assertEquals(500500000L, snapshot.getSum());
+        assertEquals(1000000L, snapshot.getMax());
+        assertWithinBucket(500000L, snapshot.getValueAtQuantile(0.5));
+        assertWithinBucket(990000L, snapshot.getValueAtQuantile(0.99));
+        assertEquals(1000000L, snapshot.getValueAtQuantile(1.0));
+    }
+
+    @Test
+    public void latencyAboveTrackableMaximum()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram("test", "test");
+        final long latency = LatencyHistogram.MAXIMUM_TRACKABLE_MICROS * 4;
+        histogram.record(latency, TimeUnit.MICROSECONDS);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.takeSnapshot();
+        assertEquals(1L, snapshot.getCount());
+        assertEquals(latency, snapshot.getMax());
+        assertEquals(latency, snapshot.getValueAtQuantile(0.5));
+    }
+
+    @Test
+    public void bucketBounds()
+    {
+        for (long micros = 0; micros < 100000; micros++)
+        {
+            final int bucket = LatencyHistogram.bucketIndex(micros);
+            assertTrue(micros <= LatencyHistogram.bucketUpperBound(bucket), "Upper bound below " + micros);
+            assertTrue(bucket == 0 || micros > LatencyHistogram.bucketUpperBound(bucket - 1),
+                       "Previous upper bound not below " + micros);
+        }
+    }
+
+    @Test
+    public void reset()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram("test", "test");
+        histogram.record(10, TimeUnit.MILLISECONDS);
+        assertEquals(1L, histogram.getSnapshot().getCount());
+
+        histogram.reset();
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(0L, snapshot.getCount());
+        assertEquals(0L, snapshot.getMax());
+    }
+
+    @Test
+    public void valuesConvertedToRequestedUnit()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram("test", "test", 1);
+        histogram.record(3, TimeUnit.MILLISECONDS);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.takeSnapshot();
+        assertEquals(3000L, snapshot.getMax());
+        assertEquals(3L, snapshot.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(3L, snapshot.getValueAtQuantile(0.5, TimeUnit.MILLISECONDS));
+    }
+
+    private void assertWithinBucket(final long expected, final long actual)
+    {
+        assertTrue(actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKET_COUNT,
+                   "Unexpected quantile value " + actual + " for " + expected);
+    }
+}
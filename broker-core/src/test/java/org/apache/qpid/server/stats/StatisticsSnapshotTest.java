@@ -0,0 +1,130 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestCar;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestElecEngineImpl;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestEngine;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestKitCarImpl;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestModel;
+import org.apache.qpid.server.model.testmodels.hierarchy.TestPetrolEngineImpl;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class StatisticsSnapshotTest extends UnitTestBase
+{
+    private TestCar<?> _car;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp()
+    {
+        _car = TestModel.getInstance().getObjectFactory().create(TestCar.class,
+                                                                 Map.of(ConfiguredObject.NAME, "car",
+                                                                        ConfiguredObject.TYPE,
+                                                                        TestKitCarImpl.TEST_KITCAR_TYPE),
+                                                                 null);
+    }
+
+    @Test
+    public void statisticsOfDescendants()
+    {
+        final TestEngine<?> electricEngine = createEngine("electric", TestElecEngineImpl.TEST_ELEC_ENGINE_TYPE);
+        final TestEngine<?> petrolEngine = createEngine("petrol", TestPetrolEngineImpl.TEST_PETROL_ENGINE_TYPE);
+        _car.move(100);
+
+        final StatisticsSnapshot snapshot = StatisticsSnapshot.create(_car);
+
+        assertEquals(3, snapshot.getObjectCount());
+        assertEquals(3, snapshot.getTypeStatistics().size(), "Unexpected number of types");
+        assertEquals(_car.getStatistics(), snapshot.getObjectStatistics(_car).toMap());
+        assertEquals(electricEngine.getStatistics(), snapshot.getObjectStatistics(electricEngine).toMap());
+        assertEquals(petrolEngine.getStatistics(), snapshot.getObjectStatistics(petrolEngine).toMap());
+    }
+
+    @Test
+    public void snapshotIsPointInTime()
+    {
+        final StatisticsSnapshot snapshot = StatisticsSnapshot.create(_car);
+        _car.move(100);
+        final TestEngine<?> engine = createEngine("electric", TestElecEngineImpl.TEST_ELEC_ENGINE_TYPE);
+
+        assertEquals(0, snapshot.getObjectStatistics(_car).toMap().get("mileage"));
+        assertNull(snapshot.getObjectStatistics(engine), "Object created after the snapshot was taken");
+    }
+
+    @Test
+    public void typeStatistics()
+    {
+        _car.move(100);
+
+        final StatisticsSnapshot.TypeStatistics typeStatistics =
+                StatisticsSnapshot.create(_car).getTypeStatistics().iterator().next();
+
+        assertEquals(TestCar.class, typeStatistics.getCategoryClass());
+        assertEquals(1, typeStatistics.size());
+        assertSame(_car, typeStatistics.getObject(0));
+        final int column = findColumn(typeStatistics, "mileage");
+        assertEquals(100.0, typeStatistics.getDoubleValue(0, column), 0.0);
+        assertEquals(100, typeStatistics.getValue(0, column));
+    }
+
+    @Test
+    public void cacheSharesSnapshotUntilRefreshIntervalElapses()
+    {
+        final StatisticsSnapshotCache sharedCache = new StatisticsSnapshotCache(_car, () -> 60000L);
+        final StatisticsSnapshot snapshot = sharedCache.getSnapshot();
+        assertNotNull(snapshot);
+        assertSame(snapshot, sharedCache.getSnapshot());
+
+        final StatisticsSnapshotCache refreshingCache = new StatisticsSnapshotCache(_car, () -> 0L);
+        assertNotSame(refreshingCache.getSnapshot(), refreshingCache.getSnapshot());
+    }
+
+    private int findColumn(final StatisticsSnapshot.TypeStatistics typeStatistics, final String name)
+    {
+        for (int column = 0; column < typeStatistics.getStatistics().size(); column++)
+        {
+            if (name.equals(typeStatistics.getStatistics().get(column).getName()))
+            {
+                return column;
+            }
+        }
+        throw new AssertionError("Statistic not found: " + name);
+    }
+
+    private TestEngine<?> createEngine(final String name, final String type)
+    {
+        return (TestEngine<?>) _car.createChild(TestEngine.class,
+                                                Map.of(ConfiguredObject.NAME, name, ConfiguredObject.TYPE, type));
+    }
+}
@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.server.store;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -36,6 +37,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +53,7 @@ import org.mockito.ArgumentMatcher;
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.internal.InternalMessage;
 import org.apache.qpid.server.model.UUIDGenerator;
 import org.apache.qpid.server.model.VirtualHost;
@@ -508,6 +511,65 @@ public abstract class MessageStoreTestCase extends UnitTestBase
         assertTrue(storedMessage.isInContentInMemory());
     }
 
+    @Test
+    public void testGetContentRangeAfterFlowToDisk()
+    {
+        assumeTrue(flowToDiskSupported());
+
+        final StoredMessage<?> storedMessage = createStoredMessage();
+        final int contentSize = storedMessage.getContentSize();
+        final byte[] content = new byte[contentSize];
+        try (QpidByteBuffer buffer = storedMessage.getContent(0, contentSize))
+        {
+            buffer.get(content);
+        }
+        assertTrue(storedMessage.flowToDisk());
+
+        final byte[] range = new byte[contentSize - 3];
+        try (QpidByteBuffer buffer = storedMessage.getContent(2, range.length))
+        {
+            assertEquals(range.length, buffer.remaining());
+            buffer.get(range);
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, 2, contentSize - 1), range);
+        assertFalse(storedMessage.isInContentInMemory(), "Reading a range should not load the whole content");
+        assertEquals(0, storedMessage.getInMemorySize());
+    }
+
+    @Test
+    public void testReadContentPiecewiseAfterFlowToDisk()
+    {
+        assumeTrue(flowToDiskSupported());
+
+        final StoredMessage<?> storedMessage = createStoredMessage();
+        final int contentSize = storedMessage.getContentSize();
+        final byte[] content = new byte[contentSize];
+        try (QpidByteBuffer buffer = storedMessage.getContent(0, contentSize))
+        {
+            buffer.get(content);
+        }
+        assertTrue(storedMessage.flowToDisk());
+
+        final byte[] readContent = new byte[contentSize];
+        try (MessageContentReader reader = storedMessage.openContentReader())
+        {
+            int position = 0;
+            while (position < contentSize)
+            {
+                try (QpidByteBuffer buffer = reader.read(3))
+                {
+                    final int length = buffer.remaining();
+                    assertEquals(Math.min(3, contentSize - position), length);
+                    buffer.get(readContent, position, length);
+                    position += length;
+                }
+            }
+        }
+        assertArrayEquals(content, readContent);
+        assertFalse(storedMessage.isInContentInMemory(), "Reading piecewise should not load the whole content");
+        assertEquals(0, storedMessage.getInMemorySize());
+    }
+
     private StoredMessage<?> createStoredMessage()
     {
         return createStoredMessage(Map.of("test", "testValue"), "testContent", "testQueue");
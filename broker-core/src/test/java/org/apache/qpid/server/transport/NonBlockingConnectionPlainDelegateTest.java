@@ -0,0 +1,92 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class NonBlockingConnectionPlainDelegateTest extends UnitTestBase
+{
+    private static final int BUFFER_SIZE = 64;
+    private static final int POOL_SIZE = 20;
+    private static final double SPARSITY_FRACTION = 0.5;
+
+    private NonBlockingConnection _parent;
+    private NonBlockingConnectionPlainDelegate _delegate;
+
+    @BeforeEach
+    public void setUp()
+    {
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(BUFFER_SIZE, POOL_SIZE, SPARSITY_FRACTION);
+
+        final AmqpPort<?> port = mock(AmqpPort.class);
+        when(port.getNetworkBufferSize()).thenReturn(BUFFER_SIZE);
+        _parent = mock(NonBlockingConnection.class);
+        _delegate = new NonBlockingConnectionPlainDelegate(_parent, port);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        _delegate.shutdownInput();
+        QpidByteBuffer.deinitialisePool();
+    }
+
+    @Test
+    public void testInputBufferRetainedAfterDataProcessed()
+    {
+        doAnswer(invocation ->
+                 {
+                     final QpidByteBuffer data = invocation.getArgument(0);
+                     data.position(data.limit());
+                     return null;
+                 }).when(_parent).processAmqpData(any(QpidByteBuffer.class));
+        _delegate.getNetInputBuffer().put(new byte[]{1, 2, 3});
+        _delegate.processData();
+        _delegate.releaseIdleBuffers(System.currentTimeMillis());
+
+        assertEquals(BUFFER_SIZE - 3, _delegate.getRetainedBufferSize(), "Unexpected retained size");
+        assertEquals(1, QpidByteBuffer.getNumberOfBuffersInUse(), "Input buffer not shared by subsequent reads");
+    }
+
+    @Test
+    public void testBufferReleasedOnInputShutdown()
+    {
+        _delegate.shutdownInput();
+
+        assertNull(_delegate.getNetInputBuffer(), "Input buffer retained after input shutdown");
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size");
+    }
+}
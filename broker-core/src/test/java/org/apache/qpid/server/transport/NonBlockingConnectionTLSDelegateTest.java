@@ -0,0 +1,380 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.transport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.transport.network.security.ssl.SSLUtil;
+import org.apache.qpid.test.utils.UnitTestBase;
+import org.apache.qpid.test.utils.tls.CertificateEntry;
+import org.apache.qpid.test.utils.tls.KeyCertificatePair;
+import org.apache.qpid.test.utils.tls.PrivateKeyEntry;
+import org.apache.qpid.test.utils.tls.TlsResourceBuilder;
+import org.apache.qpid.test.utils.tls.TlsResourceHelper;
+
+public class NonBlockingConnectionTLSDelegateTest extends UnitTestBase
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int POOL_SIZE = 20;
+    private static final double SPARSITY_FRACTION = 0.5;
+    private static final int MAX_HANDSHAKE_STEPS = 20;
+    private static final char[] SECRET = "secret".toCharArray();
+    private static final long TASK_TIMEOUT_SECONDS = 10;
+    private static final long IDLE_BUFFER_RELEASE_DELAY = 1000L;
+
+    private AmqpPort<?> _port;
+    private NonBlockingConnection _parent;
+    private NonBlockingConnectionTLSDelegate _delegate;
+    private SSLEngine _clientEngine;
+    private ByteBuffer _transportOutput;
+    private boolean _transportBlocked;
+    private int _initialBuffersInUse;
+    private final List<Runnable> _offloadedHandshakeTasks = new ArrayList<>();
+    private ExecutorService _handshakeExecutor;
+    private int _handshakeTaskExecutions;
+    private final Semaphore _workNotifications = new Semaphore(0);
+    private int _handshakeTasksAwaited;
+    private boolean _unprocessedDataAfterTasks;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(BUFFER_SIZE, POOL_SIZE, SPARSITY_FRACTION);
+        _initialBuffersInUse = QpidByteBuffer.getNumberOfBuffersInUse();
+
+        final KeyCertificatePair keyCertPair = TlsResourceBuilder.createSelfSigned("CN=localhost");
+        final KeyStore keyStore = TlsResourceHelper.createKeyStore(KeyStore.getDefaultType(), SECRET,
+                new PrivateKeyEntry("server", keyCertPair.getPrivateKey(), keyCertPair.getCertificate()));
+        final KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, SECRET);
+        final SSLContext serverContext = SSLUtil.tryGetSSLContext();
+        serverContext.init(kmf.getKeyManagers(), null, null);
+
+        final KeyStore trustStore = TlsResourceHelper.createKeyStore(KeyStore.getDefaultType(), SECRET,
+                new CertificateEntry("server", keyCertPair.getCertificate()));
+        final TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(trustStore);
+        final SSLContext clientContext = SSLUtil.tryGetSSLContext();
+        clientContext.init(null, tmf.getTrustManagers(), null);
+        _clientEngine = clientContext.createSSLEngine();
+        _clientEngine.setUseClientMode(true);
+
+        _port = mock(AmqpPort.class);
+        when(_port.getNetworkBufferSize()).thenReturn(BUFFER_SIZE);
+        when(_port.getSSLContext()).thenReturn(serverContext);
+        when(_port.getContextValue(Boolean.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING)).thenReturn(false);
+        when(_port.getContextValue(Integer.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING_WARN_THRESHOLD)).thenReturn(1000);
+        when(_port.getContextValue(Integer.class, AmqpPort.PORT_DIAGNOSIS_OF_SSL_ENGINE_LOOPING_BREAK_THRESHOLD)).thenReturn(1005);
+        when(_port.getContextValue(Long.class, AmqpPort.TLS_IDLE_BUFFER_RELEASE_DELAY)).thenReturn(IDLE_BUFFER_RELEASE_DELAY);
+
+        _transportOutput = ByteBuffer.allocate(4 * BUFFER_SIZE);
+        _parent = mock(NonBlockingConnection.class);
+        doAnswer(invocation ->
+                 {
+                     long written = 0;
+                     if (!_transportBlocked)
+                     {
+                         final Collection<QpidByteBuffer> buffers = invocation.getArgument(0);
+                         for (QpidByteBuffer buffer : buffers)
+                         {
+                             final byte[] data = new byte[buffer.remaining()];
+                             buffer.get(data);
+                             _transportOutput.put(data);
+                             written += data.length;
+                         }
+                     }
+                     return written;
+                 }).when(_parent).writeToTransport(anyCollection());
+        doAnswer(invocation ->
+                 {
+                     _workNotifications.release();
+                     return null;
+                 }).when(_parent).notifyWork();
+
+        _delegate = new NonBlockingConnectionTLSDelegate(_parent, _port);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        _delegate.shutdownInput();
+        _delegate.shutdownOutput();
+        QpidByteBuffer.deinitialisePool();
+    }
+
+    @Test
+    public void testBuffersReturnedToPoolAfterHandshake() throws Exception
+    {
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size of new connection");
+        assertEquals(_initialBuffersInUse, QpidByteBuffer.getNumberOfBuffersInUse(),
+                     "Buffers acquired by new connection");
+
+        completeHandshake();
+        verify(_port).registerTlsHandshake(anyLong(), any(TimeUnit.class));
+
+        releaseIdleBuffers();
+
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size of idle connection");
+        assertEquals(_initialBuffersInUse, QpidByteBuffer.getNumberOfBuffersInUse(),
+                     "Buffers not released by idle connection");
+        assertTrue(QpidByteBuffer.getNumberOfBuffersInPool() > 0, "Buffers not returned to the pool");
+    }
+
+    @Test
+    public void testBuffersRetainedUntilConnectionIdle() throws Exception
+    {
+        completeHandshake();
+
+        final long activityTime = System.currentTimeMillis();
+        _delegate.releaseIdleBuffers(activityTime);
+        final long retainedBufferSize = _delegate.getRetainedBufferSize();
+        assertTrue(retainedBufferSize > 0, "Buffers released by active connection");
+        assertEquals(IDLE_BUFFER_RELEASE_DELAY, _delegate.getIdleBufferReleaseTicker().getTimeToNextTick(activityTime),
+                     "Unexpected time to idle buffer release");
+
+        _delegate.releaseIdleBuffers(activityTime + IDLE_BUFFER_RELEASE_DELAY - 1);
+        assertEquals(retainedBufferSize, _delegate.getRetainedBufferSize(),
+                     "Buffers released before idle buffer release delay");
+
+        _delegate.releaseIdleBuffers(activityTime + IDLE_BUFFER_RELEASE_DELAY);
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size of idle connection");
+        assertEquals(_initialBuffersInUse, QpidByteBuffer.getNumberOfBuffersInUse(),
+                     "Buffers not released by idle connection");
+        assertEquals(Integer.MAX_VALUE,
+                     _delegate.getIdleBufferReleaseTicker().getTimeToNextTick(activityTime + IDLE_BUFFER_RELEASE_DELAY),
+                     "Idle connection without buffers scheduled for buffer release");
+    }
+
+    @Test
+    public void testIdleWriteAcquiresNoBuffer() throws Exception
+    {
+        completeHandshake();
+        releaseIdleBuffers();
+
+        final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(Collections.emptyList());
+
+        assertTrue(result.isComplete(), "Write of no data not complete");
+        assertEquals(_initialBuffersInUse, QpidByteBuffer.getNumberOfBuffersInUse(),
+                     "Buffer acquired for write of no data");
+
+        releaseIdleBuffers();
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size of idle connection");
+    }
+
+    @Test
+    public void testEncryptedOutputRetainedWhileTransportBlocked() throws Exception
+    {
+        completeHandshake();
+        releaseIdleBuffers();
+
+        final byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+        _transportBlocked = true;
+        try (QpidByteBuffer data = QpidByteBuffer.wrap(message))
+        {
+            final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(List.of(data));
+
+            assertFalse(result.isComplete(), "Write to blocked transport complete");
+            assertEquals(message.length, result.getBytesConsumed(), "Unexpected number of bytes consumed");
+        }
+
+        releaseIdleBuffers();
+        assertEquals(BUFFER_SIZE, _delegate.getRetainedBufferSize(), "Encrypted output not accounted as retained");
+
+        _transportBlocked = false;
+        final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(Collections.emptyList());
+        assertTrue(result.isComplete(), "Write to unblocked transport not complete");
+
+        releaseIdleBuffers();
+        assertEquals(0, _delegate.getRetainedBufferSize(), "Unexpected retained size after encrypted output written");
+        assertEquals(_initialBuffersInUse, QpidByteBuffer.getNumberOfBuffersInUse(),
+                     "Buffers not released after encrypted output written");
+
+        final ByteBuffer received = ByteBuffer.allocate(BUFFER_SIZE);
+        _transportOutput.flip();
+        _clientEngine.unwrap(_transportOutput, received);
+        received.flip();
+        final byte[] receivedMessage = new byte[received.remaining()];
+        received.get(receivedMessage);
+        assertArrayEquals(message, receivedMessage, "Unexpected data received by client");
+    }
+
+    @Test
+    public void testHandshakeWithTasksRunByHandshakeExecutor() throws Exception
+    {
+        _handshakeExecutor = Executors.newSingleThreadExecutor();
+        try
+        {
+            when(_port.getTlsHandshakeExecutor()).thenReturn(_offloadedHandshakeTasks::add);
+            // the client's second TLS 1.2 flight holds records behind the one whose consumption needs a task
+            _clientEngine.setEnabledProtocols(new String[]{"TLSv1.2"});
+
+            completeHandshake();
+
+            assertTrue(_handshakeTaskExecutions > 0, "Handshake tasks not handed to the executor");
+            assertEquals(_handshakeTaskExecutions, _handshakeTasksAwaited,
+                         "Connection not notified of completed handshake tasks");
+            assertTrue(_unprocessedDataAfterTasks, "Input held back while tasks ran not reported as unprocessed");
+            verify(_port).registerTlsHandshake(anyLong(), any(TimeUnit.class));
+
+            final byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+            try (QpidByteBuffer data = QpidByteBuffer.wrap(message))
+            {
+                assertTrue(_delegate.doWrite(List.of(data)).isComplete(), "Write after handshake not complete");
+            }
+        }
+        finally
+        {
+            _handshakeExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Ends an I/O pass, and then another once the connection has been idle for the idle buffer release delay.
+     */
+    private void releaseIdleBuffers()
+    {
+        final long currentTime = System.currentTimeMillis();
+        _delegate.releaseIdleBuffers(currentTime);
+        _delegate.releaseIdleBuffers(currentTime + IDLE_BUFFER_RELEASE_DELAY);
+    }
+
+    /**
+     * Runs the handshake tasks handed to the executor on the executor thread, only once the IO thread has returned
+     * so that the input behind them is held back, and, as the IO thread does once the connection is notified of
+     * their completion, processes that input.
+     */
+    private void awaitHandshakeTasks() throws Exception
+    {
+        if (_handshakeExecutor == null)
+        {
+            return;
+        }
+        while (!_offloadedHandshakeTasks.isEmpty())
+        {
+            _handshakeTaskExecutions++;
+            _handshakeExecutor.execute(_offloadedHandshakeTasks.remove(0));
+            assertTrue(_workNotifications.tryAcquire(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                       "Connection not notified of completed handshake tasks");
+            _handshakeTasksAwaited++;
+            if (_delegate.hasUnprocessedData())
+            {
+                _unprocessedDataAfterTasks = true;
+                _delegate.processData();
+            }
+            _delegate.doWrite(Collections.emptyList());
+        }
+    }
+
+    private void completeHandshake() throws Exception
+    {
+        final ByteBuffer clientOutput = ByteBuffer.allocate(BUFFER_SIZE);
+        final ByteBuffer clientInput = ByteBuffer.allocate(BUFFER_SIZE);
+        _clientEngine.beginHandshake();
+
+        boolean exchanged;
+        int steps = 0;
+        do
+        {
+            exchanged = false;
+
+            clientOutput.clear();
+            while (_clientEngine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP)
+            {
+                _clientEngine.wrap(ByteBuffer.allocate(0), clientOutput);
+                runClientTasks();
+            }
+            clientOutput.flip();
+            if (clientOutput.hasRemaining())
+            {
+                _delegate.getNetInputBuffer().put(clientOutput);
+                _delegate.processData();
+                awaitHandshakeTasks();
+                exchanged = true;
+            }
+
+            _delegate.doWrite(Collections.emptyList());
+            awaitHandshakeTasks();
+            _transportOutput.flip();
+            exchanged |= _transportOutput.hasRemaining();
+            while (_transportOutput.hasRemaining())
+            {
+                final SSLEngineResult result = _clientEngine.unwrap(_transportOutput, clientInput);
+                runClientTasks();
+                if (result.bytesConsumed() == 0)
+                {
+                    break;
+                }
+            }
+            _transportOutput.compact();
+        }
+        while ((exchanged || _clientEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING)
+               && ++steps < MAX_HANDSHAKE_STEPS);
+
+        assertEquals(SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING, _clientEngine.getHandshakeStatus(),
+                     "Client handshake not complete");
+        assertEquals(0, _transportOutput.position(), "Unprocessed handshake data");
+    }
+
+    private void runClientTasks()
+    {
+        Runnable task;
+        while ((task = _clientEngine.getDelegatedTask()) != null)
+        {
+            task.run();
+        }
+    }
+}
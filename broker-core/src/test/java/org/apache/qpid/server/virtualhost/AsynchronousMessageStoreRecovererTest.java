@@ -29,12 +29,14 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -43,8 +45,10 @@ import java.util.concurrent.ExecutionException;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
@@ -143,6 +147,45 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
                 serverMessage.getMessageNumber() == storedMessage.getMessageNumber()), same(messageEnqueueRecord));
     }
 
+    @Test
+    public void testParallelRecoveryOfQueuesSharingMessage() throws Exception
+    {
+        when(_virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.RECOVERY_THREAD_COUNT)).thenReturn(2);
+        when(_store.getNextMessageId()).thenReturn(2L);
+
+        final StoredMessage<?> storedMessage = createTestMessage(1L);
+        final MessageEnqueueRecord messageEnqueueRecord = mock(MessageEnqueueRecord.class);
+        when(messageEnqueueRecord.getMessageNumber()).thenReturn(1L);
+
+        final Set<Queue<?>> queues = new HashSet<>();
+        for (int i = 0; i < 8; i++)
+        {
+            final Queue<?> queue = mock(Queue.class);
+            when(queue.getId()).thenReturn(randomUUID());
+            queues.add(queue);
+        }
+        when(_virtualHost.getChildren(eq(Queue.class))).thenReturn((Set) queues);
+
+        final MockStoreReader storeReader =
+                new MockStoreReader(Collections.singletonList(messageEnqueueRecord), List.of(storedMessage));
+        when(_store.newMessageStoreReader()).thenReturn(storeReader);
+
+        final AsynchronousMessageStoreRecoverer recoverer = new AsynchronousMessageStoreRecoverer();
+        final ListenableFuture<Void> result = recoverer.recover(_virtualHost);
+        assertNull(result.get());
+
+        final Set<ServerMessage<?>> recoveredMessages = new HashSet<>();
+        for (Queue<?> queue : queues)
+        {
+            final ArgumentCaptor<ServerMessage> messageCaptor = ArgumentCaptor.forClass(ServerMessage.class);
+            verify(queue).recover(messageCaptor.capture(), same(messageEnqueueRecord));
+            verify(queue).completeRecovery();
+            recoveredMessages.add(messageCaptor.getValue());
+        }
+        assertEquals(1, recoveredMessages.size(), "Message shared by queues should be recovered once");
+        verify(storedMessage, never()).remove();
+    }
+
     private StoredMessage<?> createTestMessage(final long messageNumber)
     {
         final StorableMessageMetaData metaData = new TestMessageMetaData(messageNumber, 0);
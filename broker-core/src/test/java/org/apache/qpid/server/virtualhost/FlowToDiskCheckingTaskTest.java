@@ -21,9 +21,11 @@
 
 package org.apache.qpid.server.virtualhost;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +43,7 @@ import org.apache.qpid.server.message.internal.InternalMessage;
 import org.apache.qpid.server.model.BrokerTestHelper;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.queue.PriorityQueue;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.test.utils.UnitTestBase;
@@ -51,6 +54,7 @@ public class FlowToDiskCheckingTaskTest extends UnitTestBase
     private AbstractVirtualHost<?> _virtualHost;
     private Queue<?> _queue;
     private AbstractVirtualHost<?>.FlowToDiskCheckingTask _task;
+    private long _targetSize;
 
     @BeforeAll
     public void beforeAll() throws Exception
@@ -65,6 +69,7 @@ public class FlowToDiskCheckingTaskTest extends UnitTestBase
     public void setUp() throws Exception
     {
         _task = _virtualHost. new FlowToDiskCheckingTask();
+        _targetSize = _virtualHost.getTargetSize();
         _queue = _virtualHost.createChild(Queue.class, Map.of(Queue.NAME, getTestName()));
         _queue.enqueue(InternalMessage.createMessage(_virtualHost.getMessageStore(),
                                                      mock(AMQMessageHeader.class),
@@ -76,6 +81,7 @@ public class FlowToDiskCheckingTaskTest extends UnitTestBase
     @AfterEach
     public void tearDown() throws Exception
     {
+        _virtualHost.setTargetSize(_targetSize);
         if (_queue != null)
         {
             _queue.close();
@@ -94,6 +100,61 @@ public class FlowToDiskCheckingTaskTest extends UnitTestBase
         verify(message.getStoredMessage()).flowToDisk();
     }
 
+    @Test
+    public void testFlowedRegionIsSkippedOnNextCheck()
+    {
+        final ServerMessage<?> message = createMessage(10, 20);
+        when(message.getStoredMessage().flowToDisk()).thenReturn(true);
+        _queue.enqueue(message, null, null);
+
+        makeVirtualHostTargetSizeExceeded();
+
+        _task.execute();
+        verify(message.getStoredMessage()).flowToDisk();
+        assertEquals(30L, _virtualHost.getLastFlowToDiskCheckFlowedBytes(), "Unexpected flowed bytes");
+
+        _task.execute();
+        verify(message.getStoredMessage(), times(1)).flowToDisk();
+        assertEquals(0L, _virtualHost.getLastFlowToDiskCheckFlowedBytes(), "Unexpected flowed bytes");
+
+        final ServerMessage<?> message2 = createMessage(10, 40);
+        when(message2.getStoredMessage().flowToDisk()).thenReturn(true);
+        _virtualHost.setTargetSize(_targetSize);
+        _queue.enqueue(message2, null, null);
+        makeVirtualHostTargetSizeExceeded();
+
+        _task.execute();
+        verify(message.getStoredMessage(), times(1)).flowToDisk();
+        verify(message2.getStoredMessage()).flowToDisk();
+        assertEquals(50L, _virtualHost.getLastFlowToDiskCheckFlowedBytes(), "Unexpected flowed bytes");
+    }
+
+    @Test
+    public void testFlowedRegionOfPriorityQueueIsNotSkipped()
+    {
+        final Queue<?> priorityQueue = _virtualHost.createChild(Queue.class,
+                Map.of(Queue.NAME, getTestName() + "_priority", PriorityQueue.PRIORITIES, 3));
+        try
+        {
+            final ServerMessage<?> message = createMessage(10, 20);
+            when(message.getStoredMessage().flowToDisk()).thenReturn(true);
+            priorityQueue.enqueue(message, null, null);
+
+            makeVirtualHostTargetSizeExceeded();
+
+            _task.execute();
+            verify(message.getStoredMessage()).flowToDisk();
+
+            // entries of a priority queue may be inserted within a flowed region, so it is walked again
+            _task.execute();
+            verify(message.getStoredMessage(), times(2)).flowToDisk();
+        }
+        finally
+        {
+            priorityQueue.close();
+        }
+    }
+
     private void makeVirtualHostTargetSizeExceeded()
     {
         if (_virtualHost.getInMemoryMessageSize() == 0)
@@ -35,9 +35,9 @@ import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstance.ConsumerAcquiredState;
 import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.converter.MessageConversionException;
 import org.apache.qpid.server.protocol.v0_10.transport.DeliveryProperties;
@@ -188,7 +188,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         MessageProperties messageProps = null;
 
         MessageTransferMessage msg;
-        MessageConverter<? super ServerMessage, MessageTransferMessage> converter = null;
+        MessageReference<MessageTransferMessage> convertedMessageReference = null;
 
         if(serverMsg instanceof MessageTransferMessage)
         {
@@ -202,8 +202,8 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
             {
                 throw new MessageConversionException(String.format("Cannot convert malformed message '%s'", serverMsg));
             }
-            converter = (MessageConverter<? super ServerMessage, MessageTransferMessage>) MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
-            msg = converter.convert(serverMsg, _session.getAddressSpace());
+            convertedMessageReference = MessageConverterRegistry.convert(serverMsg, MessageTransferMessage.class, _session.getAddressSpace());
+            msg = convertedMessageReference.getMessage();
         }
 
         DeliveryProperties origDeliveryProps = msg.getHeader() == null ? null : msg.getHeader().getDeliveryProperties();
@@ -249,31 +249,36 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         boolean msgCompressed = messageProps != null && GZIPUtils.GZIP_CONTENT_ENCODING.equals(messageProps.getContentEncoding());
 
 
-        QpidByteBuffer bodyBuffer = msg.getBody();
-
         boolean compressionSupported = _session.getConnection().getConnectionDelegate().isCompressionSupported();
 
-        if(msgCompressed && !compressionSupported && bodyBuffer != null)
+        // the body is held by the transfer only if it has to be compressed or decompressed for the consumer;
+        // otherwise it is read from the message as the body frames are sent, so that the content of a large
+        // message which is not held in memory is streamed from the store
+        QpidByteBuffer bodyBuffer = null;
+        boolean bodyTranscoded = false;
+        if(msgCompressed && !compressionSupported)
         {
-            QpidByteBuffer uncompressedBuffer = inflateIfPossible(bodyBuffer);
+            try (QpidByteBuffer compressedBuffer = msg.getBody())
+            {
+                bodyBuffer = inflateIfPossible(compressedBuffer);
+            }
+            // the header of the message may be shared with other deliveries, so it must not be changed
+            messageProps = new MessageProperties(messageProps);
             messageProps.setContentEncoding(null);
-            bodyBuffer.dispose();
-            bodyBuffer = uncompressedBuffer;
+            bodyTranscoded = true;
         }
         else if(!msgCompressed
                 && compressionSupported
                 && (messageProps == null || messageProps.getContentEncoding() == null)
-                && bodyBuffer != null
-                && bodyBuffer.remaining() > _session.getConnection().getMessageCompressionThreshold())
+                && msg.getSize() > _session.getConnection().getMessageCompressionThreshold())
         {
-            QpidByteBuffer compressedBuffers = deflateIfPossible(bodyBuffer);
-            if(messageProps == null)
+            try (QpidByteBuffer uncompressedBuffer = msg.getBody())
             {
-                messageProps = new MessageProperties();
+                bodyBuffer = deflateIfPossible(uncompressedBuffer);
             }
+            messageProps = messageProps == null ? new MessageProperties() : new MessageProperties(messageProps);
             messageProps.setContentEncoding(GZIPUtils.GZIP_CONTENT_ENCODING);
-            bodyBuffer.dispose();
-            bodyBuffer = compressedBuffers;
+            bodyTranscoded = true;
         }
 
         Header header = new Header(deliveryProps, messageProps, msg.getHeader() == null ? null : msg.getHeader().getNonStandardProperties());
@@ -285,6 +290,10 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
             bodyBuffer.dispose();
             bodyBuffer = null;
         }
+        if (!bodyTranscoded)
+        {
+            xfr.setBodySource(msg);
+        }
         if(_acceptMode == MessageAcceptMode.NONE && _acquireMode != MessageAcquireMode.PRE_ACQUIRED)
         {
             xfr.setCompletionListener(new MessageAcceptCompletionListener(this, consumer, _session, entry, _flowMode == MessageFlowMode.WINDOW));
@@ -315,9 +324,9 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
 
         _session.sendMessage(xfr, _postIdSettingAction);
         xfr.dispose();
-        if(converter != null)
+        if(convertedMessageReference != null)
         {
-            converter.dispose(msg);
+            convertedMessageReference.release();
         }
         _postIdSettingAction.setAction(null);
         _postIdSettingAction.setXfr(null);
@@ -31,8 +31,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.MessageContentReader;
+import org.apache.qpid.server.message.MessageContentSource;
 import org.apache.qpid.server.protocol.v0_10.transport.Frame;
 import org.apache.qpid.server.protocol.v0_10.transport.Header;
+import org.apache.qpid.server.protocol.v0_10.transport.MessageTransfer;
 import org.apache.qpid.server.protocol.v0_10.transport.Method;
 import org.apache.qpid.server.protocol.v0_10.transport.ProtocolDelegate;
 import org.apache.qpid.server.protocol.v0_10.transport.ProtocolError;
@@ -146,6 +149,45 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
         }
     }
 
+    /**
+     * Fragments a segment whose content is read a frame at a time, so that the content of a large message which is
+     * not held in memory is streamed from the store rather than read from it in full.
+     */
+    private void fragment(byte flags, SegmentType type, ProtocolEvent event, MessageContentReader reader, int size)
+    {
+        byte typeb = (byte) type.getValue();
+        byte track = event.getEncodedTrack() == Frame.L4 ? (byte) 1 : (byte) 0;
+
+        int remaining = size;
+        boolean first = true;
+        while (true)
+        {
+            try (QpidByteBuffer buffer = reader.read(min(_maxPayload, remaining)))
+            {
+                int frameSize = buffer.remaining();
+                remaining = frameSize == 0 ? 0 : remaining - frameSize;
+
+                byte newflags = flags;
+                if (first)
+                {
+                    newflags |= FIRST_FRAME;
+                    first = false;
+                }
+                if (remaining == 0)
+                {
+                    newflags |= LAST_FRAME;
+                }
+
+                frame(newflags, typeb, track, event.getChannel(), frameSize, buffer);
+            }
+
+            if (remaining == 0)
+            {
+                break;
+            }
+        }
+    }
+
     @Override
     public void init(Void v, ProtocolHeader header)
     {
@@ -229,12 +271,14 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
                 if (payload)
                 {
                     QpidByteBuffer body = method.getBody();
+                    MessageContentSource bodySource =
+                            method instanceof MessageTransfer ? ((MessageTransfer) method).getBodySource() : null;
                     buf.limit(headerLimit);
                     buf.position(methodLimit);
 
                     try (QpidByteBuffer slice = buf.slice())
                     {
-                        fragment(body == null ? LAST_SEG : 0x0, SegmentType.HEADER, method, slice);
+                        fragment(body == null && bodySource == null ? LAST_SEG : 0x0, SegmentType.HEADER, method, slice);
                     }
 
                     if (body != null)
@@ -244,6 +288,13 @@ public final class ServerDisassembler implements ProtocolEventSender, ProtocolDe
                             fragment(LAST_SEG, SegmentType.BODY, method, dup);
                         }
                     }
+                    else if (bodySource != null)
+                    {
+                        try (MessageContentReader reader = bodySource.openContentReader())
+                        {
+                            fragment(LAST_SEG, SegmentType.BODY, method, reader, method.getBodySize());
+                        }
+                    }
                 }
             }
         }
@@ -272,7 +272,8 @@ public class ServerSessionDelegate extends MethodDelegate<ServerSession> impleme
                     FilterManager filterManager = null;
                     try
                     {
-                        filterManager = FilterManagerFactory.createManager(method.getArguments());
+                        filterManager = FilterManagerFactory.createManager(method.getArguments(),
+                                                                           session.getModelObject());
                     }
                     catch (AMQInvalidArgumentException amqe)
                     {
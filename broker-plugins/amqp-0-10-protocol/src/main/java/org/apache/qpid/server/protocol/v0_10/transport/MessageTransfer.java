@@ -26,6 +26,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.MessageContentSource;
 
 
 public final class MessageTransfer extends Method {
@@ -70,6 +71,7 @@ public final class MessageTransfer extends Method {
     private MessageAcquireMode acquireMode;
     private Header header;
     private QpidByteBuffer _body;
+    private MessageContentSource _bodySource;
 
 
     public MessageTransfer() {}
@@ -219,6 +221,7 @@ public final class MessageTransfer extends Method {
     @Override
     public final void setBody(QpidByteBuffer body)
     {
+        _bodySource = null;
         if (body == null)
         {
             _bodySize = 0;
@@ -235,6 +238,24 @@ public final class MessageTransfer extends Method {
         }
     }
 
+    /**
+     * Returns the source from which the body is read as it is sent, or null if the transfer holds its body.
+     */
+    public final MessageContentSource getBodySource()
+    {
+        return _bodySource;
+    }
+
+    /**
+     * Sets the source from which the body is read as it is sent, in place of a body held by the transfer.
+     */
+    public final void setBodySource(MessageContentSource bodySource)
+    {
+        setBody(null);
+        _bodySource = bodySource;
+        _bodySize = bodySource == null ? 0 : (int) bodySource.getSize();
+    }
+
     @Override
     public int getBodySize()
     {
@@ -301,6 +322,7 @@ public final class MessageTransfer extends Method {
 
     public void dispose()
     {
+        _bodySource = null;
         if (_body != null)
         {
             _body.dispose();
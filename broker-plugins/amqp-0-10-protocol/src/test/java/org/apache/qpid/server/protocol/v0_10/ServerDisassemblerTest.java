@@ -0,0 +1,164 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.MessageContentReader;
+import org.apache.qpid.server.message.MessageContentSource;
+import org.apache.qpid.server.message.RangedMessageContentReader;
+import org.apache.qpid.server.protocol.v0_10.transport.DeliveryProperties;
+import org.apache.qpid.server.protocol.v0_10.transport.Frame;
+import org.apache.qpid.server.protocol.v0_10.transport.Header;
+import org.apache.qpid.server.protocol.v0_10.transport.MessageAcceptMode;
+import org.apache.qpid.server.protocol.v0_10.transport.MessageAcquireMode;
+import org.apache.qpid.server.protocol.v0_10.transport.MessageProperties;
+import org.apache.qpid.server.protocol.v0_10.transport.MessageTransfer;
+import org.apache.qpid.server.transport.ByteBufferSender;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+class ServerDisassemblerTest extends UnitTestBase
+{
+    private static final int MAX_FRAME_SIZE = 512;
+
+    @Test
+    void bodySourceSentAsHeldBody()
+    {
+        final byte[] content = new byte[MAX_FRAME_SIZE * 3 + 10];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+
+        final byte[] sentFromHeldBody;
+        try (QpidByteBuffer body = QpidByteBuffer.wrap(content))
+        {
+            final MessageTransfer xfr = createTransfer();
+            xfr.setBody(body);
+            sentFromHeldBody = send(xfr);
+            xfr.dispose();
+        }
+
+        final List<Integer> readLengths = new ArrayList<>();
+        final MessageTransfer xfr = createTransfer();
+        xfr.setBodySource(new TestContentSource(content, readLengths));
+        final byte[] sentFromBodySource = send(xfr);
+        xfr.dispose();
+
+        assertArrayEquals(sentFromHeldBody, sentFromBodySource, "Unexpected frames sent from body source");
+        assertTrue(readLengths.size() > 1, "Body not read piecewise: " + readLengths);
+        assertTrue(readLengths.stream().allMatch(length -> length <= MAX_FRAME_SIZE - Frame.HEADER_SIZE),
+                   "Body read more than a frame at a time: " + readLengths);
+    }
+
+    private MessageTransfer createTransfer()
+    {
+        return new MessageTransfer("test",
+                                   MessageAcceptMode.NONE,
+                                   MessageAcquireMode.PRE_ACQUIRED,
+                                   new Header(new DeliveryProperties(), new MessageProperties()),
+                                   (QpidByteBuffer) null);
+    }
+
+    private byte[] send(final MessageTransfer xfr)
+    {
+        final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        final ServerDisassembler disassembler = new ServerDisassembler(new ByteBufferSender()
+        {
+            @Override
+            public boolean isDirectBufferPreferred()
+            {
+                return false;
+            }
+
+            @Override
+            public void send(final QpidByteBuffer msg)
+            {
+                try (QpidByteBuffer duplicate = msg.duplicate())
+                {
+                    final byte[] data = new byte[duplicate.remaining()];
+                    duplicate.get(data);
+                    sent.write(data, 0, data.length);
+                }
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        }, MAX_FRAME_SIZE);
+        disassembler.send(xfr);
+        return sent.toByteArray();
+    }
+
+    private static class TestContentSource implements MessageContentSource
+    {
+        private final byte[] _content;
+        private final List<Integer> _readLengths;
+
+        private TestContentSource(final byte[] content, final List<Integer> readLengths)
+        {
+            _content = content;
+            _readLengths = readLengths;
+        }
+
+        @Override
+        public QpidByteBuffer getContent()
+        {
+            return getContent(0, _content.length);
+        }
+
+        @Override
+        public QpidByteBuffer getContent(final int offset, final int length)
+        {
+            return QpidByteBuffer.wrap(_content, offset, length);
+        }
+
+        @Override
+        public long getSize()
+        {
+            return _content.length;
+        }
+
+        @Override
+        public MessageContentReader openContentReader()
+        {
+            return new RangedMessageContentReader((offset, length) ->
+            {
+                _readLengths.add(length);
+                return getContent(offset, length);
+            }, _content.length);
+        }
+    }
+}
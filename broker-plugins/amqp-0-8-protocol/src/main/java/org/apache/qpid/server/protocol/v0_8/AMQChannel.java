@@ -612,7 +612,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
 
         try
         {
-            FilterManager filterManager = FilterManagerFactory.createManager(FieldTable.convertToMap(arguments));
+            FilterManager filterManager = FilterManagerFactory.createManager(FieldTable.convertToMap(arguments), this);
             if(noLocal)
             {
                 if(filterManager == null)
@@ -29,7 +29,6 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.converter.MessageConversionException;
 import org.apache.qpid.server.txn.AutoCommitTransaction;
@@ -395,7 +394,7 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
     final protected void doSend(final MessageInstanceConsumer consumer, final MessageInstance entry, final boolean batch)
     {
         ServerMessage serverMessage = entry.getMessage();
-        MessageConverter<ServerMessage<?>, AMQMessage> messageConverter = null;
+        MessageReference<AMQMessage> convertedMessageReference = null;
         final AMQMessage msg;
         if(serverMessage instanceof AMQMessage)
         {
@@ -407,8 +406,8 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
             {
                 throw new MessageConversionException(String.format("Cannot convert malformed message '%s'", serverMessage));
             }
-            messageConverter = MessageConverterRegistry.getConverter((Class<ServerMessage<?>>) serverMessage.getClass(), AMQMessage.class);
-            msg = messageConverter.convert(serverMessage, getConnection().getAddressSpace());
+            convertedMessageReference = MessageConverterRegistry.convert(serverMessage, AMQMessage.class, getConnection().getAddressSpace());
+            msg = convertedMessageReference.getMessage();
         }
 
         try
@@ -417,9 +416,9 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
         }
         finally
         {
-            if(messageConverter != null)
+            if(convertedMessageReference != null)
             {
-                messageConverter.dispose(msg);
+                convertedMessageReference.release();
             }
         }
     }
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.server.QpidException;
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.MessageContentSource;
 import org.apache.qpid.server.protocol.v0_8.transport.AMQBody;
 import org.apache.qpid.server.protocol.v0_8.transport.AMQDataBlock;
@@ -177,10 +178,12 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         else
         {
             int maxFrameBodySize = (int) _connection.getMaxFrameSize() - AMQFrame.getFrameOverhead();
-            try (QpidByteBuffer contentByteBuffer = content.getContent())
+            // content is read a frame at a time through a single reader, so that the content of a large message
+            // which is not held in memory is streamed from the store rather than read from it in full
+            try (MessageContentReader contentReader = content.openContentReader())
             {
                 int contentChunkSize = bodySize > maxFrameBodySize ? maxFrameBodySize : bodySize;
-                try (QpidByteBuffer chunk = contentByteBuffer.view(0, contentChunkSize))
+                try (QpidByteBuffer chunk = contentReader.read(contentChunkSize))
                 {
                     writeFrame(new CompositeAMQBodyBlock(channelId,
                                                          deliverBody,
@@ -193,7 +196,7 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
                 {
                     contentChunkSize =
                             (bodySize - writtenSize) > maxFrameBodySize ? maxFrameBodySize : bodySize - writtenSize;
-                    try (QpidByteBuffer chunk = contentByteBuffer.view(writtenSize, contentChunkSize))
+                    try (QpidByteBuffer chunk = contentReader.read(contentChunkSize))
                     {
                         writtenSize += contentChunkSize;
                         writeFrame(new AMQFrame(channelId, new MessageContentSourceBody(chunk)));
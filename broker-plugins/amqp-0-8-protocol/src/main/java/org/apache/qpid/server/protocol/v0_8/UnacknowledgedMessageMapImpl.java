@@ -22,7 +22,6 @@ package org.apache.qpid.server.protocol.v0_8;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,8 +30,19 @@ import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 
+/**
+ * Unacknowledged deliveries of a channel held in delivery tag order.
+ * <p>
+ * Delivery tags are allocated by the channel in increasing order, so deliveries are appended to a ring buffer of
+ * primitive tags and their associations, and looked up by a binary search of the tags.  A removed delivery leaves an
+ * empty slot until the slots before it have also been removed, or until the buffer is compacted because it has
+ * filled with empty slots.  Acknowledging all deliveries up to a tag is a walk from the oldest slot.
+ */
 class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_INITIAL_CAPACITY = 1024;
+
     private static final class MessageConsumerAssociationImpl implements MessageConsumerAssociation
     {
         private final MessageInstance _messageInstance;
@@ -69,7 +79,12 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
             return _usesCredit;
         }
     }
-    private final Map<Long, MessageConsumerAssociationImpl> _map;
+
+    private long[] _deliveryTags;
+    private MessageConsumerAssociationImpl[] _associations;
+    // index of the oldest slot and the number of slots in use, including empty slots
+    private int _head;
+    private int _slots;
     // we keep this separately as it is accessed by the management thread
     private volatile int _size;
 
@@ -77,7 +92,9 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 
     UnacknowledgedMessageMapImpl(int prefetchLimit, CreditRestorer creditRestorer)
     {
-        _map = new LinkedHashMap<>(prefetchLimit);
+        final int capacity = Math.max(MINIMUM_CAPACITY, Math.min(prefetchLimit, MAXIMUM_INITIAL_CAPACITY));
+        _deliveryTags = new long[Integer.highestOneBit(capacity - 1) << 1];
+        _associations = new MessageConsumerAssociationImpl[_deliveryTags.length];
         _creditRestorer = creditRestorer;
     }
 
@@ -86,38 +103,40 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         if (multiple)
         {
-            collect(deliveryTag, msgs);
+            final int end = multipleUpperBound(deliveryTag);
+            for (int offset = 0; offset < end; offset++)
+            {
+                final int index = index(offset);
+                final MessageConsumerAssociationImpl association = _associations[index];
+                if (association != null)
+                {
+                    msgs.put(_deliveryTags[index], association);
+                }
+            }
         }
         else
         {
-            final MessageConsumerAssociation messageConsumerAssociation = _map.get(deliveryTag);
-            if(messageConsumerAssociation != null)
+            final int offset = find(deliveryTag);
+            if (offset >= 0)
             {
-                msgs.put(deliveryTag, messageConsumerAssociation);
+                msgs.put(deliveryTag, _associations[index(offset)]);
             }
         }
-
-    }
-
-    private void remove(Collection<Long> msgs)
-    {
-        for (Long deliveryTag : msgs)
-        {
-            remove(deliveryTag, true);
-        }
     }
 
     @Override
     public MessageConsumerAssociation remove(long deliveryTag, final boolean restoreCredit)
     {
-        MessageConsumerAssociationImpl entry = _map.remove(deliveryTag);
-        if(entry != null)
+        final int offset = find(deliveryTag);
+        if (offset < 0)
         {
-            _size--;
-            if(restoreCredit && entry.isUsesCredit())
-            {
-                _creditRestorer.restoreCredit(entry.getConsumer().getTarget(), 1, entry.getSize());
-            }
+            return null;
+        }
+        final MessageConsumerAssociationImpl entry = removeSlot(offset);
+        trimHead();
+        if (restoreCredit)
+        {
+            restoreCredit(entry);
         }
         return entry;
     }
@@ -125,9 +144,14 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     @Override
     public void visit(Visitor visitor)
     {
-        for (Map.Entry<Long, MessageConsumerAssociationImpl> entry : _map.entrySet())
+        for (int offset = 0; offset < _slots; offset++)
         {
-            visitor.callback(entry.getKey(), entry.getValue());
+            final int index = index(offset);
+            final MessageConsumerAssociationImpl association = _associations[index];
+            if (association != null)
+            {
+                visitor.callback(_deliveryTags[index], association);
+            }
         }
         visitor.visitComplete();
     }
@@ -135,14 +159,25 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     @Override
     public void add(long deliveryTag, MessageInstance message, final MessageInstanceConsumer consumer, final boolean usesCredit)
     {
-        if(_map.put(deliveryTag, new MessageConsumerAssociationImpl(message, consumer, usesCredit)) == null)
+        if (_slots > 0 && deliveryTag <= _deliveryTags[index(_slots - 1)])
         {
-            _size++;
+            if (find(deliveryTag) >= 0)
+            {
+                throw new ConnectionScopedRuntimeException("Unexpected duplicate delivery tag created");
+            }
+            throw new ConnectionScopedRuntimeException("Unexpected out of order delivery tag created");
         }
-        else
+
+        if (_slots == _deliveryTags.length)
         {
-            throw new ConnectionScopedRuntimeException("Unexpected duplicate delivery tag created");
+            // compact rather than grow when at least half of the slots are empty
+            relocate(_size <= _slots / 2 ? _deliveryTags.length : _deliveryTags.length << 1);
         }
+        final int index = index(_slots);
+        _deliveryTags[index] = deliveryTag;
+        _associations[index] = new MessageConsumerAssociationImpl(message, consumer, usesCredit);
+        _slots++;
+        _size++;
     }
 
     @Override
@@ -154,8 +189,8 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     @Override
     public MessageInstance get(long key)
     {
-        MessageConsumerAssociation association = _map.get(key);
-        return association == null ? null : association.getMessageInstance();
+        final int offset = find(key);
+        return offset < 0 ? null : _associations[index(offset)].getMessageInstance();
     }
 
     @Override
@@ -163,18 +198,36 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         if(multiple)
         {
-            Map<Long, MessageConsumerAssociation> ackedMessageMap = new LinkedHashMap<>();
-            collect(deliveryTag, multiple, ackedMessageMap);
-            remove(ackedMessageMap.keySet());
-            List<MessageConsumerAssociation> acknowledged = new ArrayList<>();
-            for (MessageConsumerAssociation messageConsumerAssociation : ackedMessageMap.values())
+            final int end = multipleUpperBound(deliveryTag);
+            final List<MessageConsumerAssociation> acknowledged = new ArrayList<>(Math.min(end, _size));
+            for (int offset = 0; offset < end; offset++)
+            {
+                if (_associations[index(offset)] != null)
+                {
+                    acknowledged.add(removeSlot(offset));
+                }
+            }
+            trimHead();
+
+            for (MessageConsumerAssociation association : acknowledged)
             {
-                MessageInstance instance = messageConsumerAssociation.getMessageInstance();
-                if (instance.makeAcquisitionUnstealable(messageConsumerAssociation.getConsumer()))
+                restoreCredit((MessageConsumerAssociationImpl) association);
+            }
+
+            // credit of all the removed messages is restored before any acquisition is made unstealable
+            int retained = 0;
+            for (int i = 0; i < acknowledged.size(); i++)
+            {
+                final MessageConsumerAssociation association = acknowledged.get(i);
+                if (association.getMessageInstance().makeAcquisitionUnstealable(association.getConsumer()))
                 {
-                    acknowledged.add(messageConsumerAssociation);
+                    acknowledged.set(retained++, association);
                 }
             }
+            for (int i = acknowledged.size() - 1; i >= retained; i--)
+            {
+                acknowledged.remove(i);
+            }
             return acknowledged;
         }
         else
@@ -192,16 +245,116 @@ class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
         }
     }
 
-    private void collect(long key, Map<Long, MessageConsumerAssociation> msgs)
+    private void restoreCredit(final MessageConsumerAssociationImpl entry)
+    {
+        if (entry.isUsesCredit())
+        {
+            _creditRestorer.restoreCredit(entry.getConsumer().getTarget(), 1, entry.getSize());
+        }
+    }
+
+    private int index(final int offset)
+    {
+        return (_head + offset) & (_deliveryTags.length - 1);
+    }
+
+    private MessageConsumerAssociationImpl removeSlot(final int offset)
     {
-        for (Map.Entry<Long, MessageConsumerAssociationImpl> entry : _map.entrySet())
+        final int index = index(offset);
+        final MessageConsumerAssociationImpl entry = _associations[index];
+        _associations[index] = null;
+        _size--;
+        return entry;
+    }
+
+    /**
+     * Releases the empty slots at the start of the buffer.
+     */
+    private void trimHead()
+    {
+        while (_slots > 0 && _associations[_head] == null)
+        {
+            _head = (_head + 1) & (_deliveryTags.length - 1);
+            _slots--;
+        }
+    }
+
+    /**
+     * Returns the offset of the slot holding the delivery with the given tag, or -1 if there is no such delivery.
+     */
+    private int find(final long deliveryTag)
+    {
+        if (_slots == 0)
+        {
+            return -1;
+        }
+        // deliveries are usually acknowledged in order, and tags are usually allocated without gaps
+        final long guess = deliveryTag - _deliveryTags[_head];
+        int offset;
+        if (guess >= 0 && guess < _slots && _deliveryTags[index((int) guess)] == deliveryTag)
+        {
+            offset = (int) guess;
+        }
+        else
         {
-            msgs.put(entry.getKey(), entry.getValue());
-            if (entry.getKey() == key)
+            offset = upperBound(deliveryTag) - 1;
+            if (offset < 0 || _deliveryTags[index(offset)] != deliveryTag)
             {
-                break;
+                return -1;
             }
         }
+        return _associations[index(offset)] == null ? -1 : offset;
     }
 
+    /**
+     * Returns the number of slots covered by an operation on multiple deliveries up to the given tag.  A tag of zero
+     * covers all the outstanding deliveries.
+     */
+    private int multipleUpperBound(final long deliveryTag)
+    {
+        return deliveryTag == 0 ? _slots : upperBound(deliveryTag);
+    }
+
+    /**
+     * Returns the number of slots holding tags less than or equal to the given tag.
+     */
+    private int upperBound(final long deliveryTag)
+    {
+        int low = 0;
+        int high = _slots;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (_deliveryTags[index(mid)] <= deliveryTag)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void relocate(final int capacity)
+    {
+        final long[] deliveryTags = new long[capacity];
+        final MessageConsumerAssociationImpl[] associations = new MessageConsumerAssociationImpl[capacity];
+        int slots = 0;
+        for (int offset = 0; offset < _slots; offset++)
+        {
+            final int index = index(offset);
+            if (_associations[index] != null)
+            {
+                deliveryTags[slots] = _deliveryTags[index];
+                associations[slots] = _associations[index];
+                slots++;
+            }
+        }
+        _deliveryTags = deliveryTags;
+        _associations = associations;
+        _head = 0;
+        _slots = slots;
+    }
 }
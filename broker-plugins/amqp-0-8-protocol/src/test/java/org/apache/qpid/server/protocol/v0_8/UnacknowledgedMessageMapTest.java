@@ -21,11 +21,23 @@
 package org.apache.qpid.server.protocol.v0_8;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -34,6 +46,7 @@ import org.junit.jupiter.api.Test;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.test.utils.UnitTestBase;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -79,6 +92,87 @@ class UnacknowledgedMessageMapTest extends UnitTestBase
         }
     }
 
+    @Test
+    void multipleAcknowledgementStopsAtDeliveryTag()
+    {
+        final CreditRestorer creditRestorer = mock(CreditRestorer.class);
+        final UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100, creditRestorer);
+        final MessageInstance[] msgs = populateMap(map, 10);
+        map.remove(3, true);
+
+        final Collection<MessageConsumerAssociation> acknowledged = map.acknowledge(5, true);
+
+        assertEquals(List.of(msgs[0], msgs[1], msgs[2], msgs[4], msgs[5]),
+                     acknowledged.stream().map(MESSAGE_INSTANCE_FUNCTION).collect(Collectors.toList()));
+        assertEquals(4, (long) map.size());
+        assertNull(map.get(5));
+        assertSame(msgs[6], map.get(6));
+        verify(creditRestorer, times(6)).restoreCredit(any(), anyInt(), anyLong());
+
+        final Map<Long, MessageConsumerAssociation> collected = new LinkedHashMap<>();
+        map.collect(100, true, collected);
+        assertEquals(List.of(6L, 7L, 8L, 9L), List.copyOf(collected.keySet()));
+    }
+
+    @Test
+    void multipleWithDeliveryTagZeroCoversAllOutstandingDeliveries()
+    {
+        final UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100, mock(CreditRestorer.class));
+        final List<MessageInstance> msgs = new ArrayList<>();
+        for (long deliveryTag = 1; deliveryTag <= 5; deliveryTag++)
+        {
+            final MessageInstance instance = createMessageInstance();
+            map.add(deliveryTag, instance, _consumer, true);
+            msgs.add(instance);
+        }
+
+        final Map<Long, MessageConsumerAssociation> collected = new LinkedHashMap<>();
+        map.collect(0, true, collected);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), List.copyOf(collected.keySet()));
+
+        final Collection<MessageConsumerAssociation> acknowledged = map.acknowledge(0, true);
+        assertEquals(msgs, acknowledged.stream().map(MESSAGE_INSTANCE_FUNCTION).collect(Collectors.toList()));
+        assertEquals(0, (long) map.size());
+    }
+
+    @Test
+    void outOfOrderRemovalAcrossGrowthAndCompaction()
+    {
+        final UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(16, mock(CreditRestorer.class));
+        final int count = 1000;
+        final MessageInstance[] msgs = new MessageInstance[count];
+        for (int i = 0; i < count; i++)
+        {
+            msgs[i] = createMessageInstance();
+            map.add(1 + 2L * i, msgs[i], _consumer, false);
+            if (i % 3 != 0)
+            {
+                assertSame(msgs[i], map.remove(1 + 2L * i, false).getMessageInstance());
+            }
+        }
+
+        assertEquals(334, (long) map.size());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i % 3 == 0 ? msgs[i] : null, map.get(1 + 2L * i), "Unexpected message for " + i);
+            assertNull(map.get(2 + 2L * i));
+        }
+
+        assertEquals(334, (long) map.acknowledge(2L * count, true).size());
+        assertEquals(0, (long) map.size());
+    }
+
+    @Test
+    void duplicateDeliveryTagRejected()
+    {
+        final UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(100, mock(CreditRestorer.class));
+        populateMap(map, 2);
+
+        assertThrows(ConnectionScopedRuntimeException.class,
+                     () -> map.add(1, createMessageInstance(), _consumer, true));
+        assertEquals(2, (long) map.size());
+    }
+
     MessageInstance[] populateMap(final UnacknowledgedMessageMap map, final int size)
     {
         final MessageInstance[] msgs = new MessageInstance[size];
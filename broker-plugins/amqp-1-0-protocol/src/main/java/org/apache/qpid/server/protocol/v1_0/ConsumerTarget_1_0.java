@@ -32,12 +32,13 @@ import org.apache.qpid.server.consumer.AbstractConsumerTarget;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.LogSubject;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.converter.MessageConversionException;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
@@ -132,10 +133,10 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
     {
         ServerMessage serverMessage = entry.getMessage();
         Message_1_0 message;
-        final MessageConverter<? super ServerMessage, Message_1_0> converter;
+        final MessageReference<Message_1_0> convertedMessageReference;
         if(serverMessage instanceof Message_1_0)
         {
-            converter = null;
+            convertedMessageReference = null;
             message = (Message_1_0) serverMessage;
         }
         else
@@ -144,9 +145,9 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
             {
                 throw new MessageConversionException(String.format("Cannot convert malformed message '%s'", serverMessage));
             }
-            converter =
-                    (MessageConverter<? super ServerMessage, Message_1_0>) MessageConverterRegistry.getConverter(serverMessage.getClass(), Message_1_0.class);
-            if (converter == null)
+            convertedMessageReference =
+                    MessageConverterRegistry.convert(serverMessage, Message_1_0.class, _linkEndpoint.getAddressSpace());
+            if (convertedMessageReference == null)
             {
                 throw new ServerScopedRuntimeException(String.format(
                         "Could not find message converter from '%s' to '%s'."
@@ -154,13 +155,13 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
                         serverMessage.getClass(),
                         Message_1_0.class));
             }
-            message = converter.convert(serverMessage, _linkEndpoint.getAddressSpace());
+            message = convertedMessageReference.getMessage();
         }
 
         Transfer transfer = new Transfer();
+        TransferPayloadReader payloadReader = null;
         try
         {
-            QpidByteBuffer bodyContent = message.getContent();
             HeaderSection headerSection = message.getHeaderSection();
 
             UnsignedInteger ttl = headerSection == null ? null : headerSection.getValue().getTtl();
@@ -220,20 +221,23 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
                 section.dispose();
             }
 
-            payload.add(bodyContent);
+            final QpidByteBuffer leadingSections = QpidByteBuffer.concatenate(payload);
+            payload.forEach(QpidByteBuffer::dispose);
 
+            final QpidByteBuffer trailingSections;
             if((section = message.getFooterSection()) != null)
             {
-                payload.add(section.getEncodedForm());
+                trailingSections = section.getEncodedForm();
                 section.dispose();
             }
-
-            try (QpidByteBuffer combined = QpidByteBuffer.concatenate(payload))
+            else
             {
-                transfer.setPayload(combined);
+                trailingSections = QpidByteBuffer.emptyQpidByteBuffer();
             }
 
-            payload.forEach(QpidByteBuffer::dispose);
+            // the body is read from the message as the transfer frames are sent rather than held by the transfer,
+            // so that the content of a large message which is not held in memory is streamed from the store
+            payloadReader = new TransferPayloadReader(leadingSections, message, trailingSections);
 
             byte[] data = new byte[8];
             ByteBuffer.wrap(data).putLong(_deliveryTag++);
@@ -309,7 +313,7 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
 
                 }
                 getSession().getAMQPConnection().registerMessageDelivered(message.getSize());
-                getEndpoint().transfer(transfer, false);
+                getEndpoint().transfer(transfer, payloadReader, payloadReader.getSize(), false);
 
                 if (sendPreSettled && _acquires && _transactionId == null)
                 {
@@ -324,10 +328,14 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
         }
         finally
         {
+            if (payloadReader != null)
+            {
+                payloadReader.close();
+            }
             transfer.dispose();
-            if(converter != null)
+            if(convertedMessageReference != null)
             {
-                converter.dispose(message);
+                convertedMessageReference.release();
             }
         }
     }
@@ -719,4 +727,89 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
     {
         return "ConsumerTarget_1_0[linkSession=" + _linkEndpoint.getSession().toLogString() + "]";
     }
+
+    /**
+     * Reads the payload of a transfer: the encoded sections preceding the body, the body read piecewise from the
+     * message, and the encoded footer.
+     */
+    private static class TransferPayloadReader implements MessageContentReader
+    {
+        private final QpidByteBuffer _leadingSections;
+        private final QpidByteBuffer _trailingSections;
+        private final MessageContentReader _bodyReader;
+        private final long _size;
+        private long _unreadBodySize;
+
+        private TransferPayloadReader(final QpidByteBuffer leadingSections,
+                                      final Message_1_0 message,
+                                      final QpidByteBuffer trailingSections)
+        {
+            _leadingSections = leadingSections;
+            _trailingSections = trailingSections;
+            try
+            {
+                _bodyReader = message.openContentReader();
+            }
+            catch (RuntimeException e)
+            {
+                leadingSections.dispose();
+                trailingSections.dispose();
+                throw e;
+            }
+            _unreadBodySize = message.getSize();
+            _size = leadingSections.remaining() + _unreadBodySize + trailingSections.remaining();
+        }
+
+        long getSize()
+        {
+            return _size;
+        }
+
+        @Override
+        public QpidByteBuffer read(final int length)
+        {
+            final List<QpidByteBuffer> parts = new ArrayList<>();
+            int remaining = length - readFrom(_leadingSections, length, parts);
+            if (remaining > 0 && _unreadBodySize > 0)
+            {
+                final QpidByteBuffer body = _bodyReader.read((int) Math.min(remaining, _unreadBodySize));
+                _unreadBodySize = body.hasRemaining() ? _unreadBodySize - body.remaining() : 0;
+                remaining -= body.remaining();
+                parts.add(body);
+            }
+            if (remaining > 0)
+            {
+                readFrom(_trailingSections, remaining, parts);
+            }
+
+            final QpidByteBuffer content = QpidByteBuffer.concatenate(parts);
+            parts.forEach(QpidByteBuffer::dispose);
+            return content;
+        }
+
+        private static int readFrom(final QpidByteBuffer source, final int length, final List<QpidByteBuffer> parts)
+        {
+            final int readLength = Math.min(length, source.remaining());
+            if (readLength > 0)
+            {
+                parts.add(source.view(0, readLength));
+                source.position(source.position() + readLength);
+            }
+            return readLength;
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                _bodyReader.close();
+            }
+            finally
+            {
+                _leadingSections.dispose();
+                _trailingSections.dispose();
+            }
+        }
+    }
 }
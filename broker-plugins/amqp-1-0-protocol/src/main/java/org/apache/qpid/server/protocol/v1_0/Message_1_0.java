@@ -26,6 +26,8 @@ import java.util.List;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.AbstractServerMessageImpl;
+import org.apache.qpid.server.message.MessageContentReader;
+import org.apache.qpid.server.message.RangedMessageContentReader;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoder;
 import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoderImpl;
@@ -215,4 +217,15 @@ public class Message_1_0 extends AbstractServerMessageImpl<Message_1_0, MessageM
             return super.getContent(offset, length);
         }
     }
+
+    @Override
+    public MessageContentReader openContentReader()
+    {
+        if(getMessageMetaData().getVersion() == 0)
+        {
+            // the body of a v0 message has to be extracted from all the sections within the stored content
+            return new RangedMessageContentReader(this::getContent, (int) getSize());
+        }
+        return super.openContentReader();
+    }
 }
@@ -43,6 +43,7 @@ import org.apache.qpid.server.filter.JMSSelectorFilter;
 import org.apache.qpid.server.filter.SelectorParsingException;
 import org.apache.qpid.server.filter.selector.ParseException;
 import org.apache.qpid.server.filter.selector.TokenMgrError;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.MessageSource;
@@ -167,7 +168,8 @@ public class SendingLinkEndpoint extends AbstractLinkEndpoint<Source, Target>
                         org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter selectorFilter = (org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter) entry.getValue();
                         try
                         {
-                            messageFilter = new JMSSelectorFilter(selectorFilter.getValue());
+                            messageFilter = new JMSSelectorFilter(selectorFilter.getValue(),
+                                                                  JMSSelectorFilter.isCompilationEnabled(getSession()));
 
                             actualFilters.put(entry.getKey(), entry.getValue());
                         }
@@ -426,7 +428,24 @@ public class SendingLinkEndpoint extends AbstractLinkEndpoint<Source, Target>
 
     void transfer(final Transfer xfr, final boolean decrementCredit)
     {
-        Session_1_0 s = getSession();
+        prepareTransfer(xfr, decrementCredit);
+        getSession().sendTransfer(xfr, this);
+    }
+
+    /**
+     * Transfers a message whose payload is read from the given reader as it is sent, rather than held by the transfer.
+     */
+    void transfer(final Transfer xfr,
+                  final MessageContentReader payloadReader,
+                  final long payloadSize,
+                  final boolean decrementCredit)
+    {
+        prepareTransfer(xfr, decrementCredit);
+        getSession().sendTransfer(xfr, this, payloadReader, payloadSize);
+    }
+
+    private void prepareTransfer(final Transfer xfr, final boolean decrementCredit)
+    {
         xfr.setMessageFormat(UnsignedInteger.ZERO);
         if(decrementCredit)
         {
@@ -436,8 +455,6 @@ public class SendingLinkEndpoint extends AbstractLinkEndpoint<Source, Target>
         getDeliveryCount().incr();
 
         xfr.setHandle(getLocalHandle());
-
-        s.sendTransfer(xfr, this);
     }
 
 
@@ -55,8 +55,10 @@ import org.apache.qpid.server.exchange.ExchangeDefaults;
 import org.apache.qpid.server.logging.LogMessage;
 import org.apache.qpid.server.logging.LogSubject;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageSource;
+import org.apache.qpid.server.message.RangedMessageContentReader;
 import org.apache.qpid.server.model.AbstractConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.DestinationAddress;
@@ -228,14 +230,7 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
         if (settled)
         {
             final DeliveryRegistry deliveryRegistry = role == Role.RECEIVER ? _incomingDeliveryRegistry : _outgoingDeliveryRegistry;
-
-            SequenceNumber pos = new SequenceNumber(first.intValue());
-            SequenceNumber end = new SequenceNumber(last.intValue());
-            while (pos.compareTo(end) <= 0)
-            {
-                deliveryRegistry.removeDelivery(UnsignedInteger.valueOf(pos.intValue()));
-                pos.incr();
-            }
+            deliveryRegistry.removeDeliveries(first.intValue(), last.intValue());
         }
 
         send(disposition);
@@ -324,6 +319,29 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
     }
 
     void sendTransfer(final Transfer xfr, final SendingLinkEndpoint endpoint)
+    {
+        try (QpidByteBuffer payload = xfr.getPayload())
+        {
+            if (payload == null)
+            {
+                sendTransfer(xfr, endpoint, null, 0L);
+            }
+            else
+            {
+                sendTransfer(xfr, endpoint, new RangedMessageContentReader(payload::view, payload.remaining()),
+                             payload.remaining());
+            }
+        }
+    }
+
+    /**
+     * Sends a transfer whose payload is read from the given reader, reading no more than about a frame of the
+     * payload ahead of the frame being sent, so that the payload of a large message is not held in memory in full.
+     */
+    void sendTransfer(final Transfer xfr,
+                      final SendingLinkEndpoint endpoint,
+                      final MessageContentReader payloadReader,
+                      final long payloadSize)
     {
         _nextOutgoingId.incr();
         final boolean settled = Boolean.TRUE.equals(xfr.getSettled());
@@ -336,30 +354,54 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
         }
 
         _remoteIncomingWindow--;
-        try (QpidByteBuffer payload = xfr.getPayload())
+        try
         {
-            long remaining = payload == null ? 0 : (long) payload.remaining();
-            int payloadSent = _connection.sendFrame(_sendingChannel, xfr, payload);
-            if(payload != null)
+            if (payloadReader == null)
+            {
+                _connection.sendFrame(_sendingChannel, xfr, null);
+                return;
+            }
+
+            // the window holds a whole frame of payload while more remains to be read, so that the connection
+            // marks each transfer frame but the last as having more to follow
+            final int maxFrameSize = _connection.getMaxFrameSize();
+            QpidByteBuffer window = payloadReader.read(maxFrameSize);
+            long unread = payloadSize - window.remaining();
+            try
             {
-                while (payloadSent < remaining && payloadSent >= 0)
+                int payloadSent = _connection.sendFrame(_sendingChannel, xfr, window);
+                while (payloadSent >= 0 && (window.hasRemaining() || unread > 0))
                 {
+                    if (unread > 0 && window.remaining() < maxFrameSize)
+                    {
+                        try (QpidByteBuffer next = payloadReader.read(maxFrameSize - window.remaining()))
+                        {
+                            unread = next.hasRemaining() ? unread - next.remaining() : 0;
+                            final QpidByteBuffer refilled = QpidByteBuffer.concatenate(window, next);
+                            window.dispose();
+                            window = refilled;
+                        }
+                    }
+
                     Transfer continuationTransfer = new Transfer();
 
                     continuationTransfer.setHandle(xfr.getHandle());
                     continuationTransfer.setRcvSettleMode(xfr.getRcvSettleMode());
                     continuationTransfer.setState(xfr.getState());
-                    continuationTransfer.setPayload(payload);
+                    continuationTransfer.setPayload(window);
 
                     _nextOutgoingId.incr();
                     _remoteIncomingWindow--;
 
-                    remaining = (long) payload.remaining();
-                    payloadSent = _connection.sendFrame(_sendingChannel, continuationTransfer, payload);
+                    payloadSent = _connection.sendFrame(_sendingChannel, continuationTransfer, window);
 
                     continuationTransfer.dispose();
                 }
             }
+            finally
+            {
+                window.dispose();
+            }
         }
         catch (OversizeFrameException e)
         {
@@ -497,33 +539,16 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
             unsettledDeliveries = _incomingDeliveryRegistry;
         }
 
-        SequenceNumber deliveryId = new SequenceNumber(disposition.getFirst().intValue());
-        SequenceNumber last;
-        if(disposition.getLast() == null)
-        {
-            last = new SequenceNumber(deliveryId.intValue());
-        }
-        else
-        {
-            last = new SequenceNumber(disposition.getLast().intValue());
-        }
+        final int first = disposition.getFirst().intValue();
+        final int last = disposition.getLast() == null ? first : disposition.getLast().intValue();
+        final DeliveryState state = disposition.getState();
+        final Boolean settled = disposition.getSettled();
 
-        while(deliveryId.compareTo(last)<=0)
+        unsettledDeliveries.forEachDelivery(first, last, Boolean.TRUE.equals(settled), unsettledDelivery ->
         {
-            UnsignedInteger deliveryIdUnsigned = UnsignedInteger.valueOf(deliveryId.intValue());
-            UnsettledDelivery unsettledDelivery = unsettledDeliveries.getDelivery(deliveryIdUnsigned);
-
-            if(unsettledDelivery != null)
-            {
-                LinkEndpoint<?,?> linkEndpoint  = unsettledDelivery.getLinkEndpoint();
-                linkEndpoint.receiveDeliveryState(unsettledDelivery.getDeliveryTag(), disposition.getState(), disposition.getSettled());
-                if (Boolean.TRUE.equals(disposition.getSettled()))
-                {
-                    unsettledDeliveries.removeDelivery(deliveryIdUnsigned);
-                }
-            }
-            deliveryId.incr();
-        }
+            LinkEndpoint<?,?> linkEndpoint  = unsettledDelivery.getLinkEndpoint();
+            linkEndpoint.receiveDeliveryState(unsettledDelivery.getDeliveryTag(), state, settled);
+        });
     }
 
     public SessionState getSessionState()
@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.server.protocol.v1_0.delivery;
 
+import java.util.function.Consumer;
+
 import org.apache.qpid.server.protocol.v1_0.LinkEndpoint;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
 import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
@@ -32,4 +34,16 @@ public interface DeliveryRegistry
     void removeDeliveriesForLinkEndpoint(LinkEndpoint<?, ?> linkEndpoint);
     UnsignedInteger getDeliveryId(Binary deliveryTag, LinkEndpoint<?, ?> linkEndpoint);
     int size();
+
+    /**
+     * Invokes the action for each registered delivery with an id from first to last inclusive, in delivery id order,
+     * removing each delivery once the action has been invoked if remove is true.  Delivery ids are compared using
+     * serial number arithmetic.
+     */
+    void forEachDelivery(int first, int last, boolean remove, Consumer<UnsettledDelivery> action);
+
+    /**
+     * Removes each registered delivery with an id from first to last inclusive.
+     */
+    void removeDeliveries(int first, int last);
 }
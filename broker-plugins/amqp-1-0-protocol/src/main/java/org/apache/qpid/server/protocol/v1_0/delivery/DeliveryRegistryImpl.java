@@ -20,66 +20,387 @@
  */
 package org.apache.qpid.server.protocol.v1_0.delivery;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.apache.qpid.server.protocol.v1_0.LinkEndpoint;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
 import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
 
+/**
+ * Registry of unsettled deliveries indexed by delivery id.
+ * <p>
+ * Delivery ids are assigned sequentially within a session, so the deliveries are held in a ring buffer covering the
+ * window from the oldest to the newest registered id, indexed by the id itself.  The window grows as required up to
+ * {@link #MAXIMUM_CAPACITY}; deliveries falling behind a window of that size, such as a delivery left unsettled while
+ * many later ones are settled, are moved to an overflow map so that memory stays bounded by the number of unsettled
+ * deliveries.  Ranges of deliveries are visited without allocation, and the cost of a range is bounded by the
+ * window rather than by the width of the range.
+ * <p>
+ * The deliveries of each link are counted and indexed by tag in a record for the link.  Removing the deliveries of
+ * a link discards its record, leaving the slots which refer to the record to be cleared when they are next visited.
+ */
 public class DeliveryRegistryImpl implements DeliveryRegistry
 {
-    private final Map<UnsignedInteger, UnsettledDelivery> _deliveries = new ConcurrentHashMap<>();
-    private final Map<UnsettledDelivery, UnsignedInteger> _deliveryIds = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 64;
+    static final int MAXIMUM_CAPACITY = 1 << 16;
+
+    private final Map<LinkEndpoint<?, ?>, LinkDeliveries> _linkDeliveries = new HashMap<>();
+    private final Map<Integer, OverflowedDelivery> _overflow = new HashMap<>();
+    private UnsettledDelivery[] _deliveries = new UnsettledDelivery[INITIAL_CAPACITY];
+    private LinkDeliveries[] _links = new LinkDeliveries[INITIAL_CAPACITY];
+    private int _base;
+    private int _end;
+    private volatile int _size;
 
     @Override
     public void addDelivery(final UnsignedInteger deliveryId, final UnsettledDelivery unsettledDelivery)
     {
-        _deliveries.put(deliveryId, unsettledDelivery);
-        _deliveryIds.put(unsettledDelivery, deliveryId);
+        addDelivery(deliveryId.intValue(), unsettledDelivery);
+    }
+
+    private synchronized void addDelivery(final int deliveryId, final UnsettledDelivery unsettledDelivery)
+    {
+        removeDelivery(deliveryId);
+
+        final LinkDeliveries link =
+                _linkDeliveries.computeIfAbsent(unsettledDelivery.getLinkEndpoint(), linkEndpoint -> new LinkDeliveries());
+        link._deliveryIds.put(unsettledDelivery.getDeliveryTag(), deliveryId);
+        link._count++;
+
+        if (_base == _end)
+        {
+            _base = deliveryId;
+            _end = deliveryId;
+        }
+
+        if (deliveryId - _base < 0)
+        {
+            _overflow.put(deliveryId, new OverflowedDelivery(unsettledDelivery, link));
+        }
+        else
+        {
+            ensureCapacity(deliveryId);
+            final int index = deliveryId & (_deliveries.length - 1);
+            _deliveries[index] = unsettledDelivery;
+            _links[index] = link;
+            if (deliveryId - _end >= 0)
+            {
+                _end = deliveryId + 1;
+            }
+        }
+        _size++;
     }
 
     @Override
     public void removeDelivery(final UnsignedInteger deliveryId)
     {
-        UnsettledDelivery unsettledDelivery = _deliveries.remove(deliveryId);
-        if (unsettledDelivery != null)
+        removeDelivery(deliveryId.intValue());
+    }
+
+    private synchronized UnsettledDelivery removeDelivery(final int deliveryId)
+    {
+        if (isInWindow(deliveryId))
         {
-            _deliveryIds.remove(unsettledDelivery);
+            final int index = deliveryId & (_deliveries.length - 1);
+            final UnsettledDelivery unsettledDelivery = _deliveries[index];
+            final LinkDeliveries link = _links[index];
+            _deliveries[index] = null;
+            _links[index] = null;
+            if (deliveryId == _base)
+            {
+                advanceBase();
+            }
+            return unsettledDelivery == null ? null : removed(deliveryId, unsettledDelivery, link);
+        }
+        else if (!_overflow.isEmpty())
+        {
+            final OverflowedDelivery overflowed = _overflow.remove(deliveryId);
+            if (overflowed != null)
+            {
+                return removed(deliveryId, overflowed._delivery, overflowed._link);
+            }
         }
+        return null;
     }
 
     @Override
     public UnsettledDelivery getDelivery(final UnsignedInteger deliveryId)
     {
-        return _deliveries.get(deliveryId);
+        return getDelivery(deliveryId.intValue());
+    }
+
+    private synchronized UnsettledDelivery getDelivery(final int deliveryId)
+    {
+        if (isInWindow(deliveryId))
+        {
+            final int index = deliveryId & (_deliveries.length - 1);
+            final LinkDeliveries link = _links[index];
+            return link == null || link._removed ? null : _deliveries[index];
+        }
+        else if (!_overflow.isEmpty())
+        {
+            final OverflowedDelivery overflowed = _overflow.get(deliveryId);
+            if (overflowed != null && !overflowed._link._removed)
+            {
+                return overflowed._delivery;
+            }
+        }
+        return null;
     }
 
     @Override
-    public void removeDeliveriesForLinkEndpoint(final LinkEndpoint<?, ?> linkEndpoint)
+    public synchronized void removeDeliveriesForLinkEndpoint(final LinkEndpoint<?, ?> linkEndpoint)
     {
-        Iterator<UnsettledDelivery> iterator = _deliveries.values().iterator();
-        while (iterator.hasNext())
+        final LinkDeliveries link = _linkDeliveries.remove(linkEndpoint);
+        if (link != null)
         {
-            UnsettledDelivery unsettledDelivery = iterator.next();
-            if (unsettledDelivery.getLinkEndpoint() == linkEndpoint)
+            link._removed = true;
+            _size -= link._count;
+            if (!_overflow.isEmpty())
             {
-                iterator.remove();
-                _deliveryIds.remove(unsettledDelivery);
+                _overflow.values().removeIf(overflowed -> overflowed._link == link);
             }
         }
     }
 
     @Override
-    public UnsignedInteger getDeliveryId(final Binary deliveryTag, final LinkEndpoint<?, ?> linkEndpoint)
+    public synchronized UnsignedInteger getDeliveryId(final Binary deliveryTag, final LinkEndpoint<?, ?> linkEndpoint)
     {
-        return _deliveryIds.get(new UnsettledDelivery(deliveryTag, linkEndpoint));
+        final LinkDeliveries link = _linkDeliveries.get(linkEndpoint);
+        final Integer deliveryId = link == null ? null : link._deliveryIds.get(deliveryTag);
+        return deliveryId == null ? null : UnsignedInteger.valueOf(deliveryId);
     }
 
     @Override
     public int size()
     {
-        return _deliveries.size();
+        return _size;
+    }
+
+    @Override
+    public void forEachDelivery(final int first, final int last, final boolean remove,
+                                final Consumer<UnsettledDelivery> action)
+    {
+        if (last - first < 0)
+        {
+            return;
+        }
+        else if (first == last)
+        {
+            visit(first, remove, action);
+            return;
+        }
+
+        // overflowed deliveries precede those in the window
+        for (int deliveryId : getOverflowedDeliveryIds(first, last))
+        {
+            visit(deliveryId, remove, action);
+        }
+
+        final int start;
+        final long count;
+        synchronized (this)
+        {
+            if (_base == _end || last - _base < 0 || _end - first <= 0)
+            {
+                return;
+            }
+            start = first - _base < 0 ? _base : first;
+            final int end = last - _end < 0 ? last + 1 : _end;
+            count = Integer.toUnsignedLong(end - start);
+        }
+
+        // the registry is not locked while the action runs, as it may itself settle deliveries
+        int deliveryId = start;
+        for (long i = 0; i < count; i++, deliveryId++)
+        {
+            visit(deliveryId, remove, action);
+        }
+    }
+
+    @Override
+    public void removeDeliveries(final int first, final int last)
+    {
+        forEachDelivery(first, last, true, unsettledDelivery -> { });
+    }
+
+    int getCapacity()
+    {
+        return _deliveries.length;
+    }
+
+    int getOverflowSize()
+    {
+        return _overflow.size();
+    }
+
+    private void visit(final int deliveryId, final boolean remove, final Consumer<UnsettledDelivery> action)
+    {
+        final UnsettledDelivery unsettledDelivery = getDelivery(deliveryId);
+        if (unsettledDelivery != null)
+        {
+            action.accept(unsettledDelivery);
+            if (remove)
+            {
+                removeDelivery(deliveryId);
+            }
+        }
+    }
+
+    private synchronized List<Integer> getOverflowedDeliveryIds(final int first, final int last)
+    {
+        if (_overflow.isEmpty())
+        {
+            return List.of();
+        }
+        final long width = Integer.toUnsignedLong(last - first);
+        final List<Integer> deliveryIds = new ArrayList<>();
+        for (Integer deliveryId : _overflow.keySet())
+        {
+            if (Integer.toUnsignedLong(deliveryId - first) <= width)
+            {
+                deliveryIds.add(deliveryId);
+            }
+        }
+        deliveryIds.sort((id1, id2) -> Integer.compareUnsigned(id1 - first, id2 - first));
+        return deliveryIds;
+    }
+
+    private boolean isInWindow(final int deliveryId)
+    {
+        return deliveryId - _base >= 0 && deliveryId - _end < 0;
+    }
+
+    private UnsettledDelivery removed(final int deliveryId,
+                                      final UnsettledDelivery unsettledDelivery,
+                                      final LinkDeliveries link)
+    {
+        if (link._removed)
+        {
+            // already discounted when the deliveries of the link were removed
+            return null;
+        }
+        link._deliveryIds.remove(unsettledDelivery.getDeliveryTag(), deliveryId);
+        link._count--;
+        _size--;
+        return unsettledDelivery;
+    }
+
+    /**
+     * Moves the start of the window past empty slots and slots of links whose deliveries have been removed.
+     */
+    private void advanceBase()
+    {
+        final int mask = _deliveries.length - 1;
+        while (_base != _end)
+        {
+            final int index = _base & mask;
+            final LinkDeliveries link = _links[index];
+            if (link != null && !link._removed)
+            {
+                return;
+            }
+            _deliveries[index] = null;
+            _links[index] = null;
+            _base++;
+        }
+    }
+
+    private void ensureCapacity(final int deliveryId)
+    {
+        if (deliveryId - _base < _deliveries.length)
+        {
+            return;
+        }
+
+        advanceBase();
+        if (_base == _end)
+        {
+            _base = deliveryId;
+            _end = deliveryId;
+        }
+
+        final long required = Integer.toUnsignedLong(deliveryId - _base) + 1;
+        if (required > _deliveries.length)
+        {
+            int capacity = _deliveries.length;
+            while (capacity < required && capacity < MAXIMUM_CAPACITY)
+            {
+                capacity <<= 1;
+            }
+            if (capacity != _deliveries.length)
+            {
+                resize(capacity);
+            }
+            if (required > capacity)
+            {
+                overflow(deliveryId - capacity + 1);
+            }
+        }
+    }
+
+    private void resize(final int capacity)
+    {
+        final UnsettledDelivery[] deliveries = new UnsettledDelivery[capacity];
+        final LinkDeliveries[] links = new LinkDeliveries[capacity];
+        final int oldMask = _deliveries.length - 1;
+        final int newMask = capacity - 1;
+        for (int deliveryId = _base; deliveryId != _end; deliveryId++)
+        {
+            deliveries[deliveryId & newMask] = _deliveries[deliveryId & oldMask];
+            links[deliveryId & newMask] = _links[deliveryId & oldMask];
+        }
+        _deliveries = deliveries;
+        _links = links;
+    }
+
+    /**
+     * Moves the deliveries preceding the given id out of the window into the overflow map.
+     */
+    private void overflow(final int newBase)
+    {
+        final int mask = _deliveries.length - 1;
+        while (_base != _end && _base - newBase < 0)
+        {
+            final int index = _base & mask;
+            final LinkDeliveries link = _links[index];
+            if (link != null && !link._removed)
+            {
+                _overflow.put(_base, new OverflowedDelivery(_deliveries[index], link));
+            }
+            _deliveries[index] = null;
+            _links[index] = null;
+            _base++;
+        }
+        if (_base == _end)
+        {
+            _base = newBase;
+            _end = newBase;
+        }
+        advanceBase();
+    }
+
+    private static final class LinkDeliveries
+    {
+        private final Map<Binary, Integer> _deliveryIds = new HashMap<>();
+        private int _count;
+        private boolean _removed;
+    }
+
+    private static final class OverflowedDelivery
+    {
+        private final UnsettledDelivery _delivery;
+        private final LinkDeliveries _link;
+
+        private OverflowedDelivery(final UnsettledDelivery delivery, final LinkDeliveries link)
+        {
+            _delivery = delivery;
+            _link = link;
+        }
     }
 }
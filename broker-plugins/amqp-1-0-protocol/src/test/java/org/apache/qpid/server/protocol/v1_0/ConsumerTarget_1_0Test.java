@@ -25,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -40,6 +41,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.model.Consumer;
@@ -109,18 +111,16 @@ class ConsumerTarget_1_0Test extends UnitTestBase
         doAnswer(invocation ->
         {
             final Object[] args = invocation.getArguments();
-            final Transfer transfer = (Transfer) args[0];
+            final MessageContentReader payloadReader = (MessageContentReader) args[1];
+            final long payloadSize = (Long) args[2];
 
-            final QpidByteBuffer transferPayload = transfer.getPayload();
-
-            final QpidByteBuffer payloadCopy = transferPayload.duplicate();
-            payloadRef.set(payloadCopy);
+            payloadRef.set(payloadReader.read((int) payloadSize));
             return null;
-        }).when(_sendingLinkEndpoint).transfer(any(Transfer.class), anyBoolean());
+        }).when(_sendingLinkEndpoint).transfer(any(Transfer.class), any(MessageContentReader.class), anyLong(), anyBoolean());
 
         _consumerTarget.doSend(consumer, messageInstance, false);
 
-        verify(_sendingLinkEndpoint, times(1)).transfer(any(Transfer.class), anyBoolean());
+        verify(_sendingLinkEndpoint, times(1)).transfer(any(Transfer.class), any(MessageContentReader.class), anyLong(), anyBoolean());
 
         final List<EncodingRetainingSection<?>> sections;
         try (final QpidByteBuffer payload = payloadRef.get())
@@ -162,6 +162,7 @@ class ConsumerTarget_1_0Test extends UnitTestBase
         final StoredMessage<MessageMetaData_1_0> storedMessage = mock(StoredMessage.class);
         when(storedMessage.getContent(eq(0), anyInt())).thenReturn(QpidByteBuffer.emptyQpidByteBuffer());
         when(storedMessage.getMetaData()).thenReturn(metaData);
+        when(storedMessage.openContentReader()).thenCallRealMethod();
         return new Message_1_0(storedMessage);
     }
 }
@@ -25,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.security.auth.Subject;
 
@@ -50,10 +52,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.stubbing.Answer;
 
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
 import org.apache.qpid.server.configuration.updater.TaskExecutor;
 import org.apache.qpid.server.filter.AMQPFilterTypes;
 import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.MessageContentReader;
+import org.apache.qpid.server.message.RangedMessageContentReader;
 import org.apache.qpid.server.model.Binding;
 import org.apache.qpid.server.model.BrokerModel;
 import org.apache.qpid.server.model.BrokerTestHelper;
@@ -82,6 +87,7 @@ import org.apache.qpid.server.protocol.v1_0.type.transport.Begin;
 import org.apache.qpid.server.protocol.v1_0.type.transport.Detach;
 import org.apache.qpid.server.protocol.v1_0.type.transport.LinkError;
 import org.apache.qpid.server.protocol.v1_0.type.transport.Role;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Transfer;
 import org.apache.qpid.server.queue.QueueConsumer;
 import org.apache.qpid.server.transport.AggregateTicker;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -802,6 +808,53 @@ class Session_1_0Test extends UnitTestBase
         return attach;
     }
 
+    @Test
+    void sendTransferReadsPayloadAFrameAtATime()
+    {
+        final int maxFrameSize = _connection.getMaxFrameSize();
+        final int maxPayloadSize = maxFrameSize - 100;
+        final byte[] content = new byte[maxFrameSize * 4 + 10];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+
+        final List<Integer> offeredPayloadSizes = new ArrayList<>();
+        final byte[] sent = new byte[content.length];
+        final AtomicInteger sentLength = new AtomicInteger();
+        when(_connection.sendFrame(eq(_session.getChannelId()), any(FrameBody.class), any(QpidByteBuffer.class)))
+                .thenAnswer((Answer<Integer>) invocation ->
+                {
+                    final QpidByteBuffer payload = invocation.getArgument(2);
+                    final int length = Math.min(payload.remaining(), maxPayloadSize);
+                    offeredPayloadSizes.add(payload.remaining());
+                    payload.get(sent, sentLength.getAndAdd(length), length);
+                    return length;
+                });
+
+        final List<Integer> readLengths = new ArrayList<>();
+        final MessageContentReader payloadReader = new RangedMessageContentReader((offset, length) ->
+        {
+            readLengths.add(length);
+            return QpidByteBuffer.wrap(content, offset, length);
+        }, content.length);
+
+        final Transfer transfer = new Transfer();
+        transfer.setSettled(true);
+        _session.sendTransfer(transfer, mock(SendingLinkEndpoint.class), payloadReader, content.length);
+
+        assertArrayEquals(content, sent, "Unexpected payload sent");
+        assertTrue(readLengths.stream().allMatch(length -> length <= maxFrameSize),
+                   "Payload read more than a frame ahead: " + readLengths);
+        for (int i = 0; i < offeredPayloadSizes.size() - 1; i++)
+        {
+            assertTrue(offeredPayloadSizes.get(i) > maxPayloadSize,
+                       "Frame " + i + " not offered more payload than fits: " + offeredPayloadSizes);
+        }
+        assertTrue(offeredPayloadSizes.get(offeredPayloadSizes.size() - 1) <= maxPayloadSize,
+                   "Last frame offered more payload than fits: " + offeredPayloadSizes);
+    }
+
     private AMQPConnection_1_0<?> createAmqpConnection_1_0()
     {
         return createAmqpConnection_1_0(null);
@@ -22,10 +22,14 @@ package org.apache.qpid.server.protocol.v1_0.delivery;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -120,4 +124,96 @@ class DeliveryRegistryImplTest extends UnitTestBase
 
         assertThat(_registry.size(), is(equalTo(0)));
     }
+
+    @Test
+    void forEachDeliveryVisitsRegisteredDeliveriesInRange()
+    {
+        final LinkEndpoint<?, ?> linkEndpoint = _unsettledDelivery.getLinkEndpoint();
+        final List<UnsettledDelivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            final UnsettledDelivery delivery = new UnsettledDelivery(new Binary(new byte[]{(byte) i}), linkEndpoint);
+            deliveries.add(delivery);
+            if (i != 5)
+            {
+                _registry.addDelivery(UnsignedInteger.valueOf(i), delivery);
+            }
+        }
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.forEachDelivery(3, 7, false, visited::add);
+        assertThat(visited, is(equalTo(List.of(deliveries.get(3), deliveries.get(4), deliveries.get(6), deliveries.get(7)))));
+        assertThat(_registry.size(), is(equalTo(9)));
+
+        visited.clear();
+        _registry.forEachDelivery(2, Integer.MAX_VALUE, true, visited::add);
+        assertThat(visited.size(), is(equalTo(7)));
+        assertThat(_registry.size(), is(equalTo(2)));
+        assertThat(_registry.getDelivery(UnsignedInteger.valueOf(1)), is(equalTo(deliveries.get(1))));
+        assertThat(_registry.getDeliveryId(deliveries.get(4).getDeliveryTag(), linkEndpoint), is(nullValue()));
+
+        _registry.removeDeliveries(0, 1);
+        assertThat(_registry.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void forEachDeliveryAcrossDeliveryIdWraparound()
+    {
+        final UnsignedInteger beforeWrap = UnsignedInteger.valueOf(0xFFFFFFFFL);
+        _registry.addDelivery(beforeWrap, _unsettledDelivery);
+        _registry.addDelivery(UnsignedInteger.ZERO,
+                              new UnsettledDelivery(DELIVERY_TAG_2, _unsettledDelivery.getLinkEndpoint()));
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.forEachDelivery(beforeWrap.intValue(), 0, true, visited::add);
+
+        assertThat(visited.size(), is(equalTo(2)));
+        assertThat(visited.get(0), is(equalTo(_unsettledDelivery)));
+        assertThat(_registry.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void deliveryLeftUnsettledBehindWindowIsRetained()
+    {
+        final LinkEndpoint<?, ?> linkEndpoint = _unsettledDelivery.getLinkEndpoint();
+        _registry.addDelivery(DELIVERY_ID, _unsettledDelivery);
+        final int count = DeliveryRegistryImpl.MAXIMUM_CAPACITY * 2;
+        for (int i = 1; i <= count; i++)
+        {
+            _registry.addDelivery(UnsignedInteger.valueOf(i),
+                                  new UnsettledDelivery(new Binary(Integer.toString(i).getBytes()), linkEndpoint));
+            _registry.removeDelivery(UnsignedInteger.valueOf(i));
+        }
+
+        assertThat(_registry.getCapacity() <= DeliveryRegistryImpl.MAXIMUM_CAPACITY, is(equalTo(true)));
+        assertThat(_registry.size(), is(equalTo(1)));
+        assertThat(_registry.getDelivery(DELIVERY_ID), is(notNullValue()));
+        assertThat(_registry.getDeliveryId(DELIVERY_TAG, linkEndpoint), is(equalTo(DELIVERY_ID)));
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.forEachDelivery(0, count, true, visited::add);
+        assertThat(visited, is(equalTo(List.of(_unsettledDelivery))));
+        assertThat(_registry.size(), is(equalTo(0)));
+    }
+
+    @Test
+    void deliveriesOfRemovedLinkEndpointAreNotVisited()
+    {
+        final LinkEndpoint<?, ?> otherLinkEndpoint = mock(LinkEndpoint.class);
+        final UnsettledDelivery otherDelivery = new UnsettledDelivery(DELIVERY_TAG, otherLinkEndpoint);
+        _registry.addDelivery(DELIVERY_ID, _unsettledDelivery);
+        _registry.addDelivery(DELIVERY_ID_2, otherDelivery);
+
+        _registry.removeDeliveriesForLinkEndpoint(_unsettledDelivery.getLinkEndpoint());
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.forEachDelivery(0, 1, false, visited::add);
+        assertThat(visited, is(equalTo(List.of(otherDelivery))));
+        assertThat(_registry.getDelivery(DELIVERY_ID), is(nullValue()));
+
+        _registry.addDelivery(UnsignedInteger.valueOf(2), _unsettledDelivery);
+        assertThat(_registry.size(), is(equalTo(2)));
+        assertThat(_registry.getDeliveryId(DELIVERY_TAG, _unsettledDelivery.getLinkEndpoint()),
+                   is(equalTo(UnsignedInteger.valueOf(2))));
+    }
 }
@@ -49,6 +49,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -56,8 +57,10 @@ import org.slf4j.Logger;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.message.MessageContentReader;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.plugin.MessageMetaDataType;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.Event;
 import org.apache.qpid.server.store.EventListener;
 import org.apache.qpid.server.store.EventManager;
@@ -109,6 +112,8 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     private String _tablePrefix = "";
     private final AtomicLong _inMemorySize = new AtomicLong();
     private final AtomicLong _bytesEvacuatedFromMemory = new AtomicLong();
+    private final LatencyHistogram _commitLatency =
+            new LatencyHistogram("storeCommitLatency", "Latency of message store transaction commits");
     private final Set<StoredJDBCMessage<?>> _messages = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<MessageDeleteListener> _messageDeleteListeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<Action<Connection>> _deleteActions = Collections.newSetFromMap(new ConcurrentHashMap<>());
@@ -912,12 +917,13 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     }
 
 
-    private void commitTran(ConnectionWrapper connWrapper) throws StoreException
+    private void commitTran(ConnectionWrapper connWrapper, final long startTime) throws StoreException
     {
         try
         {
             Connection conn = connWrapper.getConnection();
             conn.commit();
+            _commitLatency.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
 
             getLogger().debug("commit tran completed");
 
@@ -932,11 +938,12 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     private <X> ListenableFuture<X> commitTranAsync(final ConnectionWrapper connWrapper, final X val) throws StoreException
     {
         final SettableFuture<X> future = SettableFuture.create();
+        final long startTime = System.nanoTime();
         _executor.submit(() ->
         {
             try
             {
-                commitTran(connWrapper);
+                commitTran(connWrapper, startTime);
                 future.set(val);
             }
             catch (RuntimeException e)
@@ -1156,6 +1163,19 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     {
         getLogger().debug("Message Id: {} Getting content body", messageId);
 
+        return getContent(messageId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the given range of the content of a message. The content preceding the range is skipped in the stream
+     * of the content and the content following it is not read. Each call runs its own query, so the content of a
+     * message should not be read piecewise with this method.
+     */
+    QpidByteBuffer getContent(long messageId, int offset, int length) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Getting {} byte(s) of content body from offset {}",
+                          messageId, length, offset);
+
         try(Connection conn = newAutoCommitConnection();
             PreparedStatement stmt = conn.prepareStatement("SELECT content FROM " + getMessageContentTableName()
         + " WHERE message_id = ?"))
@@ -1167,7 +1187,12 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             {
                 try (InputStream blobAsInputStream = getBlobAsInputStream(rs, 1))
                 {
-                    return QpidByteBuffer.asQpidByteBuffer(blobAsInputStream);
+                    if (offset == 0 && length == Integer.MAX_VALUE)
+                    {
+                        return QpidByteBuffer.asQpidByteBuffer(blobAsInputStream);
+                    }
+                    ByteStreams.skipFully(blobAsInputStream, offset);
+                    return QpidByteBuffer.asQpidByteBuffer(ByteStreams.limit(blobAsInputStream, length));
                 }
             }
             else
@@ -1182,6 +1207,98 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         }
     }
 
+    /**
+     * Opens a reader of the content of a message which reads the content piecewise from a single stream of the
+     * content, holding the query and its connection open until the reader is closed.
+     */
+    MessageContentReader openContentReader(long messageId, int contentSize) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Opening reader of content body", messageId);
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try
+        {
+            conn = newAutoCommitConnection();
+            stmt = conn.prepareStatement("SELECT content FROM " + getMessageContentTableName()
+                                         + " WHERE message_id = ?");
+            stmt.setLong(1, messageId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next())
+            {
+                return new JDBCMessageContentReader(messageId, conn, stmt, getBlobAsInputStream(rs, 1), contentSize);
+            }
+        }
+        catch (SQLException e)
+        {
+            JdbcUtils.closePreparedStatement(stmt, getLogger());
+            JdbcUtils.closeConnection(conn, getLogger());
+            throw new StoreException("Error retrieving content for message " + messageId + ": " + e.getMessage(), e);
+        }
+
+        JdbcUtils.closePreparedStatement(stmt, getLogger());
+        JdbcUtils.closeConnection(conn, getLogger());
+        throw new StoreException("Unable to find message with id " + messageId);
+    }
+
+    private class JDBCMessageContentReader implements MessageContentReader
+    {
+        private final long _messageId;
+        private final Connection _connection;
+        private final PreparedStatement _statement;
+        private final InputStream _content;
+        private final int _contentSize;
+        private int _position;
+
+        private JDBCMessageContentReader(final long messageId,
+                                         final Connection connection,
+                                         final PreparedStatement statement,
+                                         final InputStream content,
+                                         final int contentSize)
+        {
+            _messageId = messageId;
+            _connection = connection;
+            _statement = statement;
+            _content = content;
+            _contentSize = contentSize;
+        }
+
+        @Override
+        public QpidByteBuffer read(final int length)
+        {
+            final int rangeLength = Math.min(length, _contentSize - _position);
+            try
+            {
+                QpidByteBuffer content = QpidByteBuffer.asQpidByteBuffer(ByteStreams.limit(_content, rangeLength));
+                _position += rangeLength;
+                return content;
+            }
+            catch (IOException e)
+            {
+                throw new StoreException("Error retrieving content for message " + _messageId + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                _content.close();
+            }
+            catch (IOException e)
+            {
+                getLogger().debug("Problem closing content stream of message {}", _messageId, e);
+            }
+            finally
+            {
+                JdbcUtils.closePreparedStatement(_statement, getLogger());
+                JdbcUtils.closeConnection(_connection, getLogger());
+            }
+        }
+    }
+
     @Override
     public boolean isPersistent()
     {
@@ -1200,10 +1317,17 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return _bytesEvacuatedFromMemory.get();
     }
 
+    @Override
+    public LatencyHistogram getCommitLatency()
+    {
+        return _commitLatency;
+    }
+
     @Override
     public void resetStatistics()
     {
         _bytesEvacuatedFromMemory.set(0L);
+        _commitLatency.reset();
     }
 
     protected class JDBCTransaction implements Transaction
@@ -1268,7 +1392,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
             doPreCommitActions();
-            AbstractJDBCMessageStore.this.commitTran(_connWrapper);
+            AbstractJDBCMessageStore.this.commitTran(_connWrapper, System.nanoTime());
             storedSizeChange(_storeSizeIncrease);
             doPostCommitActions();
         }
@@ -1610,6 +1734,15 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         @Override
         public synchronized QpidByteBuffer getContent(int offset, int length)
         {
+            if (isRangeOfContentNotInMemory(offset, length))
+            {
+                // read only the requested range, leaving the rest of the content in the database
+                checkMessageStoreOpen();
+                return AbstractJDBCMessageStore.this.getContent(_messageId,
+                                                                offset,
+                                                                Math.min(length, getContentSize() - offset));
+            }
+
             QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
             if (length == Integer.MAX_VALUE)
             {
@@ -1618,6 +1751,27 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             return contentAsByteBuffer.view(offset, length);
         }
 
+        @Override
+        public synchronized MessageContentReader openContentReader()
+        {
+            if (_messageDataRef != null && _messageDataRef.getData() == null && stored())
+            {
+                // stream the content from the database, leaving it there
+                checkMessageStoreOpen();
+                return AbstractJDBCMessageStore.this.openContentReader(_messageId, getContentSize());
+            }
+            return StoredMessage.super.openContentReader();
+        }
+
+        private boolean isRangeOfContentNotInMemory(final int offset, final int length)
+        {
+            return (offset > 0 || length < getContentSize())
+                   && offset < getContentSize()
+                   && _messageDataRef != null
+                   && _messageDataRef.getData() == null
+                   && stored();
+        }
+
         @Override
         public int getContentSize()
         {
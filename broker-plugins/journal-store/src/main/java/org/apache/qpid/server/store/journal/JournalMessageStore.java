@@ -0,0 +1,2422 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.plugin.MessageMetaDataType;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.store.Event;
+import org.apache.qpid.server.store.EventListener;
+import org.apache.qpid.server.store.EventManager;
+import org.apache.qpid.server.store.FileBasedSettings;
+import org.apache.qpid.server.store.MessageDurability;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageMetaDataTypeRegistry;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.SizeMonitoringSettings;
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.Transaction;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.store.handler.DistributedTransactionHandler;
+import org.apache.qpid.server.store.handler.MessageHandler;
+import org.apache.qpid.server.store.handler.MessageInstanceHandler;
+import org.apache.qpid.server.txn.Xid;
+import org.apache.qpid.server.util.FileUtils;
+
+/**
+ * Message store which keeps messages, message instances and distributed transactions in an append-only journal.
+ * <p>
+ * The journal is a sequence of {@link Segment}s. All writes are made by a single writer thread, which appends a
+ * record for each transaction and forces the journal once for all the transactions it finds waiting, so that
+ * concurrent commits share a single sync. Each record is framed by its length and a CRC32C checksum of its content;
+ * on recovery the records are replayed in order to rebuild an index of the live messages, instances and
+ * distributed transactions, and an incompletely written record at the end of the journal is discarded.
+ * <p>
+ * Dequeues and message deletions are recorded as tombstones. The index tracks the live bytes of each segment, and
+ * when the writer is idle it compacts the journal by copying the live records of the oldest segment to the end of
+ * the journal and deleting the segment, once the proportion of live data in that segment, or in the whole journal,
+ * falls below the compaction threshold.
+ * <p>
+ * Message content and metadata are read through a read-only mapping of the segment, so content which has flowed to
+ * disk is returned as a view of the mapped file without copying.
+ */
+public class JournalMessageStore implements MessageStore
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalMessageStore.class);
+
+    public static final String SEGMENT_SIZE = "qpid.journalstore.segmentSize";
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+    /** percentage of live data below which segments are compacted, zero disabling compaction of live data */
+    public static final String COMPACTION_THRESHOLD = "qpid.journalstore.compactionThreshold";
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 50;
+
+    private static final int MINIMUM_SEGMENT_SIZE = 4096;
+    private static final long WRITER_WAIT_TIMEOUT = 1000L;
+    private static final int FIELDS_BUFFER_SIZE = 256;
+
+    private static final byte MESSAGE = 1;
+    private static final byte ENQUEUE = 2;
+    private static final byte DEQUEUE = 3;
+    private static final byte MESSAGE_DELETE = 4;
+    private static final byte XID = 5;
+    private static final byte XID_REMOVE = 6;
+
+    /** type, message id, metadata size and content size */
+    private static final int MESSAGE_ENTRY_HEADER_SIZE = 1 + Long.BYTES + 2 * Integer.BYTES;
+    /** type, queue id and message id */
+    private static final int QUEUE_ENTRY_SIZE = 1 + 3 * Long.BYTES;
+    /** type and message id */
+    private static final int MESSAGE_DELETE_ENTRY_SIZE = 1 + Long.BYTES;
+    /** length and checksum */
+    private static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+
+    private final AtomicBoolean _messageStoreOpen = new AtomicBoolean();
+    private final AtomicLong _messageId = new AtomicLong();
+    private final EventManager _eventManager = new EventManager();
+    private final AtomicLong _inMemorySize = new AtomicLong();
+    private final AtomicLong _bytesEvacuatedFromMemory = new AtomicLong();
+    private final AtomicLong _storeSize = new AtomicLong();
+    private final LatencyHistogram _commitLatency =
+            new LatencyHistogram("storeCommitLatency", "Latency of message store transaction commits");
+    private final Set<StoredJournalMessage<?>> _messages = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<MessageDeleteListener> _messageDeleteListeners = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Deque<Segment> _segments = new ConcurrentLinkedDeque<>();
+
+    private final Object _indexLock = new Object();
+    private final Map<Long, MessageLocation> _messageLocations = new HashMap<>();
+    private final Map<UUID, NavigableMap<Long, Segment>> _messageInstances = new HashMap<>();
+    private final Map<Xid, XidLocation> _distributedTransactions = new HashMap<>();
+    private long _liveBytes;
+
+    private ConfiguredObject<?> _parent;
+    private File _storeLocation;
+    private int _segmentSize;
+    private int _compactionThreshold;
+    private long _persistentSizeLowThreshold;
+    private long _persistentSizeHighThreshold;
+    private boolean _limitBusted;
+    private volatile JournalWriter _writer;
+
+    @Override
+    public void openMessageStore(final ConfiguredObject<?> parent)
+    {
+        if (_messageStoreOpen.compareAndSet(false, true))
+        {
+            _parent = parent;
+            _storeLocation = new File(((FileBasedSettings) parent).getStorePath());
+
+            final long segmentSize = getContextValue(Long.class, SEGMENT_SIZE, DEFAULT_SEGMENT_SIZE);
+            _segmentSize = (int) Math.max(MINIMUM_SEGMENT_SIZE, Math.min(segmentSize, Integer.MAX_VALUE));
+            _compactionThreshold = getContextValue(Integer.class, COMPACTION_THRESHOLD, DEFAULT_COMPACTION_THRESHOLD);
+
+            final SizeMonitoringSettings sizeMonitorSettings = (SizeMonitoringSettings) parent;
+            _persistentSizeHighThreshold = sizeMonitorSettings.getStoreOverfullSize();
+            _persistentSizeLowThreshold = sizeMonitorSettings.getStoreUnderfullSize();
+            if (_persistentSizeLowThreshold > _persistentSizeHighThreshold || _persistentSizeLowThreshold < 0L)
+            {
+                _persistentSizeLowThreshold = _persistentSizeHighThreshold;
+            }
+
+            try
+            {
+                Files.createDirectories(_storeLocation.toPath());
+                recover();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                closeSegments();
+                clearIndex();
+                _messageStoreOpen.set(false);
+                if (e instanceof StoreException)
+                {
+                    throw (StoreException) e;
+                }
+                throw new StoreException("Failed to open journal message store at " + _storeLocation, e);
+            }
+
+            _writer = new JournalWriter("Journal-Writer-" + parent.getName());
+            _writer.start();
+        }
+    }
+
+    @Override
+    public void upgradeStoreStructure() throws StoreException
+    {
+    }
+
+    @Override
+    public <T extends StorableMessageMetaData> MessageHandle<T> addMessage(final T metaData)
+    {
+        checkMessageStoreOpen();
+        return createStoredJournalMessage(getNextMessageId(), metaData, false);
+    }
+
+    private <T extends StorableMessageMetaData> StoredJournalMessage<T> createStoredJournalMessage(final long messageId,
+                                                                                                  final T metaData,
+                                                                                                  final boolean recovered)
+    {
+        final StoredJournalMessage<T> message = new StoredJournalMessage<>(messageId, metaData, recovered);
+        _messages.add(message);
+        return message;
+    }
+
+    @Override
+    public long getNextMessageId()
+    {
+        return _messageId.incrementAndGet();
+    }
+
+    @Override
+    public long getInMemorySize()
+    {
+        return _inMemorySize.get();
+    }
+
+    @Override
+    public long getBytesEvacuatedFromMemory()
+    {
+        return _bytesEvacuatedFromMemory.get();
+    }
+
+    @Override
+    public LatencyHistogram getCommitLatency()
+    {
+        return _commitLatency;
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        _bytesEvacuatedFromMemory.set(0L);
+        _commitLatency.reset();
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public Transaction newTransaction()
+    {
+        checkMessageStoreOpen();
+        return new JournalTransaction();
+    }
+
+    @Override
+    public void closeMessageStore()
+    {
+        if (_messageStoreOpen.compareAndSet(true, false))
+        {
+            try
+            {
+                final JournalWriter writer = _writer;
+                if (writer != null)
+                {
+                    _writer = null;
+                    writer.stopWriting();
+                }
+                final Segment segment = _segments.peekLast();
+                if (segment != null)
+                {
+                    segment.force();
+                }
+            }
+            catch (IOException e)
+            {
+                throw new StoreException("Failed to force journal on close", e);
+            }
+            finally
+            {
+                closeSegments();
+                for (StoredJournalMessage<?> message : _messages)
+                {
+                    message.clear(true);
+                }
+                _messages.clear();
+                _inMemorySize.set(0);
+                _bytesEvacuatedFromMemory.set(0);
+                clearIndex();
+            }
+        }
+    }
+
+    @Override
+    public void onDelete(final ConfiguredObject<?> parent)
+    {
+        if (_messageStoreOpen.get())
+        {
+            throw new IllegalStateException("Cannot delete the store as store is still open");
+        }
+
+        final String storePath = ((FileBasedSettings) parent).getStorePath();
+        if (storePath != null)
+        {
+            LOGGER.debug("Deleting store {}", storePath);
+
+            final File storeLocation = new File(storePath);
+            if (storeLocation.exists() && !FileUtils.delete(storeLocation, true))
+            {
+                LOGGER.error("Cannot delete {}", storePath);
+            }
+        }
+    }
+
+    @Override
+    public String getStoreLocation()
+    {
+        return _storeLocation == null ? null : _storeLocation.getAbsolutePath();
+    }
+
+    @Override
+    public File getStoreLocationAsFile()
+    {
+        return _storeLocation;
+    }
+
+    @Override
+    public void addEventListener(final EventListener eventListener, final Event... events)
+    {
+        _eventManager.addEventListener(eventListener, events);
+    }
+
+    @Override
+    public void addMessageDeleteListener(final MessageDeleteListener listener)
+    {
+        _messageDeleteListeners.add(listener);
+    }
+
+    @Override
+    public void removeMessageDeleteListener(final MessageDeleteListener listener)
+    {
+        _messageDeleteListeners.remove(listener);
+    }
+
+    @Override
+    public MessageStoreReader newMessageStoreReader()
+    {
+        return new JournalMessageStoreReader();
+    }
+
+    int getSegmentCount()
+    {
+        return _segments.size();
+    }
+
+    long getStoreSize()
+    {
+        return _storeSize.get();
+    }
+
+    private void checkMessageStoreOpen()
+    {
+        if (!_messageStoreOpen.get())
+        {
+            throw new IllegalStateException("Message store is not open");
+        }
+    }
+
+    private <T> T getContextValue(final Class<T> variableClass, final String name, final T defaultValue)
+    {
+        if (_parent.getContextKeys(false).contains(name))
+        {
+            return _parent.getContextValue(variableClass, name);
+        }
+        else
+        {
+            return defaultValue;
+        }
+    }
+
+    private void submit(final JournalJob job)
+    {
+        final JournalWriter writer = _writer;
+        try
+        {
+            if (writer == null)
+            {
+                throw new IllegalStateException("Message store is not open");
+            }
+            writer.addJob(job);
+        }
+        catch (RuntimeException e)
+        {
+            job.abort(e);
+            throw e;
+        }
+    }
+
+    private static void await(final ListenableFuture<?> future)
+    {
+        try
+        {
+            future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Interrupted while waiting for the journal to be written", e);
+        }
+        catch (ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new StoreException("Failed to write to the journal", cause);
+        }
+    }
+
+    private void recover() throws IOException
+    {
+        final File[] files = _storeLocation.listFiles((dir, name) -> name.endsWith(Segment.FILE_SUFFIX));
+        long maxMessageId = 0;
+        if (files != null)
+        {
+            // segment file names are the zero-padded segment sequence numbers, so sort in journal order
+            Arrays.sort(files);
+            for (int i = 0; i < files.length; i++)
+            {
+                if (i == files.length - 1 && !Segment.hasHeader(files[i]))
+                {
+                    LOGGER.warn("Deleting journal segment {} whose creation did not complete", files[i]);
+                    Files.delete(files[i].toPath());
+                    break;
+                }
+                final Segment segment = Segment.open(files[i]);
+                _segments.add(segment);
+                maxMessageId = Math.max(maxMessageId, replay(segment, i == files.length - 1));
+            }
+        }
+        _messageId.set(maxMessageId);
+
+        LOGGER.debug("Recovered {} segments of journal {} holding {} messages",
+                     _segments.size(), _storeLocation, _messageLocations.size());
+    }
+
+    private long replay(final Segment segment, final boolean lastSegment) throws IOException
+    {
+        long maxMessageId = 0;
+        int position = Segment.HEADER_SIZE;
+        while (position <= segment.getCapacity() - RECORD_OVERHEAD)
+        {
+            final int length = segment.getInt(position);
+            if (length == 0)
+            {
+                break;
+            }
+
+            final int payloadPosition = position + Integer.BYTES;
+            if (length < 0
+                || length > segment.getCapacity() - position - RECORD_OVERHEAD
+                || segment.getInt(payloadPosition + length) != segment.checksum(payloadPosition, length))
+            {
+                if (lastSegment)
+                {
+                    LOGGER.warn("Discarding incompletely written record at position {} of journal segment {}",
+                                position, segment.getFile());
+                    segment.truncate(position);
+                    break;
+                }
+                throw new StoreException(String.format("Journal segment %s is corrupt at position %d",
+                                                       segment.getFile(), position));
+            }
+
+            maxMessageId = Math.max(maxMessageId, replayRecord(segment, payloadPosition, length));
+            position = payloadPosition + length + Integer.BYTES;
+        }
+        segment.recovered(position);
+        _storeSize.addAndGet(position);
+        return maxMessageId;
+    }
+
+    private long replayRecord(final Segment segment, final int payloadPosition, final int length)
+    {
+        final ByteBuffer record = segment.slice(payloadPosition, length);
+        long maxMessageId = 0;
+        synchronized (_indexLock)
+        {
+            while (record.hasRemaining())
+            {
+                final int position = payloadPosition + record.position();
+                final byte type = record.get();
+                switch (type)
+                {
+                    case MESSAGE:
+                    {
+                        final long messageId = record.getLong();
+                        final int metadataSize = record.getInt();
+                        final int contentSize = record.getInt();
+                        record.position(record.position() + metadataSize + contentSize);
+                        setMessageLocation(messageId, new MessageLocation(segment, position, metadataSize, contentSize));
+                        maxMessageId = Math.max(maxMessageId, messageId);
+                        break;
+                    }
+                    case ENQUEUE:
+                    {
+                        final UUID queueId = new UUID(record.getLong(), record.getLong());
+                        final long messageId = record.getLong();
+                        setMessageInstance(queueId, messageId, segment);
+                        maxMessageId = Math.max(maxMessageId, messageId);
+                        break;
+                    }
+                    case DEQUEUE:
+                    {
+                        final UUID queueId = new UUID(record.getLong(), record.getLong());
+                        removeMessageInstance(queueId, record.getLong());
+                        break;
+                    }
+                    case MESSAGE_DELETE:
+                    {
+                        removeMessageLocation(record.getLong());
+                        break;
+                    }
+                    case XID:
+                    {
+                        final Xid xid = readXid(record);
+                        final RecordImpl[] enqueues = readRecords(record);
+                        final RecordImpl[] dequeues = readRecords(record);
+                        setXidLocation(xid, new XidLocation(segment, payloadPosition + record.position() - position,
+                                                            enqueues, dequeues));
+                        break;
+                    }
+                    case XID_REMOVE:
+                    {
+                        removeXidLocation(readXid(record));
+                        break;
+                    }
+                    default:
+                        throw new StoreException(String.format("Unknown entry type %d at position %d of journal segment %s",
+                                                               type, position, segment.getFile()));
+                }
+            }
+        }
+        return maxMessageId;
+    }
+
+    private static Xid readXid(final ByteBuffer buffer)
+    {
+        final long format = buffer.getLong();
+        final byte[] globalId = new byte[buffer.getInt()];
+        buffer.get(globalId);
+        final byte[] branchId = new byte[buffer.getInt()];
+        buffer.get(branchId);
+        return new Xid(format, globalId, branchId);
+    }
+
+    private static RecordImpl[] readRecords(final ByteBuffer buffer)
+    {
+        final RecordImpl[] records = new RecordImpl[buffer.getInt()];
+        for (int i = 0; i < records.length; i++)
+        {
+            final UUID queueId = new UUID(buffer.getLong(), buffer.getLong());
+            records[i] = new RecordImpl(queueId, buffer.getLong());
+        }
+        return records;
+    }
+
+    // the following methods maintain the index and must be called with the index lock held
+
+    private void setMessageLocation(final long messageId, final MessageLocation location)
+    {
+        final MessageLocation previous = _messageLocations.put(messageId, location);
+        if (previous != null)
+        {
+            addLiveBytes(previous.getSegment(), -previous.getEntrySize());
+        }
+        addLiveBytes(location.getSegment(), location.getEntrySize());
+    }
+
+    private void removeMessageLocation(final long messageId)
+    {
+        final MessageLocation previous = _messageLocations.remove(messageId);
+        if (previous != null)
+        {
+            addLiveBytes(previous.getSegment(), -previous.getEntrySize());
+        }
+    }
+
+    private void setMessageInstance(final UUID queueId, final long messageId, final Segment segment)
+    {
+        final Segment previous =
+                _messageInstances.computeIfAbsent(queueId, id -> new TreeMap<>()).put(messageId, segment);
+        if (previous != null)
+        {
+            addLiveBytes(previous, -QUEUE_ENTRY_SIZE);
+        }
+        addLiveBytes(segment, QUEUE_ENTRY_SIZE);
+    }
+
+    private void removeMessageInstance(final UUID queueId, final long messageId)
+    {
+        final NavigableMap<Long, Segment> instances = _messageInstances.get(queueId);
+        if (instances != null)
+        {
+            final Segment previous = instances.remove(messageId);
+            if (previous != null)
+            {
+                addLiveBytes(previous, -QUEUE_ENTRY_SIZE);
+            }
+            if (instances.isEmpty())
+            {
+                _messageInstances.remove(queueId);
+            }
+        }
+    }
+
+    private void setXidLocation(final Xid xid, final XidLocation location)
+    {
+        final XidLocation previous = _distributedTransactions.put(xid, location);
+        if (previous != null)
+        {
+            addLiveBytes(previous.getSegment(), -previous.getEntrySize());
+        }
+        addLiveBytes(location.getSegment(), location.getEntrySize());
+    }
+
+    private void removeXidLocation(final Xid xid)
+    {
+        final XidLocation previous = _distributedTransactions.remove(xid);
+        if (previous != null)
+        {
+            addLiveBytes(previous.getSegment(), -previous.getEntrySize());
+        }
+    }
+
+    private void addLiveBytes(final Segment segment, final long delta)
+    {
+        segment.addLiveBytes(delta);
+        _liveBytes += delta;
+    }
+
+    /**
+     * Reads from the location of the given message, returning null if the message is not in the journal. The
+     * location is looked up again if the segment holding it is released by compaction before it is read, as the
+     * message has then been relocated.
+     */
+    private <X> X readMessage(final long messageId, final Function<MessageLocation, X> reader)
+    {
+        while (true)
+        {
+            final MessageLocation location;
+            synchronized (_indexLock)
+            {
+                location = _messageLocations.get(messageId);
+            }
+            if (location == null)
+            {
+                return null;
+            }
+            final X result = reader.apply(location);
+            if (result != null)
+            {
+                return result;
+            }
+        }
+    }
+
+    private void clearIndex()
+    {
+        synchronized (_indexLock)
+        {
+            _messageLocations.clear();
+            _messageInstances.clear();
+            _distributedTransactions.clear();
+            _liveBytes = 0;
+        }
+        _storeSize.set(0);
+    }
+
+    private void closeSegments()
+    {
+        for (Segment segment : _segments)
+        {
+            try
+            {
+                segment.close();
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Failed to close journal segment {}", segment.getFile(), e);
+            }
+        }
+        _segments.clear();
+    }
+
+    /**
+     * Returns the segment to which a record of the given size is to be appended, starting a new segment if the
+     * record does not fit in the current one. Called by the writer only.
+     */
+    private Segment getSegmentForRecord(final int recordSize) throws IOException
+    {
+        Segment segment = _segments.peekLast();
+        if (segment == null || segment.getRemaining() < recordSize)
+        {
+            final long sequence;
+            if (segment == null)
+            {
+                sequence = 1L;
+            }
+            else
+            {
+                // records in the new segment may depend on those in the old
+                segment.force();
+                sequence = segment.getSequence() + 1L;
+            }
+            segment = Segment.create(_storeLocation, sequence, Math.max(_segmentSize, Segment.HEADER_SIZE + recordSize));
+            _segments.add(segment);
+            _storeSize.addAndGet(Segment.HEADER_SIZE);
+        }
+        return segment;
+    }
+
+    /**
+     * Appends a record holding the given entries to the journal. Called by the writer only.
+     */
+    private void writeRecord(final List<JournalEntry> entries) throws IOException
+    {
+        int length = 0;
+        for (JournalEntry entry : entries)
+        {
+            length += entry.getSize();
+        }
+
+        final Segment segment = getSegmentForRecord(length + RECORD_OVERHEAD);
+        final int payloadPosition = segment.getSize() + Integer.BYTES;
+        final RecordBuilder builder = new RecordBuilder(length);
+        try
+        {
+            for (JournalEntry entry : entries)
+            {
+                entry.written(segment, payloadPosition + builder.getPayloadLength());
+                entry.write(builder);
+            }
+            segment.append(builder.getBuffers());
+        }
+        finally
+        {
+            builder.dispose();
+        }
+
+        // the checksum is computed from the written record, so that it covers exactly what reaches the disk
+        final ByteBuffer checksum = ByteBuffer.allocate(Integer.BYTES);
+        checksum.putInt(segment.checksum(payloadPosition, length)).flip();
+        try (QpidByteBuffer buffer = QpidByteBuffer.wrap(checksum))
+        {
+            segment.append(Collections.singletonList(buffer));
+        }
+        _storeSize.addAndGet(length + RECORD_OVERHEAD);
+    }
+
+    private void checkStoreSize()
+    {
+        if (_persistentSizeHighThreshold > 0)
+        {
+            final long storeSize = _storeSize.get();
+            if (!_limitBusted && storeSize > _persistentSizeHighThreshold)
+            {
+                _limitBusted = true;
+                _eventManager.notifyEvent(Event.PERSISTENT_MESSAGE_SIZE_OVERFULL);
+            }
+            else if (_limitBusted && storeSize < _persistentSizeLowThreshold)
+            {
+                _limitBusted = false;
+                _eventManager.notifyEvent(Event.PERSISTENT_MESSAGE_SIZE_UNDERFULL);
+            }
+        }
+    }
+
+    private static QpidByteBuffer encodeMetaData(final StorableMessageMetaData metaData)
+    {
+        final byte[] underlying = new byte[1 + metaData.getStorableSize()];
+        underlying[0] = (byte) metaData.getType().ordinal();
+        try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying, 1, underlying.length - 1))
+        {
+            metaData.writeToBuffer(buf);
+        }
+        return QpidByteBuffer.wrap(underlying);
+    }
+
+    /**
+     * Writes the journal. The writer appends the records of the jobs submitted to it, forcing the journal once for
+     * all the jobs it has taken which require it, and compacts the journal when no jobs are waiting.
+     */
+    private final class JournalWriter extends Thread
+    {
+        private final Object _lock = new Object();
+        private final Queue<JournalJob> _jobQueue = new ConcurrentLinkedQueue<>();
+        private final List<JournalJob> _inProcessJobs = new ArrayList<>();
+        private final Queue<Segment> _segmentsAwaitingDeletion = new ConcurrentLinkedQueue<>();
+        private volatile boolean _stopped;
+        private volatile RuntimeException _failure;
+
+        private JournalWriter(final String name)
+        {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run()
+        {
+            while (!_stopped)
+            {
+                processJobs();
+                compact();
+                synchronized (_lock)
+                {
+                    if (!_stopped && _jobQueue.isEmpty())
+                    {
+                        try
+                        {
+                            _lock.wait(WRITER_WAIT_TIMEOUT);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            // ignore, the writer stops once it is told to
+                        }
+                    }
+                }
+            }
+        }
+
+        void addJob(final JournalJob job)
+        {
+            final RuntimeException failure = _failure;
+            if (failure != null)
+            {
+                throw new StoreException("Journal writer has failed", failure);
+            }
+            synchronized (_lock)
+            {
+                if (_stopped)
+                {
+                    throw new IllegalStateException("Message store is not open");
+                }
+                _jobQueue.add(job);
+                _lock.notifyAll();
+            }
+        }
+
+        /**
+         * Stops the writer once it has written the jobs submitted to it.
+         */
+        void stopWriting()
+        {
+            synchronized (_lock)
+            {
+                _stopped = true;
+                _lock.notifyAll();
+            }
+            try
+            {
+                join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            processJobs();
+            deleteSegmentsAwaitingDeletion();
+        }
+
+        private void processJobs()
+        {
+            JournalJob job;
+            while ((job = _jobQueue.poll()) != null)
+            {
+                _inProcessJobs.add(job);
+            }
+            if (_inProcessJobs.isEmpty())
+            {
+                return;
+            }
+
+            try
+            {
+                if (_failure != null)
+                {
+                    throw _failure;
+                }
+
+                boolean sync = false;
+                for (JournalJob inProcessJob : _inProcessJobs)
+                {
+                    writeRecord(inProcessJob.getEntries());
+                    sync |= inProcessJob.isSync();
+                }
+                if (sync)
+                {
+                    _segments.getLast().force();
+                }
+
+                synchronized (_indexLock)
+                {
+                    for (JournalJob inProcessJob : _inProcessJobs)
+                    {
+                        inProcessJob.apply();
+                    }
+                }
+                for (JournalJob inProcessJob : _inProcessJobs)
+                {
+                    inProcessJob.complete();
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                failed(e);
+                for (JournalJob inProcessJob : _inProcessJobs)
+                {
+                    inProcessJob.abort(_failure);
+                }
+            }
+            finally
+            {
+                for (JournalJob inProcessJob : _inProcessJobs)
+                {
+                    inProcessJob.dispose();
+                }
+                _inProcessJobs.clear();
+            }
+            checkStoreSize();
+        }
+
+        private void compact()
+        {
+            try
+            {
+                deleteSegmentsAwaitingDeletion();
+                // only the oldest segment is compacted, so that a tombstone is never deleted before the entry it
+                // cancels, and entries are never relocated ahead of the tombstones which are to cancel them
+                while (!_stopped && _failure == null && _jobQueue.isEmpty() && isCompactionRequired())
+                {
+                    relocate(_segments.getFirst());
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                failed(e);
+            }
+            checkStoreSize();
+        }
+
+        private boolean isCompactionRequired()
+        {
+            final Segment oldest = _segments.peekFirst();
+            if (oldest == null || oldest == _segments.peekLast())
+            {
+                return false;
+            }
+
+            final long liveBytes;
+            final long oldestLiveBytes;
+            synchronized (_indexLock)
+            {
+                liveBytes = _liveBytes;
+                oldestLiveBytes = oldest.getLiveBytes();
+            }
+            return oldestLiveBytes == 0L
+                   || oldestLiveBytes * 100L < (long) oldest.getSize() * _compactionThreshold
+                   || liveBytes * 100L < _storeSize.get() * _compactionThreshold;
+        }
+
+        /**
+         * Copies the live entries of the given segment to the end of the journal and deletes the segment.
+         */
+        private void relocate(final Segment segment) throws IOException
+        {
+            final List<JournalEntry> entries = new ArrayList<>();
+            synchronized (_indexLock)
+            {
+                for (Map.Entry<Long, MessageLocation> entry : _messageLocations.entrySet())
+                {
+                    if (entry.getValue().getSegment() == segment)
+                    {
+                        entries.add(new MessageEntry(entry.getKey(), entry.getValue()));
+                    }
+                }
+                for (Map.Entry<UUID, NavigableMap<Long, Segment>> queueEntry : _messageInstances.entrySet())
+                {
+                    for (Map.Entry<Long, Segment> entry : queueEntry.getValue().entrySet())
+                    {
+                        if (entry.getValue() == segment)
+                        {
+                            entries.add(new QueueEntry(queueEntry.getKey(), entry.getKey(), segment));
+                        }
+                    }
+                }
+                for (Map.Entry<Xid, XidLocation> entry : _distributedTransactions.entrySet())
+                {
+                    if (entry.getValue().getSegment() == segment)
+                    {
+                        entries.add(new XidEntry(entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+
+            final long remainingLiveBytes;
+            try
+            {
+                // bound the records by the segment size so that relocated records do not need segments of their own
+                final int maximumRecordSize = _segmentSize - Segment.HEADER_SIZE;
+                List<JournalEntry> record = new ArrayList<>();
+                int recordSize = RECORD_OVERHEAD;
+                for (JournalEntry entry : entries)
+                {
+                    if (!record.isEmpty() && recordSize + entry.getSize() > maximumRecordSize)
+                    {
+                        writeRecord(record);
+                        record = new ArrayList<>();
+                        recordSize = RECORD_OVERHEAD;
+                    }
+                    record.add(entry);
+                    recordSize += entry.getSize();
+                }
+                if (!record.isEmpty())
+                {
+                    writeRecord(record);
+                    _segments.getLast().force();
+                }
+
+                synchronized (_indexLock)
+                {
+                    for (JournalEntry entry : entries)
+                    {
+                        entry.apply();
+                    }
+                    remainingLiveBytes = segment.getLiveBytes();
+                }
+            }
+            finally
+            {
+                for (JournalEntry entry : entries)
+                {
+                    entry.dispose();
+                }
+            }
+
+            if (remainingLiveBytes != 0L)
+            {
+                throw new StoreException(String.format("Journal segment %s has %d live bytes after compaction",
+                                                       segment.getFile(), remainingLiveBytes));
+            }
+
+            _segments.remove(segment);
+            segment.retire(this::deleteSegment);
+            LOGGER.debug("Compacted journal segment {} relocating {} entries", segment.getFile(), entries.size());
+        }
+
+        private void deleteSegmentsAwaitingDeletion()
+        {
+            // segments failing deletion again are queued again, so only those queued before this attempt are taken
+            for (int i = _segmentsAwaitingDeletion.size(); i > 0; i--)
+            {
+                final Segment segment = _segmentsAwaitingDeletion.poll();
+                if (segment == null)
+                {
+                    break;
+                }
+                deleteSegment(segment);
+            }
+        }
+
+        /**
+         * Deletes the file of a released segment. Called on the thread disposing of the last view of a retired
+         * segment if any were outstanding when it was retired.
+         */
+        private void deleteSegment(final Segment segment)
+        {
+            try
+            {
+                segment.deleteFile();
+                // the space of the segment is not counted as free until its file is gone
+                _storeSize.addAndGet(-segment.getSize());
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Failed to delete journal segment {}, deletion will be retried", segment.getFile(), e);
+                _segmentsAwaitingDeletion.add(segment);
+            }
+        }
+
+        private void failed(final Exception e)
+        {
+            if (_failure == null)
+            {
+                LOGGER.error("Failed to write journal {}", _storeLocation, e);
+                _failure = e instanceof StoreException
+                        ? (StoreException) e
+                        : new StoreException("Failed to write journal " + _storeLocation, e);
+            }
+        }
+    }
+
+    /**
+     * Entries of the journal written by a single record.
+     */
+    private final class JournalJob
+    {
+        private final List<JournalEntry> _entries = new ArrayList<>();
+        private final SettableFuture<Void> _future = SettableFuture.create();
+        private final boolean _sync;
+        private final long _startTime = System.nanoTime();
+
+        private JournalJob(final boolean sync)
+        {
+            _sync = sync;
+        }
+
+        private JournalJob(final boolean sync, final JournalEntry entry)
+        {
+            this(sync);
+            _entries.add(entry);
+        }
+
+        void add(final JournalEntry entry)
+        {
+            _entries.add(entry);
+        }
+
+        List<JournalEntry> getEntries()
+        {
+            return _entries;
+        }
+
+        boolean isEmpty()
+        {
+            return _entries.isEmpty();
+        }
+
+        boolean isSync()
+        {
+            return _sync;
+        }
+
+        ListenableFuture<Void> getFuture()
+        {
+            return _future;
+        }
+
+        void apply()
+        {
+            for (JournalEntry entry : _entries)
+            {
+                entry.apply();
+            }
+        }
+
+        void complete()
+        {
+            if (_sync)
+            {
+                _commitLatency.record(System.nanoTime() - _startTime, TimeUnit.NANOSECONDS);
+            }
+            _future.set(null);
+        }
+
+        void abort(final RuntimeException e)
+        {
+            _future.setException(e);
+        }
+
+        void dispose()
+        {
+            for (JournalEntry entry : _entries)
+            {
+                entry.dispose();
+            }
+        }
+    }
+
+    /**
+     * Assembles the buffers of a record. Fixed size fields are gathered into small heap buffers, while message
+     * metadata and content are written from their own buffers.
+     */
+    private static final class RecordBuilder
+    {
+        private final List<QpidByteBuffer> _buffers = new ArrayList<>();
+        private ByteBuffer _fields;
+        private int _fieldsStart;
+        private int _payloadLength;
+
+        private RecordBuilder(final int payloadLength)
+        {
+            fields(Integer.BYTES).putInt(payloadLength);
+            _payloadLength = 0;
+        }
+
+        ByteBuffer fields(final int size)
+        {
+            if (_fields == null || _fields.remaining() < size)
+            {
+                flushFields();
+                _fields = ByteBuffer.allocate(Math.max(FIELDS_BUFFER_SIZE, size));
+                _fieldsStart = 0;
+            }
+            _payloadLength += size;
+            return _fields;
+        }
+
+        void put(final QpidByteBuffer buffer)
+        {
+            if (buffer.hasRemaining())
+            {
+                flushFields();
+                _payloadLength += buffer.remaining();
+                _buffers.add(buffer.duplicate());
+            }
+        }
+
+        int getPayloadLength()
+        {
+            return _payloadLength;
+        }
+
+        List<QpidByteBuffer> getBuffers()
+        {
+            flushFields();
+            return _buffers;
+        }
+
+        void dispose()
+        {
+            for (QpidByteBuffer buffer : _buffers)
+            {
+                buffer.dispose();
+            }
+        }
+
+        private void flushFields()
+        {
+            if (_fields != null && _fields.position() > _fieldsStart)
+            {
+                _buffers.add(QpidByteBuffer.wrap(_fields.array(), _fieldsStart, _fields.position() - _fieldsStart));
+                _fieldsStart = _fields.position();
+            }
+        }
+    }
+
+    private abstract static class JournalEntry
+    {
+        private Segment _segment;
+        private int _position;
+
+        abstract int getSize();
+
+        abstract void write(RecordBuilder builder);
+
+        /**
+         * Applies the written entry to the index. Called with the index lock held.
+         */
+        abstract void apply();
+
+        void dispose()
+        {
+        }
+
+        void written(final Segment segment, final int position)
+        {
+            _segment = segment;
+            _position = position;
+        }
+
+        Segment getSegment()
+        {
+            return _segment;
+        }
+
+        int getPosition()
+        {
+            return _position;
+        }
+    }
+
+    private final class MessageEntry extends JournalEntry
+    {
+        private final long _messageId;
+        private final QpidByteBuffer _metadata;
+        private final QpidByteBuffer _content;
+        private final int _metadataSize;
+        private final int _contentSize;
+        private final StoredJournalMessage<?> _message;
+        private final MessageLocation _relocated;
+
+        private MessageEntry(final StoredJournalMessage<?> message, final QpidByteBuffer metadata, final QpidByteBuffer content)
+        {
+            _messageId = message.getMessageNumber();
+            _metadata = metadata;
+            _content = content;
+            _metadataSize = metadata.remaining();
+            _contentSize = content.remaining();
+            _message = message;
+            _relocated = null;
+        }
+
+        private MessageEntry(final long messageId, final MessageLocation relocated)
+        {
+            _messageId = messageId;
+            _metadata = relocated.getMetaDataBuffer();
+            _content = relocated.getContent(0, relocated.getContentSize());
+            _metadataSize = relocated.getMetadataSize();
+            _contentSize = relocated.getContentSize();
+            _message = null;
+            _relocated = relocated;
+        }
+
+        @Override
+        int getSize()
+        {
+            return MESSAGE_ENTRY_HEADER_SIZE + _metadataSize + _contentSize;
+        }
+
+        @Override
+        void write(final RecordBuilder builder)
+        {
+            builder.fields(MESSAGE_ENTRY_HEADER_SIZE)
+                   .put(MESSAGE)
+                   .putLong(_messageId)
+                   .putInt(_metadataSize)
+                   .putInt(_contentSize);
+            builder.put(_metadata);
+            builder.put(_content);
+        }
+
+        @Override
+        void apply()
+        {
+            final boolean live = _relocated == null
+                    ? !_message.isRemovedFromIndex()
+                    : _messageLocations.get(_messageId) == _relocated;
+            if (live)
+            {
+                setMessageLocation(_messageId, new MessageLocation(getSegment(), getPosition(), _metadataSize, _contentSize));
+            }
+        }
+
+        @Override
+        void dispose()
+        {
+            _metadata.dispose();
+            _content.dispose();
+        }
+    }
+
+    private final class QueueEntry extends JournalEntry
+    {
+        private final byte _type;
+        private final UUID _queueId;
+        private final long _messageId;
+        private final Segment _relocated;
+
+        private QueueEntry(final byte type, final UUID queueId, final long messageId)
+        {
+            _type = type;
+            _queueId = queueId;
+            _messageId = messageId;
+            _relocated = null;
+        }
+
+        private QueueEntry(final UUID queueId, final long messageId, final Segment relocated)
+        {
+            _type = ENQUEUE;
+            _queueId = queueId;
+            _messageId = messageId;
+            _relocated = relocated;
+        }
+
+        @Override
+        int getSize()
+        {
+            return QUEUE_ENTRY_SIZE;
+        }
+
+        @Override
+        void write(final RecordBuilder builder)
+        {
+            builder.fields(QUEUE_ENTRY_SIZE)
+                   .put(_type)
+                   .putLong(_queueId.getMostSignificantBits())
+                   .putLong(_queueId.getLeastSignificantBits())
+                   .putLong(_messageId);
+        }
+
+        @Override
+        void apply()
+        {
+            if (_type == DEQUEUE)
+            {
+                removeMessageInstance(_queueId, _messageId);
+            }
+            else if (_relocated == null || isInstanceIn(_relocated))
+            {
+                setMessageInstance(_queueId, _messageId, getSegment());
+            }
+        }
+
+        private boolean isInstanceIn(final Segment segment)
+        {
+            final NavigableMap<Long, Segment> instances = _messageInstances.get(_queueId);
+            return instances != null && instances.get(_messageId) == segment;
+        }
+    }
+
+    private final class MessageDeleteEntry extends JournalEntry
+    {
+        private final long _messageId;
+
+        private MessageDeleteEntry(final long messageId)
+        {
+            _messageId = messageId;
+        }
+
+        @Override
+        int getSize()
+        {
+            return MESSAGE_DELETE_ENTRY_SIZE;
+        }
+
+        @Override
+        void write(final RecordBuilder builder)
+        {
+            builder.fields(MESSAGE_DELETE_ENTRY_SIZE).put(MESSAGE_DELETE).putLong(_messageId);
+        }
+
+        @Override
+        void apply()
+        {
+            removeMessageLocation(_messageId);
+        }
+    }
+
+    private final class XidEntry extends JournalEntry
+    {
+        private final Xid _xid;
+        private final RecordImpl[] _enqueues;
+        private final RecordImpl[] _dequeues;
+        private final XidLocation _relocated;
+
+        private XidEntry(final Xid xid, final RecordImpl[] enqueues, final RecordImpl[] dequeues)
+        {
+            _xid = xid;
+            _enqueues = enqueues;
+            _dequeues = dequeues;
+            _relocated = null;
+        }
+
+        private XidEntry(final Xid xid, final XidLocation relocated)
+        {
+            _xid = xid;
+            _enqueues = relocated.getEnqueues();
+            _dequeues = relocated.getDequeues();
+            _relocated = relocated;
+        }
+
+        @Override
+        int getSize()
+        {
+            return 1 + getXidSize(_xid) + 2 * Integer.BYTES + (_enqueues.length + _dequeues.length) * 3 * Long.BYTES;
+        }
+
+        @Override
+        void write(final RecordBuilder builder)
+        {
+            builder.fields(1).put(XID);
+            writeXid(builder, _xid);
+            writeRecords(builder, _enqueues);
+            writeRecords(builder, _dequeues);
+        }
+
+        @Override
+        void apply()
+        {
+            if (_relocated == null || _distributedTransactions.get(_xid) == _relocated)
+            {
+                setXidLocation(_xid, new XidLocation(getSegment(), getSize(), _enqueues, _dequeues));
+            }
+        }
+
+        private void writeRecords(final RecordBuilder builder, final RecordImpl[] records)
+        {
+            builder.fields(Integer.BYTES).putInt(records.length);
+            for (RecordImpl record : records)
+            {
+                builder.fields(3 * Long.BYTES)
+                       .putLong(record.getId().getMostSignificantBits())
+                       .putLong(record.getId().getLeastSignificantBits())
+                       .putLong(record.getMessageNumber());
+            }
+        }
+    }
+
+    private final class XidRemoveEntry extends JournalEntry
+    {
+        private final Xid _xid;
+
+        private XidRemoveEntry(final Xid xid)
+        {
+            _xid = xid;
+        }
+
+        @Override
+        int getSize()
+        {
+            return 1 + getXidSize(_xid);
+        }
+
+        @Override
+        void write(final RecordBuilder builder)
+        {
+            builder.fields(1).put(XID_REMOVE);
+            writeXid(builder, _xid);
+        }
+
+        @Override
+        void apply()
+        {
+            removeXidLocation(_xid);
+        }
+    }
+
+    private static int getXidSize(final Xid xid)
+    {
+        return Long.BYTES + 2 * Integer.BYTES + xid.getGlobalId().length + xid.getBranchId().length;
+    }
+
+    private static void writeXid(final RecordBuilder builder, final Xid xid)
+    {
+        builder.fields(Long.BYTES + Integer.BYTES + xid.getGlobalId().length)
+               .putLong(xid.getFormat())
+               .putInt(xid.getGlobalId().length)
+               .put(xid.getGlobalId());
+        builder.fields(Integer.BYTES + xid.getBranchId().length)
+               .putInt(xid.getBranchId().length)
+               .put(xid.getBranchId());
+    }
+
+    private static final class MessageLocation
+    {
+        private final Segment _segment;
+        private final int _position;
+        private final int _metadataSize;
+        private final int _contentSize;
+
+        private MessageLocation(final Segment segment, final int position, final int metadataSize, final int contentSize)
+        {
+            _segment = segment;
+            _position = position;
+            _metadataSize = metadataSize;
+            _contentSize = contentSize;
+        }
+
+        Segment getSegment()
+        {
+            return _segment;
+        }
+
+        int getMetadataSize()
+        {
+            return _metadataSize;
+        }
+
+        int getContentSize()
+        {
+            return _contentSize;
+        }
+
+        int getEntrySize()
+        {
+            return MESSAGE_ENTRY_HEADER_SIZE + _metadataSize + _contentSize;
+        }
+
+        /**
+         * Returns a view of the metadata in the mapped segment, or null if the segment has been released since the
+         * location was looked up.
+         */
+        QpidByteBuffer getMetaDataBuffer()
+        {
+            return _segment.view(_position + MESSAGE_ENTRY_HEADER_SIZE, _metadataSize);
+        }
+
+        /**
+         * Returns a view of the given range of the content in the mapped segment, or null if the segment has been
+         * released since the location was looked up.
+         */
+        QpidByteBuffer getContent(final int offset, final int length)
+        {
+            return _segment.view(_position + MESSAGE_ENTRY_HEADER_SIZE + _metadataSize + offset, length);
+        }
+
+        /**
+         * Returns the metadata, or null if the segment has been released since the location was looked up.
+         */
+        StorableMessageMetaData readMetaData()
+        {
+            try (QpidByteBuffer metadata = getMetaDataBuffer())
+            {
+                if (metadata == null)
+                {
+                    return null;
+                }
+                final MessageMetaDataType<?> type = MessageMetaDataTypeRegistry.fromOrdinal(metadata.get() & 0xff);
+                // the metadata may be retained long after the segment has been compacted, so is copied from the mapping
+                try (QpidByteBuffer buf = QpidByteBuffer.allocateDirect(metadata.remaining()))
+                {
+                    buf.put(metadata);
+                    buf.flip();
+                    return type.createMetaData(buf);
+                }
+            }
+        }
+    }
+
+    private static final class XidLocation
+    {
+        private final Segment _segment;
+        private final int _entrySize;
+        private final RecordImpl[] _enqueues;
+        private final RecordImpl[] _dequeues;
+
+        private XidLocation(final Segment segment, final int entrySize, final RecordImpl[] enqueues, final RecordImpl[] dequeues)
+        {
+            _segment = segment;
+            _entrySize = entrySize;
+            _enqueues = enqueues;
+            _dequeues = dequeues;
+        }
+
+        Segment getSegment()
+        {
+            return _segment;
+        }
+
+        int getEntrySize()
+        {
+            return _entrySize;
+        }
+
+        RecordImpl[] getEnqueues()
+        {
+            return _enqueues;
+        }
+
+        RecordImpl[] getDequeues()
+        {
+            return _dequeues;
+        }
+    }
+
+    private static class MessageDataRef<T extends StorableMessageMetaData>
+    {
+        private volatile T _metaData;
+        private volatile QpidByteBuffer _data;
+        private volatile boolean _isHardRef;
+
+        private MessageDataRef(final T metaData, boolean isHardRef)
+        {
+            this(metaData, null, isHardRef);
+        }
+
+        private MessageDataRef(final T metaData, QpidByteBuffer data, boolean isHardRef)
+        {
+            _metaData = metaData;
+            _data = data;
+            _isHardRef = isHardRef;
+        }
+
+        public T getMetaData()
+        {
+            return _metaData;
+        }
+
+        public QpidByteBuffer getData()
+        {
+            return _data;
+        }
+
+        public void setData(final QpidByteBuffer data)
+        {
+            _data = data;
+        }
+
+        public boolean isHardRef()
+        {
+            return _isHardRef;
+        }
+
+        public void setSoft()
+        {
+            _isHardRef = false;
+        }
+
+        public void reallocate()
+        {
+            if (_metaData != null)
+            {
+                _metaData.reallocate();
+            }
+            _data = QpidByteBuffer.reallocateIfNecessary(_data);
+        }
+
+        public long clear(boolean close)
+        {
+            long bytesCleared = 0;
+            if (_data != null)
+            {
+                bytesCleared += _data.remaining();
+                _data.dispose();
+                _data = null;
+            }
+            if (_metaData != null)
+            {
+                bytesCleared += _metaData.getStorableSize();
+                try
+                {
+                    if (close)
+                    {
+                        _metaData.dispose();
+                    }
+                    else
+                    {
+                        _metaData.clearEncodedForm();
+                    }
+                }
+                finally
+                {
+                    _metaData = null;
+                }
+            }
+            return bytesCleared;
+        }
+    }
+
+    private class StoredJournalMessage<T extends StorableMessageMetaData> implements StoredMessage<T>, MessageHandle<T>
+    {
+        private final long _messageId;
+        private final int _contentSize;
+        private final int _metadataSize;
+
+        private MessageDataRef<T> _messageDataRef;
+        private JournalJob _storeJob;
+
+        /** whether the message has been removed, guarded by the index lock */
+        private boolean _removed;
+
+        StoredJournalMessage(final long messageId, final T metaData, final boolean isRecovered)
+        {
+            _messageId = messageId;
+            _messageDataRef = new MessageDataRef<>(metaData, !isRecovered);
+            _contentSize = metaData.getContentSize();
+            _metadataSize = metaData.getStorableSize();
+            _inMemorySize.addAndGet(_metadataSize);
+        }
+
+        @Override
+        public synchronized T getMetaData()
+        {
+            if (_messageDataRef == null)
+            {
+                return null;
+            }
+            else
+            {
+                T metaData = _messageDataRef.getMetaData();
+
+                if (metaData == null)
+                {
+                    checkMessageStoreOpen();
+                    metaData = (T) readFromJournal(MessageLocation::readMetaData);
+                    _messageDataRef = new MessageDataRef<>(metaData, _messageDataRef.getData(), false);
+                    _inMemorySize.addAndGet(getMetadataSize());
+                }
+                return metaData;
+            }
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageId;
+        }
+
+        @Override
+        public synchronized void addContent(final QpidByteBuffer src)
+        {
+            try (QpidByteBuffer data = _messageDataRef.getData())
+            {
+                if (data == null)
+                {
+                    _messageDataRef.setData(src.slice());
+                }
+                else
+                {
+                    _messageDataRef.setData(QpidByteBuffer.concatenate(Arrays.asList(data, src)));
+                }
+            }
+        }
+
+        @Override
+        public StoredMessage<T> allContentAdded()
+        {
+            _inMemorySize.addAndGet(getContentSize());
+            return this;
+        }
+
+        /**
+         * returns QBB containing the content. The caller must not dispose of them because we keep a reference in _messageDataRef.
+         */
+        private QpidByteBuffer getContentAsByteBuffer()
+        {
+            QpidByteBuffer data = _messageDataRef == null ? QpidByteBuffer.emptyQpidByteBuffer() : _messageDataRef.getData();
+            if (data == null)
+            {
+                if (stored())
+                {
+                    checkMessageStoreOpen();
+                    data = readFromJournal(location -> location.getContent(0, getContentSize()));
+                    _messageDataRef.setData(data);
+                    _inMemorySize.addAndGet(getContentSize());
+                }
+                else
+                {
+                    data = QpidByteBuffer.emptyQpidByteBuffer();
+                }
+            }
+            return data;
+        }
+
+        @Override
+        public synchronized QpidByteBuffer getContent(final int offset, final int length)
+        {
+            if (isRangeOfContentNotInMemory(offset, length))
+            {
+                // return a view of the requested range only, leaving the rest of the content out of memory
+                checkMessageStoreOpen();
+                final int rangeLength = Math.min(length, getContentSize() - offset);
+                return readFromJournal(location -> location.getContent(offset, rangeLength));
+            }
+
+            final QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
+            return contentAsByteBuffer.view(offset,
+                                            length == Integer.MAX_VALUE ? contentAsByteBuffer.remaining() : length);
+        }
+
+        private boolean isRangeOfContentNotInMemory(final int offset, final int length)
+        {
+            return (offset > 0 || length < getContentSize())
+                   && offset < getContentSize()
+                   && _messageDataRef != null
+                   && _messageDataRef.getData() == null
+                   && stored();
+        }
+
+        @Override
+        public int getContentSize()
+        {
+            return _contentSize;
+        }
+
+        @Override
+        public int getMetadataSize()
+        {
+            return _metadataSize;
+        }
+
+        /**
+         * Adds the message to the given job, unless it has already been stored. The metadata is encoded and the
+         * content retained by the caller, so the writer does no more than write them.
+         */
+        synchronized void store(final JournalJob job)
+        {
+            if (_messageDataRef != null && !stored())
+            {
+                final QpidByteBuffer data = _messageDataRef.getData();
+                job.add(new MessageEntry(this,
+                                         encodeMetaData(_messageDataRef.getMetaData()),
+                                         data == null ? QpidByteBuffer.emptyQpidByteBuffer() : data.duplicate()));
+                _storeJob = job;
+
+                LOGGER.debug("Storing message {} to store", _messageId);
+
+                _messageDataRef.setSoft();
+            }
+        }
+
+        boolean isRemovedFromIndex()
+        {
+            return _removed;
+        }
+
+        /**
+         * Reads from the location of the message in the journal, waiting for the message to be written if necessary.
+         */
+        private <X> X readFromJournal(final Function<MessageLocation, X> reader)
+        {
+            final JournalJob storeJob = _storeJob;
+            if (storeJob != null)
+            {
+                await(storeJob.getFuture());
+                _storeJob = null;
+            }
+
+            final X result = readMessage(_messageId, reader);
+            if (result == null)
+            {
+                throw new StoreException("Unable to find message with id " + _messageId + " in the journal");
+            }
+            return result;
+        }
+
+        @Override
+        public synchronized void remove()
+        {
+            LOGGER.debug("REMOVE called on message: {}", _messageId);
+
+            checkMessageStoreOpen();
+            _messages.remove(this);
+            if (stored())
+            {
+                synchronized (_indexLock)
+                {
+                    _removed = true;
+                    removeMessageLocation(_messageId);
+                }
+                submit(new JournalJob(false, new MessageDeleteEntry(_messageId)));
+            }
+            if (!_messageDeleteListeners.isEmpty())
+            {
+                for (final MessageDeleteListener messageDeleteListener : _messageDeleteListeners)
+                {
+                    messageDeleteListener.messageDeleted(this);
+                }
+            }
+
+            final T metaData;
+            long bytesCleared = 0;
+            if ((metaData = _messageDataRef.getMetaData()) != null)
+            {
+                bytesCleared += getMetadataSize();
+                metaData.dispose();
+            }
+
+            try (QpidByteBuffer data = _messageDataRef.getData())
+            {
+                if (data != null)
+                {
+                    bytesCleared += getContentSize();
+                    _messageDataRef.setData(null);
+                }
+            }
+            _messageDataRef = null;
+            _inMemorySize.addAndGet(-bytesCleared);
+        }
+
+        @Override
+        public synchronized boolean isInContentInMemory()
+        {
+            return _messageDataRef != null && (_messageDataRef.isHardRef() || _messageDataRef.getData() != null);
+        }
+
+        @Override
+        public synchronized long getInMemorySize()
+        {
+            long size = 0;
+            if (_messageDataRef != null)
+            {
+                if (_messageDataRef.isHardRef())
+                {
+                    size += getMetadataSize() + getContentSize();
+                }
+                else
+                {
+                    if (_messageDataRef.getMetaData() != null)
+                    {
+                        size += getMetadataSize();
+                    }
+                    if (_messageDataRef.getData() != null)
+                    {
+                        size += getContentSize();
+                    }
+                }
+            }
+            return size;
+        }
+
+        private boolean stored()
+        {
+            return _messageDataRef != null && !_messageDataRef.isHardRef();
+        }
+
+        @Override
+        public synchronized boolean flowToDisk()
+        {
+            if (_messageDataRef != null)
+            {
+                if (!stored())
+                {
+                    final JournalJob job = new JournalJob(false);
+                    store(job);
+                    submit(job);
+                }
+                // wait for the message to be written, failing if it is not in the journal
+                readFromJournal(Function.identity());
+
+                final long bytesCleared = _messageDataRef.clear(false);
+                _inMemorySize.addAndGet(-bytesCleared);
+                _bytesEvacuatedFromMemory.addAndGet(bytesCleared);
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized void reallocate()
+        {
+            if (_messageDataRef != null)
+            {
+                _messageDataRef.reallocate();
+            }
+        }
+
+        synchronized void clear(final boolean close)
+        {
+            if (_messageDataRef != null)
+            {
+                _messageDataRef.clear(close);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.getClass() + "[messageId=" + _messageId + "]";
+        }
+    }
+
+    private class JournalTransaction implements Transaction
+    {
+        private final List<StoredJournalMessage<?>> _messagesToStore = new ArrayList<>();
+        private final List<JournalEntry> _entries = new ArrayList<>();
+
+        @Override
+        public MessageEnqueueRecord enqueueMessage(final TransactionLogResource queue, final EnqueueableMessage message)
+        {
+            checkMessageStoreOpen();
+
+            storeOnCommit(message);
+            _entries.add(new QueueEntry(ENQUEUE, queue.getId(), message.getMessageNumber()));
+            return new JournalEnqueueRecord(queue.getId(), message.getMessageNumber());
+        }
+
+        @Override
+        public void dequeueMessage(final MessageEnqueueRecord enqueueRecord)
+        {
+            checkMessageStoreOpen();
+
+            _entries.add(new QueueEntry(DEQUEUE, enqueueRecord.getQueueId(), enqueueRecord.getMessageNumber()));
+        }
+
+        @Override
+        public void commitTran()
+        {
+            await(commitTranAsync(null));
+        }
+
+        @Override
+        public <X> ListenableFuture<X> commitTranAsync(final X val)
+        {
+            checkMessageStoreOpen();
+
+            final JournalJob job = new JournalJob(true);
+            for (StoredJournalMessage<?> message : _messagesToStore)
+            {
+                message.store(job);
+            }
+            for (JournalEntry entry : _entries)
+            {
+                job.add(entry);
+            }
+            _messagesToStore.clear();
+            _entries.clear();
+
+            if (job.isEmpty())
+            {
+                return Futures.immediateFuture(val);
+            }
+            submit(job);
+            return Futures.transform(job.getFuture(), input -> val, MoreExecutors.directExecutor());
+        }
+
+        @Override
+        public void abortTran()
+        {
+            checkMessageStoreOpen();
+
+            _messagesToStore.clear();
+            _entries.clear();
+        }
+
+        @Override
+        public void removeXid(final StoredXidRecord record)
+        {
+            checkMessageStoreOpen();
+
+            _entries.add(new XidRemoveEntry(new Xid(record.getFormat(), record.getGlobalId(), record.getBranchId())));
+        }
+
+        @Override
+        public StoredXidRecord recordXid(final long format,
+                                         final byte[] globalId,
+                                         final byte[] branchId,
+                                         final EnqueueRecord[] enqueues,
+                                         final DequeueRecord[] dequeues)
+        {
+            checkMessageStoreOpen();
+
+            final RecordImpl[] enqueueRecords = new RecordImpl[enqueues == null ? 0 : enqueues.length];
+            for (int i = 0; i < enqueueRecords.length; i++)
+            {
+                storeOnCommit(enqueues[i].getMessage());
+                enqueueRecords[i] = new RecordImpl(enqueues[i].getResource().getId(),
+                                                   enqueues[i].getMessage().getMessageNumber());
+            }
+            final RecordImpl[] dequeueRecords = new RecordImpl[dequeues == null ? 0 : dequeues.length];
+            for (int i = 0; i < dequeueRecords.length; i++)
+            {
+                final MessageEnqueueRecord enqueueRecord = dequeues[i].getEnqueueRecord();
+                dequeueRecords[i] = new RecordImpl(enqueueRecord.getQueueId(), enqueueRecord.getMessageNumber());
+            }
+
+            _entries.add(new XidEntry(new Xid(format, globalId, branchId), enqueueRecords, dequeueRecords));
+            return new JournalStoredXidRecord(format, globalId, branchId);
+        }
+
+        private void storeOnCommit(final EnqueueableMessage message)
+        {
+            final StoredMessage<?> storedMessage = message.getStoredMessage();
+            if (storedMessage instanceof StoredJournalMessage)
+            {
+                _messagesToStore.add((StoredJournalMessage<?>) storedMessage);
+            }
+        }
+    }
+
+    private class JournalMessageStoreReader implements MessageStoreReader
+    {
+        @Override
+        public void visitMessages(final MessageHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+
+            final List<Long> messageIds;
+            synchronized (_indexLock)
+            {
+                messageIds = new ArrayList<>(_messageLocations.keySet());
+            }
+            Collections.sort(messageIds);
+            for (long messageId : messageIds)
+            {
+                final StoredMessage<?> message = getMessage(messageId);
+                if (message != null && !handler.handle(message))
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void visitMessageInstances(final MessageInstanceHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+
+            final List<MessageEnqueueRecord> records = new ArrayList<>();
+            synchronized (_indexLock)
+            {
+                for (Map.Entry<UUID, NavigableMap<Long, Segment>> entry : _messageInstances.entrySet())
+                {
+                    for (long messageId : entry.getValue().keySet())
+                    {
+                        records.add(new JournalEnqueueRecord(entry.getKey(), messageId));
+                    }
+                }
+            }
+            visit(records, handler);
+        }
+
+        @Override
+        public void visitMessageInstances(final TransactionLogResource queue,
+                                          final MessageInstanceHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+
+            final List<MessageEnqueueRecord> records = new ArrayList<>();
+            synchronized (_indexLock)
+            {
+                final NavigableMap<Long, Segment> instances = _messageInstances.get(queue.getId());
+                if (instances != null)
+                {
+                    for (long messageId : instances.keySet())
+                    {
+                        records.add(new JournalEnqueueRecord(queue.getId(), messageId));
+                    }
+                }
+            }
+            visit(records, handler);
+        }
+
+        private void visit(final List<MessageEnqueueRecord> records, final MessageInstanceHandler handler)
+        {
+            for (MessageEnqueueRecord record : records)
+            {
+                if (!handler.handle(record))
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void visitDistributedTransactions(final DistributedTransactionHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+
+            final Map<Xid, XidLocation> distributedTransactions;
+            synchronized (_indexLock)
+            {
+                distributedTransactions = new HashMap<>(_distributedTransactions);
+            }
+            for (Map.Entry<Xid, XidLocation> entry : distributedTransactions.entrySet())
+            {
+                final Xid xid = entry.getKey();
+                final Transaction.StoredXidRecord record =
+                        new JournalStoredXidRecord(xid.getFormat(), xid.getGlobalId(), xid.getBranchId());
+                if (!handler.handle(record, entry.getValue().getEnqueues(), entry.getValue().getDequeues()))
+                {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public StoredMessage<?> getMessage(final long messageId)
+        {
+            checkMessageStoreOpen();
+
+            final StorableMessageMetaData metaData = readMessage(messageId, MessageLocation::readMetaData);
+            return metaData == null ? null : createStoredJournalMessage(messageId, metaData, true);
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private static class RecordImpl implements Transaction.EnqueueRecord, Transaction.DequeueRecord, TransactionLogResource, EnqueueableMessage
+    {
+        private final JournalEnqueueRecord _record;
+        private final long _messageNumber;
+        private final UUID _queueId;
+
+        RecordImpl(final UUID queueId, final long messageNumber)
+        {
+            _messageNumber = messageNumber;
+            _queueId = queueId;
+            _record = new JournalEnqueueRecord(queueId, messageNumber);
+        }
+
+        @Override
+        public MessageEnqueueRecord getEnqueueRecord()
+        {
+            return _record;
+        }
+
+        @Override
+        public TransactionLogResource getResource()
+        {
+            return this;
+        }
+
+        @Override
+        public EnqueueableMessage getMessage()
+        {
+            return this;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageNumber;
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return true;
+        }
+
+        @Override
+        public StoredMessage getStoredMessage()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName()
+        {
+            return _queueId.toString();
+        }
+
+        @Override
+        public UUID getId()
+        {
+            return _queueId;
+        }
+
+        @Override
+        public MessageDurability getMessageDurability()
+        {
+            return MessageDurability.DEFAULT;
+        }
+    }
+
+    private static class JournalEnqueueRecord implements MessageEnqueueRecord
+    {
+        private final UUID _queueId;
+        private final long _messageNumber;
+
+        JournalEnqueueRecord(final UUID queueId, final long messageNumber)
+        {
+            _queueId = queueId;
+            _messageNumber = messageNumber;
+        }
+
+        @Override
+        public UUID getQueueId()
+        {
+            return _queueId;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageNumber;
+        }
+    }
+
+    private static class JournalStoredXidRecord implements Transaction.StoredXidRecord
+    {
+        private final long _format;
+        private final byte[] _globalId;
+        private final byte[] _branchId;
+
+        JournalStoredXidRecord(final long format, final byte[] globalId, final byte[] branchId)
+        {
+            _format = format;
+            _globalId = globalId;
+            _branchId = branchId;
+        }
+
+        @Override
+        public long getFormat()
+        {
+            return _format;
+        }
+
+        @Override
+        public byte[] getGlobalId()
+        {
+            return _globalId;
+        }
+
+        @Override
+        public byte[] getBranchId()
+        {
+            return _branchId;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+
+            final JournalStoredXidRecord that = (JournalStoredXidRecord) o;
+
+            return _format == that._format
+                   && Arrays.equals(_globalId, that._globalId)
+                   && Arrays.equals(_branchId, that._branchId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = (int) (_format ^ (_format >>> 32));
+            result = 31 * result + Arrays.hashCode(_globalId);
+            result = 31 * result + Arrays.hashCode(_branchId);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.util.SystemUtils;
+
+/**
+ * A file of the journal.
+ * <p>
+ * A segment is extended to its capacity when it is created and starts with a header identifying the segment.
+ * Records are appended after the header by the journal writer, and are read through a read-only mapping of the
+ * whole file, so that reads neither copy the data nor contend with the writer.
+ * <p>
+ * Views of the mapping handed out of the store are counted, so that a segment retired by compaction is unmapped and
+ * its file deleted only once the last of them is disposed.
+ */
+final class Segment
+{
+    static final String FILE_SUFFIX = ".jnl";
+    static final int HEADER_SIZE = 16;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Segment.class);
+    private static final int MAGIC = 0x514A4E4C;
+    private static final int VERSION = 1;
+    private static final MethodHandle UNMAPPER = findUnmapper();
+
+    private final long _sequence;
+    private final File _file;
+    private final FileChannel _channel;
+    private final MappedByteBuffer _mappedBuffer;
+    private final int _capacity;
+    private volatile int _size;
+
+    /** bytes of the records of the segment which are still live, guarded by the index lock of the store */
+    private long _liveBytes;
+
+    /** the following are guarded by the segment */
+    private int _outstandingViews;
+    private Consumer<Segment> _releaseListener;
+    private boolean _released;
+
+    private Segment(final long sequence, final File file, final FileChannel channel, final int size)
+            throws IOException
+    {
+        _sequence = sequence;
+        _file = file;
+        _channel = channel;
+        _capacity = (int) channel.size();
+        _mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, _capacity);
+        _size = size;
+    }
+
+    static Segment create(final File directory, final long sequence, final int capacity) throws IOException
+    {
+        final File file = new File(directory, String.format("%020d%s", sequence, FILE_SUFFIX));
+        final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try
+        {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sequence).flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header);
+            }
+            // extend the file to its capacity before mapping it; the unwritten part of the file reads as zeroes
+            channel.write(ByteBuffer.allocate(1), capacity - 1);
+            // the header and the new directory entry must reach the disk before any record written to the segment,
+            // so that recovery never finds records in a file it cannot identify as a segment
+            channel.force(true);
+            forceDirectory(directory);
+            channel.position(HEADER_SIZE);
+            return new Segment(sequence, file, channel, HEADER_SIZE);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the given file starts with a header. A segment is only written once its header has reached
+     * the disk, so a file without one was left by a failure while the segment was being created, and holds no
+     * records.
+     */
+    static boolean hasHeader(final File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0)
+            {
+                // keep reading until the header is complete or the end of the file is reached
+            }
+            if (header.hasRemaining())
+            {
+                return false;
+            }
+            header.flip();
+            while (header.hasRemaining())
+            {
+                if (header.get() != 0)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static void forceDirectory(final File directory) throws IOException
+    {
+        // directories cannot be opened as channels on Windows, where the directory entry is persisted with the file
+        if (!SystemUtils.isWindows())
+        {
+            try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ))
+            {
+                channel.force(true);
+            }
+        }
+    }
+
+    static Segment open(final File file) throws IOException
+    {
+        final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        try
+        {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0)
+            {
+                // keep reading until the header is complete or the end of the file is reached
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            {
+                throw new IOException("File " + file + " is not a journal segment");
+            }
+            final int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException("Journal segment " + file + " has unsupported version " + version);
+            }
+            return new Segment(header.getLong(), file, channel, HEADER_SIZE);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long getSequence()
+    {
+        return _sequence;
+    }
+
+    File getFile()
+    {
+        return _file;
+    }
+
+    int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * Returns the number of bytes of the segment which have been written, including the header.
+     */
+    int getSize()
+    {
+        return _size;
+    }
+
+    int getRemaining()
+    {
+        return _capacity - _size;
+    }
+
+    long getLiveBytes()
+    {
+        return _liveBytes;
+    }
+
+    void addLiveBytes(final long delta)
+    {
+        _liveBytes += delta;
+    }
+
+    int getInt(final int position)
+    {
+        return _mappedBuffer.getInt(position);
+    }
+
+    /**
+     * Returns a view of the given region of the mapped segment. The view is independent of other views, so the
+     * segment may be read by many threads at once.
+     */
+    ByteBuffer slice(final int position, final int length)
+    {
+        // ByteBuffer.slice(int, int) and the covariant MappedByteBuffer overrides are not available on Java 11
+        final ByteBuffer view = ((ByteBuffer) _mappedBuffer).duplicate();
+        view.position(position);
+        view.limit(position + length);
+        return view.slice();
+    }
+
+    /**
+     * Returns a view of the given region of the segment to be handed out of the store, or null if the segment has
+     * been retired and unmapped, in which case its records have been relocated. The segment is not unmapped while
+     * the view, or any buffer derived from it, is not disposed.
+     */
+    QpidByteBuffer view(final int position, final int length)
+    {
+        synchronized (this)
+        {
+            if (_released)
+            {
+                return null;
+            }
+            _outstandingViews++;
+        }
+        return QpidByteBuffer.wrap(slice(position, length), this::viewDisposed);
+    }
+
+    private void viewDisposed()
+    {
+        final boolean release;
+        synchronized (this)
+        {
+            _outstandingViews--;
+            release = isReleasable();
+        }
+        if (release)
+        {
+            release();
+        }
+    }
+
+    private boolean isReleasable()
+    {
+        if (_releaseListener != null && _outstandingViews == 0 && !_released)
+        {
+            _released = true;
+            return true;
+        }
+        return false;
+    }
+
+    int checksum(final int position, final int length)
+    {
+        final CRC32C checksum = new CRC32C();
+        checksum.update(slice(position, length));
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Appends the given buffers to the segment, returning the position at which they were written.
+     */
+    int append(final Collection<QpidByteBuffer> buffers) throws IOException
+    {
+        final int position = _size;
+        long remaining = 0;
+        for (QpidByteBuffer buffer : buffers)
+        {
+            remaining += buffer.remaining();
+        }
+        if (remaining > getRemaining())
+        {
+            throw new IOException("Record of " + remaining + " bytes does not fit in journal segment " + _file);
+        }
+        while (remaining > 0)
+        {
+            remaining -= QpidByteBuffer.write(_channel, buffers);
+        }
+        _size = (int) _channel.position();
+        return position;
+    }
+
+    void force() throws IOException
+    {
+        _channel.force(false);
+    }
+
+    /**
+     * Discards the content of the segment from the given position, so that an incompletely written record found on
+     * recovery is not mistaken for a record when the tail of the segment is next written and recovered.
+     */
+    void truncate(final int position) throws IOException
+    {
+        _channel.truncate(position);
+        _channel.write(ByteBuffer.allocate(1), _capacity - 1);
+        _channel.position(position);
+        _size = position;
+    }
+
+    void recovered(final int size) throws IOException
+    {
+        _channel.position(size);
+        _size = size;
+    }
+
+    void close() throws IOException
+    {
+        _channel.close();
+    }
+
+    /**
+     * Retires the segment, whose records are no longer needed. Once no views of the segment are outstanding, which
+     * may be immediately, the segment is closed and unmapped and the given listener is notified on the thread
+     * disposing of the last view, so that the file can be deleted.
+     */
+    void retire(final Consumer<Segment> releaseListener)
+    {
+        final boolean release;
+        synchronized (this)
+        {
+            _releaseListener = releaseListener;
+            release = isReleasable();
+        }
+        if (release)
+        {
+            release();
+        }
+    }
+
+    private void release()
+    {
+        try
+        {
+            close();
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Failed to close journal segment {}", _file, e);
+        }
+        unmap(_mappedBuffer);
+        _releaseListener.accept(this);
+    }
+
+    /**
+     * Deletes the file of the segment, which must have been released.
+     */
+    void deleteFile() throws IOException
+    {
+        Files.deleteIfExists(_file.toPath());
+    }
+
+    private static void unmap(final MappedByteBuffer buffer)
+    {
+        if (UNMAPPER != null)
+        {
+            try
+            {
+                UNMAPPER.invokeExact((ByteBuffer) buffer);
+            }
+            catch (Throwable e)
+            {
+                LOGGER.debug("Failed to unmap journal segment, it will be unmapped when garbage collected", e);
+            }
+        }
+    }
+
+    private static MethodHandle findUnmapper()
+    {
+        try
+        {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                                .findVirtual(unsafeClass, "invokeCleaner",
+                                             MethodType.methodType(void.class, ByteBuffer.class))
+                                .bindTo(theUnsafe.get(null));
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            LOGGER.debug("Mapped journal segments cannot be unmapped explicitly, they will be unmapped when garbage"
+                         + " collected", e);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Segment[" + _file.getName() + "]";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost.journal;
+
+import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.store.FileBasedSettings;
+import org.apache.qpid.server.store.SizeMonitoringSettings;
+import org.apache.qpid.server.store.journal.JournalMessageStore;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+
+@ManagedObject(category = false, type = JournalVirtualHostImpl.VIRTUAL_HOST_TYPE, amqpName = "org.apache.qpid.JournalVirtualHost")
+public interface JournalVirtualHost<X extends JournalVirtualHost<X>> extends QueueManagingVirtualHost<X>,
+                                                                             FileBasedSettings,
+                                                                             SizeMonitoringSettings
+{
+    String STORE_PATH = "storePath";
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = JournalMessageStore.SEGMENT_SIZE, description = "Size in bytes of the files of the journal")
+    long DEFAULT_SEGMENT_SIZE = JournalMessageStore.DEFAULT_SEGMENT_SIZE;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = JournalMessageStore.COMPACTION_THRESHOLD,
+            description = "Percentage of live data below which files of the journal are compacted")
+    int DEFAULT_COMPACTION_THRESHOLD = JournalMessageStore.DEFAULT_COMPACTION_THRESHOLD;
+
+    @Override
+    @ManagedAttribute(mandatory = true, defaultValue = "${qpid.work_dir}${file.separator}${this:name}${file.separator}messages")
+    String getStorePath();
+
+    @Override
+    @ManagedAttribute(mandatory = true, defaultValue = "0")
+    Long getStoreUnderfullSize();
+
+    @Override
+    @ManagedAttribute(mandatory = true, defaultValue = "0")
+    Long getStoreOverfullSize();
+
+}
@@ -0,0 +1,391 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.journal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.message.EnqueueableMessage;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.MessageStoreTestCase;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.TestMessageMetaData;
+import org.apache.qpid.server.store.Transaction;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.util.FileUtils;
+import org.apache.qpid.server.virtualhost.journal.JournalVirtualHost;
+
+public class JournalMessageStoreTest extends MessageStoreTestCase
+{
+    private static final long SEGMENT_SIZE = 4096L;
+    private static final int CONTENT_SIZE = 1000;
+
+    private String _storeLocation;
+
+    @AfterEach
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            getStore().closeMessageStore();
+            deleteStoreIfExists();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    @Test
+    public void testOnDelete()
+    {
+        final File location = new File(_storeLocation);
+        assertTrue(location.exists(), "Store does not exist at " + _storeLocation);
+
+        getStore().closeMessageStore();
+        assertTrue(location.exists(), "Store does not exist at " + _storeLocation);
+
+        final JournalVirtualHost<?> mockVH = mock(JournalVirtualHost.class);
+        when(mockVH.getStorePath()).thenReturn(_storeLocation);
+
+        getStore().onDelete(mockVH);
+        assertFalse(location.exists(), "Store exists at " + _storeLocation);
+    }
+
+    @Test
+    public void testContentSurvivesReopen()
+    {
+        final TransactionLogResource queue = createQueue();
+        final byte[] content = createContent(1);
+        final StoredMessage<TestMessageMetaData> message = addMessage(content);
+        enqueue(queue, message);
+
+        reopenStore();
+
+        final StoredMessage<?> recovered = getStore().newMessageStoreReader().getMessage(message.getMessageNumber());
+        assertNotNull(recovered, "Message was not recovered");
+        assertArrayEquals(content, getContent(recovered));
+        assertEquals(List.of(message.getMessageNumber()), getEnqueuedMessageIds(queue));
+    }
+
+    @Test
+    public void testDequeuedAndRemovedMessagesAreNotRecovered()
+    {
+        final TransactionLogResource queue = createQueue();
+        final StoredMessage<TestMessageMetaData> message1 = addMessage(createContent(1));
+        final StoredMessage<TestMessageMetaData> message2 = addMessage(createContent(2));
+        final MessageEnqueueRecord record1 = enqueue(queue, message1);
+        enqueue(queue, message2);
+
+        final Transaction transaction = getStore().newTransaction();
+        transaction.dequeueMessage(record1);
+        transaction.commitTran();
+        message1.remove();
+
+        reopenStore();
+
+        final MessageStore.MessageStoreReader reader = getStore().newMessageStoreReader();
+        assertNull(reader.getMessage(message1.getMessageNumber()), "Removed message was recovered");
+        assertNotNull(reader.getMessage(message2.getMessageNumber()), "Message was not recovered");
+        assertEquals(List.of(message2.getMessageNumber()), getEnqueuedMessageIds(queue));
+    }
+
+    @Test
+    public void testCompactionDeletesSegmentsOfRemovedMessages() throws Exception
+    {
+        final JournalMessageStore store = (JournalMessageStore) getStore();
+        final TransactionLogResource queue = createQueue();
+        final List<StoredMessage<TestMessageMetaData>> messages = new ArrayList<>();
+        final List<MessageEnqueueRecord> records = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message = addMessage(createContent(i));
+            messages.add(message);
+            records.add(enqueue(queue, message));
+        }
+        final int segmentCount = store.getSegmentCount();
+        assertTrue(segmentCount > 5, "Unexpected number of segments " + segmentCount);
+
+        final Transaction transaction = store.newTransaction();
+        for (int i = 0; i < 39; i++)
+        {
+            transaction.dequeueMessage(records.get(i));
+        }
+        transaction.commitTran();
+        for (int i = 0; i < 39; i++)
+        {
+            messages.get(i).remove();
+        }
+
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (store.getSegmentCount() > 2 && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(50L);
+        }
+        assertTrue(store.getSegmentCount() <= 2, "Segments were not compacted: " + store.getSegmentCount());
+        assertTrue(store.getStoreSize() <= 2 * SEGMENT_SIZE, "Unexpected store size " + store.getStoreSize());
+
+        reopenStore();
+
+        final StoredMessage<TestMessageMetaData> last = messages.get(39);
+        final StoredMessage<?> recovered = getStore().newMessageStoreReader().getMessage(last.getMessageNumber());
+        assertNotNull(recovered, "Message was not recovered after compaction");
+        assertArrayEquals(createContent(39), getContent(recovered));
+        assertEquals(List.of(last.getMessageNumber()), getEnqueuedMessageIds(queue));
+    }
+
+    @Test
+    public void testRecoveryDiscardsIncompletelyWrittenRecord() throws Exception
+    {
+        final TransactionLogResource queue = createQueue();
+        final StoredMessage<TestMessageMetaData> message1 = addMessage(createContent(1));
+        enqueue(queue, message1);
+
+        final long storeSize = ((JournalMessageStore) getStore()).getStoreSize();
+        getStore().closeMessageStore();
+
+        final File[] segments = new File(_storeLocation).listFiles((dir, name) -> name.endsWith(Segment.FILE_SUFFIX));
+        assertNotNull(segments);
+        assertEquals(1, segments.length, "Unexpected number of segments");
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw"))
+        {
+            // a record whose content and checksum were not written
+            file.seek(storeSize);
+            file.writeInt(100);
+            file.writeLong(Long.MAX_VALUE);
+        }
+
+        reopenStore();
+
+        final StoredMessage<TestMessageMetaData> message2 = addMessage(createContent(2));
+        enqueue(queue, message2);
+
+        reopenStore();
+
+        assertArrayEquals(createContent(1), getContent(getStore().newMessageStoreReader().getMessage(message1.getMessageNumber())));
+        assertArrayEquals(createContent(2), getContent(getStore().newMessageStoreReader().getMessage(message2.getMessageNumber())));
+        assertEquals(List.of(message1.getMessageNumber(), message2.getMessageNumber()), getEnqueuedMessageIds(queue));
+    }
+
+    @Test
+    public void testRecoveryDeletesLastSegmentWithoutHeader() throws Exception
+    {
+        final TransactionLogResource queue = createQueue();
+        final StoredMessage<TestMessageMetaData> message1 = addMessage(createContent(1));
+        enqueue(queue, message1);
+        getStore().closeMessageStore();
+
+        // a segment whose creation was interrupted before its header reached the disk
+        final File headerless = new File(_storeLocation, String.format("%020d%s", 2, Segment.FILE_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(headerless, "rw"))
+        {
+            file.setLength(SEGMENT_SIZE);
+        }
+
+        reopenStore();
+
+        assertFalse(headerless.exists(), "Segment without header was not deleted");
+        assertArrayEquals(createContent(1), getContent(getStore().newMessageStoreReader().getMessage(message1.getMessageNumber())));
+
+        final StoredMessage<TestMessageMetaData> message2 = addMessage(createContent(2));
+        enqueue(queue, message2);
+
+        reopenStore();
+
+        assertEquals(List.of(message1.getMessageNumber(), message2.getMessageNumber()), getEnqueuedMessageIds(queue));
+    }
+
+    @Test
+    public void testCompactedSegmentDeletedOnceContentViewsDisposed() throws Exception
+    {
+        final JournalMessageStore store = (JournalMessageStore) getStore();
+        final TransactionLogResource queue = createQueue();
+        final List<StoredMessage<TestMessageMetaData>> messages = new ArrayList<>();
+        final List<MessageEnqueueRecord> records = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message = addMessage(createContent(i));
+            messages.add(message);
+            records.add(enqueue(queue, message));
+        }
+        final File firstSegment = new File(_storeLocation, String.format("%020d%s", 1, Segment.FILE_SUFFIX));
+        assertTrue(firstSegment.exists(), "First segment does not exist");
+
+        final StoredMessage<TestMessageMetaData> viewed = messages.get(0);
+        assertTrue(viewed.flowToDisk());
+        final QpidByteBuffer view = viewed.getContent(0, 10);
+
+        final Transaction transaction = store.newTransaction();
+        for (int i = 0; i < 39; i++)
+        {
+            transaction.dequeueMessage(records.get(i));
+        }
+        transaction.commitTran();
+        for (int i = 0; i < 39; i++)
+        {
+            messages.get(i).remove();
+        }
+
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (store.getSegmentCount() > 2 && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(50L);
+        }
+        assertTrue(store.getSegmentCount() <= 2, "Segments were not compacted: " + store.getSegmentCount());
+        assertTrue(firstSegment.exists(), "Segment deleted while a view of it is outstanding");
+
+        final byte[] viewContent = new byte[10];
+        view.get(viewContent);
+        final byte[] expected = new byte[10];
+        System.arraycopy(createContent(0), 0, expected, 0, expected.length);
+        assertArrayEquals(expected, viewContent);
+
+        final long storeSize = store.getStoreSize();
+        view.dispose();
+
+        assertFalse(firstSegment.exists(), "Segment not deleted once the view of it was disposed");
+        assertTrue(store.getStoreSize() < storeSize, "Size of deleted segment still counted in store size");
+        assertTrue(store.getStoreSize() <= 2 * SEGMENT_SIZE, "Unexpected store size " + store.getStoreSize());
+    }
+
+    @Override
+    protected VirtualHost<?> createVirtualHost()
+    {
+        _storeLocation = TMP_FOLDER + File.separator + getTestName();
+        deleteStoreIfExists();
+
+        final JournalVirtualHost<?> parent = mock(JournalVirtualHost.class);
+        when(parent.getStorePath()).thenReturn(_storeLocation);
+        when(parent.getName()).thenReturn(getTestName());
+        when(parent.getContextKeys(false)).thenReturn(Set.of(JournalMessageStore.SEGMENT_SIZE));
+        when(parent.getContextValue(Long.class, JournalMessageStore.SEGMENT_SIZE)).thenReturn(SEGMENT_SIZE);
+        return parent;
+    }
+
+    @Override
+    protected MessageStore createMessageStore()
+    {
+        return new JournalMessageStore();
+    }
+
+    @Override
+    protected boolean flowToDiskSupported()
+    {
+        return true;
+    }
+
+    private void deleteStoreIfExists()
+    {
+        if (_storeLocation != null)
+        {
+            final File location = new File(_storeLocation);
+            if (location.exists())
+            {
+                FileUtils.delete(location, true);
+            }
+        }
+    }
+
+    private byte[] createContent(final int seed)
+    {
+        final byte[] content = new byte[CONTENT_SIZE];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) (seed + i);
+        }
+        return content;
+    }
+
+    private StoredMessage<TestMessageMetaData> addMessage(final byte[] content)
+    {
+        final MessageStore store = getStore();
+        final MessageHandle<TestMessageMetaData> handle = store.addMessage(new TestMessageMetaData(store.getNextMessageId(), content.length));
+        try (QpidByteBuffer buffer = QpidByteBuffer.wrap(content))
+        {
+            handle.addContent(buffer);
+        }
+        return handle.allContentAdded();
+    }
+
+    private byte[] getContent(final StoredMessage<?> message)
+    {
+        try (QpidByteBuffer buffer = message.getContent(0, message.getContentSize()))
+        {
+            final byte[] content = new byte[buffer.remaining()];
+            buffer.get(content);
+            return content;
+        }
+    }
+
+    private TransactionLogResource createQueue()
+    {
+        final TransactionLogResource queue = mock(TransactionLogResource.class);
+        when(queue.getId()).thenReturn(UUID.randomUUID());
+        when(queue.getName()).thenReturn("testQueue");
+        return queue;
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageEnqueueRecord enqueue(final TransactionLogResource queue, final StoredMessage<?> message)
+    {
+        final EnqueueableMessage<?> enqueueableMessage = mock(EnqueueableMessage.class);
+        when(enqueueableMessage.isPersistent()).thenReturn(true);
+        when(enqueueableMessage.getMessageNumber()).thenReturn(message.getMessageNumber());
+        when(enqueueableMessage.getStoredMessage()).thenReturn((StoredMessage) message);
+
+        final Transaction transaction = getStore().newTransaction();
+        final MessageEnqueueRecord record = transaction.enqueueMessage(queue, enqueueableMessage);
+        transaction.commitTran();
+        return record;
+    }
+
+    private List<Long> getEnqueuedMessageIds(final TransactionLogResource queue)
+    {
+        final List<Long> messageIds = new ArrayList<>();
+        getStore().newMessageStoreReader().visitMessageInstances(queue, record ->
+        {
+            messageIds.add(record.getMessageNumber());
+            return true;
+        });
+        return messageIds;
+    }
+}
@@ -102,6 +102,14 @@ public interface HttpManagementConfiguration<X extends HttpManagementConfigurati
     @ManagedContextDefault(name = HTTP_MANAGEMENT_ENABLE_CONTENT_AUTHENTICATION)
     boolean DEFAULT_HTTP_MANAGEMENT_ENABLE_CONTENT_AUTHENTICATION = false;
 
+    String STATISTICS_FROM_SNAPSHOT_CONTEXT_NAME = "qpid.httpManagement.statisticsFromSnapshot";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = STATISTICS_FROM_SNAPSHOT_CONTEXT_NAME,
+            description = "If true, statistics are read from the snapshot of Broker statistics shared with the metrics"
+                          + " endpoint rather than from the objects themselves, so may be as old as the snapshot"
+                          + " refresh interval.")
+    boolean DEFAULT_STATISTICS_FROM_SNAPSHOT = false;
+
     String QUERY_ENGINE_CACHE_SIZE = "qpid.port.http.query.engine.cacheSize";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = QUERY_ENGINE_CACHE_SIZE, description = "Broker query engine cache size.")
@@ -39,6 +39,7 @@ import org.apache.qpid.server.management.plugin.ManagementResponse;
 import org.apache.qpid.server.management.plugin.ResponseType;
 import org.apache.qpid.server.management.plugin.controller.ControllerManagementResponse;
 import org.apache.qpid.server.management.plugin.controller.LegacyConfiguredObject;
+import org.apache.qpid.server.management.plugin.servlet.rest.ConfiguredObjectToMapConverter;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectAttribute;
 import org.apache.qpid.server.model.ConfiguredObjectOperation;
@@ -418,7 +419,7 @@ public class LatestManagementControllerAdapter implements ManagementController
         @Override
         public Map<String, Object> getStatistics()
         {
-            return _configuredObject.getStatistics();
+            return ConfiguredObjectToMapConverter.getStatistics(_configuredObject);
         }
 
         @Override
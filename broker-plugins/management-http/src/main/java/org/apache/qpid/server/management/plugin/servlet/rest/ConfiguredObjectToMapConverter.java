@@ -35,9 +35,12 @@ import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.qpid.server.management.plugin.HttpManagementConfiguration;
+import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectAttribute;
 import org.apache.qpid.server.model.Named;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
 
 public class ConfiguredObjectToMapConverter
 {
@@ -215,7 +218,7 @@ public class ConfiguredObjectToMapConverter
             final ConfiguredObject<?> confObject, Map<String, Object> object)
     {
 
-        Map<String, Object> statMap = new TreeMap<>(confObject.getStatistics());
+        Map<String, Object> statMap = new TreeMap<>(getStatistics(confObject));
 
         if(!statMap.isEmpty())
         {
@@ -224,6 +227,27 @@ public class ConfiguredObjectToMapConverter
 
     }
 
+    /**
+     * Returns the statistics of the given object, read from the shared statistics snapshot of the Broker when
+     * {@value HttpManagementConfiguration#STATISTICS_FROM_SNAPSHOT_CONTEXT_NAME} is set and the snapshot holds the
+     * object.
+     */
+    public static Map<String, Object> getStatistics(final ConfiguredObject<?> confObject)
+    {
+        if (Boolean.TRUE.equals(confObject.getContextValue(Boolean.class,
+                                                           HttpManagementConfiguration.STATISTICS_FROM_SNAPSHOT_CONTEXT_NAME)))
+        {
+            final Broker<?> broker = confObject.getModel().getAncestor(Broker.class, confObject);
+            final StatisticsSnapshot.ObjectStatistics statistics =
+                    broker == null ? null : broker.getStatisticsSnapshot().getObjectStatistics(confObject);
+            if (statistics != null)
+            {
+                return statistics.toMap();
+            }
+        }
+        return confObject.getStatistics();
+    }
+
     private void incorporateChildrenIntoMap(
             final ConfiguredObject confObject,
             Class<? extends ConfiguredObject> clazz,
@@ -40,6 +40,8 @@ import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.apache.qpid.server.management.plugin.HttpManagementConfiguration;
+import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectAttribute;
 import org.apache.qpid.server.model.ConfiguredObjectMethodAttribute;
@@ -48,6 +50,7 @@ import org.apache.qpid.server.model.Model;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestCar;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestElecEngineImpl;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestEngine;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
 import org.apache.qpid.test.utils.UnitTestBase;
 
 public class ConfiguredObjectToMapConverterTest extends UnitTestBase
@@ -101,6 +104,36 @@ public class ConfiguredObjectToMapConverterTest extends UnitTestBase
         assertEquals(statisticValue, statsAsMap.get(statisticName), "Unexpected statistic value");
     }
 
+    @Test
+    public void testConfiguredObjectStatisticsFromSnapshot()
+    {
+        final Model model = mock(Model.class);
+        final Broker<?> broker = mock(Broker.class);
+        final StatisticsSnapshot snapshot = mock(StatisticsSnapshot.class);
+        final StatisticsSnapshot.ObjectStatistics objectStatistics = mock(StatisticsSnapshot.ObjectStatistics.class);
+        when(_configuredObject.getContextValue(Boolean.class,
+                                               HttpManagementConfiguration.STATISTICS_FROM_SNAPSHOT_CONTEXT_NAME))
+                .thenReturn(true);
+        when(_configuredObject.getModel()).thenReturn(model);
+        when(model.getAncestor(Broker.class, _configuredObject)).thenReturn(broker);
+        when(broker.getStatisticsSnapshot()).thenReturn(snapshot);
+        when(snapshot.getObjectStatistics(_configuredObject)).thenReturn(objectStatistics);
+        when(objectStatistics.toMap()).thenReturn(Map.of("statisticName", 20));
+        when(_configuredObject.getStatistics()).thenReturn(Map.of("statisticName", 10));
+
+        Map<String, Object> resultMap = _converter.convertObjectToMap(_configuredObject,
+                                                                      ConfiguredObject.class,
+                                                                      new ConfiguredObjectToMapConverter.ConverterOptions(
+                                                                              0,
+                                                                              false,
+                                                                              120,
+                                                                              false,
+                                                                              false));
+        Map<String, Object> statsAsMap = (Map<String, Object>) resultMap.get(STATISTICS_MAP_KEY);
+        assertNotNull(statsAsMap, "Statistics should be part of map");
+        assertEquals(20, statsAsMap.get("statisticName"), "Statistic should be read from the snapshot");
+    }
+
     @Test
     public void testConfiguredObjectWithSingleNonConfiguredObjectAttribute()
     {
@@ -31,6 +31,7 @@ import java.util.Set;
 
 import io.prometheus.client.exporter.common.TextFormat;
 
+import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Content;
 import org.apache.qpid.server.model.RestContentHeader;
@@ -64,9 +65,12 @@ public class PrometheusContentFactory implements ContentFactory
                 new IncludeMetricPredicate(includedMetricNames == null || includedMetricNames.length == 0
                                                    ? Collections.emptySet()
                                                    : new HashSet<>(Set.of(includedMetricNames)));
-        final QpidCollector qpidCollector = new QpidCollector(object,
-                                                              new IncludeDisabledStatisticPredicate(includeDisabled),
-                                                              metricIncludeFilter);
+        final IncludeDisabledStatisticPredicate statisticIncludeFilter =
+                new IncludeDisabledStatisticPredicate(includeDisabled);
+        final Broker<?> broker = object.getModel().getAncestor(Broker.class, object);
+        final QpidCollector qpidCollector = broker == null
+                ? new QpidCollector(object, statisticIncludeFilter, metricIncludeFilter)
+                : new QpidCollector(object, broker::getStatisticsSnapshot, statisticIncludeFilter, metricIncludeFilter);
 
         return new Content()
         {
@@ -25,33 +25,64 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import io.prometheus.client.Collector;
 import io.prometheus.client.CounterMetricFamily;
 import io.prometheus.client.GaugeMetricFamily;
+import io.prometheus.client.SummaryMetricFamily;
 
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectStatistic;
-import org.apache.qpid.server.model.Model;
 import org.apache.qpid.server.model.StatisticType;
 import org.apache.qpid.server.model.StatisticUnit;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.LatencyHistogramProvider;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
 
 public class QpidCollector extends Collector
 {
     private static final MetricFamilySamples IGNORED = new MetricFamilySamples(null, null, null, null);
     static final String COUNT_SUFFIX = "count";
     static final String TOTAL_SUFFIX = "total";
+    static final String SECONDS_SUFFIX = "seconds";
+    static final List<Double> LATENCY_QUANTILES = List.of(0.5, 0.9, 0.99, 0.999);
+    static final String SNAPSHOT_AGE_FAMILY_NAME = "qpid_statistics_snapshot_age_seconds";
+    static final String SNAPSHOT_BUILD_DURATION_FAMILY_NAME = "qpid_statistics_snapshot_build_duration_seconds";
+    static final String SNAPSHOT_OBJECTS_FAMILY_NAME = "qpid_statistics_snapshot_objects";
+    private static final double MICROS_PER_SECOND = 1_000_000d;
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
     private final Predicate<ConfiguredObjectStatistic<?,?>> _includeStatisticFilter;
     private final Predicate<String> _includeMetricFilter;
     private final ConfiguredObject<?> _root;
-    private final Model _model;
+    private final Supplier<StatisticsSnapshot> _snapshotSupplier;
+    private final boolean _includeSnapshotMetrics;
 
     QpidCollector(final ConfiguredObject<?> root,
                   final Predicate<ConfiguredObjectStatistic<?,?>> includeStatisticFilter,
                   final Predicate<String> includeMetricFilter)
     {
         _root = root;
-        _model = _root.getModel();
+        _snapshotSupplier = () -> StatisticsSnapshot.create(root);
+        _includeSnapshotMetrics = false;
+        _includeStatisticFilter = includeStatisticFilter;
+        _includeMetricFilter = includeMetricFilter;
+    }
+
+    /**
+     * Creates a collector reading a shared snapshot, whose age and cost are reported alongside the statistics.
+     *
+     * @param snapshotSupplier supplies a snapshot holding the statistics of the root and its descendants, which may
+     *                         also hold the statistics of other objects
+     */
+    QpidCollector(final ConfiguredObject<?> root,
+                  final Supplier<StatisticsSnapshot> snapshotSupplier,
+                  final Predicate<ConfiguredObjectStatistic<?,?>> includeStatisticFilter,
+                  final Predicate<String> includeMetricFilter)
+    {
+        _root = root;
+        _snapshotSupplier = snapshotSupplier;
+        _includeSnapshotMetrics = true;
         _includeStatisticFilter = includeStatisticFilter;
         _includeMetricFilter = includeMetricFilter;
     }
@@ -59,58 +90,98 @@ public class QpidCollector extends Collector
     @Override
     public List<MetricFamilySamples> collect()
     {
+        final StatisticsSnapshot snapshot = _snapshotSupplier.get();
         final List<MetricFamilySamples> metricFamilySamples = new ArrayList<>();
-        addObjectMetrics(_root, List.of(), new HashMap<>(), metricFamilySamples);
-        addChildrenMetrics(metricFamilySamples, _root, List.of("name"));
+        final Map<String, MetricFamilySamples> metricFamilyMap = new HashMap<>();
+        for (final StatisticsSnapshot.TypeStatistics typeStatistics : snapshot.getTypeStatistics())
+        {
+            addTypeMetrics(typeStatistics, metricFamilyMap, metricFamilySamples);
+        }
+        if (_includeSnapshotMetrics)
+        {
+            addSnapshotMetrics(snapshot, metricFamilySamples);
+        }
         return metricFamilySamples;
     }
 
-    private void addObjectMetrics(final ConfiguredObject<?> object,
-                                  final List<String> labelNames,
-                                  final Map<String, MetricFamilySamples> metricFamilyMap,
-                                  final List<MetricFamilySamples> metricFamilySamples)
+    private void addTypeMetrics(final StatisticsSnapshot.TypeStatistics typeStatistics,
+                                final Map<String, MetricFamilySamples> metricFamilyMap,
+                                final List<MetricFamilySamples> metricFamilySamples)
     {
-        final Map<String, Object> statsMap = object.getStatistics();
-        for (final Map.Entry<String, Object> entry : statsMap.entrySet())
+        final List<ConfiguredObjectStatistic<?, ?>> statistics = typeStatistics.getStatistics();
+        final MetricFamilySamples[] families = new MetricFamilySamples[statistics.size()];
+        for (int row = 0; row < typeStatistics.size(); row++)
         {
-            MetricFamilySamples family = metricFamilyMap.get(entry.getKey());
-            if (family == null)
+            final ConfiguredObject<?> object = typeStatistics.getObject(row);
+            final List<String> labelValues = buildLabelValues(object);
+            if (labelValues == null)
             {
-                family = createMetricFamilySamples(entry.getKey(), object, labelNames);
-                metricFamilyMap.put(entry.getKey(), family);
-                if (family != IGNORED)
+                continue;
+            }
+
+            final List<String> labelNames = buildLabelNames(object);
+            for (int column = 0; column < families.length; column++)
+            {
+                if (typeStatistics.hasValue(row, column))
                 {
-                    metricFamilySamples.add(family);
+                    MetricFamilySamples family = families[column];
+                    if (family == null)
+                    {
+                        family = getMetricFamilySamples(statistics.get(column), typeStatistics.getCategoryClass(),
+                                                        labelNames, metricFamilyMap, metricFamilySamples);
+                        families[column] = family;
+                    }
+                    if (family != IGNORED)
+                    {
+                        final double doubleValue =
+                                typeStatistics.isNumeric(column) ? typeStatistics.getDoubleValue(row, column) : 0;
+                        family.samples.add(new MetricFamilySamples.Sample(family.name, labelNames, labelValues, doubleValue));
+                    }
                 }
             }
-            if (family != IGNORED)
+
+            if (object instanceof LatencyHistogramProvider)
             {
-                final List<String> labelsValues = buildLabelValues(object);
-                final double doubleValue = toDoubleValue(entry.getValue());
-                family.samples.add(new MetricFamilySamples.Sample(family.name, labelNames, labelsValues, doubleValue));
+                addLatencyMetrics(object, ((LatencyHistogramProvider) object).getLatencyHistograms(),
+                                  labelNames, labelValues, metricFamilyMap, metricFamilySamples);
             }
         }
     }
 
-    private MetricFamilySamples createMetricFamilySamples(final String statisticName,
-                                                          final ConfiguredObject<?> object,
-                                                          final List<String> labelNames)
+    private MetricFamilySamples getMetricFamilySamples(final ConfiguredObjectStatistic<?, ?> statistic,
+                                                       final Class<? extends ConfiguredObject> categoryClass,
+                                                       final List<String> labelNames,
+                                                       final Map<String, MetricFamilySamples> metricFamilyMap,
+                                                       final List<MetricFamilySamples> metricFamilySamples)
     {
-        final ConfiguredObjectStatistic<?, ?> configuredObjectStatistic =
-                findConfiguredObjectStatistic(statisticName, object.getTypeClass());
-        if (configuredObjectStatistic == null || !_includeStatisticFilter.test(configuredObjectStatistic))
+        if (!_includeStatisticFilter.test(statistic))
         {
             return IGNORED;
         }
-        final StatisticType type = configuredObjectStatistic.getStatisticType();
-        final String familyName = getFamilyName(object.getCategoryClass(), configuredObjectStatistic);
+        final String familyName = getFamilyName(categoryClass, statistic);
+        MetricFamilySamples family = metricFamilyMap.get(familyName);
+        if (family == null)
+        {
+            family = createMetricFamilySamples(familyName, statistic, labelNames);
+            metricFamilyMap.put(familyName, family);
+            if (family != IGNORED)
+            {
+                metricFamilySamples.add(family);
+            }
+        }
+        return family;
+    }
 
+    private MetricFamilySamples createMetricFamilySamples(final String familyName,
+                                                          final ConfiguredObjectStatistic<?, ?> configuredObjectStatistic,
+                                                          final List<String> labelNames)
+    {
         if (!_includeMetricFilter.test(familyName))
         {
             return IGNORED;
         }
 
-        if (type == StatisticType.CUMULATIVE)
+        if (configuredObjectStatistic.getStatisticType() == StatisticType.CUMULATIVE)
         {
             return new CounterMetricFamily(familyName, configuredObjectStatistic.getDescription(), labelNames);
         }
@@ -120,49 +191,110 @@ public class QpidCollector extends Collector
         }
     }
 
-    private ConfiguredObjectStatistic<?, ?> findConfiguredObjectStatistic(final String statisticName,
-                                                                          final Class<? extends ConfiguredObject> typeClass)
+    private void addLatencyMetrics(final ConfiguredObject<?> object,
+                                   final Collection<LatencyHistogram> histograms,
+                                   final List<String> labelNames,
+                                   final List<String> labelValues,
+                                   final Map<String, MetricFamilySamples> metricFamilyMap,
+                                   final List<MetricFamilySamples> metricFamilySamples)
+    {
+        for (final LatencyHistogram histogram : histograms)
+        {
+            final String familyName = getLatencyFamilyName(object.getCategoryClass(), histogram);
+            MetricFamilySamples family = metricFamilyMap.get(familyName);
+            if (family == null)
+            {
+                family = _includeMetricFilter.test(familyName)
+                        ? new SummaryMetricFamily(familyName, histogram.getDescription(), labelNames, LATENCY_QUANTILES)
+                        : IGNORED;
+                metricFamilyMap.put(familyName, family);
+                if (family != IGNORED)
+                {
+                    metricFamilySamples.add(family);
+                }
+            }
+            if (family != IGNORED)
+            {
+                final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+                final List<Double> quantiles = new ArrayList<>(LATENCY_QUANTILES.size());
+                for (final double quantile : LATENCY_QUANTILES)
+                {
+                    quantiles.add(snapshot.getValueAtQuantile(quantile) / MICROS_PER_SECOND);
+                }
+                ((SummaryMetricFamily) family).addMetric(labelValues,
+                                                         snapshot.getCount(),
+                                                         snapshot.getSum() / MICROS_PER_SECOND,
+                                                         quantiles);
+            }
+        }
+    }
+
+    private void addSnapshotMetrics(final StatisticsSnapshot snapshot,
+                                    final List<MetricFamilySamples> metricFamilySamples)
     {
-        final Collection<ConfiguredObjectStatistic<?, ?>> statisticsDefinitions =
-                _model.getTypeRegistry().getStatistics(typeClass);
-        return statisticsDefinitions.stream()
-                                    .filter(s -> statisticName.equals(s.getName()))
-                                    .findFirst()
-                                    .orElse(null);
+        addSnapshotGauge(SNAPSHOT_AGE_FAMILY_NAME,
+                         "Age of the statistics snapshot read by this scrape.",
+                         snapshot.getAge() / NANOS_PER_SECOND,
+                         metricFamilySamples);
+        addSnapshotGauge(SNAPSHOT_BUILD_DURATION_FAMILY_NAME,
+                         "Time taken to build the statistics snapshot read by this scrape.",
+                         snapshot.getBuildDuration() / NANOS_PER_SECOND,
+                         metricFamilySamples);
+        addSnapshotGauge(SNAPSHOT_OBJECTS_FAMILY_NAME,
+                         "Number of objects in the statistics snapshot read by this scrape.",
+                         snapshot.getObjectCount(),
+                         metricFamilySamples);
     }
 
+    private void addSnapshotGauge(final String familyName,
+                                  final String help,
+                                  final double value,
+                                  final List<MetricFamilySamples> metricFamilySamples)
+    {
+        if (_includeMetricFilter.test(familyName))
+        {
+            metricFamilySamples.add(new GaugeMetricFamily(familyName, help, value));
+        }
+    }
+
+    /**
+     * Returns the names of the object and its ancestors below the root, or null if the object is not the root or
+     * one of its descendants.
+     */
     private List<String> buildLabelValues(final ConfiguredObject<?> object)
     {
         final List<String> labelsValues = new ArrayList<>();
-        ConfiguredObject o = object;
-        while (o != null && o != _root)
+        ConfiguredObject<?> o = object;
+        while (o != _root)
         {
+            if (o == null)
+            {
+                return null;
+            }
             labelsValues.add(o.getName());
             o = o.getParent();
         }
         return labelsValues;
     }
 
-    private void addChildrenMetrics(final List<MetricFamilySamples> metricFamilySamples,
-                                    final ConfiguredObject<?> object,
-                                    final List<String> childLabelNames)
+    private List<String> buildLabelNames(final ConfiguredObject<?> object)
     {
-        final Class<? extends ConfiguredObject> category = object.getCategoryClass();
-        for (final Class<? extends ConfiguredObject> childClass : _model.getChildTypes(category))
+        if (object == _root)
         {
-            final Collection<? extends ConfiguredObject> children = object.getChildren(childClass);
-            if (children != null && !children.isEmpty())
-            {
-                final Map<String, MetricFamilySamples> childrenMetricFamilyMap = new HashMap<>();
-                for (final ConfiguredObject<?> child : children)
-                {
-                    addObjectMetrics(child, childLabelNames, childrenMetricFamilyMap, metricFamilySamples);
-                    final List<String> labelNames = new ArrayList<>(childLabelNames);
-                    final String label = String.format("%s_name", toSnakeCase(childClass.getSimpleName()));
-                    labelNames.add(label);
-                    addChildrenMetrics(metricFamilySamples, child, labelNames);
-                }
-            }
+            return List.of();
+        }
+        final List<String> labelNames = new ArrayList<>();
+        labelNames.add("name");
+        addAncestorLabelNames(object.getParent(), labelNames);
+        return labelNames;
+    }
+
+    private void addAncestorLabelNames(final ConfiguredObject<?> ancestor, final List<String> labelNames)
+    {
+        if (ancestor != _root)
+        {
+            addAncestorLabelNames(ancestor.getParent(), labelNames);
+            labelNames.add(String.format("%s_name", toSnakeCase(ancestor.getCategoryClass().getSimpleName())));
         }
     }
 
@@ -189,15 +321,6 @@ public class QpidCollector extends Collector
         return sb.toString();
     }
 
-    private double toDoubleValue(final Object value)
-    {
-        if (value instanceof Number)
-        {
-            return ((Number) value).doubleValue();
-        }
-        return 0;
-    }
-
     static String getFamilyName(final Class<? extends ConfiguredObject> categoryClass,
                                 ConfiguredObjectStatistic<?, ?> statistics)
     {
@@ -212,6 +335,15 @@ public class QpidCollector extends Collector
                              metricName);
     }
 
+    static String getLatencyFamilyName(final Class<? extends ConfiguredObject> categoryClass,
+                                       final LatencyHistogram histogram)
+    {
+        return String.format("qpid_%s_%s_%s",
+                             toSnakeCase(categoryClass.getSimpleName()),
+                             toSnakeCase(histogram.getName()),
+                             SECONDS_SUFFIX);
+    }
+
     private static String generateMetricName(final ConfiguredObjectStatistic<?, ?> statistics)
     {
         String metricName = toSnakeCase(statistics.getName());
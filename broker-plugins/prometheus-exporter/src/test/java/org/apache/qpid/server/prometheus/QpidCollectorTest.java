@@ -58,6 +58,8 @@ import org.apache.qpid.server.model.testmodels.hierarchy.TestModel;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestPetrolEngineImpl;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestSensor;
 import org.apache.qpid.server.model.testmodels.hierarchy.TestTemperatureSensorImpl;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.stats.StatisticsSnapshot;
 import org.apache.qpid.test.utils.UnitTestBase;
 
 public class QpidCollectorTest extends UnitTestBase
@@ -209,6 +211,53 @@ public class QpidCollectorTest extends UnitTestBase
     }
 
 
+    @Test
+    public void testCollectFromSharedSnapshot()
+    {
+        createTestEngine(ELECTRIC_ENGINE_NAME, TestElecEngineImpl.TEST_ELEC_ENGINE_TYPE);
+        final StatisticsSnapshot snapshot = StatisticsSnapshot.create(_root);
+        _root.move(DESIRED_MILEAGE);
+
+        _qpidCollector = new QpidCollector(_root, () -> snapshot, new IncludeDisabledStatisticPredicate(false), s->true);
+        final List<Collector.MetricFamilySamples> metrics = _qpidCollector.collect();
+
+        final String[] expectedFamilyNames = {QPID_TEST_CAR_MILEAGE_COUNT,
+                                              QPID_TEST_ENGINE_TEMPERATURE_TOTAL,
+                                              QpidCollector.SNAPSHOT_AGE_FAMILY_NAME,
+                                              QpidCollector.SNAPSHOT_BUILD_DURATION_FAMILY_NAME,
+                                              QpidCollector.SNAPSHOT_OBJECTS_FAMILY_NAME};
+        final Map<String, Collector.MetricFamilySamples> metricsMap =
+                convertMetricFamilySamplesIntoMapAndAssert(metrics, expectedFamilyNames);
+
+        final Collector.MetricFamilySamples carMetricFamilySamples = metricsMap.get(QPID_TEST_CAR_MILEAGE_COUNT);
+        assertMetricFamilySamplesSize(carMetricFamilySamples, 1);
+        assertThat("Mileage should be read from the snapshot",
+                   carMetricFamilySamples.samples.get(0).value, closeTo(0, 0.01));
+
+        final Collector.MetricFamilySamples objectsMetricFamilySamples =
+                metricsMap.get(QpidCollector.SNAPSHOT_OBJECTS_FAMILY_NAME);
+        assertMetricFamilySamplesSize(objectsMetricFamilySamples, 1);
+        assertThat(objectsMetricFamilySamples.samples.get(0).value, closeTo(2, 0.01));
+    }
+
+    @Test
+    public void testCollectExcludesObjectsOutsideRoot()
+    {
+        final TestEngine<?> engine = createTestEngine(ELECTRIC_ENGINE_NAME, TestElecEngineImpl.TEST_ELEC_ENGINE_TYPE);
+
+        _qpidCollector = new QpidCollector(engine,
+                                           () -> StatisticsSnapshot.create(_root),
+                                           new IncludeDisabledStatisticPredicate(false),
+                                           name -> name.startsWith("qpid_test_"));
+        final List<Collector.MetricFamilySamples> metrics = _qpidCollector.collect();
+
+        final Map<String, Collector.MetricFamilySamples> metricsMap =
+                convertMetricFamilySamplesIntoMapAndAssert(metrics, new String[]{QPID_TEST_ENGINE_TEMPERATURE_TOTAL});
+        final Collector.MetricFamilySamples.Sample engineSample =
+                metricsMap.get(QPID_TEST_ENGINE_TEMPERATURE_TOTAL).samples.get(0);
+        assertThat(engineSample.labelNames.size(), is(equalTo(0)));
+    }
+
     private Collector.MetricFamilySamples.Sample findSampleByLabelValue(final Collector.MetricFamilySamples metricFamilySamples,
                                                                         final String nameLabelValue)
     {
@@ -222,12 +271,12 @@ public class QpidCollectorTest extends UnitTestBase
         return found.get(0);
     }
 
-    private void createTestEngine(final String engineName, final String engineType)
+    private TestEngine<?> createTestEngine(final String engineName, final String engineType)
     {
         final Map<String, Object> engineAttributes = new HashMap<>();
         engineAttributes.put(ConfiguredObject.NAME, engineName);
         engineAttributes.put(ConfiguredObject.TYPE, engineType);
-        _root.createChild(TestEngine.class, engineAttributes);
+        return (TestEngine<?>) _root.createChild(TestEngine.class, engineAttributes);
     }
 
     private void createTestSensor(final TestInstrumentPanel instrumentPanel)
@@ -348,6 +397,14 @@ public class QpidCollectorTest extends UnitTestBase
         }
     }
 
+    @Test
+    public void getLatencyFamilyName()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram("brakeResponseLatency", "Brake response latency");
+        final String familyName = QpidCollector.getLatencyFamilyName(TestCar.class, histogram);
+        assertThat(familyName, is(equalTo("qpid_test_car_brake_response_latency_seconds")));
+    }
+
     String getSuffix(final StatisticUnit unit,final String requiredSuffix)
     {
         String suffix = "_" + requiredSuffix;
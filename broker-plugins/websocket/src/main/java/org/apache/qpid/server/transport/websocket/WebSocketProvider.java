@@ -609,6 +609,12 @@ class WebSocketProvider implements AcceptingTransport
             return _connection.getProtocolVersion();
         }
 
+        @Override
+        public long getRetainedBufferSize()
+        {
+            return 0L;
+        }
+
         @Override
         public long getScheduledTime()
         {